@@ -0,0 +1,113 @@
+-- Сравнение запросов к платежам по диапазону дат на обычной и на помесячно секционированной таблице
+--
+-- В схеме partition_bench создаются две копии синтетических платежей за несколько лет:
+-- payments_plain - обычная таблица, payments_part - секционированная так же, как payments
+-- после миграции V4 (секции создаёт функция create_monthly_partitions, индексы как в V2).
+-- Каждый запрос выполняется несколько раз через EXPLAIN (ANALYZE, BUFFERS), в результате
+-- медиана времени (планирование + выполнение), прочитанные страницы и число секций в плане.
+-- Схема удаляется в конце.
+--
+-- Нужна база данных с применённой миграцией V4. Запуск:
+--   psql -d realestate -f scripts/partitioning-benchmark.sql
+-- Объём данных и период задаются в bench_settings ниже.
+
+DROP SCHEMA IF EXISTS partition_bench CASCADE;
+CREATE SCHEMA partition_bench;
+SET search_path = partition_bench, public;
+
+CREATE TABLE bench_settings AS
+SELECT 3000000 AS payment_rows, DATE '2019-01-01' AS first_date, DATE '2025-01-01' AS until_date, 7 AS runs;
+
+-- Синтетические платежи, равномерно распределённые по периоду. Даты не связаны с порядком вставки,
+-- как у платежей графиков, которые создаются сразу на годы вперёд
+CREATE TABLE payments_plain (
+    id_payment   BIGINT NOT NULL PRIMARY KEY,
+    payment_date DATE NOT NULL,
+    amount       NUMERIC(13, 4) NOT NULL,
+    id_deal      BIGINT NOT NULL
+);
+
+INSERT INTO payments_plain
+SELECT g,
+       s.first_date + (hashint8(g) % (s.until_date - s.first_date) + (s.until_date - s.first_date))
+                      % (s.until_date - s.first_date),
+       round((10000 + g % 990000)::numeric, 2),
+       1 + g / 3
+FROM bench_settings s, generate_series(1, s.payment_rows) g;
+
+CREATE INDEX ON payments_plain (id_deal, payment_date DESC) INCLUDE (amount);
+CREATE INDEX ON payments_plain (payment_date);
+
+CREATE TABLE payments_part (
+    id_payment   BIGINT NOT NULL,
+    payment_date DATE NOT NULL,
+    amount       NUMERIC(13, 4) NOT NULL,
+    id_deal      BIGINT NOT NULL,
+    PRIMARY KEY (id_payment, payment_date)
+) PARTITION BY RANGE (payment_date);
+
+CREATE TABLE payments_part_default PARTITION OF payments_part DEFAULT;
+SELECT create_monthly_partitions('payments_part', 'payment_date', first_date, until_date) FROM bench_settings;
+
+INSERT INTO payments_part SELECT * FROM payments_plain;
+
+CREATE INDEX ON payments_part (id_deal, payment_date DESC) INCLUDE (amount);
+CREATE INDEX ON payments_part (payment_date);
+
+ANALYZE payments_plain;
+ANALYZE payments_part;
+
+-- Запросы; {t} заменяется именем таблицы
+CREATE TABLE bench_queries (position INTEGER, name TEXT, sql TEXT);
+INSERT INTO bench_queries VALUES
+    (1, 'итоги за месяц',
+        'SELECT count(*), sum(amount) FROM {t} WHERE payment_date >= DATE ''2023-06-01'' AND payment_date < DATE ''2023-07-01'''),
+    (2, 'итоги за квартал',
+        'SELECT count(*), sum(amount) FROM {t} WHERE payment_date >= DATE ''2023-04-01'' AND payment_date < DATE ''2023-07-01'''),
+    (3, 'итоги за год по месяцам',
+        'SELECT date_trunc(''month'', payment_date), sum(amount) FROM {t} '
+        'WHERE payment_date >= DATE ''2022-01-01'' AND payment_date < DATE ''2023-01-01'' GROUP BY 1'),
+    (4, 'страница за месяц',
+        'SELECT * FROM {t} WHERE payment_date >= DATE ''2023-06-01'' AND payment_date < DATE ''2023-07-01'' '
+        'ORDER BY payment_date DESC, id_payment DESC LIMIT 20 OFFSET 200'),
+    (5, 'страница за месяц по сумме',
+        'SELECT * FROM {t} WHERE payment_date >= DATE ''2023-06-01'' AND payment_date < DATE ''2023-07-01'' '
+        'ORDER BY amount DESC LIMIT 20'),
+    (6, 'платежи сделки (без даты)',
+        'SELECT * FROM {t} WHERE id_deal = 123457'),
+    (7, 'платёж по id (без даты)',
+        'SELECT * FROM {t} WHERE id_payment = 370371');
+
+-- Медиана времени, страницы и число таблиц (секций) в плане последнего выполнения
+CREATE FUNCTION bench_run(query TEXT, runs INTEGER,
+                          OUT median_ms NUMERIC, OUT buffers BIGINT, OUT relations INTEGER)
+    LANGUAGE plpgsql AS '
+DECLARE
+    plan JSONB;
+    timings NUMERIC[] := ''{}'';
+BEGIN
+    FOR i IN 1 .. runs LOOP
+        EXECUTE ''EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) '' || query INTO plan;
+        timings := timings || ((plan -> 0 ->> ''Planning Time'')::numeric + (plan -> 0 ->> ''Execution Time'')::numeric);
+    END LOOP;
+    SELECT percentile_cont(0.5) WITHIN GROUP (ORDER BY t) INTO median_ms FROM unnest(timings) t;
+    median_ms := round(median_ms, 2);
+    buffers := (plan -> 0 -> ''Plan'' ->> ''Shared Hit Blocks'')::bigint
+             + (plan -> 0 -> ''Plan'' ->> ''Shared Read Blocks'')::bigint;
+    relations := jsonb_array_length(jsonb_path_query_array(plan, ''strict $.**."Relation Name"''));
+END';
+
+SELECT q.name AS query,
+       plain.median_ms AS plain_ms,
+       part.median_ms AS partitioned_ms,
+       plain.buffers AS plain_buffers,
+       part.buffers AS partitioned_buffers,
+       part.relations AS partitions_in_plan
+FROM bench_queries q
+CROSS JOIN bench_settings s
+CROSS JOIN LATERAL bench_run(replace(q.sql, '{t}', 'payments_plain'), s.runs) plain
+CROSS JOIN LATERAL bench_run(replace(q.sql, '{t}', 'payments_part'), s.runs) part
+ORDER BY q.position;
+
+RESET search_path;
+DROP SCHEMA partition_bench CASCADE;
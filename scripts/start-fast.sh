@@ -0,0 +1,29 @@
+#!/bin/sh
+# Запуск приложения в режиме быстрого старта
+#
+# Использует сборку профиля fast-startup (mvn -Pfast-startup package): распакованный jar
+# с классами Spring AOT и архив CDS application.jsa из пробного запуска.
+# JVM должна совпадать с той, которой выполнялась сборка, иначе архив не подключится
+# и приложение стартует как обычно (-Xshare:auto).
+#
+# Использование: scripts/start-fast.sh [аргументы приложения]
+# Дополнительные параметры JVM - в переменной JAVA_OPTS.
+
+set -e
+
+DIR="${FAST_STARTUP_DIR:-$(cd "$(dirname "$0")/.." && pwd)/target/fast-startup}"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+
+JAR=$(ls "$DIR"/*.jar 2>/dev/null | head -n 1)
+if [ -z "$JAR" ] || [ ! -f "$DIR/application.jsa" ]; then
+    echo "Нет сборки быстрого старта в $DIR, выполните: mvn -Pfast-startup package" >&2
+    exit 1
+fi
+
+# shellcheck disable=SC2086
+exec "$JAVA" \
+    -XX:SharedArchiveFile="$DIR/application.jsa" \
+    -Xshare:auto \
+    -Dspring.aot.enabled=true \
+    $JAVA_OPTS \
+    -jar "$JAR" "$@"
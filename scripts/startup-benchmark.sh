@@ -0,0 +1,89 @@
+#!/bin/sh
+# Сравнение скорости старта обычного jar и режима быстрого старта (Spring AOT + CDS)
+#
+# Для каждого режима приложение запускается RUNS раз, в каждом запуске измеряются:
+#   ready - время до готовности по журналу Spring Boot ("process running for ...");
+#   first - время от запуска процесса до первого успешного ответа на URL;
+#   latency - длительность этого первого запроса (прогрев JIT, Thymeleaf, пула соединений).
+# В конце выводятся медианы. Нужны собранный профиль fast-startup и доступная база данных.
+#
+# Использование: scripts/startup-benchmark.sh [RUNS] [URL_PATH]
+# Параметры окружения: PORT (по умолчанию 18080), JAVA_HOME, JAVA_OPTS.
+
+set -e
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+RUNS="${1:-5}"
+URL_PATH="${2:-/api/deal-types}"
+PORT="${PORT:-18080}"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+URL="http://localhost:$PORT$URL_PATH"
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+PLAIN_JAR=$(ls "$ROOT"/target/*.jar 2>/dev/null | grep -v original | head -n 1)
+if [ -z "$PLAIN_JAR" ] || [ ! -d "$ROOT/target/fast-startup" ]; then
+    echo "Нет сборки, выполните: mvn -Pfast-startup package" >&2
+    exit 1
+fi
+
+# Текущее время в миллисекундах
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Один запуск: $1 - имя режима, далее команда запуска. Пишет строку "ready first latency" в файл режима
+run_once() {
+    mode="$1"
+    shift
+    log="$WORK/$mode.log"
+    start=$(now_ms)
+    "$@" --server.port="$PORT" --app.audit.enabled=false > "$log" 2>&1 &
+    pid=$!
+
+    latency=""
+    while [ -z "$latency" ]; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "Приложение ($mode) завершилось при старте, журнал: " >&2
+            tail -n 30 "$log" >&2
+            exit 1
+        fi
+        response=$(curl -s -o /dev/null -w '%{http_code} %{time_total}' "$URL" 2>/dev/null || true)
+        case "$response" in
+            2??\ *) latency="${response#* }" ;;
+            *) sleep 0.05 ;;
+        esac
+    done
+    first=$(( $(now_ms) - start ))
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+
+    ready=$(sed -n 's/.*process running for \([0-9.]*\)).*/\1/p' "$log" | head -n 1)
+    latency_ms=$(awk -v s="$latency" 'BEGIN { printf "%d", s * 1000 }')
+    ready_ms=$(awk -v s="${ready:-0}" 'BEGIN { printf "%d", s * 1000 }')
+    echo "$ready_ms $first $latency_ms" >> "$WORK/$mode.results"
+    echo "$mode: ready ${ready_ms} мс, first ${first} мс, latency ${latency_ms} мс"
+}
+
+# Медиана столбца $2 файла $1
+median() {
+    cut -d ' ' -f "$2" "$1" | sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+i=1
+while [ "$i" -le "$RUNS" ]; do
+    # shellcheck disable=SC2086
+    run_once plain "$JAVA" $JAVA_OPTS -jar "$PLAIN_JAR"
+    run_once fast "$ROOT/scripts/start-fast.sh"
+    i=$((i + 1))
+done
+
+echo
+printf '%-8s %12s %12s %14s\n' "режим" "ready, мс" "first, мс" "latency, мс"
+for mode in plain fast; do
+    printf '%-8s %12s %12s %14s\n' "$mode" \
+        "$(median "$WORK/$mode.results" 1)" \
+        "$(median "$WORK/$mode.results" 2)" \
+        "$(median "$WORK/$mode.results" 3)"
+done
@@ -2,8 +2,10 @@ package ru.realestate.realestate_app;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class RealestateApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,69 @@
+package ru.realestate.realestate_app.assets;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.time.Duration;
+
+/**
+ * Раздача статических ресурсов вместо стандартной (spring.web.resources.add-mappings=false)
+ *
+ * По версионному адресу /v-хэш/** ресурс кэшируется браузером на год без перепроверки (immutable).
+ * По обычному адресу ответ перепроверяется по ETag. Ссылки @{/css/style.css} в шаблонах
+ * заменяются на версионные фильтром ResourceUrlEncodingFilter (spring.web.resources.chain.enabled).
+ * Если рядом с файлом лежат сжатые при сборке копии .br или .gz, отдаются они (по Accept-Encoding),
+ * и сжатие не выполняется при каждом запросе.
+ */
+@Configuration(proxyBeanMethods = false)
+public class StaticAssetConfiguration implements WebMvcConfigurer {
+
+    private static final Duration VERSIONED_MAX_AGE = Duration.ofDays(365);
+
+    private final StaticAssets staticAssets;
+
+    /**
+     * Конструктор с инжекцией зависимостей
+     * @param staticAssets версия и каталоги статических ресурсов
+     */
+    public StaticAssetConfiguration(StaticAssets staticAssets) {
+        this.staticAssets = staticAssets;
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        String[] locations = staticAssets.getLocations().toArray(String[]::new);
+
+        // Версионные адреса: префикс версии отбрасывается шаблоном пути, содержимое под ним не меняется
+        registry.addResourceHandler("/" + staticAssets.getVersion() + "/**")
+            .addResourceLocations(locations)
+            .setCacheControl(CacheControl.maxAge(VERSIONED_MAX_AGE).cachePublic().immutable())
+            .resourceChain(true)
+            .addResolver(new EncodedResourceResolver());
+
+        // Обычные адреса: перепроверка по ETag; VersionResourceResolver строит версионные ссылки
+        registry.addResourceHandler("/**")
+            .addResourceLocations(locations)
+            .setCacheControl(CacheControl.noCache())
+            .setEtagGenerator(this::etag)
+            .resourceChain(true)
+            .addResolver(new EncodedResourceResolver())
+            .addResolver(new VersionResourceResolver().addFixedVersionStrategy(staticAssets.getVersion(), "/**"));
+    }
+
+    /**
+     * ETag ресурса: версия всех ресурсов и кодировка сжатой копии, если отдаётся она
+     */
+    private String etag(Resource resource) {
+        String encoding = resource instanceof HttpResource httpResource
+            ? httpResource.getResponseHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)
+            : null;
+        return "\"" + staticAssets.getVersion() + (encoding == null ? "" : "-" + encoding) + "\"";
+    }
+}
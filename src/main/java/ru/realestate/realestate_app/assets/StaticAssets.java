@@ -0,0 +1,100 @@
+package ru.realestate.realestate_app.assets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.web.WebProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Версия статических ресурсов (CSS, JS) по их содержимому
+ *
+ * Версия - хэш путей и содержимого всех файлов каталогов spring.web.resources.static-locations,
+ * кроме сжатых копий (.gz, .br). Она входит в адреса ресурсов префиксом (/v-хэш/js/main.js),
+ * поэтому адрес меняется при изменении любого файла и ответ по нему можно кэшировать без срока.
+ * Префикс, а не хэш в имени каждого файла, нужен для JS-модулей: их относительные import
+ * разрешаются браузером от адреса модуля и попадают под ту же версию без переписывания.
+ */
+@Component
+public class StaticAssets {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaticAssets.class);
+
+    // Сжатые копии создаются при сборке из исходных файлов и на версию не влияют
+    private static final List<String> ENCODED_EXTENSIONS = List.of(".gz", ".br");
+
+    private final List<String> locations;
+    private final String version;
+
+    /**
+     * Конструктор с вычислением версии по содержимому ресурсов
+     * @param webProperties настройки веб-ресурсов (каталоги статических ресурсов)
+     */
+    public StaticAssets(WebProperties webProperties) {
+        this.locations = List.of(webProperties.getResources().getStaticLocations());
+        this.version = "v-" + hash(readAssets());
+    }
+
+    /**
+     * Каталоги статических ресурсов
+     */
+    public List<String> getLocations() {
+        return locations;
+    }
+
+    /**
+     * Версия ресурсов, она же первый сегмент версионного адреса (v-хэш)
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    private Map<String, Resource> readAssets() {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        // Порядок по относительному пути, чтобы версия не зависела от порядка обхода каталогов
+        Map<String, Resource> assets = new TreeMap<>();
+        try {
+            for (String location : locations) {
+                String root = resolver.getResource(location).getURL().toString();
+                for (Resource resource : resolver.getResources(location + "**/*")) {
+                    String path = resource.getURL().toString();
+                    if (resource.isReadable() && path.startsWith(root)
+                            && ENCODED_EXTENSIONS.stream().noneMatch(path::endsWith)) {
+                        assets.putIfAbsent(path.substring(root.length()), resource);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать статические ресурсы", e);
+        }
+        logger.debug("Версия статических ресурсов считается по {} файлам", assets.size());
+        return assets;
+    }
+
+    private static String hash(Map<String, Resource> assets) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Map.Entry<String, Resource> asset : assets.entrySet()) {
+                digest.update(asset.getKey().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(asset.getValue().getContentAsByteArray());
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Алгоритм SHA-256 недоступен", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать статические ресурсы", e);
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package ru.realestate.realestate_app.audit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import ru.realestate.realestate_app.audit.AuditJournalReader.ScanResult;
+import ru.realestate.realestate_app.transaction.AfterCommit;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * Журнал аудита изменений данных
+ *
+ * DAO передают образы строки до и после изменения, полученные той же SQL командой
+ * (RETURNING), поэтому аудит не добавляет запросов к базе данных. Запись только помещается
+ * в неблокирующую очередь; единственный поток-писатель сериализует её и дописывает
+ * в сегмент журнала, отображённый в память. Заполненный сегмент закрывается и создаётся
+ * следующий, старые сегменты сверх заданного количества удаляются. Изменения в транзакции
+ * попадают в очередь только после её фиксации.
+ *
+ * Сброс на диск выполняется не чаще заданного интервала: при аварийной остановке ОС
+ * теряются записи последнего интервала, при остановке процесса - только не записанные
+ * из очереди. При переполнении очереди записи отбрасываются и учитываются в статистике.
+ * Формат сегментов описан в {@link AuditJournalReader}.
+ */
+@Component
+public class AuditJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditJournal.class);
+
+    // Сообщение об отброшенных записях выводится не чаще одного раза на столько записей
+    private static final long DROP_LOG_EVERY = 10_000;
+
+    /**
+     * Операция над строкой
+     */
+    public enum Operation { INSERT, UPDATE, DELETE }
+
+    /**
+     * Образы изменённой строки в виде JSON, возвращённые командой изменения
+     * @param id идентификатор строки
+     * @param before строка до изменения (null для INSERT)
+     * @param after строка после изменения (null для DELETE)
+     */
+    public record RowChange(long id, String before, String after) {}
+
+    /**
+     * Маппер для RETURNING ... AS id, ... AS before_image, ... AS after_image
+     */
+    public static final RowMapper<RowChange> ROW_CHANGE_MAPPER = (rs, _) ->
+        new RowChange(rs.getLong("id"), rs.getString("before_image"), rs.getString("after_image"));
+
+    private record Pending(Operation operation, String entity, RowChange change, long timestamp) {}
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final int retainedSegments;
+    private final long forceIntervalNanos;
+    private final int queueCapacity;
+
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile Thread writer;
+    private volatile boolean running;
+    private volatile boolean writerIdle;
+
+    // Состояние потока-писателя; остальные потоки только читают volatile поля
+    private final CRC32C crc = new CRC32C();
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long nextSequence = 1;
+    private boolean dirty;
+    private long lastForce;
+    private volatile Path segmentPath;
+    private volatile long lastSequence;
+    private volatile long written;
+
+    /**
+     * Конструктор журнала
+     * @param enabled включён ли аудит
+     * @param directory каталог сегментов
+     * @param segmentSize размер сегмента
+     * @param retainedSegments сколько сегментов хранить (0 - не удалять)
+     * @param forceInterval интервал сброса сегмента на диск
+     * @param queueCapacity максимальное количество записей в очереди
+     */
+    public AuditJournal(@Value("${app.audit.enabled:true}") boolean enabled,
+                        @Value("${app.audit.dir:audit}") String directory,
+                        @Value("${app.audit.segment-size:64MB}") DataSize segmentSize,
+                        @Value("${app.audit.retained-segments:32}") int retainedSegments,
+                        @Value("${app.audit.force-interval:PT1S}") Duration forceInterval,
+                        @Value("${app.audit.queue-capacity:100000}") int queueCapacity) {
+        if (segmentSize.toBytes() < 64 * 1024 || segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Размер сегмента журнала аудита должен быть от 64KB до 2GB");
+        }
+        this.enabled = enabled;
+        this.directory = Path.of(directory).toAbsolutePath();
+        this.segmentSize = (int) segmentSize.toBytes();
+        this.retainedSegments = retainedSegments;
+        this.forceIntervalNanos = forceInterval.toNanos();
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Открыть последний сегмент и запустить поток-писатель
+     * Если каталог недоступен, аудит отключается, а приложение продолжает работу
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            logger.info("Журнал аудита отключён");
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            openLastSegment();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Журнал аудита не открыт, изменения не будут записываться: {}", e.getMessage());
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("audit-journal-writer").daemon().start(this::runWriter);
+        logger.info("Журнал аудита: {}, следующая запись {}", segmentPath, nextSequence);
+    }
+
+    /**
+     * Записать очередь и сбросить сегмент на диск при остановке приложения
+     */
+    @PreDestroy
+    public void stop() {
+        Thread thread = writer;
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Учесть добавление строки
+     * @param entity тип сущности
+     * @param change идентификатор и образ добавленной строки
+     */
+    public void recordInsert(String entity, RowChange change) {
+        record(Operation.INSERT, entity, change);
+    }
+
+    /**
+     * Учесть изменение строки
+     * @param entity тип сущности
+     * @param change идентификатор и образы строки до и после изменения
+     */
+    public void recordUpdate(String entity, RowChange change) {
+        record(Operation.UPDATE, entity, change);
+    }
+
+    /**
+     * Учесть удаление строки
+     * @param entity тип сущности
+     * @param change идентификатор и образ удалённой строки
+     */
+    public void recordDelete(String entity, RowChange change) {
+        record(Operation.DELETE, entity, change);
+    }
+
+    /**
+     * Каталог сегментов журнала
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Состояние журнала и очереди
+     */
+    public Map<String, Object> getStats() {
+        Path current = segmentPath;
+        return Map.of(
+            "enabled", writer != null,
+            "directory", directory.toString(),
+            "currentSegment", current == null ? "" : current.getFileName().toString(),
+            "segments", AuditJournalReader.listSegments(directory).size(),
+            "lastSequence", lastSequence,
+            "written", written,
+            "queued", queued.get(),
+            "dropped", dropped.get()
+        );
+    }
+
+    private void record(Operation operation, String entity, RowChange change) {
+        if (writer == null || change == null) {
+            return;
+        }
+        Pending pending = new Pending(operation, entity, change, System.currentTimeMillis());
+        AfterCommit.run(() -> enqueue(pending));
+    }
+
+    private void enqueue(Pending pending) {
+        if (queued.incrementAndGet() > queueCapacity || !running) {
+            queued.decrementAndGet();
+            if (dropped.incrementAndGet() % DROP_LOG_EVERY == 1) {
+                logger.warn("Очередь журнала аудита переполнена, отброшено записей: {}", dropped.get());
+            }
+            return;
+        }
+        queue.offer(pending);
+        if (writerIdle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void runWriter() {
+        lastForce = System.nanoTime();
+        while (true) {
+            Pending pending = queue.poll();
+            if (pending == null) {
+                if (!running) {
+                    break;
+                }
+                forceIfDue();
+                // Флаг выставляется до повторной проверки очереди, чтобы не пропустить unpark
+                writerIdle = true;
+                if (queue.isEmpty() && running) {
+                    LockSupport.parkNanos(this, forceIntervalNanos);
+                }
+                writerIdle = false;
+                continue;
+            }
+            queued.decrementAndGet();
+            try {
+                append(pending);
+            } catch (IOException | RuntimeException e) {
+                dropped.incrementAndGet();
+                logger.error("Не удалось записать в журнал аудита {} {} {}: {}",
+                            pending.operation(), pending.entity(), pending.change().id(), e.getMessage());
+            }
+            forceIfDue();
+        }
+        try {
+            force();
+            channel.close();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Не удалось закрыть сегмент журнала аудита: {}", e.getMessage());
+        }
+        logger.info("Журнал аудита закрыт, последняя запись {}", lastSequence);
+    }
+
+    private void append(Pending pending) throws IOException {
+        byte[] payload = encode(pending);
+        int recordSize = AuditJournalReader.RECORD_HEADER_SIZE + payload.length;
+        if (recordSize > segmentSize - AuditJournalReader.SEGMENT_HEADER_SIZE) {
+            throw new IOException("запись размером " + recordSize + " байт больше сегмента");
+        }
+        if (segment.remaining() < recordSize) {
+            openSegment(nextSequence);
+        }
+
+        // Тело записывается раньше длины: пока длина нулевая, читатели считают запись отсутствующей
+        int position = segment.position();
+        long sequence = nextSequence;
+        segment.putLong(position + 8, sequence);
+        segment.putLong(position + 16, pending.timestamp());
+        segment.put(position + AuditJournalReader.RECORD_HEADER_SIZE, payload);
+        crc.reset();
+        crc.update(segment.slice(position + 8, recordSize - 8));
+        segment.putInt(position + 4, (int) crc.getValue());
+        segment.putInt(position, payload.length);
+        segment.position(position + recordSize);
+
+        nextSequence = sequence + 1;
+        lastSequence = sequence;
+        written++;
+        dirty = true;
+    }
+
+    /**
+     * Данные записи: {"op":...,"entity":...,"id":...,"before":...,"after":...}
+     * Образы строк уже являются JSON из базы данных и вставляются без разбора
+     */
+    private static byte[] encode(Pending pending) {
+        RowChange change = pending.change();
+        StringBuilder json = new StringBuilder(64 + length(change.before()) + length(change.after()));
+        json.append("{\"op\":\"").append(pending.operation())
+            .append("\",\"entity\":\"").append(pending.entity())
+            .append("\",\"id\":").append(change.id())
+            .append(",\"before\":").append(change.before() == null ? "null" : change.before())
+            .append(",\"after\":").append(change.after() == null ? "null" : change.after())
+            .append('}');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private void forceIfDue() {
+        if (dirty && System.nanoTime() - lastForce >= forceIntervalNanos) {
+            force();
+        }
+    }
+
+    private void force() {
+        if (dirty) {
+            segment.force();
+            dirty = false;
+        }
+        lastForce = System.nanoTime();
+    }
+
+    /**
+     * Продолжить запись в последний сегмент после последней целой записи
+     * Хвост за оборванной записью обнуляется, чтобы новые записи не смешивались с ним
+     */
+    private void openLastSegment() throws IOException {
+        List<Path> segments = AuditJournalReader.listSegments(directory);
+        if (segments.isEmpty()) {
+            openSegment(1);
+            return;
+        }
+        Path last = segments.get(segments.size() - 1);
+        long firstSequence = AuditJournalReader.firstSequence(last);
+        FileChannel lastChannel = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer lastSegment = lastChannel.map(FileChannel.MapMode.READ_WRITE, 0, lastChannel.size());
+        if (!AuditJournalReader.hasValidHeader(lastSegment)) {
+            // Повреждённый файл откладывается в сторону, запись продолжается после предыдущего сегмента
+            lastChannel.close();
+            Path corrupt = last.resolveSibling(last.getFileName() + ".corrupt");
+            Files.move(last, corrupt);
+            logger.warn("Сегмент журнала аудита {} повреждён и переименован в {}", last, corrupt.getFileName());
+            openLastSegment();
+            return;
+        }
+
+        ScanResult result = AuditJournalReader.scan(lastSegment, (_, _, _) -> true);
+        if (result.torn()) {
+            logger.warn("В сегменте журнала аудита {} отброшена оборванная запись после {}",
+                       last, result.lastSequence());
+            for (int i = result.endPosition(); i < lastSegment.limit(); i++) {
+                lastSegment.put(i, (byte) 0);
+            }
+            lastSegment.force();
+        }
+        channel = lastChannel;
+        segment = lastSegment;
+        segment.position(result.endPosition());
+        segmentPath = last;
+        lastSequence = result.records() > 0 ? result.lastSequence() : firstSequence - 1;
+        nextSequence = lastSequence + 1;
+    }
+
+    /**
+     * Закрыть текущий сегмент и создать новый, начинающийся с записи firstSequence
+     */
+    private void openSegment(long firstSequence) throws IOException {
+        if (channel != null) {
+            force();
+            channel.close();
+        }
+        Path path = directory.resolve(AuditJournalReader.segmentName(firstSequence));
+        // Отображение в режиме записи расширяет файл до размера сегмента, заполняя его нулями
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                                   StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segment.putInt(0, AuditJournalReader.SEGMENT_MAGIC);
+        segment.putInt(4, AuditJournalReader.FORMAT_VERSION);
+        segment.position(AuditJournalReader.SEGMENT_HEADER_SIZE);
+        segmentPath = path;
+        dirty = true;
+        deleteOldSegments();
+    }
+
+    private void deleteOldSegments() {
+        if (retainedSegments <= 0) {
+            return;
+        }
+        List<Path> segments = AuditJournalReader.listSegments(directory);
+        for (int i = 0; i < segments.size() - retainedSegments; i++) {
+            try {
+                Files.deleteIfExists(segments.get(i));
+            } catch (IOException e) {
+                logger.warn("Не удалось удалить сегмент журнала аудита {}: {}", segments.get(i), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package ru.realestate.realestate_app.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Чтение сегментов журнала аудита
+ *
+ * Формат сегмента: заголовок [int magic][int версия], затем записи
+ * [int длина данных][int CRC32C][long номер][long время, мс][данные JSON].
+ * CRC считается по номеру, времени и данным. Нулевая длина означает конец записей:
+ * файл сегмента создаётся заполненным нулями, а длина записывается последней.
+ * Запись с неверной длиной или CRC (оборванная при аварийной остановке) завершает чтение сегмента.
+ */
+public final class AuditJournalReader {
+
+    static final int SEGMENT_MAGIC = 0x41554431; // "AUD1"
+    static final int FORMAT_VERSION = 1;
+    static final int SEGMENT_HEADER_SIZE = 8;
+    static final int RECORD_HEADER_SIZE = 24;
+
+    static final String SEGMENT_PREFIX = "audit-";
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Обработчик записи сегмента
+     */
+    @FunctionalInterface
+    interface RecordVisitor {
+        /**
+         * @return false, чтобы прекратить просмотр
+         */
+        boolean visit(long sequence, long timestamp, ByteBuffer payload);
+    }
+
+    /**
+     * Результат просмотра сегмента
+     * @param endPosition смещение сразу после последней целой записи
+     * @param lastSequence номер последней целой записи (0, если записей нет)
+     * @param records количество целых записей
+     * @param torn true, если после последней целой записи найдена повреждённая
+     * @param stopped true, если просмотр прекращён обработчиком
+     */
+    record ScanResult(int endPosition, long lastSequence, long records, boolean torn, boolean stopped) {}
+
+    /**
+     * Итог чтения журнала
+     * @param segments количество прочитанных сегментов
+     * @param records количество целых записей в прочитанных сегментах
+     * @param tornSegments сегменты, чтение которых остановлено на повреждённой записи
+     * @param invalidSegments файлы без корректного заголовка
+     */
+    public record ReadSummary(int segments, long records, int tornSegments, int invalidSegments) {}
+
+    private AuditJournalReader() {}
+
+    /**
+     * Прочитать записи журнала по возрастанию номера
+     * @param directory каталог журнала
+     * @param fromSequence минимальный номер записи (сегменты, целиком лежащие раньше, не открываются)
+     * @param consumer получатель записей; возвращает false, чтобы прекратить чтение
+     * @return итог чтения
+     * @throws UncheckedIOException при ошибке чтения каталога или сегмента
+     */
+    public static ReadSummary read(Path directory, long fromSequence, Predicate<AuditRecord> consumer) {
+        List<Path> segments = listSegments(directory);
+        int read = 0;
+        long records = 0;
+        int torn = 0;
+        int invalid = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= fromSequence) {
+                continue;
+            }
+            MappedByteBuffer segment = mapReadOnly(segments.get(i));
+            if (segment == null) {
+                continue; // удалён при ротации во время чтения
+            }
+            if (!hasValidHeader(segment)) {
+                invalid++;
+                continue;
+            }
+            ScanResult result = scan(segment, (sequence, timestamp, payload) ->
+                sequence < fromSequence || consumer.test(decode(sequence, timestamp, payload)));
+            read++;
+            records += result.records();
+            if (result.torn()) {
+                torn++;
+            }
+            if (result.stopped()) {
+                break;
+            }
+        }
+        return new ReadSummary(read, records, torn, invalid);
+    }
+
+    /**
+     * Сегменты журнала по возрастанию номера первой записи
+     * @param directory каталог журнала
+     * @return пути сегментов (пустой список, если каталога нет)
+     */
+    public static List<Path> listSegments(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            // Номер в имени дополнен нулями, поэтому порядок имён совпадает с порядком номеров
+            return files
+                .filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                })
+                .sorted()
+                .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать каталог журнала аудита " + directory, e);
+        }
+    }
+
+    /**
+     * Номер первой записи сегмента по имени файла
+     */
+    static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Имя файла сегмента, начинающегося с записи sequence
+     */
+    static String segmentName(long sequence) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX);
+    }
+
+    static boolean hasValidHeader(ByteBuffer segment) {
+        return segment.limit() >= SEGMENT_HEADER_SIZE
+            && segment.getInt(0) == SEGMENT_MAGIC
+            && segment.getInt(4) == FORMAT_VERSION;
+    }
+
+    /**
+     * Просмотреть целые записи сегмента (абсолютными чтениями, позиция буфера не меняется)
+     * @param segment содержимое сегмента с корректным заголовком
+     * @param visitor обработчик записей
+     * @return смещение конца записей, последний номер и признак оборванной записи
+     */
+    static ScanResult scan(ByteBuffer segment, RecordVisitor visitor) {
+        CRC32C crc = new CRC32C();
+        int limit = segment.limit();
+        int position = SEGMENT_HEADER_SIZE;
+        long lastSequence = 0;
+        long records = 0;
+        while (position + RECORD_HEADER_SIZE <= limit) {
+            int length = segment.getInt(position);
+            if (length == 0) {
+                return new ScanResult(position, lastSequence, records, false, false);
+            }
+            if (length < 0 || length > limit - position - RECORD_HEADER_SIZE) {
+                return new ScanResult(position, lastSequence, records, true, false);
+            }
+            crc.reset();
+            crc.update(segment.slice(position + 8, RECORD_HEADER_SIZE - 8 + length));
+            if ((int) crc.getValue() != segment.getInt(position + 4)) {
+                return new ScanResult(position, lastSequence, records, true, false);
+            }
+            lastSequence = segment.getLong(position + 8);
+            records++;
+            boolean proceed = visitor.visit(lastSequence, segment.getLong(position + 16),
+                                            segment.slice(position + RECORD_HEADER_SIZE, length));
+            position += RECORD_HEADER_SIZE + length;
+            if (!proceed) {
+                return new ScanResult(position, lastSequence, records, false, true);
+            }
+        }
+        return new ScanResult(position, lastSequence, records, false, false);
+    }
+
+    private static MappedByteBuffer mapReadOnly(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть сегмент журнала аудита " + path, e);
+        }
+    }
+
+    private static AuditRecord decode(long sequence, long timestamp, ByteBuffer payload) {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        try {
+            JsonNode node = MAPPER.readTree(bytes);
+            return new AuditRecord(
+                sequence,
+                Instant.ofEpochMilli(timestamp),
+                node.path("op").asText(),
+                node.path("entity").asText(),
+                node.path("id").asLong(),
+                image(node.get("before")),
+                image(node.get("after"))
+            );
+        } catch (IOException e) {
+            throw new UncheckedIOException("Некорректные данные записи журнала аудита " + sequence, e);
+        }
+    }
+
+    private static JsonNode image(JsonNode node) {
+        return node == null || node.isNull() ? null : node;
+    }
+}
@@ -0,0 +1,22 @@
+package ru.realestate.realestate_app.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Instant;
+
+/**
+ * Запись журнала аудита
+ *
+ * Образы строки - JSON строки таблицы (имена полей совпадают со столбцами),
+ * полученные той же командой, что и изменение.
+ *
+ * @param sequence сквозной номер записи
+ * @param timestamp время изменения
+ * @param operation операция: INSERT, UPDATE или DELETE
+ * @param entity тип сущности (Deal, Payment, Property, Client, Realtor)
+ * @param entityId идентификатор изменённой строки
+ * @param before строка до изменения (null для INSERT)
+ * @param after строка после изменения (null для DELETE)
+ */
+public record AuditRecord(long sequence, Instant timestamp, String operation, String entity, long entityId,
+                          JsonNode before, JsonNode after) {}
@@ -0,0 +1,125 @@
+package ru.realestate.realestate_app.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import ru.realestate.realestate_app.audit.AuditJournalReader.ReadSummary;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Утилита командной строки для чтения журнала аудита без запуска приложения
+ *
+ * Запуск из собранного jar:
+ * java -cp realestate-app.jar -Dloader.main=ru.realestate.realestate_app.audit.AuditReplayTool
+ *      org.springframework.boot.loader.launch.PropertiesLauncher audit [параметры]
+ *
+ * Параметры:
+ * --entity=Deal       только записи указанного типа сущности
+ * --id=123            только записи указанной сущности
+ * --from=1000         начиная с номера записи
+ * --until=5000        не дальше номера записи
+ * --state             вместо записей вывести состояние строк после воспроизведения журнала
+ *                     (последний образ каждой неудалённой строки)
+ * --verify            только проверить CRC всех записей и вывести итог
+ *
+ * Записи выводятся в stdout по одной JSON строке, итог чтения - в stderr.
+ * Код возврата 1, если найдены повреждённые сегменты или записи.
+ */
+public final class AuditReplayTool {
+
+    private AuditReplayTool() {}
+
+    public static void main(String[] args) {
+        if (args.length == 0 || args[0].startsWith("--")) {
+            System.err.println("Использование: AuditReplayTool <каталог журнала> [--entity=Deal] [--id=123]"
+                             + " [--from=N] [--until=N] [--state] [--verify]");
+            System.exit(2);
+        }
+        Path directory = Path.of(args[0]);
+        String entity = null;
+        Long entityId = null;
+        long from = 0;
+        long until = Long.MAX_VALUE;
+        boolean state = false;
+        boolean verify = false;
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--entity=")) {
+                entity = arg.substring("--entity=".length());
+            } else if (arg.startsWith("--id=")) {
+                entityId = Long.parseLong(arg.substring("--id=".length()));
+            } else if (arg.startsWith("--from=")) {
+                from = Long.parseLong(arg.substring("--from=".length()));
+            } else if (arg.startsWith("--until=")) {
+                until = Long.parseLong(arg.substring("--until=".length()));
+            } else if (arg.equals("--state")) {
+                state = true;
+            } else if (arg.equals("--verify")) {
+                verify = true;
+            } else {
+                System.err.println("Неизвестный параметр: " + arg);
+                System.exit(2);
+            }
+        }
+
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        PrintStream out = new PrintStream(System.out, false, StandardCharsets.UTF_8);
+        Map<String, JsonNode> rows = new LinkedHashMap<>();
+        String entityFilter = entity;
+        Long idFilter = entityId;
+        long last = until;
+        boolean printState = state;
+        boolean verifyOnly = verify;
+
+        ReadSummary summary = AuditJournalReader.read(directory, from, record -> {
+            if (record.sequence() > last) {
+                return false;
+            }
+            if (verifyOnly
+                || (entityFilter != null && !entityFilter.equals(record.entity()))
+                || (idFilter != null && idFilter != record.entityId())) {
+                return true;
+            }
+            if (printState) {
+                String key = record.entity() + ":" + record.entityId();
+                if (record.after() == null) {
+                    rows.remove(key);
+                } else {
+                    rows.put(key, record.after());
+                }
+            } else {
+                out.println(write(mapper, record));
+            }
+            return true;
+        });
+        if (printState) {
+            for (Map.Entry<String, JsonNode> row : rows.entrySet()) {
+                out.println(row.getKey() + " " + row.getValue());
+            }
+        }
+        out.flush();
+
+        System.err.printf("Сегментов: %d, целых записей: %d, с оборванной записью: %d, повреждённых: %d%n",
+                          summary.segments(), summary.records(), summary.tornSegments(), summary.invalidSegments());
+        if (summary.tornSegments() > 0 || summary.invalidSegments() > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static String write(ObjectMapper mapper, AuditRecord record) {
+        try {
+            return mapper.writeValueAsString(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package ru.realestate.realestate_app.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import ru.realestate.realestate_app.dao.ClientDao;
+import ru.realestate.realestate_app.model.Client;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Блокирующий индекс клиентов в памяти для поиска вероятных дубликатов
+ *
+ * Каждый клиент попадает в несколько блоков: по ключу телефона (последние 10 цифр),
+ * по локальной части email и по фонетическому ключу фамилии с первой буквой имени.
+ * Кандидаты для нового клиента - объединение его блоков, поэтому сравниваются
+ * единицы записей, а не вся таблица clients. Кандидаты оцениваются по совпадению
+ * контактов и сходству Джаро - Винклера имён (см. {@link FuzzyMatch}).
+ *
+ * Индекс обновляется сервисом клиентов при каждом изменении и раз в сутки перестраивается
+ * целиком на случай изменений в обход приложения.
+ */
+@Component
+public class ClientDuplicateIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientDuplicateIndex.class);
+
+    // Веса признаков в итоговой оценке (сумма ограничивается единицей)
+    private static final double PHONE_WEIGHT = 0.40;
+    private static final double EMAIL_WEIGHT = 0.40;
+    private static final double EMAIL_LOCAL_WEIGHT = 0.25;
+    private static final double LAST_NAME_WEIGHT = 0.30;
+    private static final double FIRST_NAME_WEIGHT = 0.15;
+    private static final double MIDDLE_NAME_WEIGHT = 0.10;
+
+    // Сходство имени, начиная с которого оно указывается среди причин совпадения
+    private static final double NAME_MATCH_SIMILARITY = 0.85;
+
+    /**
+     * Вероятный дубликат
+     * @param clientId идентификатор существующего клиента
+     * @param score оценка от 0 до 1
+     * @param matchedOn совпавшие признаки: phone, email, emailLocalPart, lastName, firstName, middleName
+     */
+    public record Candidate(long clientId, double score, List<String> matchedOn) {}
+
+    /**
+     * Нормализованные данные клиента
+     */
+    private record Entry(String lastName, String firstName, String middleName, String lastNameKey,
+                         String phoneKey, String email, String emailLocalKey) {
+
+        static Entry of(String lastName, String firstName, String middleName, String phone, String email) {
+            return new Entry(
+                FuzzyMatch.normalizeName(lastName),
+                FuzzyMatch.normalizeName(firstName),
+                FuzzyMatch.normalizeName(middleName),
+                FuzzyMatch.phoneticKey(lastName),
+                FuzzyMatch.phoneKey(phone),
+                email == null || email.isBlank() ? null : email.trim().toLowerCase(),
+                FuzzyMatch.emailLocalKey(email)
+            );
+        }
+
+        List<String> blockKeys() {
+            List<String> keys = new ArrayList<>(3);
+            if (phoneKey != null) {
+                keys.add("p:" + phoneKey);
+            }
+            if (emailLocalKey != null) {
+                keys.add("e:" + emailLocalKey);
+            }
+            if (!lastNameKey.isEmpty()) {
+                String firstNameKey = FuzzyMatch.phoneticKey(firstName);
+                keys.add("n:" + lastNameKey + "|" + (firstNameKey.isEmpty() ? "" : firstNameKey.charAt(0)));
+            }
+            return keys;
+        }
+    }
+
+    private final ClientDao clientDao;
+
+    // Изменяются и читаются только под монитором this
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, Set<Long>> blocks = new HashMap<>();
+    private volatile boolean loaded;
+
+    /**
+     * Конструктор индекса
+     * @param clientDao DAO клиентов для потокового чтения при перестроении
+     */
+    public ClientDuplicateIndex(ClientDao clientDao) {
+        this.clientDao = clientDao;
+    }
+
+    /**
+     * Первичное построение индекса после старта приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    /**
+     * Ежесуточное перестроение индекса
+     */
+    @Scheduled(cron = "${app.client-duplicates.rebuild-cron:0 30 4 * * *}")
+    public void scheduledReload() {
+        reload();
+    }
+
+    /**
+     * Перестроить индекс по текущему состоянию таблицы clients
+     * При ошибке продолжает использоваться прежний индекс
+     * @return true если индекс успешно перестроен
+     */
+    public synchronized boolean reload() {
+        try {
+            long start = System.nanoTime();
+            Map<Long, Entry> loadedEntries = new HashMap<>();
+            clientDao.forEachClient(client -> loadedEntries.put(client.getIdClient(), entryOf(client)));
+            entries.clear();
+            blocks.clear();
+            loadedEntries.forEach(this::index);
+            loaded = true;
+            logger.info("Индекс дубликатов клиентов построен за {} мс: {} клиентов, {} блоков",
+                       (System.nanoTime() - start) / 1_000_000, entries.size(), blocks.size());
+            return true;
+        } catch (Exception e) {
+            logger.warn("Не удалось построить индекс дубликатов клиентов: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Проверить, построен ли индекс
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Добавить клиента или заменить его данные
+     * @param id идентификатор клиента
+     * @param client текущие данные клиента
+     */
+    public synchronized void put(Long id, Client client) {
+        if (!loaded || id == null || client == null) {
+            return;
+        }
+        remove(id);
+        index(id, entryOf(client));
+    }
+
+    /**
+     * Удалить клиента из индекса
+     * @param id идентификатор клиента
+     */
+    public synchronized void remove(Long id) {
+        Entry previous = entries.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String key : previous.blockKeys()) {
+            Set<Long> block = blocks.get(key);
+            if (block != null) {
+                block.remove(id);
+                if (block.isEmpty()) {
+                    blocks.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Найти вероятные дубликаты
+     * @param lastName фамилия
+     * @param firstName имя
+     * @param middleName отчество (может быть null)
+     * @param phone телефон в любом формате (может быть null)
+     * @param email адрес электронной почты (может быть null)
+     * @param excludeId идентификатор клиента, который не считается своим дубликатом (может быть null)
+     * @param minScore минимальная оценка кандидата
+     * @param limit максимальное количество кандидатов
+     * @return кандидаты по убыванию оценки
+     */
+    public synchronized List<Candidate> findCandidates(String lastName, String firstName, String middleName,
+                                                       String phone, String email, Long excludeId,
+                                                       double minScore, int limit) {
+        Entry probe = Entry.of(lastName, firstName, middleName, phone, email);
+        Set<Long> candidateIds = new HashSet<>();
+        for (String key : probe.blockKeys()) {
+            candidateIds.addAll(blocks.getOrDefault(key, Set.of()));
+        }
+        if (excludeId != null) {
+            candidateIds.remove(excludeId);
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (Long id : candidateIds) {
+            Candidate candidate = score(id, probe, entries.get(id));
+            if (candidate.score() >= minScore) {
+                candidates.add(candidate);
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(Candidate::score).reversed()
+            .thenComparingLong(Candidate::clientId));
+        return candidates.size() > limit ? List.copyOf(candidates.subList(0, limit)) : candidates;
+    }
+
+    /**
+     * Количество клиентов и блоков индекса
+     */
+    public synchronized Map<String, Object> getStats() {
+        int largestBlock = blocks.values().stream().mapToInt(Set::size).max().orElse(0);
+        return Map.of("loaded", loaded, "clients", entries.size(), "blocks", blocks.size(),
+                      "largestBlock", largestBlock);
+    }
+
+    private static Entry entryOf(Client client) {
+        return Entry.of(client.getLastName(), client.getFirstName(), client.getMiddleName(),
+                        client.getPhone(), client.getEmail());
+    }
+
+    private void index(Long id, Entry entry) {
+        entries.put(id, entry);
+        for (String key : entry.blockKeys()) {
+            blocks.computeIfAbsent(key, _ -> new HashSet<>()).add(id);
+        }
+    }
+
+    private static Candidate score(long id, Entry probe, Entry existing) {
+        double score = 0;
+        List<String> matchedOn = new ArrayList<>();
+
+        if (probe.phoneKey() != null && probe.phoneKey().equals(existing.phoneKey())) {
+            score += PHONE_WEIGHT;
+            matchedOn.add("phone");
+        }
+        if (probe.email() != null && probe.email().equals(existing.email())) {
+            score += EMAIL_WEIGHT;
+            matchedOn.add("email");
+        } else if (probe.emailLocalKey() != null && probe.emailLocalKey().equals(existing.emailLocalKey())) {
+            score += EMAIL_LOCAL_WEIGHT;
+            matchedOn.add("emailLocalPart");
+        }
+
+        // Фонетически совпадающие фамилии (Иванова / Ivanov) считаются почти одинаковыми
+        double lastName = FuzzyMatch.jaroWinkler(probe.lastName(), existing.lastName());
+        if (!probe.lastNameKey().isEmpty() && probe.lastNameKey().equals(existing.lastNameKey())) {
+            lastName = Math.max(lastName, 0.95);
+        }
+        score += LAST_NAME_WEIGHT * lastName;
+        if (lastName >= NAME_MATCH_SIMILARITY) {
+            matchedOn.add("lastName");
+        }
+
+        double firstName = FuzzyMatch.jaroWinkler(probe.firstName(), existing.firstName());
+        score += FIRST_NAME_WEIGHT * firstName;
+        if (firstName >= NAME_MATCH_SIMILARITY) {
+            matchedOn.add("firstName");
+        }
+
+        double middleName = FuzzyMatch.jaroWinkler(probe.middleName(), existing.middleName());
+        score += MIDDLE_NAME_WEIGHT * middleName;
+        if (middleName >= NAME_MATCH_SIMILARITY) {
+            matchedOn.add("middleName");
+        }
+
+        double rounded = Math.round(Math.min(1.0, score) * 1000) / 1000.0;
+        return new Candidate(id, rounded, List.copyOf(matchedOn));
+    }
+}
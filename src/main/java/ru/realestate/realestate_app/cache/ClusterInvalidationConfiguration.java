@@ -0,0 +1,38 @@
+package ru.realestate.realestate_app.cache;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Идентификатор узла в соединениях пула для триггеров инвалидации кэшей
+ *
+ * Триггеры сделок и платежей записывают источник изменения из параметра сеанса app.cache_origin.
+ * Параметр задаётся командой инициализации соединения, поэтому он есть у каждого соединения пула
+ * и не требует отдельной команды в транзакциях записи.
+ */
+@Configuration(proxyBeanMethods = false)
+public class ClusterInvalidationConfiguration {
+
+    /**
+     * Добавить установку app.cache_origin в команду инициализации соединений пула
+     * Метод статический, чтобы постпроцессор создавался до остальных бинов конфигурации
+     * @return постпроцессор источника данных
+     */
+    @Bean
+    public static BeanPostProcessor cacheOriginConnectionInit() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    String setOrigin = "SET app.cache_origin = '" + ClusterInvalidationPublisher.NODE_ID + "'";
+                    String initSql = dataSource.getConnectionInitSql();
+                    dataSource.setConnectionInitSql(initSql == null || initSql.isBlank()
+                        ? setOrigin : initSql + "; " + setOrigin);
+                }
+                return bean;
+            }
+        };
+    }
+}
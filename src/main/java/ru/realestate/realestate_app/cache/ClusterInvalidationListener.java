@@ -0,0 +1,496 @@
+package ru.realestate.realestate_app.cache;
+
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import ru.realestate.realestate_app.dao.CacheInvalidationDao;
+import ru.realestate.realestate_app.dao.CacheInvalidationDao.Invalidation;
+import ru.realestate.realestate_app.dao.ClientDao;
+import ru.realestate.realestate_app.dao.DealAnalyticsDao;
+import ru.realestate.realestate_app.dao.DealDao;
+import ru.realestate.realestate_app.dao.PropertyDao;
+import ru.realestate.realestate_app.model.Client;
+import ru.realestate.realestate_app.model.Deal;
+import ru.realestate.realestate_app.model.Property;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Приём изменений от других экземпляров приложения и сброс затронутых данных в кэшах этого узла
+ *
+ * Слушатель держит собственное соединение с базой данных вне пула (LISTEN привязан к соединению
+ * и занимал бы соединение пула навсегда) и ждёт уведомления без опроса таблиц. Уведомления,
+ * пришедшие пачкой, схлопываются: каждый кэш сбрасывается или дочитывает строки один раз на пачку.
+ *
+ * При разрыве соединения слушатель переподключается и догоняет пропущенное по таблице версий
+ * cache_invalidations. Номера версий выдаются при вставке, а транзакции фиксируются в своём порядке,
+ * поэтому догоняющее чтение начинается немного раньше последней полученной версии: повторный сброс
+ * кэша безвреден. Если пропущенные строки уже удалены по сроку хранения, кэши сбрасываются целиком.
+ */
+@Component
+public class ClusterInvalidationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterInvalidationListener.class);
+
+    // Размер страницы догоняющего чтения
+    private static final int CATCH_UP_BATCH = 1000;
+
+    private final CacheInvalidationDao cacheInvalidationDao;
+    private final ClusterInvalidationPublisher publisher;
+    private final DataSourceProperties dataSourceProperties;
+    private final SearchResultCache searchResultCache;
+    private final DealTimeseriesCache dealTimeseriesCache;
+    private final RealtorLeaderboard realtorLeaderboard;
+    private final DealAnalyticsDao dealAnalyticsDao;
+    private final ClientDuplicateIndex clientDuplicateIndex;
+    private final ClientDao clientDao;
+    private final SimilarPropertyIndex similarPropertyIndex;
+    private final PriceQuantileIndex priceQuantileIndex;
+    private final PropertyDao propertyDao;
+    private final GeographyIndex geographyIndex;
+    private final DealColumnStore dealColumnStore;
+    private final DealDao dealDao;
+
+    private final Duration reconnectDelay;
+    private final Duration checkInterval;
+    private final int catchUpOverlap;
+    private final Duration retention;
+
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile Thread listenerThread;
+    private volatile Connection connection;
+
+    // Изменяются только потоком слушателя (и при старте до его запуска)
+    private volatile long lastVersion;
+    private boolean initialized;
+    private Instant disconnectedAt;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong skippedOwn = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong fullResyncs = new AtomicLong();
+
+    /**
+     * Конструктор слушателя с инжекцией зависимостей
+     * @param cacheInvalidationDao DAO таблицы версий инвалидации
+     * @param publisher рассылка изменений (идентификатор этого узла и признак включения)
+     * @param dataSourceProperties параметры подключения к базе данных для отдельного соединения
+     * @param searchResultCache кэш результатов поиска
+     * @param dealTimeseriesCache кэш временных рядов сделок
+     * @param realtorLeaderboard рейтинг риелторов
+     * @param dealAnalyticsDao итоги сделок риелтора для рейтинга
+     * @param clientDuplicateIndex индекс поиска дубликатов клиентов
+     * @param clientDao чтение изменённых клиентов
+     * @param similarPropertyIndex индекс похожих объектов недвижимости
+     * @param priceQuantileIndex скетчи квантилей цен
+     * @param propertyDao чтение изменённых объектов недвижимости
+     * @param geographyIndex индекс географии (перезагружается при изменении справочников)
+     * @param dealColumnStore колоночная копия сделок
+     * @param dealDao чтение изменённых сделок
+     * @param reconnectDelay пауза перед повторным подключением
+     * @param checkInterval через сколько времени без уведомлений проверять соединение
+     * @param catchUpOverlap на сколько версий раньше последней полученной начинать догоняющее чтение
+     * @param retention срок хранения строк таблицы версий
+     */
+    public ClusterInvalidationListener(CacheInvalidationDao cacheInvalidationDao,
+                                       ClusterInvalidationPublisher publisher,
+                                       DataSourceProperties dataSourceProperties,
+                                       SearchResultCache searchResultCache,
+                                       DealTimeseriesCache dealTimeseriesCache,
+                                       RealtorLeaderboard realtorLeaderboard,
+                                       DealAnalyticsDao dealAnalyticsDao,
+                                       ClientDuplicateIndex clientDuplicateIndex,
+                                       ClientDao clientDao,
+                                       SimilarPropertyIndex similarPropertyIndex,
+                                       PriceQuantileIndex priceQuantileIndex,
+                                       PropertyDao propertyDao,
+                                       GeographyIndex geographyIndex,
+                                       DealColumnStore dealColumnStore,
+                                       DealDao dealDao,
+                                       @Value("${app.cluster-invalidation.reconnect-delay:PT5S}") Duration reconnectDelay,
+                                       @Value("${app.cluster-invalidation.check-interval:PT30S}") Duration checkInterval,
+                                       @Value("${app.cluster-invalidation.catch-up-overlap:100}") int catchUpOverlap,
+                                       @Value("${app.cluster-invalidation.retention:PT1H}") Duration retention) {
+        this.cacheInvalidationDao = cacheInvalidationDao;
+        this.publisher = publisher;
+        this.dataSourceProperties = dataSourceProperties;
+        this.searchResultCache = searchResultCache;
+        this.dealTimeseriesCache = dealTimeseriesCache;
+        this.realtorLeaderboard = realtorLeaderboard;
+        this.dealAnalyticsDao = dealAnalyticsDao;
+        this.clientDuplicateIndex = clientDuplicateIndex;
+        this.clientDao = clientDao;
+        this.similarPropertyIndex = similarPropertyIndex;
+        this.priceQuantileIndex = priceQuantileIndex;
+        this.propertyDao = propertyDao;
+        this.geographyIndex = geographyIndex;
+        this.dealColumnStore = dealColumnStore;
+        this.dealDao = dealDao;
+        this.reconnectDelay = reconnectDelay;
+        this.checkInterval = checkInterval;
+        this.catchUpOverlap = catchUpOverlap;
+        this.retention = retention;
+    }
+
+    /**
+     * Запуск слушателя после миграций схемы, но раньше загрузчиков кэшей:
+     * версия запоминается до загрузки, поэтому изменения, сделанные во время загрузки, будут дочитаны
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void start() {
+        if (!publisher.isEnabled()) {
+            return;
+        }
+        try {
+            lastVersion = cacheInvalidationDao.findLatestVersion();
+            initialized = true;
+        } catch (DataAccessException e) {
+            logger.warn("Не удалось прочитать версию инвалидации кэшей, она будет прочитана при подключении: {}",
+                       e.getMessage());
+        }
+        running = true;
+        listenerThread = Thread.ofPlatform().name("cache-invalidation-listener").daemon().start(this::run);
+    }
+
+    /**
+     * Остановка слушателя: закрытие соединения прерывает ожидание уведомлений
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Connection current = connection;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (SQLException e) {
+                logger.debug("Ошибка закрытия соединения слушателя: {}", e.getMessage());
+            }
+        }
+        Thread thread = listenerThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Удаление строк таблицы версий старше срока хранения
+     * Выполняется и при выключенной межузловой инвалидации: триггеры таблиц пишут версии всегда
+     */
+    @Scheduled(fixedDelayString = "${app.cluster-invalidation.prune-interval:PT10M}",
+               initialDelayString = "${app.cluster-invalidation.prune-interval:PT10M}")
+    public void pruneVersions() {
+        try {
+            int deleted = cacheInvalidationDao.deleteOlderThan(retention);
+            logger.debug("Удалено {} строк таблицы версий инвалидации кэшей", deleted);
+        } catch (DataAccessException e) {
+            logger.warn("Не удалось очистить таблицу версий инвалидации кэшей: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Получить состояние слушателя
+     * @return идентификатор узла, состояние соединения, последняя версия и счётчики уведомлений
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", publisher.isEnabled());
+        stats.put("nodeId", publisher.getNodeId());
+        stats.put("connected", connected);
+        stats.put("lastVersion", lastVersion);
+        stats.put("published", publisher.getPublished());
+        stats.put("publishFailures", publisher.getFailures());
+        stats.put("received", received.get());
+        stats.put("applied", applied.get());
+        stats.put("skippedOwn", skippedOwn.get());
+        stats.put("reconnects", reconnects.get());
+        stats.put("fullResyncs", fullResyncs.get());
+        return stats;
+    }
+
+    private void run() {
+        while (running) {
+            try (Connection listening = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                connection = listening;
+                try (Statement statement = listening.createStatement()) {
+                    statement.execute("LISTEN " + CacheInvalidationDao.CHANNEL);
+                }
+                // Догоняющее чтение после LISTEN: всё, что зафиксировано позже, придёт уведомлением
+                catchUp();
+                connected = true;
+                disconnectedAt = null;
+                logger.info("Слушатель инвалидации кэшей подключён, узел {}, версия {}", publisher.getNodeId(), lastVersion);
+                listen(listening);
+            } catch (SQLException | DataAccessException e) {
+                if (!running) {
+                    break;
+                }
+                if (connected) {
+                    reconnects.incrementAndGet();
+                }
+                logger.warn("Слушатель инвалидации кэшей отключён, повтор через {} с: {}",
+                           reconnectDelay.toSeconds(), e.getMessage());
+            } finally {
+                connected = false;
+                connection = null;
+                if (disconnectedAt == null) {
+                    disconnectedAt = Instant.now();
+                }
+            }
+            try {
+                Thread.sleep(reconnectDelay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void listen(Connection listening) throws SQLException {
+        PGConnection pgConnection = listening.unwrap(PGConnection.class);
+        int timeoutMillis = (int) checkInterval.toMillis();
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications(timeoutMillis);
+            if (notifications == null || notifications.length == 0) {
+                // Оборванное без закрытия соединение ожидание не обнаруживает - его обнаружит запрос
+                try (Statement statement = listening.createStatement()) {
+                    statement.execute("SELECT 1");
+                }
+                continue;
+            }
+            List<Invalidation> batch = new ArrayList<>(notifications.length);
+            for (PGNotification notification : notifications) {
+                Invalidation invalidation = CacheInvalidationDao.parsePayload(notification.getParameter());
+                if (invalidation == null) {
+                    logger.warn("Нераспознанное уведомление инвалидации кэшей: {}", notification.getParameter());
+                } else {
+                    batch.add(invalidation);
+                }
+            }
+            apply(batch);
+        }
+    }
+
+    private void catchUp() {
+        if (!initialized) {
+            // Узел ещё ничего не получал: его кэши загружены из текущего состояния базы данных
+            lastVersion = cacheInvalidationDao.findLatestVersion();
+            initialized = true;
+            return;
+        }
+        Long oldest = cacheInvalidationDao.findOldestVersion();
+        boolean pruned = oldest != null && oldest > lastVersion + 1;
+        boolean tooLong = disconnectedAt != null && Duration.between(disconnectedAt, Instant.now()).compareTo(retention) >= 0;
+        if (pruned || tooLong) {
+            logger.warn("Пропущенные изменения уже удалены из таблицы версий, кэши узла сбрасываются целиком");
+            lastVersion = cacheInvalidationDao.findLatestVersion();
+            evictAll();
+            return;
+        }
+        long from = Math.max(0, lastVersion - catchUpOverlap);
+        List<Invalidation> page;
+        do {
+            page = cacheInvalidationDao.findAfter(from, CATCH_UP_BATCH);
+            apply(page);
+            if (!page.isEmpty()) {
+                from = page.getLast().version();
+            }
+        } while (page.size() == CATCH_UP_BATCH);
+    }
+
+    /**
+     * Сбросить затронутые данные кэшей по пачке изменений
+     */
+    private void apply(List<Invalidation> invalidations) {
+        Set<String> searchEntities = new LinkedHashSet<>();
+        Set<LocalDate> dealDates = new LinkedHashSet<>();
+        Set<Long> realtorIds = new LinkedHashSet<>();
+        Set<Long> clientIds = new LinkedHashSet<>();
+        Set<Long> propertyIds = new LinkedHashSet<>();
+        Set<Long> dealIds = new LinkedHashSet<>();
+        boolean allTimeseries = false;
+        boolean allRealtors = false;
+        boolean allClients = false;
+        boolean allProperties = false;
+        boolean allDeals = false;
+        boolean reference = false;
+
+        for (Invalidation invalidation : invalidations) {
+            received.incrementAndGet();
+            lastVersion = Math.max(lastVersion, invalidation.version());
+            if (publisher.getNodeId().equals(invalidation.origin())) {
+                skippedOwn.incrementAndGet();
+                continue;
+            }
+            applied.incrementAndGet();
+            Long id = invalidation.entityId();
+            switch (invalidation.entity()) {
+                case ClusterInvalidationPublisher.DEAL -> {
+                    searchEntities.add(invalidation.entity());
+                    allDeals |= id == null;
+                    if (id != null) {
+                        dealIds.add(id);
+                    }
+                }
+                case ClusterInvalidationPublisher.PAYMENT,
+                     ClusterInvalidationPublisher.REALTOR -> searchEntities.add(invalidation.entity());
+                case ClusterInvalidationPublisher.CLIENT -> {
+                    searchEntities.add(invalidation.entity());
+                    allClients |= id == null;
+                    if (id != null) {
+                        clientIds.add(id);
+                    }
+                }
+                case ClusterInvalidationPublisher.PROPERTY -> {
+                    searchEntities.add(invalidation.entity());
+                    allProperties |= id == null;
+                    if (id != null) {
+                        propertyIds.add(id);
+                    }
+                }
+                case ClusterInvalidationPublisher.DEAL_DATE -> {
+                    allTimeseries |= id == null;
+                    if (id != null) {
+                        dealDates.add(LocalDate.ofEpochDay(id));
+                    }
+                }
+                case ClusterInvalidationPublisher.DEAL_TIMESERIES -> allTimeseries = true;
+                case ClusterInvalidationPublisher.REALTOR_DEALS -> {
+                    allRealtors |= id == null;
+                    if (id != null) {
+                        realtorIds.add(id);
+                    }
+                }
+                case ClusterInvalidationPublisher.GEOGRAPHY,
+                     ClusterInvalidationPublisher.PROPERTY_TYPE,
+                     ClusterInvalidationPublisher.DEAL_TYPE -> reference = true;
+                default -> logger.debug("Неизвестный тип инвалидации кэшей: {}", invalidation.entity());
+            }
+        }
+
+        try {
+            searchEntities.forEach(searchResultCache::invalidate);
+            if (allTimeseries) {
+                dealTimeseriesCache.invalidateAll();
+            } else {
+                dealDates.forEach(dealTimeseriesCache::invalidate);
+            }
+            if (allRealtors) {
+                realtorLeaderboard.reload();
+            } else {
+                for (Long realtorId : realtorIds) {
+                    realtorLeaderboard.replaceRealtor(realtorId, dealAnalyticsDao.findRealtorMonthlyTotals(realtorId));
+                }
+            }
+            if (allClients) {
+                clientDuplicateIndex.reload();
+            } else if (!clientIds.isEmpty()) {
+                refreshClients(clientIds);
+            }
+            if (allProperties) {
+                similarPropertyIndex.reload();
+                priceQuantileIndex.reload();
+            } else if (!propertyIds.isEmpty()) {
+                refreshProperties(propertyIds);
+            }
+            if (allDeals) {
+                dealColumnStore.reload();
+            } else if (!dealIds.isEmpty()) {
+                refreshDeals(dealIds);
+            }
+            if (reference) {
+                // Пакет справочников пересобирается по новой версии индекса географии
+                geographyIndex.reload();
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Не удалось применить инвалидацию кэшей, данные исправит плановая перезагрузка: {}",
+                       e.getMessage());
+        }
+    }
+
+    private void refreshClients(Set<Long> clientIds) {
+        Map<Long, Client> current = new HashMap<>();
+        clientDao.findByIds(new ArrayList<>(clientIds)).forEach(client -> current.put(client.getIdClient(), client));
+        for (Long clientId : clientIds) {
+            Client client = current.get(clientId);
+            if (client != null) {
+                clientDuplicateIndex.put(clientId, client);
+            } else {
+                clientDuplicateIndex.remove(clientId);
+            }
+        }
+    }
+
+    private void refreshProperties(Set<Long> propertyIds) {
+        Map<Long, Property> current = new HashMap<>();
+        propertyDao.findByIds(new ArrayList<>(propertyIds))
+            .forEach(property -> current.put(property.getIdProperty(), property));
+        for (Long propertyId : propertyIds) {
+            Property property = current.get(propertyId);
+            if (property != null) {
+                priceQuantileIndex.replace(property);
+                similarPropertyIndex.put(propertyId, property);
+            } else {
+                priceQuantileIndex.markRemoved();
+                similarPropertyIndex.remove(propertyId);
+            }
+        }
+    }
+
+    private void refreshDeals(Set<Long> dealIds) {
+        Map<Long, Deal> current = new HashMap<>();
+        dealDao.findByIds(new ArrayList<>(dealIds)).forEach(deal -> current.put(deal.getIdDeal(), deal));
+        for (Long dealId : dealIds) {
+            Deal deal = current.get(dealId);
+            if (deal != null) {
+                dealColumnStore.put(deal);
+            } else {
+                dealColumnStore.remove(dealId);
+            }
+        }
+    }
+
+    private void evictAll() {
+        fullResyncs.incrementAndGet();
+        List.of(ClusterInvalidationPublisher.DEAL, ClusterInvalidationPublisher.PROPERTY,
+                ClusterInvalidationPublisher.CLIENT, ClusterInvalidationPublisher.REALTOR,
+                ClusterInvalidationPublisher.PAYMENT)
+            .forEach(searchResultCache::invalidate);
+        dealTimeseriesCache.invalidateAll();
+        realtorLeaderboard.reload();
+        clientDuplicateIndex.reload();
+        similarPropertyIndex.reload();
+        priceQuantileIndex.reload();
+        dealColumnStore.reload();
+        geographyIndex.reload();
+    }
+}
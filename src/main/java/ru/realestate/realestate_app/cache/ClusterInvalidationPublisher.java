@@ -0,0 +1,119 @@
+package ru.realestate.realestate_app.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import ru.realestate.realestate_app.dao.CacheInvalidationDao;
+import ru.realestate.realestate_app.dao.CacheInvalidationDao.Key;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Рассылка изменений другим экземплярам приложения для сброса их кэшей
+ *
+ * DAO вызывают рассылку из методов записи рядом со сбросом собственных кэшей. Ключ состоит
+ * из типа данных и идентификатора: кроме сущностей рассылаются производные ключи, по которым
+ * другой узел сбрасывает ровно затронутую часть кэша (дату сделки для временных рядов,
+ * риелтора для рейтинга). Собственные уведомления узел узнаёт по идентификатору узла и пропускает.
+ *
+ * Изменения сделок и платежей рассылают триггеры базы данных (миграция V6) в той же транзакции,
+ * что и запись: идентификатор узла они берут из параметра сеанса app.cache_origin, который
+ * задаётся соединениям пула при открытии (см. {@link ClusterInvalidationConfiguration}).
+ */
+@Component
+public class ClusterInvalidationPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterInvalidationPublisher.class);
+
+    public static final String DEAL = "Deal";
+    public static final String PROPERTY = "Property";
+    public static final String CLIENT = "Client";
+    public static final String REALTOR = "Realtor";
+    public static final String PAYMENT = "Payment";
+    // Дата сделки (id - номер дня от 1970-01-01): интервалы временных рядов, содержащие дату
+    public static final String DEAL_DATE = "DealDate";
+    // Риелтор, у которого изменились сделки: его места в рейтинге
+    public static final String REALTOR_DEALS = "RealtorDeals";
+    // Временные ряды сделок целиком (без id)
+    public static final String DEAL_TIMESERIES = "DealTimeseries";
+    // Справочники: изменяются только в базе данных, о них сообщают триггеры
+    public static final String GEOGRAPHY = "Geography";
+    public static final String PROPERTY_TYPE = "PropertyType";
+    public static final String DEAL_TYPE = "DealType";
+
+    // Идентификатор узла общий для экземпляра приложения: его же получают триггеры через параметр сеанса
+    static final String NODE_ID = UUID.randomUUID().toString();
+
+    private final CacheInvalidationDao cacheInvalidationDao;
+    private final boolean enabled;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Конструктор с инжекцией зависимостей
+     * @param cacheInvalidationDao DAO таблицы версий инвалидации
+     * @param enabled включена ли межузловая инвалидация
+     */
+    public ClusterInvalidationPublisher(CacheInvalidationDao cacheInvalidationDao,
+                                        @Value("${app.cluster-invalidation.enabled:true}") boolean enabled) {
+        this.cacheInvalidationDao = cacheInvalidationDao;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Разослать изменение одной записи
+     * @param entity тип сущности
+     * @param id идентификатор (null - все данные сущности)
+     */
+    public void publish(String entity, Long id) {
+        publish(List.of(new Key(entity, id)));
+    }
+
+    /**
+     * Разослать изменения одной командой
+     * Вне транзакции ошибка рассылки только записывается в журнал: запись уже выполнена, а другие
+     * узлы исправят кэши плановой перезагрузкой. Внутри транзакции ошибка пробрасывается,
+     * потому что PostgreSQL всё равно не даст выполнить в ней следующие команды
+     * @param keys сбрасываемые данные
+     */
+    public void publish(List<Key> keys) {
+        if (!enabled || keys.isEmpty()) {
+            return;
+        }
+        try {
+            cacheInvalidationDao.publish(keys, NODE_ID);
+            published.addAndGet(keys.size());
+        } catch (DataAccessException e) {
+            failures.incrementAndGet();
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                throw e;
+            }
+            logger.warn("Не удалось разослать инвалидацию кэшей {}: {}", keys, e.getMessage());
+        }
+    }
+
+    /**
+     * Идентификатор этого экземпляра приложения
+     */
+    public String getNodeId() {
+        return NODE_ID;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+}
@@ -0,0 +1,578 @@
+package ru.realestate.realestate_app.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import ru.realestate.realestate_app.dao.DealAnalyticsDao;
+import ru.realestate.realestate_app.model.Deal;
+import ru.realestate.realestate_app.transaction.AfterCommit;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Колоночная копия таблицы deals в памяти для фильтров и агрегатов без обращения к базе данных
+ *
+ * Каждое поле сделки хранится отдельным массивом примитивов: дата - номер дня от 1970-01-01,
+ * стоимость - целое число десятитысячных (deal_cost имеет тип NUMERIC(13, 4)), идентификаторы - int.
+ * Фильтр проходит по массивам одним циклом без ветвлений и собирает позиции подходящих строк,
+ * упорядочение выполняется только для первых строк, нужных странице. Из базы данных читаются
+ * лишь строки итоговой страницы.
+ *
+ * Копия заполняется потоковым чтением при старте и раз в сутки перестраивается заново. Между
+ * перестроениями её обновляют методы записи DealDao (внутри транзакции - после фиксации) и
+ * межузловая инвалидация. Изменения, пришедшие во время перестроения, повторяются на новой копии.
+ * Пока копия не загружена или выключена, поиск выполняется запросами к базе данных.
+ */
+@Component
+public class DealColumnStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DealColumnStore.class);
+
+    /**
+     * Ключи сортировки страницы
+     */
+    public static final Set<String> SORT_KEYS = Set.of("id", "date", "cost");
+
+    // Масштаб стоимости: deal_cost хранится с четырьмя знаками после запятой
+    private static final int COST_SCALE = 4;
+
+    // Стоимости суммируются блоками: сумма блока гарантированно помещается в long
+    private static final int SUM_BLOCK = 4096;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Условия отбора сделок (null - условие не задано)
+     * @param startDate начальная дата включительно
+     * @param endDate конечная дата включительно
+     * @param realtorId идентификатор риелтора
+     * @param clientId идентификатор клиента
+     * @param dealTypeId идентификатор типа сделки
+     */
+    public record Filter(LocalDate startDate, LocalDate endDate, Long realtorId, Long clientId, Long dealTypeId) {}
+
+    /**
+     * Идентификаторы сделок страницы в порядке сортировки и общее количество подходящих сделок
+     */
+    public record Page(List<Long> dealIds, long total) {}
+
+    /**
+     * Итоги по подходящим сделкам
+     * @param count количество сделок
+     * @param totalAmount суммарная стоимость
+     * @param topDealIds самые дорогие сделки по убыванию стоимости
+     */
+    public record Summary(long count, BigDecimal totalAmount, List<Long> topDealIds) {}
+
+    /**
+     * Изменение сделки (deal == null - удаление)
+     */
+    private record Change(long dealId, Deal deal) {}
+
+    /**
+     * Порядок двух строк по их позициям в колонках
+     */
+    @FunctionalInterface
+    private interface RowOrder {
+        int compare(Columns columns, int a, int b);
+    }
+
+    // При равенстве ключа строки упорядочиваются по id, как в запросах страницы
+    private static final Map<String, RowOrder> ORDERS = Map.of(
+        "id", (c, a, b) -> Integer.compare(c.ids[a], c.ids[b]),
+        "date", (c, a, b) -> c.dates[a] != c.dates[b]
+            ? Integer.compare(c.dates[a], c.dates[b]) : Integer.compare(c.ids[a], c.ids[b]),
+        "cost", (c, a, b) -> c.costs[a] != c.costs[b]
+            ? Long.compare(c.costs[a], c.costs[b]) : Integer.compare(c.ids[a], c.ids[b])
+    );
+
+    /**
+     * Колонки сделок; строки хранятся плотно, удалённая строка замещается последней
+     */
+    private static final class Columns {
+        int size;
+        int[] ids = new int[INITIAL_CAPACITY];
+        int[] dates = new int[INITIAL_CAPACITY];
+        long[] costs = new long[INITIAL_CAPACITY];
+        int[] realtors = new int[INITIAL_CAPACITY];
+        int[] clients = new int[INITIAL_CAPACITY];
+        int[] dealTypes = new int[INITIAL_CAPACITY];
+        final Map<Integer, Integer> positions = new HashMap<>();
+
+        void put(Deal deal) {
+            int id = toKey(deal.getIdDeal());
+            int date = Math.toIntExact(deal.getDealDate().toEpochDay());
+            long cost = deal.getDealCost().setScale(COST_SCALE, RoundingMode.HALF_UP)
+                .unscaledValue().longValueExact();
+            int realtor = toKey(deal.getIdRealtor());
+            int client = toKey(deal.getIdClient());
+            int dealType = toKey(deal.getIdDealType());
+
+            Integer existing = positions.get(id);
+            int position;
+            if (existing != null) {
+                position = existing;
+            } else {
+                if (size == ids.length) {
+                    grow();
+                }
+                position = size++;
+                positions.put(id, position);
+            }
+            ids[position] = id;
+            dates[position] = date;
+            costs[position] = cost;
+            realtors[position] = realtor;
+            clients[position] = client;
+            dealTypes[position] = dealType;
+        }
+
+        void remove(long dealId) {
+            if (dealId <= 0 || dealId > Integer.MAX_VALUE) {
+                return;
+            }
+            Integer position = positions.remove((int) dealId);
+            if (position == null) {
+                return;
+            }
+            int last = --size;
+            if (position != last) {
+                ids[position] = ids[last];
+                dates[position] = dates[last];
+                costs[position] = costs[last];
+                realtors[position] = realtors[last];
+                clients[position] = clients[last];
+                dealTypes[position] = dealTypes[last];
+                positions.put(ids[position], position);
+            }
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            dates = Arrays.copyOf(dates, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+            realtors = Arrays.copyOf(realtors, capacity);
+            clients = Arrays.copyOf(clients, capacity);
+            dealTypes = Arrays.copyOf(dealTypes, capacity);
+        }
+
+        long columnBytes() {
+            return (long) ids.length * (Integer.BYTES * 5 + Long.BYTES);
+        }
+    }
+
+    private final DealAnalyticsDao dealAnalyticsDao;
+    private final boolean enabled;
+
+    // Колонки читаются под блокировкой чтения, изменяются под блокировкой записи
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reloadMonitor = new Object();
+    private Columns columns;
+    // Изменения, пришедшие во время перестроения (null - перестроение не идёт)
+    private List<Change> pendingChanges;
+    private volatile boolean loaded;
+
+    private final AtomicLong scans = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+    private volatile long lastReloadMillis;
+
+    /**
+     * Конструктор копии с инжекцией зависимостей
+     * @param dealAnalyticsDao DAO для потокового чтения сделок
+     * @param enabled включена ли колоночная копия
+     */
+    public DealColumnStore(DealAnalyticsDao dealAnalyticsDao,
+                           @Value("${app.deal-columns.enabled:true}") boolean enabled) {
+        this.dealAnalyticsDao = dealAnalyticsDao;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Первичная загрузка копии после старта приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    /**
+     * Ежесуточное перестроение копии по базе данных
+     */
+    @Scheduled(cron = "${app.deal-columns.rebuild-cron:0 15 4 * * *}")
+    public void scheduledReload() {
+        reload();
+    }
+
+    /**
+     * Перестроить копию по текущему состоянию таблицы deals
+     * При ошибке продолжает использоваться предыдущая копия
+     * @return true если копия успешно перестроена
+     */
+    public boolean reload() {
+        if (!enabled) {
+            return false;
+        }
+        synchronized (reloadMonitor) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Columns fresh = new Columns();
+            long start = System.nanoTime();
+            long rows;
+            try {
+                rows = dealAnalyticsDao.forEachDeal(fresh::put);
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingChanges = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                logger.warn("Не удалось загрузить колоночную копию сделок: {}", e.getMessage());
+                return false;
+            }
+
+            lock.writeLock().lock();
+            try {
+                boolean consistent = true;
+                for (Change change : pendingChanges) {
+                    consistent &= apply(fresh, change);
+                }
+                pendingChanges = null;
+                columns = fresh;
+                loaded = consistent;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            reloads.incrementAndGet();
+            lastReloadMillis = (System.nanoTime() - start) / 1_000_000;
+            logger.info("Колоночная копия сделок загружена за {} мс: {} сделок, {} КБ",
+                       lastReloadMillis, rows, fresh.columnBytes() / 1024);
+            return loaded;
+        }
+    }
+
+    /**
+     * Проверить, включена ли копия (app.deal-columns.enabled)
+     * @return true если копия строится и используется для итогов сделок
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Проверить, загружена ли копия
+     * @return true если копия доступна для запросов
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Учесть новую или изменённую сделку
+     * Внутри транзакции копия изменяется только после её фиксации
+     * @param deal сделка со всеми полями после изменения
+     */
+    public void put(Deal deal) {
+        submit(new Change(deal.getIdDeal(), deal));
+    }
+
+    /**
+     * Учесть удаление сделки
+     * Внутри транзакции копия изменяется только после её фиксации
+     * @param dealId идентификатор удалённой сделки
+     */
+    public void remove(long dealId) {
+        submit(new Change(dealId, null));
+    }
+
+    /**
+     * Найти все подходящие сделки по убыванию даты (при равной дате - по убыванию id)
+     * @param filter условия отбора
+     * @return идентификаторы сделок или null, если копия не загружена
+     */
+    public List<Long> search(Filter filter) {
+        lock.readLock().lock();
+        try {
+            if (!loaded) {
+                return null;
+            }
+            int[] matched = new int[columns.size];
+            int count = match(columns, filter, matched);
+            return toIds(columns, top(columns, matched, count, count, ORDERS.get("date"), true), 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Получить страницу подходящих сделок
+     * @param filter условия отбора
+     * @param sort ключ сортировки из {@link #SORT_KEYS}
+     * @param descending сортировать по убыванию
+     * @param offset смещение первой строки страницы
+     * @param size размер страницы
+     * @return идентификаторы сделок страницы и общее количество или null, если копия не загружена
+     */
+    public Page page(Filter filter, String sort, boolean descending, long offset, int size) {
+        lock.readLock().lock();
+        try {
+            if (!loaded) {
+                return null;
+            }
+            int[] matched = new int[columns.size];
+            int count = match(columns, filter, matched);
+            if (offset >= count) {
+                return new Page(List.of(), count);
+            }
+            int limit = (int) Math.min(count, offset + size);
+            int[] ordered = top(columns, matched, count, limit, ORDERS.get(sort), descending);
+            return new Page(toIds(columns, ordered, (int) offset), count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Посчитать количество и сумму подходящих сделок и найти самые дорогие
+     * @param filter условия отбора
+     * @param topLimit количество самых дорогих сделок
+     * @return итоги или null, если копия не загружена
+     */
+    public Summary summarize(Filter filter, int topLimit) {
+        lock.readLock().lock();
+        try {
+            if (!loaded) {
+                return null;
+            }
+            int[] matched = new int[columns.size];
+            int count = match(columns, filter, matched);
+
+            BigDecimal total = BigDecimal.ZERO;
+            long[] costs = columns.costs;
+            for (int blockStart = 0; blockStart < count; blockStart += SUM_BLOCK) {
+                int blockEnd = Math.min(count, blockStart + SUM_BLOCK);
+                long blockSum = 0;
+                for (int i = blockStart; i < blockEnd; i++) {
+                    blockSum += costs[matched[i]];
+                }
+                total = total.add(BigDecimal.valueOf(blockSum, COST_SCALE));
+            }
+
+            int[] top = top(columns, matched, count, Math.min(count, topLimit), ORDERS.get("cost"), true);
+            return new Summary(count, total, toIds(columns, top, 0));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Получить состояние копии
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            result.put("enabled", enabled);
+            result.put("loaded", loaded);
+            result.put("rows", columns != null ? columns.size : 0);
+            result.put("columnBytes", columns != null ? columns.columnBytes() : 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+        result.put("scans", scans.get());
+        result.put("reloads", reloads.get());
+        result.put("lastReloadMillis", lastReloadMillis);
+        return result;
+    }
+
+    private void submit(Change change) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> applyChange(change));
+    }
+
+    private void applyChange(Change change) {
+        lock.writeLock().lock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+            if (loaded && !apply(columns, change)) {
+                // Копия больше не совпадает с таблицей: до перестроения поиск идёт в базу данных
+                loaded = false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Применить изменение к колонкам
+     * @return false если сделку нельзя представить в колонках (значение вне диапазона или не задано)
+     */
+    private boolean apply(Columns target, Change change) {
+        if (change.deal() == null) {
+            target.remove(change.dealId());
+            return true;
+        }
+        try {
+            target.put(change.deal());
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("Сделку {} нельзя сохранить в колоночной копии: {}", change.dealId(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Отобрать позиции подходящих строк
+     * @param matched массив не короче количества строк для позиций
+     * @return количество подходящих строк
+     */
+    private int match(Columns c, Filter filter, int[] matched) {
+        scans.incrementAndGet();
+        int realtor = toFilterKey(filter.realtorId());
+        int client = toFilterKey(filter.clientId());
+        int dealType = toFilterKey(filter.dealTypeId());
+        if (realtor < 0 || client < 0 || dealType < 0) {
+            return 0;
+        }
+        int from = filter.startDate() != null ? toDay(filter.startDate()) : Integer.MIN_VALUE;
+        int to = filter.endDate() != null ? toDay(filter.endDate()) : Integer.MAX_VALUE;
+
+        int[] dates = c.dates;
+        int[] realtors = c.realtors;
+        int[] clients = c.clients;
+        int[] dealTypes = c.dealTypes;
+        int count = 0;
+        // Без условных переходов: позиция записывается всегда, а счётчик растёт только для подходящей строки
+        for (int i = 0; i < c.size; i++) {
+            boolean hit = dates[i] >= from & dates[i] <= to
+                & (realtor == 0 | realtors[i] == realtor)
+                & (client == 0 | clients[i] == client)
+                & (dealType == 0 | dealTypes[i] == dealType);
+            matched[count] = i;
+            count += hit ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * Выбрать первые limit строк в заданном порядке кучей размера limit
+     * @return позиции строк в порядке сортировки
+     */
+    private static int[] top(Columns c, int[] matched, int count, int limit, RowOrder order, boolean descending) {
+        RowOrder effective = descending ? (columns, a, b) -> order.compare(columns, b, a) : order;
+        // Куча, в корне которой последняя по порядку из отобранных строк
+        int[] heap = new int[limit];
+        int heapSize = 0;
+        for (int i = 0; i < count && limit > 0; i++) {
+            int position = matched[i];
+            if (heapSize < limit) {
+                heap[heapSize] = position;
+                siftUp(c, heap, heapSize++, effective);
+            } else if (effective.compare(c, position, heap[0]) < 0) {
+                heap[0] = position;
+                siftDown(c, heap, heapSize, effective);
+            }
+        }
+        int[] ordered = new int[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            ordered[i] = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(c, heap, heapSize, effective);
+        }
+        return ordered;
+    }
+
+    private static void siftUp(Columns c, int[] heap, int index, RowOrder order) {
+        int position = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (order.compare(c, heap[parent], position) >= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = position;
+    }
+
+    private static void siftDown(Columns c, int[] heap, int size, RowOrder order) {
+        if (size == 0) {
+            return;
+        }
+        int position = heap[0];
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && order.compare(c, heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (order.compare(c, position, heap[child]) >= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = position;
+    }
+
+    private static List<Long> toIds(Columns c, int[] positions, int from) {
+        List<Long> ids = new ArrayList<>(positions.length - from);
+        for (int i = from; i < positions.length; i++) {
+            ids.add((long) c.ids[positions[i]]);
+        }
+        return ids;
+    }
+
+    /**
+     * Идентификатор для хранения в колонке
+     * @throws ArithmeticException если идентификатор не помещается в int
+     */
+    private static int toKey(Long id) {
+        if (id == null || id <= 0) {
+            throw new IllegalArgumentException("Идентификатор не задан: " + id);
+        }
+        return Math.toIntExact(id);
+    }
+
+    /**
+     * Идентификатор для условия: 0 - условие не задано, -1 - ни одна строка не подойдёт
+     */
+    private static int toFilterKey(Long id) {
+        if (id == null) {
+            return 0;
+        }
+        return id > 0 && id <= Integer.MAX_VALUE ? (int) (long) id : -1;
+    }
+
+    private static int toDay(LocalDate date) {
+        return Math.clamp(date.toEpochDay(), Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,180 @@
+package ru.realestate.realestate_app.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import ru.realestate.realestate_app.dao.DealAnalyticsDao;
+import ru.realestate.realestate_app.model.dto.DealTimeseriesPoint;
+import ru.realestate.realestate_app.model.dto.DealTimeseriesPoint.Bucket;
+import ru.realestate.realestate_app.model.dto.DealTimeseriesPoint.GroupBy;
+import ru.realestate.realestate_app.transaction.AfterCommit;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Кэш завершённых интервалов временного ряда сделок
+ *
+ * Для каждой пары "размер интервала - группировка" хранятся точки всех интервалов,
+ * закончившихся до текущего (открытого) интервала. Открытый интервал кэшем не покрывается
+ * и считается при каждом запросе. Когда открытый интервал завершается, догружается только он.
+ *
+ * Изменение сделки с датой в завершённом интервале помечает этот интервал устаревшим
+ * ({@link #invalidate(LocalDate)}), и при следующем запросе пересчитывается только он.
+ * Пометки копятся в неблокирующей очереди, поэтому запись сделки не ждёт пересчёта.
+ * Изменения, после которых точечный пересчёт невозможен (перенос объекта в другой город),
+ * сбрасывают все ряды ({@link #invalidateAll()}).
+ */
+@Component
+public class DealTimeseriesCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DealTimeseriesCache.class);
+
+    private record Key(Bucket bucket, GroupBy groupBy) {}
+
+    /**
+     * Завершённая часть одного ряда
+     */
+    private static final class Series {
+        final ReentrantLock lock = new ReentrantLock();
+        // Даты изменённых сделок, ещё не учтённые в closedBuckets
+        final Queue<LocalDate> pendingDates = new ConcurrentLinkedQueue<>();
+        // Поля ниже изменяются только под lock
+        final NavigableMap<LocalDate, List<DealTimeseriesPoint>> closedBuckets = new TreeMap<>();
+        LocalDate closedUntil;
+        long generation = -1;
+    }
+
+    private final DealAnalyticsDao dealAnalyticsDao;
+    private final Map<Key, Series> series = new ConcurrentHashMap<>();
+
+    // Увеличивается при полном сбросе; ряд с устаревшим поколением перестраивается целиком
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong reloadedBuckets = new AtomicLong();
+
+    /**
+     * Конструктор кэша
+     * @param dealAnalyticsDao DAO аналитических запросов по сделкам
+     */
+    public DealTimeseriesCache(DealAnalyticsDao dealAnalyticsDao) {
+        this.dealAnalyticsDao = dealAnalyticsDao;
+    }
+
+    /**
+     * Получить точки завершённых интервалов, при необходимости догрузив или пересчитав их
+     * @param bucket размер интервала
+     * @param groupBy группировка
+     * @param openStart начало текущего (открытого) интервала
+     * @param fromBucket начало первого нужного интервала (null - с первой сделки)
+     * @param toExclusive граница, до которой нужны интервалы (null - до открытого интервала)
+     * @return точки завершённых интервалов в порядке интервалов (объекты общие, изменять их нельзя)
+     */
+    public List<DealTimeseriesPoint> getClosed(Bucket bucket, GroupBy groupBy, LocalDate openStart,
+                                               LocalDate fromBucket, LocalDate toExclusive) {
+        Series current = series.computeIfAbsent(new Key(bucket, groupBy), _ -> new Series());
+        current.lock.lock();
+        try {
+            refresh(current, bucket, groupBy, openStart);
+
+            LocalDate upper = toExclusive == null || toExclusive.isAfter(openStart) ? openStart : toExclusive;
+            NavigableMap<LocalDate, List<DealTimeseriesPoint>> range = fromBucket == null
+                ? current.closedBuckets.headMap(upper, false)
+                : current.closedBuckets.subMap(fromBucket, true, upper, false);
+
+            List<DealTimeseriesPoint> result = new ArrayList<>();
+            range.values().forEach(result::addAll);
+            return result;
+        } finally {
+            current.lock.unlock();
+        }
+    }
+
+    /**
+     * Отметить изменение сделки с указанной датой: содержащие её завершённые интервалы
+     * будут пересчитаны при следующем запросе (внутри транзакции - после её фиксации)
+     * @param dealDate дата изменённой сделки (null игнорируется)
+     */
+    public void invalidate(LocalDate dealDate) {
+        if (dealDate == null) {
+            return;
+        }
+        AfterCommit.run(() -> series.values().forEach(s -> s.pendingDates.add(dealDate)));
+    }
+
+    /**
+     * Сбросить все ряды целиком (внутри транзакции - после её фиксации)
+     */
+    public void invalidateAll() {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            logger.debug("Кэш временных рядов сделок сброшен");
+        });
+    }
+
+    /**
+     * Получить статистику кэша
+     * @return карта "ряд - количество интервалов" и число точечных пересчётов
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        series.forEach((key, s) -> result.put(
+            key.bucket().getSqlUnit() + "/" + key.groupBy().getParameter(), s.closedBuckets.size()));
+        result.put("reloadedBuckets", reloadedBuckets.get());
+        return result;
+    }
+
+    /**
+     * Привести завершённую часть ряда в актуальное состояние (вызывается под lock)
+     */
+    private void refresh(Series s, Bucket bucket, GroupBy groupBy, LocalDate openStart) {
+        long currentGeneration = generation.get();
+        if (s.generation != currentGeneration) {
+            s.closedBuckets.clear();
+            s.closedUntil = null;
+            s.pendingDates.clear();
+            s.generation = currentGeneration;
+        }
+
+        // Пересчёт интервалов, в которых менялись сделки
+        TreeSet<LocalDate> dirty = new TreeSet<>();
+        LocalDate changed;
+        while ((changed = s.pendingDates.poll()) != null) {
+            LocalDate start = bucket.truncate(changed);
+            if (s.closedUntil != null && start.isBefore(s.closedUntil)) {
+                dirty.add(start);
+            }
+        }
+        for (LocalDate start : dirty) {
+            s.closedBuckets.remove(start);
+            store(s, dealAnalyticsDao.findTimeseries(bucket, groupBy, start, bucket.next(start)));
+            reloadedBuckets.incrementAndGet();
+        }
+
+        // Догрузка интервалов, завершившихся с прошлого запроса (или всей истории при первом запросе)
+        if (s.closedUntil == null || s.closedUntil.isBefore(openStart)) {
+            store(s, dealAnalyticsDao.findTimeseries(bucket, groupBy, s.closedUntil, openStart));
+            logger.debug("Ряд {}/{} догружен до {}", bucket, groupBy, openStart);
+            s.closedUntil = openStart;
+        }
+    }
+
+    private void store(Series s, List<DealTimeseriesPoint> points) {
+        for (DealTimeseriesPoint point : points) {
+            point.setClosed(true);
+            s.closedBuckets.computeIfAbsent(point.getBucketStart(), _ -> new ArrayList<>()).add(point);
+        }
+    }
+}
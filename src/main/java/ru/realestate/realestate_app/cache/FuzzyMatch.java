@@ -0,0 +1,218 @@
+package ru.realestate.realestate_app.cache;
+
+import java.util.Map;
+
+/**
+ * Нормализация и нечёткое сравнение персональных данных для поиска дубликатов
+ *
+ * Фонетический ключ - упрощённый русский Metaphone: безударные гласные сводятся к а/и/у,
+ * звонкие согласные оглушаются перед глухими и в конце слова, мягкий и твёрдый знаки
+ * отбрасываются, повторы схлопываются, женские окончания фамилий приводятся к мужским.
+ * Латиница предварительно транслитерируется, поэтому "Ivanova" и "Иванов" дают один ключ.
+ */
+public final class FuzzyMatch {
+
+    // Многобуквенные сочетания проверяются раньше одиночных букв
+    private static final String[][] LATIN_TO_CYRILLIC = {
+        {"shch", "щ"}, {"sch", "щ"}, {"zh", "ж"}, {"kh", "х"}, {"ts", "ц"}, {"ch", "ч"}, {"sh", "ш"},
+        {"yu", "ю"}, {"ya", "я"}, {"yo", "е"}, {"ye", "е"},
+        {"a", "а"}, {"b", "б"}, {"c", "к"}, {"d", "д"}, {"e", "е"}, {"f", "ф"}, {"g", "г"}, {"h", "х"},
+        {"i", "и"}, {"j", "й"}, {"k", "к"}, {"l", "л"}, {"m", "м"}, {"n", "н"}, {"o", "о"}, {"p", "п"},
+        {"q", "к"}, {"r", "р"}, {"s", "с"}, {"t", "т"}, {"u", "у"}, {"v", "в"}, {"w", "в"}, {"x", "кс"},
+        {"y", "ы"}, {"z", "з"}
+    };
+
+    private static final Map<Character, Character> VOWELS = Map.of(
+        'о', 'а', 'ы', 'а', 'я', 'а', 'е', 'и', 'э', 'и', 'ю', 'у'
+    );
+
+    private static final Map<Character, Character> DEVOICED = Map.of(
+        'б', 'п', 'в', 'ф', 'г', 'к', 'д', 'т', 'ж', 'ш', 'з', 'с'
+    );
+
+    private static final String VOICELESS = "пфктшсхцчщ";
+
+    private FuzzyMatch() {}
+
+    /**
+     * Привести имя к сравнимому виду: нижний регистр, ё как е, только буквы
+     * @param value исходное значение
+     * @return нормализованное значение или пустая строка
+     */
+    public static String normalizeName(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder result = new StringBuilder(value.length());
+        for (char ch : value.toLowerCase().toCharArray()) {
+            if (ch == 'ё') {
+                result.append('е');
+            } else if (Character.isLetter(ch)) {
+                result.append(ch);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Ключ телефона: последние 10 цифр, чтобы +7, 8 и номер без кода страны совпадали
+     * @param phone телефон в любом формате
+     * @return ключ или null, если цифр слишком мало
+     */
+    public static String phoneKey(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        String digits = phone.replaceAll("\\D", "");
+        if (digits.length() < 7) {
+            return null;
+        }
+        return digits.length() > 10 ? digits.substring(digits.length() - 10) : digits;
+    }
+
+    /**
+     * Локальная часть email без точек и суффикса после "+"
+     * @param email адрес электронной почты
+     * @return ключ или null, если адрес пустой или слишком короткий
+     */
+    public static String emailLocalKey(String email) {
+        if (email == null) {
+            return null;
+        }
+        String local = email.trim().toLowerCase();
+        int at = local.indexOf('@');
+        if (at >= 0) {
+            local = local.substring(0, at);
+        }
+        int plus = local.indexOf('+');
+        if (plus >= 0) {
+            local = local.substring(0, plus);
+        }
+        local = local.replace(".", "");
+        return local.length() < 3 ? null : local;
+    }
+
+    /**
+     * Фонетический ключ имени или фамилии
+     * @param value исходное значение (кириллица или латиница)
+     * @return ключ или пустая строка
+     */
+    public static String phoneticKey(String value) {
+        String word = transliterate(normalizeName(value));
+        if (word.isEmpty()) {
+            return "";
+        }
+
+        // Женские формы фамилий сводятся к мужским
+        if (word.endsWith("ская") || word.endsWith("цкая")) {
+            word = word.substring(0, word.length() - 2) + "ий";
+        } else if (word.endsWith("ова") || word.endsWith("ева") || word.endsWith("ина") || word.endsWith("ына")) {
+            word = word.substring(0, word.length() - 1);
+        }
+
+        StringBuilder vowels = new StringBuilder(word.length());
+        for (int i = 0; i < word.length(); i++) {
+            char ch = word.charAt(i);
+            char next = i + 1 < word.length() ? word.charAt(i + 1) : 0;
+            // Сочетания йо, ио, йе, ие читаются как и
+            if ((ch == 'й' || ch == 'и') && (next == 'о' || next == 'е')) {
+                vowels.append('и');
+                i++;
+            } else if (ch != 'ь' && ch != 'ъ') {
+                vowels.append(VOWELS.getOrDefault(ch, ch));
+            }
+        }
+
+        StringBuilder key = new StringBuilder(vowels.length());
+        for (int i = 0; i < vowels.length(); i++) {
+            char ch = vowels.charAt(i);
+            char next = i + 1 < vowels.length() ? vowels.charAt(i + 1) : 0;
+            if (DEVOICED.containsKey(ch) && (next == 0 || VOICELESS.indexOf(next) >= 0)) {
+                ch = DEVOICED.get(ch);
+            }
+            if (key.isEmpty() || key.charAt(key.length() - 1) != ch) {
+                key.append(ch);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Сходство строк Джаро - Винклера
+     * @return значение от 0 (ничего общего) до 1 (совпадают)
+     */
+    public static double jaroWinkler(String a, String b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        if (a.equals(b)) {
+            return 1;
+        }
+        int window = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+        boolean[] matchedA = new boolean[a.length()];
+        boolean[] matchedB = new boolean[b.length()];
+        int matches = 0;
+        for (int i = 0; i < a.length(); i++) {
+            int from = Math.max(0, i - window);
+            int to = Math.min(b.length() - 1, i + window);
+            for (int j = from; j <= to; j++) {
+                if (!matchedB[j] && a.charAt(i) == b.charAt(j)) {
+                    matchedA[i] = true;
+                    matchedB[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0;
+        }
+
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < a.length(); i++) {
+            if (!matchedA[i]) {
+                continue;
+            }
+            while (!matchedB[j]) {
+                j++;
+            }
+            if (a.charAt(i) != b.charAt(j)) {
+                transpositions++;
+            }
+            j++;
+        }
+        double m = matches;
+        double jaro = (m / a.length() + m / b.length() + (m - transpositions / 2.0) / m) / 3;
+
+        int prefix = 0;
+        while (prefix < Math.min(4, Math.min(a.length(), b.length())) && a.charAt(prefix) == b.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+
+    private static String transliterate(String word) {
+        boolean latin = false;
+        for (int i = 0; i < word.length() && !latin; i++) {
+            latin = word.charAt(i) < 128;
+        }
+        if (!latin) {
+            return word;
+        }
+        StringBuilder result = new StringBuilder(word.length());
+        int i = 0;
+        outer:
+        while (i < word.length()) {
+            for (String[] pair : LATIN_TO_CYRILLIC) {
+                if (word.startsWith(pair[0], i)) {
+                    result.append(pair[1]);
+                    i += pair[0].length();
+                    continue outer;
+                }
+            }
+            result.append(word.charAt(i));
+            i++;
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,322 @@
+package ru.realestate.realestate_app.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import ru.realestate.realestate_app.dao.reference.GeographyDao;
+import ru.realestate.realestate_app.model.geography.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Индекс географической иерархии страна → регион → город → район/улица в памяти
+ *
+ * Снимок справочников загружается целиком при старте и периодически перестраивается.
+ * Каждый снимок неизменяем и подменяется атомарно, поэтому читатели работают без блокировок,
+ * а поиск дочерних элементов любого узла - это одно обращение к HashMap.
+ * Пока снимок не загружен (например, база недоступна при старте), {@link #isLoaded()}
+ * возвращает false и вызывающий код обращается к GeographyDao напрямую.
+ */
+@Component
+public class GeographyIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeographyIndex.class);
+
+    private final GeographyDao geographyDao;
+
+    private volatile Snapshot snapshot;
+
+    // Номер загруженного снимка: увеличивается при каждой успешной перезагрузке
+    private volatile long version;
+
+    /**
+     * Конструктор индекса с инжекцией зависимостей
+     * @param geographyDao DAO для загрузки географических справочников
+     */
+    public GeographyIndex(GeographyDao geographyDao) {
+        this.geographyDao = geographyDao;
+    }
+
+    /**
+     * Первичная загрузка индекса после старта приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    /**
+     * Периодическое перестроение индекса, чтобы подхватить изменения справочников
+     */
+    @Scheduled(fixedDelayString = "${app.geography-index.refresh-interval:PT10M}",
+               initialDelayString = "${app.geography-index.refresh-interval:PT10M}")
+    public void scheduledReload() {
+        reload();
+    }
+
+    /**
+     * Перестроить индекс по текущему состоянию базы данных и подменить снимок
+     * При ошибке загрузки продолжает использоваться предыдущий снимок
+     * @return true если индекс успешно перестроен
+     */
+    public synchronized boolean reload() {
+        try {
+            long start = System.nanoTime();
+            Snapshot loaded = new Snapshot(
+                geographyDao.findAllCountries(),
+                geographyDao.findAllRegions(),
+                geographyDao.findAllCities(),
+                geographyDao.findAllDistricts(),
+                geographyDao.findAllStreets()
+            );
+            snapshot = loaded;
+            version++;
+            logger.info("Индекс географии загружен за {} мс: {} стран, {} регионов, {} городов, {} районов, {} улиц",
+                       (System.nanoTime() - start) / 1_000_000,
+                       loaded.countries.size(), loaded.regions.size(), loaded.cities.size(),
+                       loaded.districts.size(), loaded.streets.size());
+            return true;
+        } catch (Exception e) {
+            logger.warn("Не удалось загрузить индекс географии, запросы будут выполняться к базе данных: {}",
+                       e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Проверить, загружен ли индекс
+     * @return true если индекс доступен для запросов
+     */
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    /**
+     * Получить номер текущего снимка, чтобы производные данные могли определить,
+     * что индекс был перезагружен
+     * @return номер снимка (0 если индекс ещё не загружен)
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    // ========== ПОИСК ПО ИДЕНТИФИКАТОРУ ==========
+
+    public Optional<Country> findCountry(Long id) {
+        return Optional.ofNullable(snapshot.countries.get(id));
+    }
+
+    public Optional<Region> findRegion(Long id) {
+        return Optional.ofNullable(snapshot.regions.get(id));
+    }
+
+    public Optional<City> findCity(Long id) {
+        return Optional.ofNullable(snapshot.cities.get(id));
+    }
+
+    public Optional<District> findDistrict(Long id) {
+        return Optional.ofNullable(snapshot.districts.get(id));
+    }
+
+    public Optional<Street> findStreet(Long id) {
+        return Optional.ofNullable(snapshot.streets.get(id));
+    }
+
+    // ========== ПОЛНЫЕ СПИСКИ (упорядочены по идентификатору) ==========
+
+    public List<Country> getAllCountries() {
+        return snapshot.countryList;
+    }
+
+    public List<Region> getAllRegions() {
+        return snapshot.regionList;
+    }
+
+    public List<City> getAllCities() {
+        return snapshot.cityList;
+    }
+
+    public List<District> getAllDistricts() {
+        return snapshot.districtList;
+    }
+
+    public List<Street> getAllStreets() {
+        return snapshot.streetList;
+    }
+
+    // ========== НАВИГАЦИЯ ПО ИЕРАРХИИ ==========
+
+    public List<Region> getRegionsByCountry(Long countryId) {
+        return snapshot.regionsByCountry.getOrDefault(countryId, List.of());
+    }
+
+    public List<City> getCitiesByRegion(Long regionId) {
+        return snapshot.citiesByRegion.getOrDefault(regionId, List.of());
+    }
+
+    public List<City> getCitiesByCountry(Long countryId) {
+        return snapshot.citiesByCountry.getOrDefault(countryId, List.of());
+    }
+
+    public List<District> getDistrictsByCity(Long cityId) {
+        return snapshot.districtsByCity.getOrDefault(cityId, List.of());
+    }
+
+    public List<District> getDistrictsByRegion(Long regionId) {
+        return snapshot.districtsByRegion.getOrDefault(regionId, List.of());
+    }
+
+    public List<District> getDistrictsByCountry(Long countryId) {
+        return snapshot.districtsByCountry.getOrDefault(countryId, List.of());
+    }
+
+    public List<Street> getStreetsByCity(Long cityId) {
+        return snapshot.streetsByCity.getOrDefault(cityId, List.of());
+    }
+
+    /**
+     * Проверить адрес объекта недвижимости за один проход по цепочке:
+     * каждый элемент должен существовать и принадлежать указанному родителю
+     * (регион - стране, город - региону, район и улица - городу)
+     * @param countryId идентификатор страны
+     * @param regionId идентификатор региона
+     * @param cityId идентификатор города
+     * @param districtId идентификатор района (может быть null)
+     * @param streetId идентификатор улицы
+     * @return сообщение об ошибке или пустой Optional если адрес корректен
+     */
+    public Optional<String> validateAddress(Long countryId, Long regionId, Long cityId,
+                                            Long districtId, Long streetId) {
+        Snapshot current = snapshot;
+
+        if (!current.countries.containsKey(countryId)) {
+            return Optional.of("Страна с id " + countryId + " не найдена");
+        }
+
+        Region region = current.regions.get(regionId);
+        if (region == null) {
+            return Optional.of("Регион с id " + regionId + " не найден");
+        }
+        if (!countryId.equals(region.getIdCountry())) {
+            return Optional.of("Регион с id " + regionId + " не относится к стране с id " + countryId);
+        }
+
+        City city = current.cities.get(cityId);
+        if (city == null) {
+            return Optional.of("Город с id " + cityId + " не найден");
+        }
+        if (!regionId.equals(city.getIdRegion())) {
+            return Optional.of("Город с id " + cityId + " не относится к региону с id " + regionId);
+        }
+
+        if (districtId != null) {
+            District district = current.districts.get(districtId);
+            if (district == null) {
+                return Optional.of("Район с id " + districtId + " не найден");
+            }
+            if (!cityId.equals(district.getIdCity())) {
+                return Optional.of("Район с id " + districtId + " не относится к городу с id " + cityId);
+            }
+        }
+
+        Street street = current.streets.get(streetId);
+        if (street == null) {
+            return Optional.of("Улица с id " + streetId + " не найдена");
+        }
+        if (!cityId.equals(street.getIdCity())) {
+            return Optional.of("Улица с id " + streetId + " не относится к городу с id " + cityId);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Неизменяемый снимок географических справочников со всеми индексами
+     */
+    private static final class Snapshot {
+        private final Map<Long, Country> countries;
+        private final Map<Long, Region> regions;
+        private final Map<Long, City> cities;
+        private final Map<Long, District> districts;
+        private final Map<Long, Street> streets;
+
+        private final List<Country> countryList;
+        private final List<Region> regionList;
+        private final List<City> cityList;
+        private final List<District> districtList;
+        private final List<Street> streetList;
+
+        private final Map<Long, List<Region>> regionsByCountry;
+        private final Map<Long, List<City>> citiesByRegion;
+        private final Map<Long, List<City>> citiesByCountry;
+        private final Map<Long, List<District>> districtsByCity;
+        private final Map<Long, List<District>> districtsByRegion;
+        private final Map<Long, List<District>> districtsByCountry;
+        private final Map<Long, List<Street>> streetsByCity;
+
+        Snapshot(List<Country> countryList, List<Region> regionList, List<City> cityList,
+                 List<District> districtList, List<Street> streetList) {
+            this.countryList = List.copyOf(countryList);
+            this.regionList = List.copyOf(regionList);
+            this.cityList = List.copyOf(cityList);
+            this.districtList = List.copyOf(districtList);
+            this.streetList = List.copyOf(streetList);
+
+            this.countries = byId(countryList, Country::getIdCountry);
+            this.regions = byId(regionList, Region::getIdRegion);
+            this.cities = byId(cityList, City::getIdCity);
+            this.districts = byId(districtList, District::getIdDistrict);
+            this.streets = byId(streetList, Street::getIdStreet);
+
+            // Списки загружены в порядке id, поэтому группы тоже упорядочены по id
+            this.regionsByCountry = groupBy(regionList, Region::getIdCountry);
+            this.citiesByRegion = groupBy(cityList, City::getIdRegion);
+            this.citiesByCountry = groupBy(cityList, city -> countryOfRegion(city.getIdRegion()));
+            this.districtsByCity = groupBy(districtList, District::getIdCity);
+            this.districtsByRegion = groupBy(districtList, district -> regionOfCity(district.getIdCity()));
+            this.districtsByCountry = groupBy(districtList,
+                district -> countryOfRegion(regionOfCity(district.getIdCity())));
+            this.streetsByCity = groupBy(streetList, Street::getIdCity);
+        }
+
+        private Long regionOfCity(Long cityId) {
+            City city = cities.get(cityId);
+            return city != null ? city.getIdRegion() : null;
+        }
+
+        private Long countryOfRegion(Long regionId) {
+            Region region = regionId != null ? regions.get(regionId) : null;
+            return region != null ? region.getIdCountry() : null;
+        }
+
+        private static <T> Map<Long, T> byId(List<T> items, Function<T, Long> idGetter) {
+            Map<Long, T> result = new HashMap<>(items.size() * 2);
+            for (T item : items) {
+                result.put(idGetter.apply(item), item);
+            }
+            return Map.copyOf(result);
+        }
+
+        private static <T> Map<Long, List<T>> groupBy(List<T> items, Function<T, Long> parentGetter) {
+            Map<Long, List<T>> groups = new HashMap<>();
+            for (T item : items) {
+                Long parentId = parentGetter.apply(item);
+                if (parentId != null) {
+                    groups.computeIfAbsent(parentId, _ -> new ArrayList<>()).add(item);
+                }
+            }
+            Map<Long, List<T>> result = new HashMap<>(groups.size() * 2);
+            groups.forEach((parentId, children) -> result.put(parentId, List.copyOf(children)));
+            return Map.copyOf(result);
+        }
+    }
+}
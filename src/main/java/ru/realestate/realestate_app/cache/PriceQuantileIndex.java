@@ -0,0 +1,250 @@
+package ru.realestate.realestate_app.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import ru.realestate.realestate_app.dao.PropertyAnalyticsDao;
+import ru.realestate.realestate_app.model.Property;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Скетчи квантилей цены и цены за м² по группам "город - район - тип недвижимости"
+ *
+ * Для каждой группы хранятся два {@link QuantileSketch} фиксированного размера, поэтому память
+ * не зависит от количества объектов. Квантили по району, городу или типу получаются
+ * объединением скетчей групп без обращения к таблице properties.
+ *
+ * Новые объекты добавляются в скетчи сразу. Скетч не умеет удалять значения, поэтому изменение
+ * цены или группы добавляет новое значение, а старое остаётся до перестроения; удаление
+ * только учитывается в счётчике устаревших изменений. Перестроение выполняется периодически,
+ * если с прошлого перестроения были такие изменения.
+ *
+ * Перестроение читает таблицу без монитора индекса в новые скетчи, а затем подменяет ими
+ * прежние; запросы и изменения за время чтения обслуживаются прежними скетчами.
+ */
+@Component
+public class PriceQuantileIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceQuantileIndex.class);
+
+    /**
+     * Ключ группы объектов
+     * @param cityId идентификатор города (null - все города)
+     * @param districtId идентификатор района (null - без района или все районы)
+     * @param propertyTypeId идентификатор типа недвижимости (null - все типы)
+     */
+    public record GroupKey(Long cityId, Long districtId, Long propertyTypeId) {}
+
+    /**
+     * Скетчи одной группы
+     */
+    public static final class GroupSketches {
+        private final QuantileSketch price;
+        private final QuantileSketch pricePerSqm;
+
+        GroupSketches(int k) {
+            this.price = new QuantileSketch(k);
+            this.pricePerSqm = new QuantileSketch(k);
+        }
+
+        void add(BigDecimal cost, BigDecimal area) {
+            if (cost == null) {
+                return;
+            }
+            price.update(cost.doubleValue());
+            if (area != null && area.signum() > 0) {
+                pricePerSqm.update(cost.divide(area, 2, RoundingMode.HALF_UP).doubleValue());
+            }
+        }
+
+        void merge(GroupSketches other) {
+            price.merge(other.price);
+            pricePerSqm.merge(other.pricePerSqm);
+        }
+
+        public QuantileSketch getPrice() {
+            return price;
+        }
+
+        public QuantileSketch getPricePerSqm() {
+            return pricePerSqm;
+        }
+    }
+
+    private final PropertyAnalyticsDao propertyAnalyticsDao;
+    private final int k;
+
+    // Ссылка подменяется целиком при перестроении; сами скетчи изменяются и читаются под монитором this
+    private volatile Map<GroupKey, GroupSketches> groups = new HashMap<>();
+    private long staleChanges;
+    private volatile boolean loaded;
+
+    // Объекты, добавленные во время перестроения (null - перестроение не выполняется)
+    private List<Property> pendingAdds;
+
+    /**
+     * Конструктор индекса
+     * @param propertyAnalyticsDao DAO для потокового чтения цен объектов
+     * @param k параметр точности скетчей (ошибка ранга около 1.7 / k)
+     */
+    public PriceQuantileIndex(PropertyAnalyticsDao propertyAnalyticsDao,
+                              @Value("${app.price-quantiles.sketch-k:200}") int k) {
+        this.propertyAnalyticsDao = propertyAnalyticsDao;
+        this.k = k;
+    }
+
+    /**
+     * Первичное построение скетчей после старта приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    /**
+     * Периодическое перестроение, если были изменения или удаления объектов
+     */
+    @Scheduled(fixedDelayString = "${app.price-quantiles.rebuild-interval:PT30M}",
+               initialDelayString = "${app.price-quantiles.rebuild-interval:PT30M}")
+    public void scheduledReload() {
+        boolean needed;
+        synchronized (this) {
+            needed = !loaded || staleChanges > 0;
+        }
+        if (needed) {
+            reload();
+        }
+    }
+
+    /**
+     * Перестроить скетчи по текущему состоянию таблицы properties
+     *
+     * Чтение таблицы выполняется без монитора. Объекты, добавленные за это время, после чтения
+     * добавляются и в новые скетчи; если объект уже попал в выборку, он окажется в скетче дважды,
+     * поэтому такие добавления остаются в счётчике устаревших изменений до следующего перестроения.
+     * При ошибке продолжают использоваться прежние скетчи.
+     * @return true если скетчи успешно перестроены
+     */
+    public boolean reload() {
+        long staleBefore;
+        synchronized (this) {
+            if (pendingAdds != null) {
+                logger.debug("Перестроение скетчей квантилей цен уже выполняется");
+                return loaded;
+            }
+            pendingAdds = new ArrayList<>();
+            staleBefore = staleChanges;
+        }
+        try {
+            long start = System.nanoTime();
+            Map<GroupKey, GroupSketches> loadedGroups = new HashMap<>();
+            long rows = propertyAnalyticsDao.forEachPriceSample(sample -> loadedGroups
+                .computeIfAbsent(new GroupKey(sample.cityId(), sample.districtId(), sample.propertyTypeId()),
+                                 _ -> new GroupSketches(k))
+                .add(sample.cost(), sample.area()));
+            int replayed;
+            synchronized (this) {
+                pendingAdds.forEach(property -> addTo(loadedGroups, property));
+                replayed = pendingAdds.size();
+                groups = loadedGroups;
+                // Изменения, пришедшие во время чтения, могли не попасть в выборку
+                staleChanges = staleChanges - staleBefore + replayed;
+                loaded = true;
+            }
+            logger.info("Скетчи квантилей цен построены за {} мс: {} объектов, {} групп, досчитано объектов: {}",
+                       (System.nanoTime() - start) / 1_000_000, rows, loadedGroups.size(), replayed);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Не удалось построить скетчи квантилей цен: {}", e.getMessage());
+            return false;
+        } finally {
+            synchronized (this) {
+                pendingAdds = null;
+            }
+        }
+    }
+
+    /**
+     * Проверить, построены ли скетчи
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Учесть новый объект недвижимости
+     * @param property сохранённый объект
+     */
+    public synchronized void add(Property property) {
+        if (property == null) {
+            return;
+        }
+        if (pendingAdds != null) {
+            pendingAdds.add(property);
+        }
+        if (loaded) {
+            addTo(groups, property);
+        }
+    }
+
+    /**
+     * Учесть изменение цены, площади или группы объекта: новое значение добавляется сразу,
+     * прежнее исключается при ближайшем перестроении
+     * @param updated объект после изменения
+     */
+    public synchronized void replace(Property updated) {
+        staleChanges++;
+        add(updated);
+    }
+
+    /**
+     * Учесть удаление объекта (исключается при ближайшем перестроении)
+     */
+    public synchronized void markRemoved() {
+        staleChanges++;
+    }
+
+    /**
+     * Количество изменений и удалений, ещё не учтённых перестроением
+     */
+    public synchronized long getStaleChanges() {
+        return staleChanges;
+    }
+
+    /**
+     * Объединить скетчи подходящих групп по ключам проекции
+     * @param filter отбор групп
+     * @param projection ключ результата для группы (например, без типа недвижимости)
+     * @return объединённые скетчи по ключам проекции (копии, их можно изменять)
+     */
+    public synchronized Map<GroupKey, GroupSketches> query(Predicate<GroupKey> filter,
+                                                           Function<GroupKey, GroupKey> projection) {
+        Map<GroupKey, GroupSketches> result = new LinkedHashMap<>();
+        groups.forEach((key, sketches) -> {
+            if (filter.test(key)) {
+                result.computeIfAbsent(projection.apply(key), _ -> new GroupSketches(k)).merge(sketches);
+            }
+        });
+        return result;
+    }
+
+    private void addTo(Map<GroupKey, GroupSketches> target, Property property) {
+        target.computeIfAbsent(new GroupKey(property.getIdCity(), property.getIdDistrict(), property.getIdPropertyType()),
+                               _ -> new GroupSketches(k))
+            .add(property.getCost(), property.getArea());
+    }
+}
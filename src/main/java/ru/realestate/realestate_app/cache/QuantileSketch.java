@@ -0,0 +1,227 @@
+package ru.realestate.realestate_app.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Потоковый скетч квантилей KLL (Karnin, Lang, Liberty)
+ *
+ * Значения складываются в уровни-компакторы: когда уровень переполняется, он сортируется
+ * и каждое второе значение (со случайным сдвигом) переносится на уровень выше с удвоенным весом.
+ * Ёмкость уровней убывает геометрически (коэффициент 2/3) от верхнего к нижнему, поэтому
+ * размер скетча ограничен примерно 3k значений независимо от их количества,
+ * а ошибка ранга квантиля - около 1.7 / k (для k = 200 - менее 1%).
+ *
+ * Скетчи одинакового k можно объединять ({@link #merge(QuantileSketch)}), поэтому квантили
+ * по любому объединению групп считаются без обращения к исходным данным.
+ * Удаление значений не поддерживается. Класс не потокобезопасен.
+ */
+public class QuantileSketch {
+
+    private static final double CAPACITY_RATIO = 2.0 / 3.0;
+    private static final int MIN_LEVEL_CAPACITY = 2;
+
+    private final int k;
+
+    // Уровень h хранит значения с весом 2^h
+    private final List<double[]> levels = new ArrayList<>();
+    private final List<Integer> levelSizes = new ArrayList<>();
+
+    private long count;
+    private int retained;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    /**
+     * Создать пустой скетч
+     * @param k параметр точности (больше - точнее и больше памяти)
+     */
+    public QuantileSketch(int k) {
+        if (k < 8) {
+            throw new IllegalArgumentException("Параметр k скетча должен быть не меньше 8");
+        }
+        this.k = k;
+        addLevel();
+    }
+
+    /**
+     * Добавить значение
+     * @param value значение (NaN игнорируется)
+     */
+    public void update(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        append(0, value);
+        count++;
+        min = count == 1 ? value : Math.min(min, value);
+        max = count == 1 ? value : Math.max(max, value);
+        if (retained >= maxRetained()) {
+            compress();
+        }
+    }
+
+    /**
+     * Добавить в скетч все значения другого скетча
+     * @param other скетч с тем же параметром k
+     */
+    public void merge(QuantileSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("Объединять можно только скетчи с одинаковым k");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        for (int h = 0; h < other.levels.size(); h++) {
+            while (levels.size() <= h) {
+                addLevel();
+            }
+            double[] items = other.levels.get(h);
+            int size = other.levelSizes.get(h);
+            for (int i = 0; i < size; i++) {
+                append(h, items[i]);
+            }
+        }
+        min = count == 0 ? other.min : Math.min(min, other.min);
+        max = count == 0 ? other.max : Math.max(max, other.max);
+        count += other.count;
+        while (retained >= maxRetained()) {
+            compress();
+        }
+    }
+
+    /**
+     * Получить копию скетча
+     */
+    public QuantileSketch copy() {
+        QuantileSketch copy = new QuantileSketch(k);
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Оценка квантиля
+     * @param q доля от 0 до 1 (0 - минимум, 1 - максимум)
+     * @return значение квантиля или NaN для пустого скетча
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (q <= 0) {
+            return min;
+        }
+        if (q >= 1) {
+            return max;
+        }
+
+        // Все хранимые значения с весами, упорядоченные по значению
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        int n = 0;
+        for (int h = 0; h < levels.size(); h++) {
+            double[] items = levels.get(h);
+            int size = levelSizes.get(h);
+            for (int i = 0; i < size; i++) {
+                values[n] = items[i];
+                weights[n] = 1L << h;
+                n++;
+            }
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        long totalWeight = 0;
+        for (int i = 0; i < n; i++) {
+            totalWeight += weights[i];
+        }
+        double target = q * totalWeight;
+        long cumulative = 0;
+        for (Integer index : order) {
+            cumulative += weights[index];
+            if (cumulative >= target) {
+                return values[index];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Количество добавленных значений
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Количество значений, хранимых в скетче
+     */
+    public int getRetained() {
+        return retained;
+    }
+
+    private void addLevel() {
+        levels.add(new double[MIN_LEVEL_CAPACITY]);
+        levelSizes.add(0);
+    }
+
+    private void append(int level, double value) {
+        double[] items = levels.get(level);
+        int size = levelSizes.get(level);
+        if (size == items.length) {
+            items = Arrays.copyOf(items, items.length * 2);
+            levels.set(level, items);
+        }
+        items[size] = value;
+        levelSizes.set(level, size + 1);
+        retained++;
+    }
+
+    /**
+     * Ёмкость уровня: у верхнего уровня k, у каждого более низкого - в 2/3 меньше
+     */
+    private int capacity(int level) {
+        int depth = levels.size() - 1 - level;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_RATIO, depth)));
+    }
+
+    private int maxRetained() {
+        int total = 0;
+        for (int h = 0; h < levels.size(); h++) {
+            total += capacity(h);
+        }
+        return total;
+    }
+
+    /**
+     * Сжать первый переполненный уровень, перенеся половину его значений на уровень выше
+     */
+    private void compress() {
+        for (int h = 0; h < levels.size(); h++) {
+            int size = levelSizes.get(h);
+            if (size < capacity(h)) {
+                continue;
+            }
+            if (h + 1 == levels.size()) {
+                addLevel();
+            }
+            double[] items = levels.get(h);
+            Arrays.sort(items, 0, size);
+
+            // При нечётном размере одно значение остаётся на текущем уровне
+            int start = size % 2;
+            int offset = ThreadLocalRandom.current().nextBoolean() ? 1 : 0;
+            for (int i = start + offset; i < size; i += 2) {
+                append(h + 1, items[i]);
+            }
+            retained -= size - start;
+            levelSizes.set(h, start);
+            return;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package ru.realestate.realestate_app.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import ru.realestate.realestate_app.dao.DealAnalyticsDao;
+import ru.realestate.realestate_app.dao.DealAnalyticsDao.RealtorMonthTotal;
+import ru.realestate.realestate_app.dao.DealAnalyticsDao.RealtorTotals;
+import ru.realestate.realestate_app.dao.TransactionSnapshot;
+import ru.realestate.realestate_app.model.Deal;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Рейтинг риелторов по количеству и сумме сделок в памяти
+ *
+ * Для всего времени и для каждого месяца хранится отдельная таблица: итоги по id риелтора
+ * и два упорядоченных множества (по количеству и по сумме). Изменение сделки переставляет
+ * одного риелтора в двух таблицах за O(log n), получение первых N мест не обращается к сделкам.
+ *
+ * Рейтинг заполняется одним агрегирующим запросом при старте и раз в сутки перестраивается
+ * заново, чтобы исправить возможные расхождения. Изменения сделок приходят после фиксации
+ * вместе с номером транзакции, а итоги читаются вместе со снимком запроса: изменение,
+ * транзакция которого видна снимку, уже вошло в итоги и повторно не учитывается.
+ * Пока рейтинг не загружен, изменения сделок не учитываются - их покроет загрузка.
+ */
+@Component
+public class RealtorLeaderboard {
+
+    private static final Logger logger = LoggerFactory.getLogger(RealtorLeaderboard.class);
+
+    /**
+     * Показатель, по которому строится рейтинг
+     */
+    public enum Metric {
+        COUNT,
+        VOLUME
+    }
+
+    /**
+     * Итоги риелтора в одной таблице рейтинга
+     * @param realtorId идентификатор риелтора
+     * @param dealCount количество сделок
+     * @param dealVolume суммарная стоимость сделок
+     */
+    public record Standing(long realtorId, long dealCount, BigDecimal dealVolume) {}
+
+    // При равенстве основного показателя выше тот, у кого больше второй; id - для однозначного порядка
+    private static final Comparator<Standing> BY_COUNT = Comparator
+        .comparingLong(Standing::dealCount).reversed()
+        .thenComparing(Standing::dealVolume, Comparator.reverseOrder())
+        .thenComparingLong(Standing::realtorId);
+
+    private static final Comparator<Standing> BY_VOLUME = Comparator
+        .comparing(Standing::dealVolume, Comparator.reverseOrder())
+        .thenComparing(Comparator.comparingLong(Standing::dealCount).reversed())
+        .thenComparingLong(Standing::realtorId);
+
+    /**
+     * Таблица рейтинга за один период
+     */
+    private static final class Board {
+        final Map<Long, Standing> byRealtor = new HashMap<>();
+        final TreeSet<Standing> byCount = new TreeSet<>(BY_COUNT);
+        final TreeSet<Standing> byVolume = new TreeSet<>(BY_VOLUME);
+
+        void add(long realtorId, long countDelta, BigDecimal volumeDelta) {
+            Standing previous = byRealtor.remove(realtorId);
+            long count = countDelta;
+            BigDecimal volume = volumeDelta;
+            if (previous != null) {
+                byCount.remove(previous);
+                byVolume.remove(previous);
+                count += previous.dealCount();
+                volume = volume.add(previous.dealVolume());
+            }
+            if (count <= 0) {
+                return;
+            }
+            Standing updated = new Standing(realtorId, count, volume);
+            byRealtor.put(realtorId, updated);
+            byCount.add(updated);
+            byVolume.add(updated);
+        }
+
+        void remove(long realtorId) {
+            Standing previous = byRealtor.remove(realtorId);
+            if (previous != null) {
+                byCount.remove(previous);
+                byVolume.remove(previous);
+            }
+        }
+
+        List<Standing> top(Metric metric, int limit) {
+            List<Standing> result = new ArrayList<>(Math.min(limit, byRealtor.size()));
+            Iterator<Standing> iterator = (metric == Metric.COUNT ? byCount : byVolume).iterator();
+            while (iterator.hasNext() && result.size() < limit) {
+                result.add(iterator.next());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Изменение итогов риелтора одной сделкой
+     * @param deal сделка
+     * @param sign +1 - сделка добавляется к итогам, -1 - вычитается
+     * @param xid номер транзакции изменения (0 - неизвестен)
+     */
+    private record Change(Deal deal, int sign, long xid) {}
+
+    private final DealAnalyticsDao dealAnalyticsDao;
+
+    // Таблицы изменяются и читаются только под монитором this
+    private Board allTime;
+    private Map<YearMonth, Board> monthly = new HashMap<>();
+    private volatile boolean loaded;
+
+    // Снимок, с которым прочитаны итоги таблиц, и снимки итогов риелторов, перечитанных после этого:
+    // изменение из транзакции, видимой снимку риелтора, уже учтено в его итогах
+    private TransactionSnapshot baseline;
+    private final Map<Long, TransactionSnapshot> realtorBaselines = new HashMap<>();
+
+    // Изменения, пришедшие во время перестроения (null - перестроение не выполняется);
+    // после чтения итогов они применяются к новым таблицам, если не вошли в итоги
+    private List<Change> pendingChanges;
+    private Map<Long, RealtorTotals> pendingRealtors;
+
+    /**
+     * Конструктор рейтинга с инжекцией зависимостей
+     * @param dealAnalyticsDao DAO аналитических запросов по сделкам
+     */
+    public RealtorLeaderboard(DealAnalyticsDao dealAnalyticsDao) {
+        this.dealAnalyticsDao = dealAnalyticsDao;
+    }
+
+    /**
+     * Первичная загрузка рейтинга после старта приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    /**
+     * Ежесуточное перестроение рейтинга по базе данных
+     */
+    @Scheduled(cron = "${app.realtor-leaderboard.rebuild-cron:0 0 4 * * *}")
+    public void scheduledReload() {
+        reload();
+    }
+
+    /**
+     * Перестроить рейтинг по текущему состоянию базы данных
+     *
+     * Агрегирующий запрос выполняется без монитора: рейтинг продолжает отвечать и принимать
+     * изменения. Изменения, пришедшие за это время, запоминаются и после запроса применяются
+     * к новым таблицам, кроме тех, чьи транзакции видны снимку запроса (они уже в итогах).
+     * При ошибке загрузки продолжает использоваться предыдущий рейтинг.
+     * @return true если рейтинг успешно перестроен
+     */
+    public boolean reload() {
+        synchronized (this) {
+            if (pendingChanges != null) {
+                logger.debug("Перестроение рейтинга риелторов уже выполняется");
+                return loaded;
+            }
+            pendingChanges = new ArrayList<>();
+            pendingRealtors = new HashMap<>();
+        }
+        try {
+            long start = System.nanoTime();
+            RealtorTotals seed = dealAnalyticsDao.findRealtorMonthlyTotals();
+
+            Board loadedAllTime = new Board();
+            Map<YearMonth, Board> loadedMonthly = new HashMap<>();
+            for (RealtorMonthTotal total : seed.totals()) {
+                loadedAllTime.add(total.realtorId(), total.dealCount(), total.dealVolume());
+                loadedMonthly.computeIfAbsent(total.month(), _ -> new Board())
+                    .add(total.realtorId(), total.dealCount(), total.dealVolume());
+            }
+
+            int replayed;
+            synchronized (this) {
+                allTime = loadedAllTime;
+                monthly = loadedMonthly;
+                baseline = seed.snapshot();
+                realtorBaselines.clear();
+                loaded = true;
+                pendingRealtors.forEach(this::applyRealtorTotals);
+                replayed = 0;
+                for (Change change : pendingChanges) {
+                    if (applyIfNotCounted(change)) {
+                        replayed++;
+                    }
+                }
+            }
+            logger.info("Рейтинг риелторов загружен за {} мс: {} риелторов, {} месяцев, досчитано изменений: {}",
+                       (System.nanoTime() - start) / 1_000_000, loadedAllTime.byRealtor.size(),
+                       loadedMonthly.size(), replayed);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Не удалось загрузить рейтинг риелторов: {}", e.getMessage());
+            return false;
+        } finally {
+            synchronized (this) {
+                pendingChanges = null;
+                pendingRealtors = null;
+            }
+        }
+    }
+
+    /**
+     * Проверить, загружен ли рейтинг
+     * @return true если рейтинг доступен для запросов
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Учесть новую сделку
+     * @param deal сохранённая сделка
+     * @param xid номер транзакции, в которой сделка сохранена
+     */
+    public synchronized void recordDeal(Deal deal, long xid) {
+        submit(new Change(deal, 1, xid));
+    }
+
+    /**
+     * Учесть удаление сделки
+     * @param deal сделка в состоянии до удаления
+     * @param xid номер транзакции, в которой сделка удалена
+     */
+    public synchronized void removeDeal(Deal deal, long xid) {
+        submit(new Change(deal, -1, xid));
+    }
+
+    /**
+     * Учесть изменение сделки (риелтора, даты или стоимости)
+     * @param previous сделка до изменения
+     * @param current сделка после изменения
+     * @param xid номер транзакции, в которой сделка изменена
+     */
+    public synchronized void replaceDeal(Deal previous, Deal current, long xid) {
+        submit(new Change(previous, -1, xid));
+        submit(new Change(current, 1, xid));
+    }
+
+    /**
+     * Заменить все итоги риелтора итогами, прочитанными из базы данных
+     * Используется, когда сделки риелтора изменил другой экземпляр приложения
+     * и состояние сделок до изменения неизвестно
+     * @param realtorId идентификатор риелтора
+     * @param totals итоги риелтора по месяцам и снимок, с которым они прочитаны
+     */
+    public synchronized void replaceRealtor(long realtorId, RealtorTotals totals) {
+        if (pendingRealtors != null) {
+            // Итоги могут оказаться новее снимка перестроения - они заменят риелтора и в новых таблицах
+            pendingRealtors.put(realtorId, totals);
+        }
+        if (loaded) {
+            applyRealtorTotals(realtorId, totals);
+        }
+    }
+
+    /**
+     * Получить первые места рейтинга
+     * @param month месяц (null - за всё время)
+     * @param metric показатель рейтинга
+     * @param limit количество мест
+     * @return итоги риелторов в порядке мест (пустой список, если сделок в периоде нет)
+     */
+    public synchronized List<Standing> top(YearMonth month, Metric metric, int limit) {
+        Board board = month == null ? allTime : monthly.get(month);
+        return board == null ? List.of() : board.top(metric, limit);
+    }
+
+    private void submit(Change change) {
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+        if (loaded) {
+            applyIfNotCounted(change);
+        }
+    }
+
+    private void applyRealtorTotals(long realtorId, RealtorTotals totals) {
+        allTime.remove(realtorId);
+        monthly.values().forEach(board -> board.remove(realtorId));
+        monthly.values().removeIf(board -> board.byRealtor.isEmpty());
+        for (RealtorMonthTotal total : totals.totals()) {
+            allTime.add(realtorId, total.dealCount(), total.dealVolume());
+            monthly.computeIfAbsent(total.month(), _ -> new Board())
+                .add(realtorId, total.dealCount(), total.dealVolume());
+        }
+        realtorBaselines.put(realtorId, totals.snapshot());
+    }
+
+    /**
+     * Применить изменение, если его транзакция не видна снимку, с которым прочитаны итоги риелтора
+     * @return true если изменение применено
+     */
+    private boolean applyIfNotCounted(Change change) {
+        Deal deal = change.deal();
+        if (deal == null || deal.getIdRealtor() == null || deal.getDealDate() == null) {
+            return false;
+        }
+        TransactionSnapshot snapshot = realtorBaselines.getOrDefault(deal.getIdRealtor(), baseline);
+        if (change.xid() > 0 && snapshot != null && snapshot.isVisible(change.xid())) {
+            return false;
+        }
+        BigDecimal cost = deal.getDealCost() != null ? deal.getDealCost() : BigDecimal.ZERO;
+        BigDecimal volumeDelta = change.sign() > 0 ? cost : cost.negate();
+        YearMonth month = YearMonth.from(deal.getDealDate());
+
+        allTime.add(deal.getIdRealtor(), change.sign(), volumeDelta);
+        Board monthBoard = monthly.computeIfAbsent(month, _ -> new Board());
+        monthBoard.add(deal.getIdRealtor(), change.sign(), volumeDelta);
+        if (monthBoard.byRealtor.isEmpty()) {
+            monthly.remove(month);
+        }
+        return true;
+    }
+}
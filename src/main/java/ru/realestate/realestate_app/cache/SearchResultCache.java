@@ -0,0 +1,184 @@
+package ru.realestate.realestate_app.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import ru.realestate.realestate_app.transaction.AfterCommit;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов поиска сделок, объектов недвижимости и платежей
+ *
+ * Ключ - нормализованный набор параметров фильтра. Размер ограничен суммарным
+ * количеством строк во всех закэшированных результатах, вытеснение и допуск
+ * новых записей выполняет Caffeine (W-TinyLFU), записи живут не дольше TTL.
+ * При изменении данных DAO вызывает {@link #invalidate(String)} с типом сущности,
+ * и сбрасываются все области, результаты которых зависят от этой сущности.
+ */
+@Component
+public class SearchResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchResultCache.class);
+
+    /**
+     * Области кэша - по одной на каждый поисковый запрос
+     */
+    public enum Region {
+        DEALS,
+        PROPERTIES,
+        PAYMENTS
+    }
+
+    // Какие области зависят от какой сущности (тип сущности в том же виде, что и в ExceptionHandler)
+    private static final Map<String, Set<Region>> DEPENDENT_REGIONS = Map.of(
+        "Deal", EnumSet.of(Region.DEALS, Region.PAYMENTS),
+        "Property", EnumSet.of(Region.DEALS, Region.PROPERTIES, Region.PAYMENTS),
+        "Payment", EnumSet.of(Region.PAYMENTS),
+        "Client", EnumSet.of(Region.DEALS, Region.PAYMENTS),
+        "Realtor", EnumSet.of(Region.DEALS)
+    );
+
+    /**
+     * Закэшированный результат и поколение области, в котором начался его запрос
+     */
+    private record Entry(long generation, List<?> rows) {}
+
+    private final Map<Region, Cache<List<Object>, Entry>> caches = new EnumMap<>(Region.class);
+
+    // Поколение области: увеличивается при каждой инвалидации. Запись хранит поколение,
+    // в котором начался её запрос, и при чтении с другим поколением считается устаревшей:
+    // результат запроса, начатого до изменения данных, не отдаётся после него, даже если
+    // был записан в кэш уже после инвалидации
+    private final Map<Region, AtomicLong> generations = new EnumMap<>(Region.class);
+
+    /**
+     * Конструктор кэша
+     * @param maxRows максимальное суммарное количество строк в одной области
+     * @param ttl время жизни записи
+     */
+    public SearchResultCache(@Value("${app.search-cache.max-rows:50000}") long maxRows,
+                             @Value("${app.search-cache.ttl:PT5M}") Duration ttl) {
+        for (Region region : Region.values()) {
+            caches.put(region, Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((List<Object> _, Entry entry) -> Math.max(1, entry.rows().size()))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build());
+            generations.put(region, new AtomicLong());
+        }
+        logger.info("Кэш результатов поиска: до {} строк на область, TTL {}", maxRows, ttl);
+    }
+
+    /**
+     * Получить результат поиска из кэша или выполнить запрос и сохранить результат
+     * @param region область кэша
+     * @param loader функция выполнения запроса к базе данных
+     * @param filter значения параметров фильтра (null допускается)
+     * @return неизменяемый список результатов
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(Region region, Supplier<List<T>> loader, Object... filter) {
+        Cache<List<Object>, Entry> cache = caches.get(region);
+        AtomicLong regionGeneration = generations.get(region);
+        List<Object> key = normalize(filter);
+
+        Entry cached = cache.getIfPresent(key);
+        if (cached != null) {
+            if (cached.generation() == regionGeneration.get()) {
+                return (List<T>) cached.rows();
+            }
+            cache.asMap().remove(key, cached);
+        }
+
+        // Поколение берётся до запроса: изменение во время запроса делает результат устаревшим
+        long generation = regionGeneration.get();
+        List<T> result = Collections.unmodifiableList(loader.get());
+        if (regionGeneration.get() == generation) {
+            cache.put(key, new Entry(generation, result));
+        }
+        return result;
+    }
+
+    /**
+     * Сбросить все области, зависящие от указанной сущности
+     * Внутри транзакции области сбрасываются сразу и ещё раз после фиксации:
+     * результат, загруженный другим потоком до фиксации, уже устарел
+     * @param entityType тип изменённой сущности (Deal, Property, Payment, Client, Realtor)
+     */
+    public void invalidate(String entityType) {
+        Set<Region> regions = DEPENDENT_REGIONS.get(entityType);
+        if (regions == null) {
+            return;
+        }
+        invalidateRegions(regions);
+        if (AfterCommit.isDeferred()) {
+            AfterCommit.run(() -> invalidateRegions(regions));
+        }
+        logger.debug("Кэш поиска сброшен после изменения {}: {}", entityType, regions);
+    }
+
+    private void invalidateRegions(Set<Region> regions) {
+        for (Region region : regions) {
+            generations.get(region).incrementAndGet();
+            caches.get(region).invalidateAll();
+        }
+    }
+
+    /**
+     * Получить статистику по всем областям кэша
+     * @return карта "область - показатели" (доля попаданий, попадания, промахи, вытеснения, размер)
+     */
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        caches.forEach((region, cache) -> {
+            CacheStats stats = cache.stats();
+            Map<String, Object> regionStats = new LinkedHashMap<>();
+            regionStats.put("hitRate", stats.hitRate());
+            regionStats.put("hitCount", stats.hitCount());
+            regionStats.put("missCount", stats.missCount());
+            regionStats.put("evictionCount", stats.evictionCount());
+            regionStats.put("entries", cache.estimatedSize());
+            regionStats.put("rows", cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L));
+            result.put(region.name().toLowerCase(), regionStats);
+        });
+        return result;
+    }
+
+    /**
+     * Нормализация параметров фильтра, чтобы одинаковые по смыслу запросы давали один ключ
+     * (например, цены 100 и 100.00, пустые строки и null)
+     */
+    private List<Object> normalize(Object... filter) {
+        Object[] normalized = new Object[filter.length];
+        for (int i = 0; i < filter.length; i++) {
+            Object value = filter[i];
+            if (value instanceof BigDecimal decimal) {
+                value = decimal.stripTrailingZeros();
+            } else if (value instanceof String string) {
+                value = string.isBlank() ? null : string.trim();
+            }
+            normalized[i] = value;
+        }
+        return Arrays.asList(normalized);
+    }
+}
@@ -0,0 +1,375 @@
+package ru.realestate.realestate_app.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import ru.realestate.realestate_app.dao.PropertyAnalyticsDao;
+import ru.realestate.realestate_app.dao.PropertyAnalyticsDao.PriceSample;
+import ru.realestate.realestate_app.model.Property;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Индекс ближайших соседей объектов недвижимости в памяти
+ *
+ * Объект описывается вектором из логарифмов площади, стоимости и стоимости м²,
+ * делённых на их стандартное отклонение по всем объектам, и двумя категориальными
+ * признаками: тип недвижимости и район. Расстояние - евклидово, несовпадение типа
+ * или района добавляет фиксированный штраф (как у one-hot признаков с весом).
+ *
+ * Индекс разбит на разделы по городам: похожие объекты ищутся только в городе исходного
+ * объекта полным перебором по плотным массивам раздела, без обращения к базе данных.
+ * Изменения объектов применяются сразу; нормирующие отклонения пересчитываются
+ * при периодическом перестроении, если с прошлого перестроения были изменения.
+ *
+ * Перестроение читает таблицу и строит новые разделы без монитора индекса, а затем подменяет
+ * ими прежние. Изменения, пришедшие за время чтения, повторяются на новых разделах: добавление
+ * и удаление по id идемпотентны, поэтому повтор уже прочитанного изменения ничего не портит.
+ */
+@Component
+public class SimilarPropertyIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimilarPropertyIndex.class);
+
+    private static final int DIMENSIONS = 3;
+
+    // Штрафы за несовпадение категорий в единицах нормированного расстояния
+    private static final double TYPE_PENALTY = 1.5;
+    private static final double DISTRICT_PENALTY = 0.5;
+
+    // Объекты без района хранятся с этим значением, чтобы совпадать друг с другом
+    private static final long NO_DISTRICT = Long.MIN_VALUE;
+
+    /**
+     * Похожий объект
+     * @param propertyId идентификатор объекта
+     * @param distance расстояние до исходного объекта (0 - совпадают по всем признакам)
+     */
+    public record Neighbour(long propertyId, double distance) {}
+
+    /**
+     * Объекты одного города в плотных массивах
+     * Удаление переносит последний элемент на место удалённого
+     */
+    private static final class CityPartition {
+        private long[] ids = new long[16];
+        private long[] types = new long[16];
+        private long[] districts = new long[16];
+        private float[] vectors = new float[16 * DIMENSIONS];
+        private int size;
+        private final Map<Long, Integer> positions = new HashMap<>();
+
+        void put(long id, long type, long district, float[] vector) {
+            Integer position = positions.get(id);
+            if (position == null) {
+                if (size == ids.length) {
+                    int capacity = ids.length * 2;
+                    ids = Arrays.copyOf(ids, capacity);
+                    types = Arrays.copyOf(types, capacity);
+                    districts = Arrays.copyOf(districts, capacity);
+                    vectors = Arrays.copyOf(vectors, capacity * DIMENSIONS);
+                }
+                position = size++;
+                positions.put(id, position);
+            }
+            ids[position] = id;
+            types[position] = type;
+            districts[position] = district;
+            System.arraycopy(vector, 0, vectors, position * DIMENSIONS, DIMENSIONS);
+        }
+
+        void remove(long id) {
+            Integer position = positions.remove(id);
+            if (position == null) {
+                return;
+            }
+            int last = --size;
+            if (position != last) {
+                ids[position] = ids[last];
+                types[position] = types[last];
+                districts[position] = districts[last];
+                System.arraycopy(vectors, last * DIMENSIONS, vectors, position * DIMENSIONS, DIMENSIONS);
+                positions.put(ids[position], position);
+            }
+        }
+    }
+
+    /**
+     * Содержимое индекса, подменяемое целиком при перестроении
+     * @param partitions разделы по id города
+     * @param cityOfProperty город каждого объекта индекса
+     * @param scale нормирующие отклонения признаков
+     */
+    private record IndexState(Map<Long, CityPartition> partitions, Map<Long, Long> cityOfProperty, double[] scale) {}
+
+    private final PropertyAnalyticsDao propertyAnalyticsDao;
+
+    // Ссылка подменяется при перестроении; разделы изменяются и читаются под монитором this
+    private volatile IndexState state = new IndexState(new HashMap<>(), new HashMap<>(), new double[] {1, 1, 1});
+    private long changes;
+    private volatile boolean loaded;
+
+    // Изменения, пришедшие во время перестроения (null - перестроение не выполняется)
+    private List<Consumer<IndexState>> pendingChanges;
+
+    /**
+     * Конструктор индекса
+     * @param propertyAnalyticsDao DAO для потокового чтения признаков объектов
+     */
+    public SimilarPropertyIndex(PropertyAnalyticsDao propertyAnalyticsDao) {
+        this.propertyAnalyticsDao = propertyAnalyticsDao;
+    }
+
+    /**
+     * Первичное построение индекса после старта приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    /**
+     * Периодическое перестроение, если объекты изменялись (пересчёт нормирующих отклонений)
+     */
+    @Scheduled(fixedDelayString = "${app.similar-properties.rebuild-interval:PT1H}",
+               initialDelayString = "${app.similar-properties.rebuild-interval:PT1H}")
+    public void scheduledReload() {
+        boolean needed;
+        synchronized (this) {
+            needed = !loaded || changes > 0;
+        }
+        if (needed) {
+            reload();
+        }
+    }
+
+    /**
+     * Перестроить индекс по текущему состоянию таблицы properties
+     * Таблица читается без монитора; при ошибке продолжает использоваться прежний индекс
+     * @return true если индекс успешно перестроен
+     */
+    public boolean reload() {
+        long changesBefore;
+        synchronized (this) {
+            if (pendingChanges != null) {
+                logger.debug("Перестроение индекса похожих объектов уже выполняется");
+                return loaded;
+            }
+            pendingChanges = new ArrayList<>();
+            changesBefore = changes;
+        }
+        try {
+            long start = System.nanoTime();
+            List<PriceSample> samples = new ArrayList<>();
+            propertyAnalyticsDao.forEachPriceSample(sample -> {
+                if (hasFeatures(sample.cost(), sample.area())) {
+                    samples.add(sample);
+                }
+            });
+
+            double[] loadedScale = standardDeviations(samples);
+            Map<Long, CityPartition> loadedPartitions = new HashMap<>();
+            Map<Long, Long> loadedCities = new HashMap<>();
+            for (PriceSample sample : samples) {
+                loadedPartitions.computeIfAbsent(sample.cityId(), _ -> new CityPartition())
+                    .put(sample.propertyId(), sample.propertyTypeId(), districtKey(sample.districtId()),
+                         vector(sample.cost(), sample.area(), loadedScale));
+                loadedCities.put(sample.propertyId(), sample.cityId());
+            }
+
+            IndexState loadedState = new IndexState(loadedPartitions, loadedCities, loadedScale);
+            int replayed;
+            synchronized (this) {
+                pendingChanges.forEach(change -> change.accept(loadedState));
+                replayed = pendingChanges.size();
+                state = loadedState;
+                // Отклонения посчитаны без изменений, пришедших во время чтения
+                changes -= changesBefore;
+                loaded = true;
+            }
+            logger.info("Индекс похожих объектов построен за {} мс: {} объектов, {} городов, повторено изменений: {}",
+                       (System.nanoTime() - start) / 1_000_000, samples.size(), loadedPartitions.size(), replayed);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Не удалось построить индекс похожих объектов: {}", e.getMessage());
+            return false;
+        } finally {
+            synchronized (this) {
+                pendingChanges = null;
+            }
+        }
+    }
+
+    /**
+     * Проверить, построен ли индекс
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Добавить объект или заменить его признаки (в том числе при переезде в другой город)
+     * @param id идентификатор объекта
+     * @param property текущие данные объекта
+     */
+    public synchronized void put(Long id, Property property) {
+        if (id == null || property == null) {
+            return;
+        }
+        apply(target -> putInto(target, id, property));
+    }
+
+    /**
+     * Удалить объект из индекса
+     * @param id идентификатор объекта
+     */
+    public synchronized void remove(Long id) {
+        apply(target -> removeFrom(target, id));
+    }
+
+    /**
+     * Найти k ближайших объектов того же города
+     * @param probe исходный объект (сам он в результат не попадает)
+     * @param k количество соседей
+     * @return соседи по возрастанию расстояния; пустой список, если у объекта нет площади или стоимости
+     */
+    public synchronized List<Neighbour> nearest(Property probe, int k) {
+        IndexState current = state;
+        CityPartition partition = current.partitions().get(probe.getIdCity());
+        if (partition == null || k < 1 || !hasFeatures(probe.getCost(), probe.getArea())) {
+            return List.of();
+        }
+        float[] target = vector(probe.getCost(), probe.getArea(), current.scale());
+        long type = probe.getIdPropertyType() == null ? 0 : probe.getIdPropertyType();
+        long district = districtKey(probe.getIdDistrict());
+        long self = probe.getIdProperty() == null ? Long.MIN_VALUE : probe.getIdProperty();
+
+        // Лучшие k кандидатов по возрастанию квадрата расстояния (вставкой, k мало)
+        int limit = Math.min(k, partition.size);
+        long[] bestIds = new long[limit];
+        double[] bestDistances = new double[limit];
+        int found = 0;
+        for (int i = 0; i < partition.size; i++) {
+            if (partition.ids[i] == self) {
+                continue;
+            }
+            int offset = i * DIMENSIONS;
+            double distance = 0;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                double diff = partition.vectors[offset + d] - target[d];
+                distance += diff * diff;
+            }
+            if (partition.types[i] != type) {
+                distance += TYPE_PENALTY * TYPE_PENALTY;
+            }
+            if (partition.districts[i] != district) {
+                distance += DISTRICT_PENALTY * DISTRICT_PENALTY;
+            }
+            if (found == limit && distance >= bestDistances[limit - 1]) {
+                continue;
+            }
+            int position = found < limit ? found++ : limit - 1;
+            while (position > 0 && bestDistances[position - 1] > distance) {
+                bestDistances[position] = bestDistances[position - 1];
+                bestIds[position] = bestIds[position - 1];
+                position--;
+            }
+            bestDistances[position] = distance;
+            bestIds[position] = partition.ids[i];
+        }
+
+        List<Neighbour> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            result.add(new Neighbour(bestIds[i], Math.round(Math.sqrt(bestDistances[i]) * 1000) / 1000.0));
+        }
+        return result;
+    }
+
+    private void apply(Consumer<IndexState> change) {
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+        if (loaded) {
+            change.accept(state);
+            changes++;
+        }
+    }
+
+    private static void putInto(IndexState target, long id, Property property) {
+        removeFrom(target, id);
+        if (property.getIdCity() == null || !hasFeatures(property.getCost(), property.getArea())) {
+            return;
+        }
+        target.partitions().computeIfAbsent(property.getIdCity(), _ -> new CityPartition())
+            .put(id, property.getIdPropertyType(), districtKey(property.getIdDistrict()),
+                 vector(property.getCost(), property.getArea(), target.scale()));
+        target.cityOfProperty().put(id, property.getIdCity());
+    }
+
+    private static void removeFrom(IndexState target, Long id) {
+        Long cityId = target.cityOfProperty().remove(id);
+        if (cityId == null) {
+            return;
+        }
+        CityPartition partition = target.partitions().get(cityId);
+        partition.remove(id);
+        if (partition.size == 0) {
+            target.partitions().remove(cityId);
+        }
+    }
+
+    private static boolean hasFeatures(BigDecimal cost, BigDecimal area) {
+        return cost != null && area != null && cost.signum() > 0 && area.signum() > 0;
+    }
+
+    private static long districtKey(Long districtId) {
+        return districtId == null ? NO_DISTRICT : districtId;
+    }
+
+    private static double[] rawFeatures(BigDecimal cost, BigDecimal area) {
+        double logArea = Math.log(area.doubleValue());
+        double logCost = Math.log(cost.doubleValue());
+        return new double[] {logArea, logCost, logCost - logArea};
+    }
+
+    private static float[] vector(BigDecimal cost, BigDecimal area, double[] scale) {
+        double[] raw = rawFeatures(cost, area);
+        float[] vector = new float[DIMENSIONS];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            vector[d] = (float) (raw[d] / scale[d]);
+        }
+        return vector;
+    }
+
+    /**
+     * Стандартные отклонения признаков по всем объектам (1, если объектов слишком мало)
+     */
+    private static double[] standardDeviations(List<PriceSample> samples) {
+        double[] sum = new double[DIMENSIONS];
+        double[] sumSquares = new double[DIMENSIONS];
+        for (PriceSample sample : samples) {
+            double[] raw = rawFeatures(sample.cost(), sample.area());
+            for (int d = 0; d < DIMENSIONS; d++) {
+                sum[d] += raw[d];
+                sumSquares[d] += raw[d] * raw[d];
+            }
+        }
+        double[] deviations = new double[DIMENSIONS];
+        int n = samples.size();
+        for (int d = 0; d < DIMENSIONS; d++) {
+            double variance = n < 2 ? 0 : (sumSquares[d] - sum[d] * sum[d] / n) / (n - 1);
+            deviations[d] = variance > 1e-9 ? Math.sqrt(variance) : 1;
+        }
+        return deviations;
+    }
+}
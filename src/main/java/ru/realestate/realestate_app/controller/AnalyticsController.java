@@ -0,0 +1,96 @@
+package ru.realestate.realestate_app.controller;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import ru.realestate.realestate_app.model.dto.DealTimeseriesPoint;
+import ru.realestate.realestate_app.model.dto.PriceQuantilesDto;
+import ru.realestate.realestate_app.service.AnalyticsService;
+import ru.realestate.realestate_app.workload.Workload;
+import ru.realestate.realestate_app.workload.WorkloadClass;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REST контроллер аналитических отчётов
+ *
+ * Все агрегаты считаются на стороне базы данных, клиент получает только итоговые точки.
+ */
+@Workload(WorkloadClass.REPORT)
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService;
+
+    /**
+     * Конструктор контроллера с внедрением зависимости
+     *
+     * @param analyticsService сервис аналитики
+     */
+    public AnalyticsController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    /**
+     * Получить временной ряд количества и выручки сделок
+     *
+     * HTTP метод: GET
+     * URL: /api/analytics/deals/timeseries?bucket=month&groupBy=dealType&from=2024-01-01&to=2024-12-31
+     *
+     * Для каждого интервала (день, неделя или месяц) и группы (тип сделки, город объекта
+     * или без группировки) возвращает количество сделок, выручку, среднюю стоимость,
+     * долю группы в выручке интервала и место группы по выручке.
+     * Завершённые интервалы отдаются из кэша, текущий интервал (closed = false) считается заново.
+     *
+     * @param bucket размер интервала: day, week, month (по умолчанию month)
+     * @param groupBy группировка: none, dealType, city (по умолчанию none)
+     * @param from начало периода (необязательно)
+     * @param to конец периода включительно (необязательно)
+     * @return ResponseEntity со списком точек временного ряда
+     */
+    @GetMapping("/deals/timeseries")
+    public ResponseEntity<List<DealTimeseriesPoint>> getDealTimeseries(
+            @RequestParam(defaultValue = "month") String bucket,
+            @RequestParam(defaultValue = "none") String groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        List<DealTimeseriesPoint> points = analyticsService.getDealTimeseries(bucket, groupBy, from, to);
+        return ResponseEntity.ok(points);
+    }
+
+    /**
+     * Получить квантили цены и цены за м² объектов недвижимости
+     *
+     * HTTP метод: GET
+     * URL: /api/analytics/properties/price-quantiles?cityId=1&groupBy=districtAndType&quantiles=0.1,0.5,0.9
+     *
+     * Квантили считаются по скетчам в памяти (без запроса к таблице объектов) и приближённые:
+     * ошибка ранга не превышает примерно 1%.
+     *
+     * @param cityId фильтр по городу (необязательно)
+     * @param districtId фильтр по району (необязательно)
+     * @param propertyTypeId фильтр по типу недвижимости (необязательно)
+     * @param groupBy группировка: districtAndType (по умолчанию), district, propertyType, city, none
+     * @param quantiles доли от 0 до 1 через запятую (по умолчанию 0.1,0.5,0.9)
+     * @return ResponseEntity со списком квантилей по группам
+     */
+    @GetMapping("/properties/price-quantiles")
+    public ResponseEntity<List<PriceQuantilesDto>> getPriceQuantiles(
+            @RequestParam(required = false) Long cityId,
+            @RequestParam(required = false) Long districtId,
+            @RequestParam(required = false) Long propertyTypeId,
+            @RequestParam(defaultValue = "districtAndType") String groupBy,
+            @RequestParam(defaultValue = "0.1,0.5,0.9") List<Double> quantiles) {
+
+        List<PriceQuantilesDto> result = analyticsService.getPriceQuantiles(
+            cityId, districtId, propertyTypeId, groupBy, quantiles);
+        return ResponseEntity.ok(result);
+    }
+}
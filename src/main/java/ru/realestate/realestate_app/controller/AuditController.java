@@ -0,0 +1,75 @@
+package ru.realestate.realestate_app.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import ru.realestate.realestate_app.audit.AuditRecord;
+import ru.realestate.realestate_app.service.AuditService;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST контроллер для просмотра журнала аудита изменений
+ */
+@RestController
+@RequestMapping("/api/audit")
+public class AuditController {
+
+    private final AuditService auditService;
+
+    /**
+     * Конструктор контроллера с внедрением зависимости
+     *
+     * @param auditService сервис журнала аудита
+     */
+    public AuditController(AuditService auditService) {
+        this.auditService = auditService;
+    }
+
+    /**
+     * Получить историю изменений
+     *
+     * HTTP метод: GET
+     * URL: /api/audit?entity=Deal&entityId=123&limit=50
+     * URL: /api/audit?fromSequence=1000&limit=500
+     *
+     * Каждая запись содержит операцию (INSERT, UPDATE, DELETE), время и строку таблицы
+     * до и после изменения. Без fromSequence возвращаются последние записи от новых к старым,
+     * с fromSequence - записи начиная с указанного номера по возрастанию
+     *
+     * @param entity тип сущности: Deal, Payment, Property, Client, Realtor (необязательно)
+     * @param entityId идентификатор сущности, требует entity (необязательно)
+     * @param fromSequence номер записи журнала, с которой начинать (необязательно)
+     * @param limit максимальное количество записей (по умолчанию 100, не более 1000)
+     * @return ResponseEntity со списком записей журнала
+     */
+    @GetMapping
+    public ResponseEntity<List<AuditRecord>> getRecords(
+            @RequestParam(required = false) String entity,
+            @RequestParam(required = false) Long entityId,
+            @RequestParam(required = false) Long fromSequence,
+            @RequestParam(defaultValue = "100") int limit) {
+
+        return ResponseEntity.ok(auditService.findRecords(entity, entityId, fromSequence, limit));
+    }
+
+    /**
+     * Получить состояние журнала аудита
+     *
+     * HTTP метод: GET
+     * URL: /api/audit/stats
+     *
+     * Возвращает каталог и текущий сегмент журнала, номер последней записи,
+     * количество записанных, ожидающих записи и отброшенных при переполнении очереди записей
+     *
+     * @return ResponseEntity с состоянием журнала
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(auditService.getStats());
+    }
+}
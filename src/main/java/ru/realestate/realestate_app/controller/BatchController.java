@@ -0,0 +1,68 @@
+package ru.realestate.realestate_app.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import ru.realestate.realestate_app.model.dto.BatchRequest;
+import ru.realestate.realestate_app.model.dto.BatchResponse;
+import ru.realestate.realestate_app.service.BatchService;
+import ru.realestate.realestate_app.workload.Workload;
+import ru.realestate.realestate_app.workload.WorkloadClass;
+
+/**
+ * REST контроллер для пакетного выполнения операций
+ * Позволяет заменить серию мелких запросов к /api/... одним запросом
+ */
+@RestController
+@RequestMapping("/api/batch")
+public class BatchController {
+
+    private final BatchService batchService;
+
+    /**
+     * Конструктор контроллера с внедрением зависимости
+     *
+     * @param batchService сервис выполнения пакетных запросов
+     */
+    public BatchController(BatchService batchService) {
+        this.batchService = batchService;
+    }
+
+    /**
+     * Выполнить пакет операций на одном соединении с базой данных
+     *
+     * HTTP метод: POST
+     * URL: /api/batch
+     * Content-Type: application/json
+     *
+     * Пример JSON:
+     * {
+     *   "transactional": true,
+     *   "operations": [
+     *     {"action": "get", "entity": "clients", "ids": [1, 2, 3]},
+     *     {"action": "get", "entity": "deal-types", "ids": [1, 2]},
+     *     {"action": "update", "entity": "deals", "id": 5, "body": {"dealCost": 5200000.00}}
+     *   ]
+     * }
+     *
+     * Каждая операция получает собственный статус в ответе. Если транзакционный пакет
+     * откатан, ответ возвращается со статусом операции, на которой произошла ошибка.
+     *
+     * @param request пакетный запрос
+     * @return ResponseEntity с результатами операций
+     */
+    @Workload(WorkloadClass.INTERACTIVE)
+    @PostMapping
+    public ResponseEntity<BatchResponse> executeBatch(@RequestBody BatchRequest request) {
+        BatchResponse response = batchService.execute(request);
+        if (!response.isCommitted()) {
+            int failedStatus = response.getResults().getLast().getStatus();
+            return ResponseEntity.status(failedStatus).body(response);
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+}
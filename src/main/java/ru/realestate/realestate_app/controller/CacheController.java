@@ -0,0 +1,129 @@
+package ru.realestate.realestate_app.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import ru.realestate.realestate_app.cache.ClusterInvalidationListener;
+import ru.realestate.realestate_app.cache.DealColumnStore;
+import ru.realestate.realestate_app.cache.DealTimeseriesCache;
+import ru.realestate.realestate_app.cache.GeographyIndex;
+import ru.realestate.realestate_app.cache.SearchResultCache;
+
+import java.util.Map;
+
+/**
+ * REST контроллер для просмотра состояния кэшей приложения
+ */
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    private final SearchResultCache searchResultCache;
+    private final GeographyIndex geographyIndex;
+    private final DealTimeseriesCache dealTimeseriesCache;
+    private final ClusterInvalidationListener clusterInvalidationListener;
+    private final DealColumnStore dealColumnStore;
+
+    /**
+     * Конструктор контроллера с внедрением зависимостей
+     *
+     * @param searchResultCache кэш результатов поиска
+     * @param geographyIndex индекс географических справочников
+     * @param dealTimeseriesCache кэш завершённых интервалов временного ряда сделок
+     * @param clusterInvalidationListener слушатель межузловой инвалидации кэшей
+     * @param dealColumnStore колоночная копия сделок
+     */
+    public CacheController(SearchResultCache searchResultCache, GeographyIndex geographyIndex,
+                           DealTimeseriesCache dealTimeseriesCache,
+                           ClusterInvalidationListener clusterInvalidationListener,
+                           DealColumnStore dealColumnStore) {
+        this.searchResultCache = searchResultCache;
+        this.geographyIndex = geographyIndex;
+        this.dealTimeseriesCache = dealTimeseriesCache;
+        this.clusterInvalidationListener = clusterInvalidationListener;
+        this.dealColumnStore = dealColumnStore;
+    }
+
+    /**
+     * Получить статистику кэша результатов поиска
+     *
+     * HTTP метод: GET
+     * URL: /api/cache/search/stats
+     *
+     * Для каждой области (deals, properties, payments) возвращает долю попаданий,
+     * количество попаданий и промахов, вытеснений, записей и строк в кэше
+     *
+     * @return ResponseEntity со статистикой по областям кэша
+     */
+    @GetMapping("/search/stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getSearchCacheStats() {
+        return ResponseEntity.ok(searchResultCache.getStats());
+    }
+
+    /**
+     * Получить статистику кэша временных рядов сделок
+     *
+     * HTTP метод: GET
+     * URL: /api/cache/analytics/stats
+     *
+     * Для каждого запрошенного ряда (интервал/группировка) возвращает количество
+     * закэшированных завершённых интервалов и общее число точечных пересчётов
+     *
+     * @return ResponseEntity со статистикой кэша временных рядов
+     */
+    @GetMapping("/analytics/stats")
+    public ResponseEntity<Map<String, Object>> getAnalyticsCacheStats() {
+        return ResponseEntity.ok(dealTimeseriesCache.getStats());
+    }
+
+    /**
+     * Получить состояние межузловой инвалидации кэшей
+     *
+     * HTTP метод: GET
+     * URL: /api/cache/cluster/stats
+     *
+     * Возвращает идентификатор этого узла, подключён ли слушатель LISTEN/NOTIFY, последнюю
+     * полученную версию, количество разосланных и полученных изменений (в том числе собственных,
+     * пропущенных при получении), переподключений и полных сбросов кэшей после долгого разрыва
+     *
+     * @return ResponseEntity с состоянием межузловой инвалидации
+     */
+    @GetMapping("/cluster/stats")
+    public ResponseEntity<Map<String, Object>> getClusterInvalidationStats() {
+        return ResponseEntity.ok(clusterInvalidationListener.getStats());
+    }
+
+    /**
+     * Получить состояние колоночной копии сделок
+     *
+     * HTTP метод: GET
+     * URL: /api/cache/deal-columns/stats
+     *
+     * Возвращает, включена и загружена ли копия, количество строк и размер колонок в байтах,
+     * количество проходов фильтра, перестроений и длительность последнего перестроения
+     *
+     * @return ResponseEntity с состоянием колоночной копии сделок
+     */
+    @GetMapping("/deal-columns/stats")
+    public ResponseEntity<Map<String, Object>> getDealColumnStats() {
+        return ResponseEntity.ok(dealColumnStore.getStats());
+    }
+
+    /**
+     * Перестроить индекс географических справочников после их изменения в базе данных
+     *
+     * HTTP метод: POST
+     * URL: /api/cache/geography/reload
+     *
+     * При ошибке загрузки продолжает использоваться предыдущий индекс
+     *
+     * @return ResponseEntity с признаком успешной перезагрузки (reloaded)
+     */
+    @PostMapping("/geography/reload")
+    public ResponseEntity<Map<String, Boolean>> reloadGeographyIndex() {
+        return ResponseEntity.ok(Map.of("reloaded", geographyIndex.reload()));
+    }
+}
@@ -5,7 +5,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import ru.realestate.realestate_app.model.Client;
+import ru.realestate.realestate_app.model.dto.ClientDuplicateCandidate;
 import ru.realestate.realestate_app.service.ClientService;
+import ru.realestate.realestate_app.workload.Workload;
+import ru.realestate.realestate_app.workload.WorkloadClass;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -40,6 +43,7 @@ public class ClientController {
      * 
      * @return ResponseEntity со списком всех клиентов и HTTP статусом 200 (OK)
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping
     public ResponseEntity<List<Client>> getAllClients() {
         List<Client> clients = clientService.findAll();
@@ -68,12 +72,18 @@ public class ClientController {
      * URL: /api/clients
      * Content-Type: application/json
      * 
+     * Если клиент похож на существующего (другое написание имени, формат телефона),
+     * возвращается 422 со списком похожих клиентов; создать его всё равно можно с allowDuplicates=true
+     * 
      * @param client данные нового клиента из JSON в теле запроса
+     * @param allowDuplicates создать клиента, даже если найден вероятный дубликат (по умолчанию false)
      * @return ResponseEntity с ID созданного клиента и HTTP статусом 201 (Created)
      */
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createClient(@Valid @RequestBody Client client) {
-        Long clientId = clientService.save(client);
+    public ResponseEntity<Map<String, Object>> createClient(
+            @Valid @RequestBody Client client,
+            @RequestParam(defaultValue = "false") boolean allowDuplicates) {
+        Long clientId = clientService.save(client, allowDuplicates);
         
         // Создается ответ с информацией о созданном клиенте
         Map<String, Object> response = Map.of(
@@ -153,6 +163,7 @@ public class ClientController {
      * @param lastName фамилия для поиска
      * @return ResponseEntity со списком найденных клиентов
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-lastname")
     public ResponseEntity<List<Client>> getClientsByLastName(@RequestParam String lastName) {
         List<Client> clients = clientService.findByLastName(lastName);
@@ -170,6 +181,7 @@ public class ClientController {
      * @param phone номер телефона для поиска
      * @return ResponseEntity с найденным клиентом
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-phone")
     public ResponseEntity<Client> getClientByPhone(@RequestParam String phone) {
         Client client = clientService.findByPhone(phone);
@@ -187,12 +199,47 @@ public class ClientController {
      * @param email адрес электронной почты для поиска
      * @return ResponseEntity с найденным клиентом
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-email")
     public ResponseEntity<Client> getClientByEmail(@RequestParam String email) {
         Client client = clientService.findByEmail(email);
         return ResponseEntity.ok(client);
     }
 
+    /**
+     * Найти вероятные дубликаты клиента
+     * 
+     * HTTP метод: GET
+     * URL: /api/clients/duplicates?lastName=Иванова&firstName=Мария&phone=89161234567
+     * URL: /api/clients/duplicates?clientId=123
+     * 
+     * Учитывает разное написание имён (в том числе латиницей), формат телефона
+     * и адреса с той же локальной частью email. Кандидаты упорядочены по убыванию оценки сходства
+     * 
+     * @param clientId существующий клиент, для которого ищутся дубликаты (необязательно)
+     * @param lastName фамилия (необязательно)
+     * @param firstName имя (необязательно)
+     * @param middleName отчество (необязательно)
+     * @param phone телефон в любом формате (необязательно)
+     * @param email адрес электронной почты (необязательно)
+     * @param limit максимальное количество кандидатов (по умолчанию 10)
+     * @return ResponseEntity со списком кандидатов
+     */
+    @GetMapping("/duplicates")
+    public ResponseEntity<List<ClientDuplicateCandidate>> getDuplicateCandidates(
+            @RequestParam(required = false) Long clientId,
+            @RequestParam(required = false) String lastName,
+            @RequestParam(required = false) String firstName,
+            @RequestParam(required = false) String middleName,
+            @RequestParam(required = false) String phone,
+            @RequestParam(required = false) String email,
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        List<ClientDuplicateCandidate> candidates = clientService.findDuplicateCandidates(
+            clientId, lastName, firstName, middleName, phone, email, limit);
+        return ResponseEntity.ok(candidates);
+    }
+
     /**
      * Получить общее количество клиентов в базе данных
      * 
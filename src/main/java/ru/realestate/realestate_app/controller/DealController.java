@@ -8,7 +8,13 @@ import org.springframework.web.bind.annotation.*;
 import ru.realestate.realestate_app.model.Deal;
 import ru.realestate.realestate_app.model.dto.DealWithDetailsDto;
 import ru.realestate.realestate_app.model.dto.DealTableDto;
+import ru.realestate.realestate_app.model.dto.DealSummaryDto;
+import ru.realestate.realestate_app.model.dto.PaymentScheduleDto;
+import ru.realestate.realestate_app.model.dto.PaymentScheduleRequest;
 import ru.realestate.realestate_app.service.DealService;
+import ru.realestate.realestate_app.service.PaymentService;
+import ru.realestate.realestate_app.workload.Workload;
+import ru.realestate.realestate_app.workload.WorkloadClass;
 
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
@@ -33,14 +39,17 @@ import java.util.Map;
 public class DealController {
 
     private final DealService dealService;
+    private final PaymentService paymentService;
 
     /**
      * Конструктор контроллера с внедрением зависимости
      * 
      * @param dealService сервис для работы со сделками
+     * @param paymentService сервис для работы с платежами (график платежей по сделке)
      */
-    public DealController(DealService dealService) {
+    public DealController(DealService dealService, PaymentService paymentService) {
         this.dealService = dealService;
+        this.paymentService = paymentService;
     }
 
     /**
@@ -52,11 +61,13 @@ public class DealController {
      * Возвращает все сделки, отсортированные по дате в убывающем порядке
      * (самые новые сделки в начале списка)
      * 
+     * @param includeArchived включать ли архивные сделки (по умолчанию true)
      * @return ResponseEntity со списком всех сделок и HTTP статусом 200 (OK)
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping
-    public ResponseEntity<List<Deal>> getAllDeals() {
-        List<Deal> deals = dealService.findAll();
+    public ResponseEntity<List<Deal>> getAllDeals(@RequestParam(defaultValue = "true") boolean includeArchived) {
+        List<Deal> deals = dealService.findAll(includeArchived);
         return ResponseEntity.ok(deals);
     }
 
@@ -188,13 +199,16 @@ public class DealController {
      * Результаты сортируются по убыванию стоимости
      * 
      * @param date дата совершения сделки в формате YYYY-MM-DD
+     * @param includeArchived включать ли архивные сделки (по умолчанию true)
      * @return ResponseEntity со списком сделок, совершенных в указанную дату
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-date")
     public ResponseEntity<List<Deal>> getDealsByDate(
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "true") boolean includeArchived) {
         
-        List<Deal> deals = dealService.findByDate(date);
+        List<Deal> deals = dealService.findByDate(date, includeArchived);
         return ResponseEntity.ok(deals);
     }
 
@@ -206,17 +220,22 @@ public class DealController {
      * 
      * Поиск выполняется включительно для обеих дат (startDate <= dealDate <= endDate)
      * Результаты сортируются по убыванию даты (самые новые первые)
+     * Архивные сделки входят в результат, если период начинается раньше границы архива;
+     * includeArchived=false оставляет только основную таблицу
      * 
      * @param startDate начальная дата диапазона
      * @param endDate конечная дата диапазона
+     * @param includeArchived включать ли архивные сделки (по умолчанию true)
      * @return ResponseEntity со списком сделок в указанном диапазоне дат
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-date-range")
     public ResponseEntity<List<Deal>> getDealsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "true") boolean includeArchived) {
         
-        List<Deal> deals = dealService.findByDateRange(startDate, endDate);
+        List<Deal> deals = dealService.findByDateRange(startDate, endDate, includeArchived);
         return ResponseEntity.ok(deals);
     }
 
@@ -229,11 +248,15 @@ public class DealController {
      * Результаты сортируются по убыванию даты
      * 
      * @param realtorId идентификатор риелтора
+     * @param includeArchived включать ли архивные сделки (по умолчанию true)
      * @return ResponseEntity со списком сделок указанного риелтора
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-realtor/{realtorId}")
-    public ResponseEntity<List<Deal>> getDealsByRealtorId(@PathVariable Long realtorId) {
-        List<Deal> deals = dealService.findByRealtorId(realtorId);
+    public ResponseEntity<List<Deal>> getDealsByRealtorId(
+            @PathVariable Long realtorId,
+            @RequestParam(defaultValue = "true") boolean includeArchived) {
+        List<Deal> deals = dealService.findByRealtorId(realtorId, includeArchived);
         return ResponseEntity.ok(deals);
     }
 
@@ -246,11 +269,15 @@ public class DealController {
      * Результаты сортируются по убыванию даты
      * 
      * @param clientId идентификатор клиента
+     * @param includeArchived включать ли архивные сделки (по умолчанию true)
      * @return ResponseEntity со списком сделок указанного клиента
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-client/{clientId}")
-    public ResponseEntity<List<Deal>> getDealsByClientId(@PathVariable Long clientId) {
-        List<Deal> deals = dealService.findByClientId(clientId);
+    public ResponseEntity<List<Deal>> getDealsByClientId(
+            @PathVariable Long clientId,
+            @RequestParam(defaultValue = "true") boolean includeArchived) {
+        List<Deal> deals = dealService.findByClientId(clientId, includeArchived);
         return ResponseEntity.ok(deals);
     }
 
@@ -263,11 +290,15 @@ public class DealController {
      * Результаты сортируются по убыванию даты
      * 
      * @param propertyId идентификатор объекта недвижимости
+     * @param includeArchived включать ли архивные сделки (по умолчанию true)
      * @return ResponseEntity со списком сделок по указанному объекту недвижимости
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-property/{propertyId}")
-    public ResponseEntity<List<Deal>> getDealsByPropertyId(@PathVariable Long propertyId) {
-        List<Deal> deals = dealService.findByPropertyId(propertyId);
+    public ResponseEntity<List<Deal>> getDealsByPropertyId(
+            @PathVariable Long propertyId,
+            @RequestParam(defaultValue = "true") boolean includeArchived) {
+        List<Deal> deals = dealService.findByPropertyId(propertyId, includeArchived);
         return ResponseEntity.ok(deals);
     }
 
@@ -280,11 +311,15 @@ public class DealController {
      * Результаты сортируются по убыванию даты
      * 
      * @param dealTypeId идентификатор типа сделки
+     * @param includeArchived включать ли архивные сделки (по умолчанию true)
      * @return ResponseEntity со списком сделок указанного типа
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-type/{dealTypeId}")
-    public ResponseEntity<List<Deal>> getDealsByDealTypeId(@PathVariable Long dealTypeId) {
-        List<Deal> deals = dealService.findByDealTypeId(dealTypeId);
+    public ResponseEntity<List<Deal>> getDealsByDealTypeId(
+            @PathVariable Long dealTypeId,
+            @RequestParam(defaultValue = "true") boolean includeArchived) {
+        List<Deal> deals = dealService.findByDealTypeId(dealTypeId, includeArchived);
         return ResponseEntity.ok(deals);
     }
 
@@ -298,14 +333,17 @@ public class DealController {
      * Результаты сортируются по убыванию стоимости
      * @param minCost минимальная стоимость сделки (включительно)
      * @param maxCost максимальная стоимость сделки (включительно)
+     * @param includeArchived включать ли архивные сделки (по умолчанию true)
      * @return ResponseEntity со списком сделок в указанном диапазоне стоимости
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-cost-range")
     public ResponseEntity<List<Deal>> getDealsByCostRange(
             @RequestParam BigDecimal minCost, 
-            @RequestParam BigDecimal maxCost) {
+            @RequestParam BigDecimal maxCost,
+            @RequestParam(defaultValue = "true") boolean includeArchived) {
         
-        List<Deal> deals = dealService.findByCostRange(minCost, maxCost);
+        List<Deal> deals = dealService.findByCostRange(minCost, maxCost, includeArchived);
         return ResponseEntity.ok(deals);
     }
 
@@ -317,6 +355,7 @@ public class DealController {
      * 
      * @return ResponseEntity с общей суммой всех сделок
      */
+    @Workload(WorkloadClass.REPORT)
     @GetMapping("/total-amount")
     public ResponseEntity<Map<String, BigDecimal>> getTotalDealsAmount() {
         BigDecimal totalAmount = dealService.getTotalDealsAmount();
@@ -347,6 +386,64 @@ public class DealController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Получить итоги сделок по критериям поиска
+     * 
+     * HTTP метод: GET
+     * URL: /api/deals/summary?startDate=2024-01-01&endDate=2024-12-31&realtorId=1&top=10
+     * 
+     * Количество и сумма считаются по колоночной копии сделок в памяти, из базы данных
+     * читаются только строки самых дорогих сделок. Все параметры необязательны
+     * 
+     * @param startDate начальная дата (включительно)
+     * @param endDate конечная дата (включительно)
+     * @param realtorId ID риелтора
+     * @param clientId ID клиента
+     * @param dealTypeId ID типа сделки
+     * @param top количество самых дорогих сделок (от 0 до 100, по умолчанию 10)
+     * @return ResponseEntity с количеством, суммой и самыми дорогими сделками
+     */
+    @Workload(WorkloadClass.REPORT)
+    @GetMapping("/summary")
+    public ResponseEntity<DealSummaryDto> getDealsSummary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long realtorId,
+            @RequestParam(required = false) Long clientId,
+            @RequestParam(required = false) Long dealTypeId,
+            @RequestParam(defaultValue = "10") int top) {
+        return ResponseEntity.ok(dealService.summarizeDeals(startDate, endDate, realtorId, clientId, dealTypeId, top));
+    }
+
+    /**
+     * Создать график платежей по сделке
+     * 
+     * HTTP метод: POST
+     * URL: /api/deals/{id}/payment-schedule
+     * 
+     * Пример тела запроса:
+     * {
+     *   "count": 12,
+     *   "frequency": "month",
+     *   "firstDate": "2025-01-15"
+     * }
+     * 
+     * Стоимость сделки делится на count платежей с точностью до копейки, сумма платежей
+     * равна стоимости сделки. Все платежи создаются одной командой в одной транзакции.
+     * График можно создать только для сделки без платежей
+     * 
+     * @param id ID сделки
+     * @param request количество платежей (до 600), периодичность (week, month, quarter, year)
+     *                и дата первого платежа
+     * @return ResponseEntity с созданными платежами и HTTP статусом 201 (Created)
+     */
+    @Workload(WorkloadClass.INTERACTIVE)
+    @PostMapping("/{id}/payment-schedule")
+    public ResponseEntity<PaymentScheduleDto> createPaymentSchedule(@PathVariable Long id,
+                                                                    @RequestBody PaymentScheduleRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(paymentService.createSchedule(id, request));
+    }
+
     // ========== ENDPOINTS ДЛЯ РАБОТЫ С DTO ==========
 
     /**
@@ -358,11 +455,13 @@ public class DealController {
      * Возвращает все сделки с полной информацией о клиенте, риелторе и объекте недвижимости.
      * Использует JOIN запросы для оптимизации производительности (один запрос вместо N+1)
      * 
+     * @param includeArchived включать ли архивные сделки (по умолчанию true)
      * @return ResponseEntity со списком сделок с детальной информацией
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/with-details")
-    public ResponseEntity<List<DealWithDetailsDto>> getAllDealsWithDetails() {
-        List<DealWithDetailsDto> deals = dealService.findAllWithDetails();
+    public ResponseEntity<List<DealWithDetailsDto>> getAllDealsWithDetails(@RequestParam(defaultValue = "true") boolean includeArchived) {
+        List<DealWithDetailsDto> deals = dealService.findAllWithDetails(includeArchived);
         return ResponseEntity.ok(deals);
     }
 
@@ -390,11 +489,13 @@ public class DealController {
      * Возвращает компактное представление сделок для отображения в таблицах.
      * Содержит основную информацию в удобном для пользователя формате
      * 
+     * @param includeArchived включать ли архивные сделки (по умолчанию true)
      * @return ResponseEntity со списком сделок в табличном формате
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/for-table")
-    public ResponseEntity<List<DealTableDto>> getAllDealsForTable() {
-        List<DealTableDto> deals = dealService.findAllForTable();
+    public ResponseEntity<List<DealTableDto>> getAllDealsForTable(@RequestParam(defaultValue = "true") boolean includeArchived) {
+        List<DealTableDto> deals = dealService.findAllForTable(includeArchived);
         return ResponseEntity.ok(deals);
     }
 
@@ -405,13 +506,16 @@ public class DealController {
      * URL: /api/deals/search/by-date-with-details?date=2024-01-15
      * 
      * @param date дата совершения сделки в формате YYYY-MM-DD
+     * @param includeArchived включать ли архивные сделки (по умолчанию true)
      * @return ResponseEntity со списком сделок с детальной информацией, совершенных в указанную дату
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-date-with-details")
     public ResponseEntity<List<DealWithDetailsDto>> getDealsByDateWithDetails(
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "true") boolean includeArchived) {
         
-        List<DealWithDetailsDto> deals = dealService.findByDateWithDetails(date);
+        List<DealWithDetailsDto> deals = dealService.findByDateWithDetails(date, includeArchived);
         return ResponseEntity.ok(deals);
     }
 
@@ -423,14 +527,17 @@ public class DealController {
      * 
      * @param startDate начальная дата диапазона в формате YYYY-MM-DD
      * @param endDate конечная дата диапазона в формате YYYY-MM-DD
+     * @param includeArchived включать ли архивные сделки (по умолчанию true)
      * @return ResponseEntity со списком сделок с детальной информацией в указанном диапазоне дат
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-date-range-with-details")
     public ResponseEntity<List<DealWithDetailsDto>> getDealsByDateRangeWithDetails(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "true") boolean includeArchived) {
         
-        List<DealWithDetailsDto> deals = dealService.findByDateRangeWithDetails(startDate, endDate);
+        List<DealWithDetailsDto> deals = dealService.findByDateRangeWithDetails(startDate, endDate, includeArchived);
         return ResponseEntity.ok(deals);
     }
 
@@ -441,11 +548,15 @@ public class DealController {
      * URL: /api/deals/search/by-realtor/{realtorId}/with-details (например: /api/deals/search/by-realtor/1/with-details)
      * 
      * @param realtorId идентификатор риелтора
+     * @param includeArchived включать ли архивные сделки (по умолчанию true)
      * @return ResponseEntity со списком сделок с детальной информацией указанного риелтора
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-realtor/{realtorId}/with-details")
-    public ResponseEntity<List<DealWithDetailsDto>> getDealsByRealtorIdWithDetails(@PathVariable Long realtorId) {
-        List<DealWithDetailsDto> deals = dealService.findByRealtorIdWithDetails(realtorId);
+    public ResponseEntity<List<DealWithDetailsDto>> getDealsByRealtorIdWithDetails(
+            @PathVariable Long realtorId,
+            @RequestParam(defaultValue = "true") boolean includeArchived) {
+        List<DealWithDetailsDto> deals = dealService.findByRealtorIdWithDetails(realtorId, includeArchived);
         return ResponseEntity.ok(deals);
     }
     
@@ -470,11 +581,15 @@ public class DealController {
      * URL: /api/deals/search/by-client/{clientId}/with-details (например: /api/deals/search/by-client/1/with-details)
      *
      * @param clientId идентификатор клиента
+     * @param includeArchived включать ли архивные сделки (по умолчанию true)
      * @return ResponseEntity со списком сделок с детальной информацией указанного клиента
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-client/{clientId}/with-details")
-    public ResponseEntity<List<DealWithDetailsDto>> getDealsByClientIdWithDetails(@PathVariable Long clientId) {
-        List<DealWithDetailsDto> deals = dealService.findByClientIdWithDetails(clientId);
+    public ResponseEntity<List<DealWithDetailsDto>> getDealsByClientIdWithDetails(
+            @PathVariable Long clientId,
+            @RequestParam(defaultValue = "true") boolean includeArchived) {
+        List<DealWithDetailsDto> deals = dealService.findByClientIdWithDetails(clientId, includeArchived);
         return ResponseEntity.ok(deals);
     }
 }
\ No newline at end of file
@@ -9,6 +9,8 @@ import ru.realestate.realestate_app.model.dto.CityWithDetailsDto;
 import ru.realestate.realestate_app.model.dto.DistrictWithDetailsDto;
 import ru.realestate.realestate_app.model.dto.StreetWithDetailsDto;
 import ru.realestate.realestate_app.service.reference.GeographyService;
+import ru.realestate.realestate_app.workload.Workload;
+import ru.realestate.realestate_app.workload.WorkloadClass;
 
 import java.util.List;
 
@@ -468,6 +470,7 @@ public class GeographyController {
      * 
      * @return ResponseEntity со списком регионов с детальной информацией
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/regions/with-details")
     public ResponseEntity<List<RegionWithDetailsDto>> getAllRegionsWithDetails() {
         List<RegionWithDetailsDto> regions = geographyService.findAllRegionsWithDetails();
@@ -499,6 +502,7 @@ public class GeographyController {
      * @param countryId идентификатор страны
      * @return ResponseEntity со списком регионов с детальной информацией указанной страны
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/countries/{countryId}/regions/with-details")
     public ResponseEntity<List<RegionWithDetailsDto>> getRegionsByCountryWithDetails(@PathVariable Long countryId) {
         List<RegionWithDetailsDto> regions = geographyService.findRegionsByCountryWithDetails(countryId);
@@ -518,6 +522,7 @@ public class GeographyController {
      * 
      * @return ResponseEntity со списком городов с детальной информацией
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/cities/with-details")
     public ResponseEntity<List<CityWithDetailsDto>> getAllCitiesWithDetails() {
         List<CityWithDetailsDto> cities = geographyService.findAllCitiesWithDetails();
@@ -549,6 +554,7 @@ public class GeographyController {
      * @param regionId идентификатор региона
      * @return ResponseEntity со списком городов с детальной информацией указанного региона
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/regions/{regionId}/cities/with-details")
     public ResponseEntity<List<CityWithDetailsDto>> getCitiesByRegionWithDetails(@PathVariable Long regionId) {
         List<CityWithDetailsDto> cities = geographyService.findCitiesByRegionWithDetails(regionId);
@@ -568,6 +574,7 @@ public class GeographyController {
      * 
      * @return ResponseEntity со списком районов с детальной информацией
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/districts/with-details")
     public ResponseEntity<List<DistrictWithDetailsDto>> getAllDistrictsWithDetails() {
         List<DistrictWithDetailsDto> districts = geographyService.findAllDistrictsWithDetails();
@@ -599,6 +606,7 @@ public class GeographyController {
      * @param cityId идентификатор города
      * @return ResponseEntity со списком районов с детальной информацией указанного города
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/cities/{cityId}/districts/with-details")
     public ResponseEntity<List<DistrictWithDetailsDto>> getDistrictsByCityWithDetails(@PathVariable Long cityId) {
         List<DistrictWithDetailsDto> districts = geographyService.findDistrictsByCityWithDetails(cityId);
@@ -618,6 +626,7 @@ public class GeographyController {
      * 
      * @return ResponseEntity со списком улиц с детальной информацией
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/streets/with-details")
     public ResponseEntity<List<StreetWithDetailsDto>> getAllStreetsWithDetails() {
         List<StreetWithDetailsDto> streets = geographyService.findAllStreetsWithDetails();
@@ -649,6 +658,7 @@ public class GeographyController {
      * @param cityId идентификатор города
      * @return ResponseEntity со списком улиц с детальной информацией указанного города
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/cities/{cityId}/streets/with-details")
     public ResponseEntity<List<StreetWithDetailsDto>> getStreetsByCityWithDetails(@PathVariable Long cityId) {
         List<StreetWithDetailsDto> streets = geographyService.findStreetsByCityWithDetails(cityId);
@@ -0,0 +1,58 @@
+package ru.realestate.realestate_app.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import ru.realestate.realestate_app.service.LookupBundleService;
+
+/**
+ * REST контроллер справочного пакета для выпадающих списков форм редактирования
+ */
+@RestController
+@RequestMapping("/api/lookup-bundle")
+public class LookupBundleController {
+
+    private final LookupBundleService lookupBundleService;
+
+    /**
+     * Конструктор контроллера с внедрением зависимости
+     *
+     * @param lookupBundleService сервис справочного пакета
+     */
+    public LookupBundleController(LookupBundleService lookupBundleService) {
+        this.lookupBundleService = lookupBundleService;
+    }
+
+    /**
+     * Получить справочный пакет: типы сделок, типы недвижимости и дерево географии
+     *
+     * HTTP метод: GET
+     * URL: /api/lookup-bundle
+     *
+     * Ответ содержит ETag с версией пакета. Если браузер передал ту же версию
+     * в заголовке If-None-Match, возвращается 304 (Not Modified) без тела.
+     *
+     * @param request текущий запрос (для проверки If-None-Match)
+     * @return ResponseEntity с пакетом в формате JSON или пустой ответ 304
+     */
+    @GetMapping
+    public ResponseEntity<byte[]> getLookupBundle(WebRequest request) {
+        LookupBundleService.Bundle bundle = lookupBundleService.getBundle();
+        String etag = "\"" + bundle.version() + "\"";
+
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(bundle.body());
+    }
+}
@@ -0,0 +1,55 @@
+package ru.realestate.realestate_app.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import ru.realestate.realestate_app.model.dto.LookupOption;
+import ru.realestate.realestate_app.service.LookupOptionService;
+import ru.realestate.realestate_app.workload.Workload;
+import ru.realestate.realestate_app.workload.WorkloadClass;
+
+import java.util.List;
+
+/**
+ * REST контроллер выпадающих списков с поиском (клиенты, риелторы, объекты недвижимости, сделки)
+ */
+@RestController
+@RequestMapping("/api/lookup")
+public class LookupController {
+
+    private final LookupOptionService lookupOptionService;
+
+    /**
+     * Конструктор контроллера с внедрением зависимости
+     *
+     * @param lookupOptionService сервис вариантов выпадающих списков
+     */
+    public LookupController(LookupOptionService lookupOptionService) {
+        this.lookupOptionService = lookupOptionService;
+    }
+
+    /**
+     * Найти варианты выпадающего списка по введённой строке
+     *
+     * HTTP метод: GET
+     * URL: /api/lookup/{entity}?q=...&limit=20
+     *
+     * @param entity список: clients, realtors, properties или deals
+     * @param q строка поиска (без неё - первые варианты списка)
+     * @param limit максимальное количество вариантов (по умолчанию 20, не более 50)
+     * @param includeArchived включать ли архивные сделки в список deals (по умолчанию true)
+     * @return ResponseEntity со списком вариантов {id, label}
+     */
+    @Workload(WorkloadClass.SEARCH)
+    @GetMapping("/{entity}")
+    public ResponseEntity<List<LookupOption>> search(@PathVariable String entity,
+                                                     @RequestParam(required = false) String q,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @RequestParam(defaultValue = "true") boolean includeArchived) {
+        return ResponseEntity.ok(lookupOptionService.search(entity, q, limit, includeArchived));
+    }
+}
@@ -6,6 +6,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.realestate.realestate_app.model.Payment;
 import ru.realestate.realestate_app.service.PaymentService;
+import ru.realestate.realestate_app.workload.Workload;
+import ru.realestate.realestate_app.workload.WorkloadClass;
 
 import java.util.List;
 
@@ -22,6 +24,7 @@ public class PaymentController {
         this.paymentService = paymentService;
     }
 
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping
     public List<Payment> getAllPayments() {
         return paymentService.findAll();
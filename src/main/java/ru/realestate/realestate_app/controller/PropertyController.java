@@ -7,7 +7,10 @@ import org.springframework.web.bind.annotation.*;
 import ru.realestate.realestate_app.model.Property;
 import ru.realestate.realestate_app.model.dto.PropertyWithDetailsDto;
 import ru.realestate.realestate_app.model.dto.PropertyTableDto;
+import ru.realestate.realestate_app.model.dto.SimilarPropertyDto;
 import ru.realestate.realestate_app.service.PropertyService;
+import ru.realestate.realestate_app.workload.Workload;
+import ru.realestate.realestate_app.workload.WorkloadClass;
 
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
@@ -49,6 +52,7 @@ public class PropertyController {
      * 
      * @return ResponseEntity со списком всех объектов недвижимости и HTTP статусом 200 (OK)
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping
     public ResponseEntity<List<Property>> getAllProperties() {
         List<Property> properties = propertyService.findAll();
@@ -70,6 +74,28 @@ public class PropertyController {
         return ResponseEntity.ok(property);
     }
 
+    /**
+     * Найти объекты недвижимости, похожие на указанный
+     * 
+     * HTTP метод: GET
+     * URL: /api/properties/{id}/similar?k=10
+     * 
+     * Похожие объекты ищутся в том же городе по площади, стоимости, стоимости м²,
+     * типу недвижимости и району; поиск выполняется по индексу в памяти без SQL
+     * 
+     * @param id идентификатор исходного объекта недвижимости
+     * @param k количество похожих объектов (по умолчанию 10, не более 50)
+     * @return ResponseEntity со списком похожих объектов по возрастанию расстояния
+     */
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<SimilarPropertyDto>> getSimilarProperties(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") int k) {
+        
+        List<SimilarPropertyDto> similar = propertyService.findSimilar(id, k);
+        return ResponseEntity.ok(similar);
+    }
+
     /**
      * Создать новый объект недвижимости
      * 
@@ -180,6 +206,7 @@ public class PropertyController {
      * @param maxPrice максимальная цена (включительно)
      * @return ResponseEntity со списком объектов недвижимости в указанном ценовом диапазоне
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-price-range")
     public ResponseEntity<List<Property>> getPropertiesByPriceRange(
             @RequestParam BigDecimal minPrice, 
@@ -200,6 +227,7 @@ public class PropertyController {
      * @param cityId идентификатор города
      * @return ResponseEntity со списком объектов недвижимости в указанном городе
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-city/{cityId}")
     public ResponseEntity<List<Property>> getPropertiesByCityId(@PathVariable Long cityId) {
         List<Property> properties = propertyService.findByCityId(cityId);
@@ -219,6 +247,7 @@ public class PropertyController {
      * @param propertyTypeId идентификатор типа недвижимости
      * @return ResponseEntity со списком объектов недвижимости указанного типа
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-type/{propertyTypeId}")
     public ResponseEntity<List<Property>> getPropertiesByPropertyTypeId(@PathVariable Long propertyTypeId) {
         List<Property> properties = propertyService.findByPropertyTypeId(propertyTypeId);
@@ -257,6 +286,7 @@ public class PropertyController {
      * 
      * @return ResponseEntity со списком объектов недвижимости с детальной информацией
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/with-details")
     public ResponseEntity<List<PropertyWithDetailsDto>> getAllPropertiesWithDetails() {
         List<PropertyWithDetailsDto> properties = propertyService.findAllWithDetails();
@@ -289,6 +319,7 @@ public class PropertyController {
      * 
      * @return ResponseEntity со списком объектов недвижимости в табличном формате
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/for-table")
     public ResponseEntity<List<PropertyTableDto>> getAllPropertiesForTable() {
         List<PropertyTableDto> properties = propertyService.findAllForTable();
@@ -305,6 +336,7 @@ public class PropertyController {
      * @param maxPrice максимальная цена (включительно)
      * @return ResponseEntity со списком объектов недвижимости с детальной информацией в указанном ценовом диапазоне
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-price-range-with-details")
     public ResponseEntity<List<PropertyWithDetailsDto>> getPropertiesByPriceRangeWithDetails(
             @RequestParam BigDecimal minPrice, 
@@ -323,6 +355,7 @@ public class PropertyController {
      * @param cityId идентификатор города
      * @return ResponseEntity со списком объектов недвижимости с детальной информацией в указанном городе
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-city/{cityId}/with-details")
     public ResponseEntity<List<PropertyWithDetailsDto>> getPropertiesByCityIdWithDetails(@PathVariable Long cityId) {
         List<PropertyWithDetailsDto> properties = propertyService.findByCityIdWithDetails(cityId);
@@ -338,6 +371,7 @@ public class PropertyController {
      * @param propertyTypeId идентификатор типа недвижимости
      * @return ResponseEntity со списком объектов недвижимости с детальной информацией указанного типа
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-type/{propertyTypeId}/with-details")
     public ResponseEntity<List<PropertyWithDetailsDto>> getPropertiesByPropertyTypeIdWithDetails(@PathVariable Long propertyTypeId) {
         List<PropertyWithDetailsDto> properties = propertyService.findByPropertyTypeIdWithDetails(propertyTypeId);
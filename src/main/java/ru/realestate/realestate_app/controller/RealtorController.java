@@ -5,7 +5,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import ru.realestate.realestate_app.model.Realtor;
+import ru.realestate.realestate_app.model.dto.RealtorLeaderboardEntry;
 import ru.realestate.realestate_app.service.RealtorService;
+import ru.realestate.realestate_app.workload.Workload;
+import ru.realestate.realestate_app.workload.WorkloadClass;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -47,12 +50,36 @@ public class RealtorController {
      * 
      * @return ResponseEntity со списком всех риелторов и HTTP статусом 200 (OK)
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping
     public ResponseEntity<List<Realtor>> getAllRealtors() {
         List<Realtor> realtors = realtorService.findAll();
         return ResponseEntity.ok(realtors);
     }
 
+    /**
+     * Получить рейтинг риелторов по сделкам
+     * 
+     * HTTP метод: GET
+     * URL: /api/realtors/leaderboard?period=2024-05&sort=volume&limit=10
+     * 
+     * Рейтинг хранится в памяти и обновляется при каждом изменении сделки,
+     * поэтому запрос не пересчитывает сделки
+     * 
+     * @param period период: all (по умолчанию), current или месяц в формате YYYY-MM
+     * @param sort показатель: count (по умолчанию) или volume
+     * @param limit количество мест (по умолчанию 10, не более 100)
+     * @return ResponseEntity со строками рейтинга в порядке мест
+     */
+    @GetMapping("/leaderboard")
+    public ResponseEntity<List<RealtorLeaderboardEntry>> getLeaderboard(
+            @RequestParam(defaultValue = "all") String period,
+            @RequestParam(defaultValue = "count") String sort,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<RealtorLeaderboardEntry> leaderboard = realtorService.getLeaderboard(period, sort, limit);
+        return ResponseEntity.ok(leaderboard);
+    }
+
     /**
      * Получить риелтора по уникальному идентификатору
      * 
@@ -182,6 +209,7 @@ public class RealtorController {
      * @param lastName фамилия для поиска
      * @return ResponseEntity со списком найденных риелторов
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-lastname")
     public ResponseEntity<List<Realtor>> getRealtorsByLastName(@RequestParam String lastName) {
         List<Realtor> realtors = realtorService.findByLastName(lastName);
@@ -200,6 +228,7 @@ public class RealtorController {
      * @param minExperience минимальный опыт работы в годах
      * @return ResponseEntity со списком риелторов с подходящим опытом
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-experience")
     public ResponseEntity<List<Realtor>> getRealtorsByExperience(@RequestParam int minExperience) {
         List<Realtor> realtors = realtorService.findByExperienceGreaterThan(minExperience);
@@ -218,6 +247,7 @@ public class RealtorController {
      * @param phone номер телефона для поиска
      * @return ResponseEntity с найденным риелтором
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-phone")
     public ResponseEntity<Realtor> getRealtorByPhone(@RequestParam String phone) {
         Realtor realtor = realtorService.findByPhone(phone);
@@ -236,6 +266,7 @@ public class RealtorController {
      * @param email адрес электронной почты для поиска
      * @return ResponseEntity с найденным риелтором
      */
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping("/search/by-email")
     public ResponseEntity<Realtor> getRealtorByEmail(@RequestParam String email) {
         Realtor realtor = realtorService.findByEmail(email);
@@ -0,0 +1,45 @@
+package ru.realestate.realestate_app.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import ru.realestate.realestate_app.model.dto.SchemaStatusDto;
+import ru.realestate.realestate_app.service.SchemaMigrationService;
+
+/**
+ * REST контроллер для проверки схемы базы данных
+ */
+@RestController
+@RequestMapping("/api/schema")
+public class SchemaController {
+
+    private final SchemaMigrationService schemaMigrationService;
+
+    /**
+     * Конструктор контроллера с внедрением зависимости
+     *
+     * @param schemaMigrationService сервис миграций схемы
+     */
+    public SchemaController(SchemaMigrationService schemaMigrationService) {
+        this.schemaMigrationService = schemaMigrationService;
+    }
+
+    /**
+     * Получить состояние схемы базы данных
+     *
+     * HTTP метод: GET
+     * URL: /api/schema/status
+     *
+     * Сравнивает базу данных с миграциями, поставляемыми с приложением, ничего не изменяя:
+     * возвращает неприменённые и изменённые после применения миграции, отсутствующие таблицы
+     * и индексы, на которые рассчитаны запросы DAO
+     *
+     * @return ResponseEntity с состоянием схемы
+     */
+    @GetMapping("/status")
+    public ResponseEntity<SchemaStatusDto> getStatus() {
+        return ResponseEntity.ok(schemaMigrationService.getStatus());
+    }
+}
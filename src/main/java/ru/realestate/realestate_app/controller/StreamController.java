@@ -0,0 +1,72 @@
+package ru.realestate.realestate_app.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import ru.realestate.realestate_app.service.ChangeStreamService;
+
+import java.util.Map;
+
+/**
+ * REST контроллер потока изменений таблиц (Server-Sent Events)
+ */
+@RestController
+@RequestMapping("/api/stream")
+public class StreamController {
+
+    private final ChangeStreamService changeStreamService;
+
+    /**
+     * Конструктор контроллера с внедрением зависимости
+     *
+     * @param changeStreamService сервис потока изменений
+     */
+    public StreamController(ChangeStreamService changeStreamService) {
+        this.changeStreamService = changeStreamService;
+    }
+
+    /**
+     * Подписаться на изменения сделок и платежей
+     *
+     * HTTP метод: GET
+     * URL: /api/stream/changes?entities=deal,payment
+     *
+     * Имя события - тип сущности (deal, payment), id события - сквозной номер,
+     * данные - JSON с полями operation (CREATED, UPDATED, DELETED), id и row (строка таблицы,
+     * null для DELETED). Событие resync означает, что клиент пропустил изменения
+     * и должен перечитать таблицу. При переподключении браузер сам передаёт Last-Event-ID,
+     * и пропущенные за время разрыва события досылаются
+     *
+     * @param entities типы сущностей через запятую (по умолчанию deal,payment)
+     * @param lastEventId номер последнего полученного события (необязательно)
+     * @return поток событий text/event-stream
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(defaultValue = "deal,payment") String entities,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+
+        return changeStreamService.openStream(entities, lastEventId);
+    }
+
+    /**
+     * Получить состояние потока изменений
+     *
+     * HTTP метод: GET
+     * URL: /api/stream/stats
+     *
+     * Возвращает количество подключённых подписчиков и изменений, ожидающих рассылки
+     *
+     * @return ResponseEntity с состоянием потока изменений
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(changeStreamService.getStats());
+    }
+}
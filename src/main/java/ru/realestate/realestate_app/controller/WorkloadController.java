@@ -0,0 +1,45 @@
+package ru.realestate.realestate_app.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import ru.realestate.realestate_app.workload.WorkloadLimiter;
+
+import java.util.Map;
+
+/**
+ * REST контроллер состояния ограничителей нагрузки
+ */
+@RestController
+@RequestMapping("/api/workload")
+public class WorkloadController {
+
+    private final WorkloadLimiter workloadLimiter;
+
+    /**
+     * Конструктор контроллера с внедрением зависимости
+     *
+     * @param workloadLimiter ограничители классов нагрузки
+     */
+    public WorkloadController(WorkloadLimiter workloadLimiter) {
+        this.workloadLimiter = workloadLimiter;
+    }
+
+    /**
+     * Получить состояние ограничителей по классам нагрузки
+     *
+     * HTTP метод: GET
+     * URL: /api/workload/stats
+     *
+     * Для каждого класса (interactive, search, report, export) возвращает занятые места,
+     * глубину очереди, количество отказов и прерванных SQL запросов
+     *
+     * @return ResponseEntity с состоянием ограничителей
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(workloadLimiter.getStats());
+    }
+}
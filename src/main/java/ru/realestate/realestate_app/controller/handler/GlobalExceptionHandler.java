@@ -2,6 +2,7 @@ package ru.realestate.realestate_app.controller.handler;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -9,8 +10,10 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.CannotGetJdbcConnectionException;
 
@@ -18,6 +21,7 @@ import ru.realestate.realestate_app.exception.BusinessRuleException;
 import ru.realestate.realestate_app.exception.DatabaseException;
 import ru.realestate.realestate_app.exception.EntityNotFoundException;
 import ru.realestate.realestate_app.exception.RealEstateException;
+import ru.realestate.realestate_app.exception.ServiceOverloadedException;
 import ru.realestate.realestate_app.exception.ValidationException;
 
 import java.time.LocalDateTime;
@@ -177,6 +181,32 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, status);
     }
     
+    /**
+     * Обработка отказов ограничителя нагрузки
+     * @param e исключение ServiceOverloadedException
+     * @param request HTTP запрос
+     * @return HTTP ответ с кодом 429 (очередь заполнена) или 503 (истекло ожидание) и заголовком Retry-After
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleServiceOverloadedException(
+            ServiceOverloadedException e, WebRequest request) {
+        
+        logger.warn("Запрос отклонён ограничителем нагрузки: {}", e.getDetailedMessage());
+        
+        HttpStatus status = e.isQueueFull() ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE;
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+            status.value(),
+            "Сервер перегружен. Повторите запрос позже",
+            e.getMessage(),
+            request.getDescription(false)
+        );
+        
+        return ResponseEntity.status(status)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(errorResponse);
+    }
+    
     /**
      * Обработка общих исключений приложения
      * @param e исключение RealEstateException
@@ -221,6 +251,29 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
     
+    /**
+     * Обработка запросов к отсутствующим статическим ресурсам
+     * (в том числе по версионному адресу предыдущей версии ресурсов)
+     * @param e исключение NoResourceFoundException
+     * @param request HTTP запрос
+     * @return HTTP ответ с кодом 404
+     */
+    @ExceptionHandler(NoResourceFoundException.class)
+    public ResponseEntity<ErrorResponse> handleNoResourceFoundException(
+            NoResourceFoundException e, WebRequest request) {
+        
+        logger.debug("Статический ресурс не найден: {}", e.getResourcePath());
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.NOT_FOUND.value(),
+            "Ресурс не найден",
+            e.getMessage(),
+            request.getDescription(false)
+        );
+        
+        return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+    }
+    
     /**
      * Обработка всех остальных исключений
      * @param e любое исключение
@@ -253,8 +306,12 @@ public class GlobalExceptionHandler {
         logger.error("Ошибка доступа к данным: {}", e.getMessage(), e);
         
         // Определяем тип ошибки для более точного сообщения
+        HttpStatus status = HttpStatus.INTERNAL_SERVER_ERROR;
         String userMessage;
-        if (e instanceof CannotGetJdbcConnectionException) {
+        if (e instanceof QueryTimeoutException) {
+            status = HttpStatus.SERVICE_UNAVAILABLE;
+            userMessage = "Запрос выполнялся слишком долго и был прерван. Попробуйте позже.";
+        } else if (e instanceof CannotGetJdbcConnectionException) {
             userMessage = "Сервис временно недоступен. Попробуйте позже.";
         } else if (e instanceof DataIntegrityViolationException) {
             userMessage = "Ошибка целостности данных. Проверьте введенную информацию.";
@@ -265,13 +322,13 @@ public class GlobalExceptionHandler {
         }
         
         ErrorResponse error = new ErrorResponse(
-            HttpStatus.INTERNAL_SERVER_ERROR.value(),
+            status.value(),
             userMessage,
             "Ошибка доступа к данным: " + e.getMessage(),
             "N/A"
         );
         
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        return ResponseEntity.status(status).body(error);
     }
     
     /**
@@ -282,6 +339,11 @@ public class GlobalExceptionHandler {
     private HttpStatus determineHttpStatus(DatabaseException e) {
         String operationType = e.getOperationType();
         
+        // SQL запрос прерван по тайм-ауту класса нагрузки - повторить можно позже
+        if (e.getCause() instanceof QueryTimeoutException) {
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        
         // Для операций вставки с нарушением уникальности возвращаем 400
         if ("INSERT".equals(operationType) && e.getMessage().contains("уникальности")) {
             return HttpStatus.BAD_REQUEST;
@@ -305,6 +367,10 @@ public class GlobalExceptionHandler {
     private String getUserFriendlyMessage(DatabaseException e) {
         String operationType = e.getOperationType();
         
+        if (e.getCause() instanceof QueryTimeoutException) {
+            return "Запрос выполнялся слишком долго и был прерван. Попробуйте позже";
+        }
+        
         if ("INSERT".equals(operationType)) {
             if (e.getMessage().contains("уникальности")) {
                 return "Не удалось сохранить данные. Возможно, такая запись уже существует";
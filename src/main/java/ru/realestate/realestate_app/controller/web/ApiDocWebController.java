@@ -1,9 +1,14 @@
 package ru.realestate.realestate_app.controller.web;
 
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.WebRequest;
+import ru.realestate.realestate_app.assets.StaticAssets;
 import ru.realestate.realestate_app.service.ApiDocService;
 
 /**
@@ -12,23 +17,36 @@ import ru.realestate.realestate_app.service.ApiDocService;
 @Controller
 @RequestMapping("/api-docs")
 public class ApiDocWebController {
-    
+
     private final ApiDocService apiDocService;
-    
-    public ApiDocWebController(ApiDocService apiDocService) {
+    private final StaticAssets staticAssets;
+
+    public ApiDocWebController(ApiDocService apiDocService, StaticAssets staticAssets) {
         this.apiDocService = apiDocService;
+        this.staticAssets = staticAssets;
     }
-    
+
     /**
      * Обрабатывает GET-запросы по пути /api-docs
      *
+     * Страница зависит только от документации и версии статических ресурсов (ссылки на CSS и JS),
+     * они и составляют ETag. Если браузер передал тот же ETag в If-None-Match,
+     * возвращается 304 (Not Modified) без отрисовки шаблона.
+     *
      * @param model модель для передачи данных в представление
-     * @return имя представления api-docs
+     * @param request текущий запрос (для проверки If-None-Match)
+     * @param response ответ, в который добавляется Cache-Control
+     * @return имя представления api-docs или null для ответа 304
      */
     @GetMapping
-    public String getApiDocs(Model model) {
-        String apiEndpointsHtml = apiDocService.getApiEndpointsHtml();
-        model.addAttribute("apiEndpointsHtml", apiEndpointsHtml);
+    public String getApiDocs(Model model, WebRequest request, HttpServletResponse response) {
+        String etag = "\"" + apiDocService.getVersion() + "-" + staticAssets.getVersion() + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+
+        model.addAttribute("apiEndpointsHtml", apiDocService.getApiEndpointsHtml());
         return "api-docs";
     }
-}
\ No newline at end of file
+}
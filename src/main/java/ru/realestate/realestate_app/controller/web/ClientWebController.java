@@ -15,6 +15,11 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import ru.realestate.realestate_app.model.Client;
 import ru.realestate.realestate_app.service.ClientService;
 import ru.realestate.realestate_app.service.CsvExportService;
+import ru.realestate.realestate_app.model.dto.ClientDuplicateCandidate;
+import ru.realestate.realestate_app.model.dto.TablePage;
+import ru.realestate.realestate_app.model.dto.TableQuery;
+import ru.realestate.realestate_app.workload.Workload;
+import ru.realestate.realestate_app.workload.WorkloadClass;
 
 import java.util.List;
 import java.util.Map;
@@ -31,26 +36,22 @@ public class ClientWebController {
         this.csvExportService = csvExportService;
     }
 
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping
     public String getClientsPage(Model model,
                                  @RequestParam(required = false) String lastName,
                                  @RequestParam(required = false) String email,
-                                 @RequestParam(required = false) String phone) {
-        // 1. Проверяем, присутствует ли хотя бы один параметр поиска.
-        boolean hasSearchParams = (lastName != null && !lastName.isEmpty()) ||
-                                  (email != null && !email.isEmpty()) ||
-                                  (phone != null && !phone.isEmpty());
+                                 @RequestParam(required = false) String phone,
+                                 @RequestParam(required = false) Integer page,
+                                 @RequestParam(required = false) Integer size,
+                                 @RequestParam(required = false) String sort,
+                                 @RequestParam(required = false) String direction) {
+        // Таблица выводится постранично; пустые параметры поиска не фильтруют записи
+        TablePage<Client> tablePage = clientService.searchClientsPage(lastName, email, phone,
+                TableQuery.of(page, size, sort, direction));
 
-        List<Client> clients;
-        if (hasSearchParams) {
-            // 2. Вызываем новый метод сервиса для сложного поиска.
-            clients = clientService.searchClients(lastName, email, phone);
-        } else {
-            // 3. Если параметры не предоставлены, получаем всех клиентов.
-            clients = clientService.findAll();
-        }
-
-        model.addAttribute("clients", clients);
+        model.addAttribute("clients", tablePage.getRows());
+        model.addAttribute("tablePage", tablePage);
         model.addAttribute("newClient", new Client()); // Передаем пустой объект для формы добавления
         model.addAttribute("pageTitle", "Клиенты");
         // Добавляем параметры поиска обратно в модель, чтобы сохранить их в форме после отправки.
@@ -61,8 +62,20 @@ public class ClientWebController {
     }
     
     @PostMapping("/add")
-    public String addClient(@ModelAttribute Client client) {
-        clientService.save(client);
+    public String addClient(@ModelAttribute Client client,
+                            @RequestParam(defaultValue = "false") boolean allowDuplicates,
+                            Model model) {
+        // Похожие клиенты показываются на странице предупреждения, откуда клиента можно сохранить всё равно
+        if (!allowDuplicates) {
+            List<ClientDuplicateCandidate> duplicates = clientService.findPossibleDuplicates(client);
+            if (!duplicates.isEmpty()) {
+                model.addAttribute("newClient", client);
+                model.addAttribute("duplicates", duplicates);
+                model.addAttribute("pageTitle", "Похожие клиенты");
+                return "client-duplicates";
+            }
+        }
+        clientService.save(client, allowDuplicates);
         return "redirect:/clients"; // Перенаправляем на страницу списка клиентов
     }
 
@@ -80,6 +93,7 @@ public class ClientWebController {
         return ResponseEntity.ok().build();
     }
 
+    @Workload(WorkloadClass.EXPORT)
     @GetMapping("/report")
     public ResponseEntity<byte[]> generateClientReport() {
         try {
@@ -1,5 +1,6 @@
 package ru.realestate.realestate_app.controller.web;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,11 +18,16 @@ import ru.realestate.realestate_app.model.dto.DealReportDto;
 import ru.realestate.realestate_app.service.CsvExportService;
 import ru.realestate.realestate_app.model.Deal;
 import ru.realestate.realestate_app.service.DealService;
-import ru.realestate.realestate_app.service.ClientService;
-import ru.realestate.realestate_app.service.RealtorService;
-import ru.realestate.realestate_app.service.PropertyService;
+import ru.realestate.realestate_app.service.LookupOptionService;
 import ru.realestate.realestate_app.service.reference.DealTypeService;
-import java.util.List;
+import ru.realestate.realestate_app.model.dto.DealTableDto;
+import ru.realestate.realestate_app.model.dto.TablePage;
+import ru.realestate.realestate_app.model.dto.TableQuery;
+import ru.realestate.realestate_app.workload.Workload;
+import ru.realestate.realestate_app.workload.WorkloadClass;
+import ru.realestate.realestate_app.workload.WorkloadContext;
+import java.io.IOException;
+import java.io.OutputStream;
 
 import java.time.LocalDate;
 import java.util.Map;
@@ -31,24 +37,20 @@ import java.util.Map;
 public class DealWebController {
 
     private final DealService dealService;
-    private final ClientService clientService;
-    private final RealtorService realtorService;
-    private final PropertyService propertyService;
+    private final LookupOptionService lookupOptionService;
     private final DealTypeService dealTypeService;
 
     private final CsvExportService csvExportService;
 
-    public DealWebController(DealService dealService, ClientService clientService,
-                             RealtorService realtorService, PropertyService propertyService,
+    public DealWebController(DealService dealService, LookupOptionService lookupOptionService,
                              DealTypeService dealTypeService, CsvExportService csvExportService) {
         this.dealService = dealService;
-        this.clientService = clientService;
-        this.realtorService = realtorService;
-        this.propertyService = propertyService;
+        this.lookupOptionService = lookupOptionService;
         this.dealTypeService = dealTypeService;
         this.csvExportService = csvExportService;
     }
 
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping
     public String getDealsPage(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
@@ -56,18 +58,18 @@ public class DealWebController {
             @RequestParam(required = false) Long realtorId,
             @RequestParam(required = false) Long clientId,
             @RequestParam(required = false) Long dealTypeId,
+            @RequestParam(defaultValue = "true") boolean includeArchived,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
             Model model) {
         
-        // Определяем, были ли предоставлены параметры поиска
-        boolean hasSearchParameters = startDate != null || endDate != null || realtorId != null || clientId != null || dealTypeId != null;
-        
-        if (hasSearchParameters) {
-            // Если параметры поиска есть, вызываем searchDeals
-            model.addAttribute("deals", dealService.searchDeals(startDate, endDate, realtorId, clientId, dealTypeId));
-        } else {
-            // Если параметров нет, вызываем findAllForTable как раньше
-            model.addAttribute("deals", dealService.findAllForTable());
-        }
+        // Таблица выводится постранично; без параметров поиска - все сделки вместе с архивом
+        TablePage<DealTableDto> tablePage = dealService.searchDealsPage(startDate, endDate, realtorId, clientId,
+                dealTypeId, includeArchived, TableQuery.of(page, size, sort, direction));
+        model.addAttribute("deals", tablePage.getRows());
+        model.addAttribute("tablePage", tablePage);
         
         // Добавляем параметры поиска обратно в модель
         model.addAttribute("startDate", startDate);
@@ -75,10 +77,12 @@ public class DealWebController {
         model.addAttribute("realtorId", realtorId);
         model.addAttribute("clientId", clientId);
         model.addAttribute("dealTypeId", dealTypeId);
+        model.addAttribute("includeArchived", includeArchived);
         
-        model.addAttribute("clients", clientService.findAll());
-        model.addAttribute("realtors", realtorService.findAll());
-        model.addAttribute("properties", propertyService.findAllForTable());
+        // Клиенты, риелторы и объекты выбираются в списках с поиском (/api/lookup/...):
+        // на странице выводятся только выбранные в фильтре значения
+        model.addAttribute("selectedRealtor", lookupOptionService.findSelected(LookupOptionService.REALTORS, realtorId));
+        model.addAttribute("selectedClient", lookupOptionService.findSelected(LookupOptionService.CLIENTS, clientId));
         model.addAttribute("dealTypes", dealTypeService.findAll());
         model.addAttribute("pageTitle", "Сделки");
         model.addAttribute("newDeal", new Deal()); // Пустой объект для формы добавления
@@ -110,26 +114,30 @@ public class DealWebController {
         return ResponseEntity.ok().build();
     }
 
+    @Workload(WorkloadClass.EXPORT)
     @GetMapping("/report")
-    public ResponseEntity<byte[]> generateDealReport() {
-        try {
-            // Получаем все сделки для отчета
-            List<DealReportDto> deals = dealService.findAllForReport();
+    public void generateDealReport(HttpServletResponse response) throws IOException {
+        // Формируем имя файла с текущей датой
+        String fileName = "deals_report_" + java.time.LocalDate.now() + ".csv";
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        response.setContentType("text/csv; charset=utf-8");
 
-            // Экспортируем данные в CSV
-            byte[] csvData = csvExportService.exportToCsv(deals, DealReportDto.class);
-
-            // Формируем имя файла с текущей датой
-            String fileName = "deals_report_" + java.time.LocalDate.now() + ".csv";
-
-            // Возвращаем ответ с CSV данными
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
-                    .header("Content-Type", "text/csv; charset=utf-8")
-                    .body(csvData);
-        } catch (Exception _) {
-            // В случае ошибки возвращаем пустой массив байтов
-            return ResponseEntity.internalServerError().body(new byte[0]);
+        // Отключение клиента отменяет выгрузку и запросы частей отчёта
+        WorkloadContext context = WorkloadContext.current();
+        OutputStream output = context != null
+                ? context.cancelOnFailure(response.getOutputStream())
+                : response.getOutputStream();
+        try {
+            // Получаем сделки для отчета частями и пишем CSV в ответ по мере чтения
+            csvExportService.writeCsv(output, DealReportDto.class, dealService::forEachForReport);
+        } catch (RuntimeException | IOException e) {
+            if (response.isCommitted()) {
+                // Часть файла уже отправлена: обрываем ответ, чтобы клиент не получил неполный отчёт как целый
+                throw e;
+            }
+            // В случае ошибки до отправки данных возвращаем пустой ответ с кодом 500
+            response.reset();
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         }
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package ru.realestate.realestate_app.controller.web;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,11 +17,16 @@ import org.springframework.format.annotation.DateTimeFormat;
 import ru.realestate.realestate_app.model.dto.PaymentReportDto;
 import ru.realestate.realestate_app.service.CsvExportService;
 import ru.realestate.realestate_app.service.PaymentService;
-import ru.realestate.realestate_app.service.DealService;
 import ru.realestate.realestate_app.model.Payment;
 import ru.realestate.realestate_app.model.dto.PaymentTableDto;
+import ru.realestate.realestate_app.model.dto.TablePage;
+import ru.realestate.realestate_app.model.dto.TableQuery;
+import ru.realestate.realestate_app.workload.Workload;
+import ru.realestate.realestate_app.workload.WorkloadClass;
+import ru.realestate.realestate_app.workload.WorkloadContext;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
-import java.util.List;
 import java.util.Map;
 import java.math.BigDecimal;
 
@@ -29,33 +35,30 @@ import java.math.BigDecimal;
 public class PaymentWebController {
 
     private final PaymentService paymentService;
-    private final DealService dealService;
 
     private final CsvExportService csvExportService;
 
-    public PaymentWebController(PaymentService paymentService, DealService dealService, CsvExportService csvExportService) {
+    public PaymentWebController(PaymentService paymentService, CsvExportService csvExportService) {
         this.paymentService = paymentService;
-        this.dealService = dealService;
         this.csvExportService = csvExportService;
     }
 
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping
     public String getPaymentsPage(Model model,
                                @RequestParam(required = false) Long dealId,
                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                               @RequestParam(required = false) Integer page,
+                               @RequestParam(required = false) Integer size,
+                               @RequestParam(required = false) String sort,
+                               @RequestParam(required = false) String direction) {
 
-        boolean hasSearchParams = dealId != null || startDate != null || endDate != null;
+        TablePage<PaymentTableDto> tablePage = paymentService.searchPaymentsPage(dealId, startDate, endDate,
+                TableQuery.of(page, size, sort, direction));
 
-        List<PaymentTableDto> payments;
-        if (hasSearchParams) {
-            payments = paymentService.searchPayments(dealId, startDate, endDate);
-        } else {
-            payments = paymentService.findAllWithDetails();
-        }
-
-        model.addAttribute("payments", payments);
-        model.addAttribute("deals", dealService.findAllForTable());
+        model.addAttribute("payments", tablePage.getRows());
+        model.addAttribute("tablePage", tablePage);
         model.addAttribute("newPayment", new Payment());
         model.addAttribute("pageTitle", "Платежи");
 
@@ -96,26 +99,30 @@ public class PaymentWebController {
         return ResponseEntity.ok().build();
     }
 
+    @Workload(WorkloadClass.EXPORT)
     @GetMapping("/report")
-    public ResponseEntity<byte[]> generatePaymentReport() {
-        try {
-            // Получаем все платежи для отчета
-            List<PaymentReportDto> payments = paymentService.findAllForReport();
+    public void generatePaymentReport(HttpServletResponse response) throws IOException {
+        // Формируем имя файла с текущей датой
+        String fileName = "payments_report_" + java.time.LocalDate.now() + ".csv";
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        response.setContentType("text/csv; charset=utf-8");
 
-            // Экспортируем данные в CSV
-            byte[] csvData = csvExportService.exportToCsv(payments, PaymentReportDto.class);
-
-            // Формируем имя файла с текущей датой
-            String fileName = "payments_report_" + java.time.LocalDate.now() + ".csv";
-
-            // Возвращаем ответ с CSV данными
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
-                    .header("Content-Type", "text/csv; charset=utf-8")
-                    .body(csvData);
-        } catch (Exception _) {
-            // В случае ошибки возвращаем пустой массив байтов
-            return ResponseEntity.internalServerError().body(new byte[0]);
+        // Отключение клиента отменяет выгрузку и запросы частей отчёта
+        WorkloadContext context = WorkloadContext.current();
+        OutputStream output = context != null
+                ? context.cancelOnFailure(response.getOutputStream())
+                : response.getOutputStream();
+        try {
+            // Получаем платежи для отчета частями и пишем CSV в ответ по мере чтения
+            csvExportService.writeCsv(output, PaymentReportDto.class, paymentService::forEachForReport);
+        } catch (RuntimeException | IOException e) {
+            if (response.isCommitted()) {
+                // Часть файла уже отправлена: обрываем ответ, чтобы клиент не получил неполный отчёт как целый
+                throw e;
+            }
+            // В случае ошибки до отправки данных возвращаем пустой ответ с кодом 500
+            response.reset();
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         }
     }
 }
\ No newline at end of file
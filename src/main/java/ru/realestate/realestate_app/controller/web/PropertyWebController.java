@@ -1,5 +1,6 @@
 package ru.realestate.realestate_app.controller.web;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,9 +20,15 @@ import ru.realestate.realestate_app.service.CsvExportService;
 import ru.realestate.realestate_app.service.PropertyService;
 import ru.realestate.realestate_app.service.reference.PropertyTypeService;
 import ru.realestate.realestate_app.service.reference.GeographyService;
+import ru.realestate.realestate_app.model.dto.TablePage;
+import ru.realestate.realestate_app.model.dto.TableQuery;
+import ru.realestate.realestate_app.workload.Workload;
+import ru.realestate.realestate_app.workload.WorkloadClass;
+import ru.realestate.realestate_app.workload.WorkloadContext;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
-import java.util.List;
 import java.util.Map;
 
 @Controller
@@ -43,6 +50,7 @@ public class PropertyWebController {
         this.csvExportService = csvExportService;
     }
 
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping
     public String getPropertiesPage(Model model,
                                 @RequestParam(required = false) BigDecimal minPrice,
@@ -50,11 +58,17 @@ public class PropertyWebController {
                                 @RequestParam(required = false) Long cityId,
                                 @RequestParam(required = false) Long propertyTypeId,
                                 @RequestParam(required = false) Long districtId,
-                                @RequestParam(required = false) Long streetId) {
+                                @RequestParam(required = false) Long streetId,
+                                @RequestParam(required = false) Integer page,
+                                @RequestParam(required = false) Integer size,
+                                @RequestParam(required = false) String sort,
+                                @RequestParam(required = false) String direction) {
         
-        // Логика поиска передается в сервис
-        List<PropertyTableDto> properties = propertyService.searchProperties(minPrice, maxPrice, cityId, propertyTypeId, districtId, streetId);
-        model.addAttribute("properties", properties);
+        // Логика поиска передается в сервис, таблица выводится постранично
+        TablePage<PropertyTableDto> tablePage = propertyService.searchPropertiesPage(minPrice, maxPrice, cityId,
+                propertyTypeId, districtId, streetId, TableQuery.of(page, size, sort, direction));
+        model.addAttribute("properties", tablePage.getRows());
+        model.addAttribute("tablePage", tablePage);
         
         // Добавляем в модель все необходимое для рендеринга страницы, включая параметры поиска для формы
         model.addAttribute("minPrice", minPrice);
@@ -97,26 +111,30 @@ public class PropertyWebController {
         return ResponseEntity.ok().build();
     }
 
+    @Workload(WorkloadClass.EXPORT)
     @GetMapping("/report")
-    public ResponseEntity<byte[]> generatePropertyReport() {
+    public void generatePropertyReport(HttpServletResponse response) throws IOException {
+        // Формируем имя файла с текущей датой
+        String fileName = "properties_report_" + java.time.LocalDate.now() + ".csv";
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        response.setContentType("text/csv; charset=utf-8");
+
+        // Отключение клиента отменяет выгрузку и запросы частей отчёта
+        WorkloadContext context = WorkloadContext.current();
+        OutputStream output = context != null
+                ? context.cancelOnFailure(response.getOutputStream())
+                : response.getOutputStream();
         try {
-            // Получаем все объекты недвижимости для отчета
-            List<PropertyReportDto> properties = propertyService.findAllForReport();
-            
-            // Экспортируем данные в CSV
-            byte[] csvData = csvExportService.exportToCsv(properties, PropertyReportDto.class);
-            
-            // Формируем имя файла с текущей датой
-            String fileName = "properties_report_" + java.time.LocalDate.now() + ".csv";
-            
-            // Возвращаем ответ с CSV данными
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
-                    .header("Content-Type", "text/csv; charset=utf-8")
-                    .body(csvData);
-        } catch (Exception _) {
-            // В случае ошибки возвращаем пустой массив байтов
-            return ResponseEntity.internalServerError().body(new byte[0]);
+            // Получаем объекты недвижимости для отчета частями и пишем CSV в ответ по мере чтения
+            csvExportService.writeCsv(output, PropertyReportDto.class, propertyService::forEachForReport);
+        } catch (RuntimeException | IOException e) {
+            if (response.isCommitted()) {
+                // Часть файла уже отправлена: обрываем ответ, чтобы клиент не получил неполный отчёт как целый
+                throw e;
+            }
+            // В случае ошибки до отправки данных возвращаем пустой ответ с кодом 500
+            response.reset();
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         }
     }
 }
\ No newline at end of file
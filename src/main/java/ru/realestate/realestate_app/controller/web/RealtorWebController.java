@@ -17,6 +17,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import ru.realestate.realestate_app.model.Realtor;
 import ru.realestate.realestate_app.service.RealtorService;
 import ru.realestate.realestate_app.service.CsvExportService;
+import ru.realestate.realestate_app.model.dto.TablePage;
+import ru.realestate.realestate_app.model.dto.TableQuery;
+import ru.realestate.realestate_app.workload.Workload;
+import ru.realestate.realestate_app.workload.WorkloadClass;
 
 import java.util.List;
 
@@ -32,14 +36,22 @@ public class RealtorWebController {
         this.csvExportService = csvExportService;
     }
 
+    @Workload(WorkloadClass.SEARCH)
     @GetMapping
     public String getRealtorsPage(
             @RequestParam(required = false) String lastName,
             @RequestParam(required = false) String email,
             @RequestParam(required = false) String phone,
             @RequestParam(required = false) Integer minExperience,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
             Model model) {
-        model.addAttribute("realtors", realtorService.searchRealtors(lastName, email, phone, minExperience));
+        TablePage<Realtor> tablePage = realtorService.searchRealtorsPage(lastName, email, phone, minExperience,
+                TableQuery.of(page, size, sort, direction));
+        model.addAttribute("realtors", tablePage.getRows());
+        model.addAttribute("tablePage", tablePage);
         model.addAttribute("newRealtor", new Realtor());
         model.addAttribute("pageTitle", "Риелторы");
         return "realtors";
@@ -64,6 +76,7 @@ public class RealtorWebController {
         return ResponseEntity.ok().build();
     }
 
+    @Workload(WorkloadClass.EXPORT)
     @GetMapping("/report")
     public ResponseEntity<byte[]> generateRealtorReport() {
         try {
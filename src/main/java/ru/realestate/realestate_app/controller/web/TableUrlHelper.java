@@ -0,0 +1,65 @@
+package ru.realestate.realestate_app.controller.web;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import ru.realestate.realestate_app.model.dto.TableQuery;
+
+/**
+ * Построение ссылок постраничной навигации и сортировки для табличных страниц
+ *
+ * Доступен в шаблонах как @tableUrls. Ссылки строятся от текущего запроса,
+ * поэтому параметры поиска сохраняются при переходе по страницам и смене сортировки.
+ */
+@Component("tableUrls")
+public class TableUrlHelper {
+
+    /**
+     * Ссылка на страницу с указанным номером
+     * @param page номер страницы (с 1)
+     * @return относительная ссылка с параметрами текущего запроса
+     */
+    public String page(long page) {
+        return link(ServletUriComponentsBuilder.fromCurrentRequest()
+            .replaceQueryParam("page", page));
+    }
+
+    /**
+     * Ссылка для сортировки по столбцу: повторный выбор текущего столбца меняет направление,
+     * при смене сортировки выполняется переход на первую страницу
+     * @param query текущие параметры страницы
+     * @param key ключ сортировки столбца
+     * @return относительная ссылка с параметрами текущего запроса
+     */
+    public String sort(TableQuery query, String key) {
+        String direction = key.equals(query.getSort()) && !query.isDescending() ? "desc" : "asc";
+        return link(ServletUriComponentsBuilder.fromCurrentRequest()
+            .replaceQueryParam("page")
+            .replaceQueryParam("sort", key)
+            .replaceQueryParam("direction", direction));
+    }
+
+    /**
+     * Отметка направления сортировки для заголовка столбца
+     * @param query текущие параметры страницы
+     * @param key ключ сортировки столбца
+     * @return стрелка для текущего столбца сортировки, иначе пустая строка
+     */
+    public String marker(TableQuery query, String key) {
+        if (!key.equals(query.getSort())) {
+            return "";
+        }
+        return query.isDescending() ? "▼" : "▲";
+    }
+
+    /**
+     * Относительная ссылка без схемы и хоста; значения из запроса уже закодированы
+     */
+    private String link(UriComponentsBuilder builder) {
+        UriComponents uri = builder.build(true);
+        String rawQuery = uri.getQuery();
+        return uri.getPath() + (rawQuery == null || rawQuery.isEmpty() ? "" : "?" + rawQuery);
+    }
+}
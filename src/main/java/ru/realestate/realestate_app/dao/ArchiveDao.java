@@ -0,0 +1,207 @@
+package ru.realestate.realestate_app.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import ru.realestate.realestate_app.cache.SearchResultCache;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DAO архива завершённых сделок (deals_archive, payments_archive)
+ *
+ * Перенос в архив не меняет данных, которые видит приложение: аналитика, рейтинг риелторов,
+ * колоночная копия сделок, отчёты и поиск по идентификатору читают основные таблицы вместе
+ * с архивом ({@link #DEALS_WITH_ARCHIVE}, {@link #PAYMENTS_WITH_ARCHIVE}). Изменять можно только
+ * сделки и платежи основных таблиц.
+ *
+ * Хранит границу архива: все архивные сделки датированы раньше неё, поэтому запрос за период,
+ * который начинается не раньше границы, читает только основные таблицы.
+ */
+@Repository
+public class ArchiveDao {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveDao.class);
+
+    /**
+     * Сделки основной таблицы и архива как одна таблица (колонки deals)
+     * Условия внешнего запроса PostgreSQL переносит в обе ветви UNION ALL, поэтому по ним
+     * отсекаются секции deals и используются индексы архива
+     */
+    public static final String DEALS_WITH_ARCHIVE = """
+        (SELECT id_deal, deal_date, deal_cost, id_property, id_realtor, id_client, id_deal_type FROM deals
+         UNION ALL
+         SELECT id_deal, deal_date, deal_cost, id_property, id_realtor, id_client, id_deal_type FROM deals_archive)""";
+
+    /**
+     * Платежи основной таблицы и архива как одна таблица (колонки payments)
+     */
+    public static final String PAYMENTS_WITH_ARCHIVE = """
+        (SELECT id_payment, payment_date, amount, id_deal FROM payments
+         UNION ALL
+         SELECT id_payment, payment_date, amount, id_deal FROM payments_archive)""";
+
+    /**
+     * Сделка, перенесённая в архив
+     * @param dealId идентификатор сделки
+     * @param dealDate дата сделки
+     * @param realtorId риелтор сделки
+     */
+    public record ArchivedDeal(long dealId, LocalDate dealDate, long realtorId) {}
+
+    /**
+     * Результат переноса пакета
+     * @param deals перенесённые сделки
+     * @param payments количество перенесённых платежей
+     */
+    public record ArchiveBatch(List<ArchivedDeal> deals, int payments) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SearchResultCache searchResultCache;
+
+    // Все архивные сделки датированы раньше этой даты (null - архив не используется)
+    private volatile LocalDate archivedBefore;
+
+    /**
+     * Конструктор DAO с инжекцией зависимостей
+     * @param jdbcTemplate шаблон для выполнения SQL запросов
+     * @param searchResultCache кэш результатов поиска, сбрасываемый при переносе
+     */
+    public ArchiveDao(JdbcTemplate jdbcTemplate, SearchResultCache searchResultCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.searchResultCache = searchResultCache;
+    }
+
+    /**
+     * Попадает ли период в архив
+     * @param startDate начало периода (null - без ограничения)
+     * @return true, если архив не пуст и период начинается раньше его границы
+     */
+    public boolean reachesArchive(LocalDate startDate) {
+        LocalDate before = archivedBefore;
+        return before != null && (startDate == null || startDate.isBefore(before));
+    }
+
+    /**
+     * Источник сделок для FROM: только основная таблица или объединение с архивом
+     * @param includeArchived включать ли архивные сделки
+     * @param startDate начало периода запроса (null - без ограничения)
+     * @return имя таблицы deals или подзапрос с теми же колонками (псевдоним добавляет вызывающий)
+     */
+    public String dealSource(boolean includeArchived, LocalDate startDate) {
+        return includeArchived && reachesArchive(startDate) ? DEALS_WITH_ARCHIVE : "deals";
+    }
+
+    /**
+     * Сдвинуть границу архива вперёд (граница не уменьшается)
+     * @param date дата, раньше которой могут быть архивные сделки
+     */
+    public synchronized void extendArchivedBefore(LocalDate date) {
+        if (date != null && (archivedBefore == null || date.isAfter(archivedBefore))) {
+            archivedBefore = date;
+        }
+    }
+
+    /**
+     * Получить текущую границу архива
+     * @return дата, раньше которой датированы все архивные сделки (null - архив не используется)
+     */
+    public LocalDate getArchivedBefore() {
+        return archivedBefore;
+    }
+
+    /**
+     * День, следующий за самой поздней архивной сделкой
+     * @return дата или null, если архив пуст
+     */
+    public LocalDate findArchivedBefore() {
+        return jdbcTemplate.queryForObject("SELECT max(deal_date) + 1 FROM deals_archive", LocalDate.class);
+    }
+
+    /**
+     * Перенести в архив пакет сделок старше даты вместе с их платежами
+     * Берутся сделки, у которых нет платежей с этой даты и позже, в порядке (дата, id) после
+     * последней сделки предыдущего пакета: сделки, оставшиеся из-за поздних платежей, не
+     * проверяются повторно. Строки, заблокированные другими транзакциями, пропускаются (их
+     * перенесёт следующий запуск). Выполняется в транзакции вызывающего: сделки копируются
+     * в архив, затем переносятся платежи и удаляются сделки, чтобы проверка ссылок платежей
+     * на сделки не сработала
+     * @param before дата, раньше которой сделки переносятся
+     * @param after последняя сделка предыдущего пакета (null - с самой ранней сделки)
+     * @param limit максимальное количество сделок в пакете
+     * @return перенесённые сделки и количество платежей
+     */
+    public ArchiveBatch archiveBatch(LocalDate before, ArchivedDeal after, int limit) {
+        List<Object> params = new ArrayList<>(List.of(before, before));
+        String afterCondition = "";
+        if (after != null) {
+            // Условие на саму дату отсекает секции уже просмотренных месяцев
+            afterCondition = "AND d.deal_date >= ? AND (d.deal_date, d.id_deal) > (?, ?)";
+            params.addAll(List.of(after.dealDate(), after.dealDate(), after.dealId()));
+        }
+        params.add(limit);
+        List<ArchivedDeal> deals = jdbcTemplate.query("""
+            SELECT d.id_deal, d.deal_date, d.id_realtor
+            FROM deals d
+            WHERE d.deal_date < ?
+              AND NOT EXISTS (SELECT 1 FROM payments p WHERE p.id_deal = d.id_deal AND p.payment_date >= ?)
+              %s
+            ORDER BY d.deal_date, d.id_deal
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """.formatted(afterCondition),
+            (rs, _) -> new ArchivedDeal(rs.getLong("id_deal"), rs.getObject("deal_date", LocalDate.class),
+                                        rs.getLong("id_realtor")),
+            params.toArray()
+        );
+        if (deals.isEmpty()) {
+            return new ArchiveBatch(List.of(), 0);
+        }
+        Long[] ids = deals.stream().map(ArchivedDeal::dealId).toArray(Long[]::new);
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("""
+                INSERT INTO deals_archive (id_deal, deal_date, deal_cost, id_property, id_realtor, id_client, id_deal_type)
+                SELECT id_deal, deal_date, deal_cost, id_property, id_realtor, id_client, id_deal_type
+                FROM deals
+                WHERE id_deal = ANY(?) AND deal_date < ?
+                """);
+            ps.setArray(1, connection.createArrayOf("bigint", ids));
+            ps.setObject(2, before);
+            return ps;
+        });
+        int payments = jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("""
+                WITH moved AS (
+                    DELETE FROM payments WHERE id_deal = ANY(?)
+                    RETURNING id_payment, payment_date, amount, id_deal
+                )
+                INSERT INTO payments_archive (id_payment, payment_date, amount, id_deal)
+                SELECT id_payment, payment_date, amount, id_deal FROM moved
+                """);
+            ps.setArray(1, connection.createArrayOf("bigint", ids));
+            return ps;
+        });
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                "DELETE FROM deals WHERE id_deal = ANY(?) AND deal_date < ?");
+            ps.setArray(1, connection.createArrayOf("bigint", ids));
+            ps.setObject(2, before);
+            return ps;
+        });
+
+        extendArchivedBefore(deals.getLast().dealDate().plusDays(1));
+        // Временные ряды, рейтинг и колоночная копия читают архив и не меняются; поиски
+        // по основным таблицам (includeArchived=false, платежи) сбрасываются
+        searchResultCache.invalidate("Deal");
+        searchResultCache.invalidate("Payment");
+
+        logger.debug("В архив перенесено {} сделок и {} платежей", deals.size(), payments);
+        return new ArchiveBatch(deals, payments);
+    }
+}
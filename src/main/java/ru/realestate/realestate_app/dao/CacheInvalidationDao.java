@@ -0,0 +1,151 @@
+package ru.realestate.realestate_app.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * DAO таблицы версий межузловой инвалидации кэшей (cache_invalidations)
+ *
+ * Запись в таблицу и уведомление NOTIFY выполняются одной командой, поэтому уведомление
+ * нельзя получить раньше, чем строку можно прочитать при догоняющем чтении.
+ */
+@Repository
+public class CacheInvalidationDao {
+
+    /**
+     * Канал LISTEN/NOTIFY
+     */
+    public static final String CHANNEL = "cache_invalidation";
+
+    /**
+     * Изменение, после которого нужно сбросить кэш
+     * @param version номер версии (возрастает, но фиксации транзакций могут прийти не по порядку)
+     * @param entity тип сущности или кэшируемых данных
+     * @param entityId идентификатор (null - все данные сущности)
+     * @param origin идентификатор узла-источника (null - изменение сделано не приложением)
+     */
+    public record Invalidation(long version, String entity, Long entityId, String origin) {}
+
+    /**
+     * Ключ сбрасываемых данных
+     * @param entity тип сущности или кэшируемых данных
+     * @param entityId идентификатор (null - все данные сущности)
+     */
+    public record Key(String entity, Long entityId) {}
+
+    private static final RowMapper<Invalidation> INVALIDATION_MAPPER = (rs, _) -> new Invalidation(
+        rs.getLong("version"),
+        rs.getString("entity"),
+        rs.getObject("entity_id", Long.class),
+        rs.getString("origin")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Конструктор DAO с инжекцией зависимостей
+     * @param jdbcTemplate шаблон для выполнения SQL запросов
+     */
+    public CacheInvalidationDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Записать изменения и разослать уведомления одной командой
+     * Внутри транзакции уведомления уходят после её фиксации и отменяются вместе с ней
+     * @param keys сбрасываемые данные
+     * @param origin идентификатор узла-источника
+     */
+    public void publish(List<Key> keys, String origin) {
+        String[] entities = keys.stream().map(Key::entity).toArray(String[]::new);
+        Long[] ids = keys.stream().map(Key::entityId).toArray(Long[]::new);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("""
+                WITH inserted AS (
+                    INSERT INTO cache_invalidations (entity, entity_id, origin)
+                    SELECT k.entity, k.entity_id, ? FROM unnest(?, ?) AS k(entity, entity_id)
+                    RETURNING version, entity, entity_id, origin
+                )
+                SELECT pg_notify('cache_invalidation', version || ':' || entity || ':'
+                       || coalesce(entity_id::text, '') || ':' || coalesce(origin, ''))
+                FROM inserted
+                """);
+            ps.setString(1, origin);
+            ps.setArray(2, connection.createArrayOf("varchar", entities));
+            ps.setArray(3, connection.createArrayOf("bigint", ids));
+            return ps;
+        }, (RowCallbackHandler) _ -> {});
+    }
+
+    /**
+     * Найти изменения с версией больше указанной
+     * @param version номер версии, после которой читать
+     * @param limit максимальное количество строк
+     * @return изменения по возрастанию версии
+     */
+    public List<Invalidation> findAfter(long version, int limit) {
+        return jdbcTemplate.query("""
+            SELECT version, entity, entity_id, origin
+            FROM cache_invalidations
+            WHERE version > ?
+            ORDER BY version
+            LIMIT ?
+            """, INVALIDATION_MAPPER, version, limit);
+    }
+
+    /**
+     * Получить номер последней версии (0, если изменений нет)
+     */
+    public long findLatestVersion() {
+        Long version = jdbcTemplate.queryForObject(
+            "SELECT coalesce(max(version), 0) FROM cache_invalidations", Long.class);
+        return version != null ? version : 0;
+    }
+
+    /**
+     * Получить номер самой старой хранимой версии
+     * @return номер версии или null, если таблица пуста
+     */
+    public Long findOldestVersion() {
+        return jdbcTemplate.queryForObject("SELECT min(version) FROM cache_invalidations", Long.class);
+    }
+
+    /**
+     * Удалить изменения старше срока хранения
+     * @param retention срок хранения
+     * @return количество удалённых строк
+     */
+    public int deleteOlderThan(Duration retention) {
+        return jdbcTemplate.update(
+            "DELETE FROM cache_invalidations WHERE created_at < now() - make_interval(secs => ?)",
+            (double) retention.toSeconds());
+    }
+
+    /**
+     * Разобрать уведомление формата "версия:сущность:id:узел"
+     * @param payload текст уведомления
+     * @return изменение или null, если формат не распознан
+     */
+    public static Invalidation parsePayload(String payload) {
+        String[] parts = payload.split(":", -1);
+        if (parts.length != 4) {
+            return null;
+        }
+        try {
+            return new Invalidation(
+                Long.parseLong(parts[0]),
+                parts[1],
+                parts[2].isEmpty() ? null : Long.valueOf(parts[2]),
+                parts[3].isEmpty() ? null : parts[3]
+            );
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -4,17 +4,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
+import ru.realestate.realestate_app.audit.AuditJournal;
+import ru.realestate.realestate_app.audit.AuditJournal.RowChange;
+import ru.realestate.realestate_app.cache.ClusterInvalidationPublisher;
+import ru.realestate.realestate_app.cache.SearchResultCache;
 import ru.realestate.realestate_app.mapper.ClientRowMapper;
 import ru.realestate.realestate_app.model.Client;
+import ru.realestate.realestate_app.model.dto.TablePage;
+import ru.realestate.realestate_app.model.dto.TableQuery;
 
 import java.sql.PreparedStatement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 /**
@@ -25,22 +30,43 @@ import java.util.regex.Pattern;
 public class ClientDao {
 
     private static final Logger logger = LoggerFactory.getLogger(ClientDao.class);
+
+    // Разрешённые ключи сортировки таблицы клиентов (столбцы, по которым сортировка может идти по индексу)
+    private static final Map<String, String> TABLE_SORT_COLUMNS = Map.of(
+        "id", "id_client",
+        "lastName", "last_name"
+    );
     
+    // Количество строк, получаемых драйвером за одно обращение при потоковом чтении
+    private static final int FETCH_SIZE = 5_000;
+
     private static final Pattern EMAIL_PATTERN = Pattern.compile(
         "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"
     );
 
     private final JdbcTemplate jdbcTemplate;
     private final ClientRowMapper clientRowMapper;
+    private final SearchResultCache searchResultCache;
+    private final AuditJournal auditJournal;
+    private final ClusterInvalidationPublisher clusterInvalidation;
 
     /**
      * Конструктор DAO с инжекцией зависимостей
      * @param jdbcTemplate шаблон для выполнения SQL запросов
      * @param clientRowMapper маппер для преобразования строк результата в объекты Client
+     * @param searchResultCache кэш результатов поиска, сбрасываемый при изменении данных
+     * @param auditJournal журнал аудита изменений
+     * @param clusterInvalidation рассылка изменений для сброса кэшей других экземпляров приложения
      */
-    public ClientDao(JdbcTemplate jdbcTemplate, ClientRowMapper clientRowMapper) {
+    public ClientDao(JdbcTemplate jdbcTemplate, ClientRowMapper clientRowMapper,
+                   SearchResultCache searchResultCache,
+                   AuditJournal auditJournal,
+                   ClusterInvalidationPublisher clusterInvalidation) {
         this.jdbcTemplate = jdbcTemplate;
         this.clientRowMapper = clientRowMapper;
+        this.searchResultCache = searchResultCache;
+        this.auditJournal = auditJournal;
+        this.clusterInvalidation = clusterInvalidation;
     }
 
     /**
@@ -55,6 +81,26 @@ public class ClientDao {
         );
     }
 
+    /**
+     * Найти клиентов для выпадающего списка с поиском
+     * Ищется подстрока в полном имени или телефоне; пустой запрос возвращает первых клиентов по алфавиту
+     * @param query строка поиска (может быть пустой)
+     * @param limit максимальное количество клиентов
+     * @return клиенты, отсортированные по фамилии и имени
+     */
+    public List<Client> findForLookup(String query, int limit) {
+        logger.debug("Поиск клиентов для выпадающего списка: '{}'", query);
+        return jdbcTemplate.query("""
+            SELECT * FROM clients
+            WHERE ? = '' OR concat_ws(' ', last_name, first_name, middle_name) ILIKE ? OR phone LIKE ?
+            ORDER BY last_name, first_name, id_client
+            LIMIT ?
+            """,
+            clientRowMapper,
+            query, "%" + query + "%", "%" + query + "%", limit
+        );
+    }
+
     /**
      * Найти клиента по уникальному идентификатору
      * @param id идентификатор клиента
@@ -76,6 +122,45 @@ public class ClientDao {
         );
     }
 
+    /**
+     * Найти клиентов по списку идентификаторов одним запросом
+     * @param ids список идентификаторов
+     * @return найденные клиенты, отсортированные по идентификатору (отсутствующие id пропускаются)
+     */
+    public List<Client> findByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(
+            connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                    "SELECT * FROM clients WHERE id_client = ANY(?) ORDER BY id_client"
+                );
+                ps.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+                return ps;
+            },
+            clientRowMapper
+        );
+    }
+
+    /**
+     * Передать всех клиентов обработчику построчно, не собирая их в список
+     * @param consumer обработчик клиента
+     */
+    public void forEachClient(Consumer<Client> consumer) {
+        logger.debug("Потоковое чтение всех клиентов");
+        jdbcTemplate.query(
+            connection -> {
+                PreparedStatement ps = connection.prepareStatement("SELECT * FROM clients");
+                ps.setFetchSize(FETCH_SIZE);
+                return ps;
+            },
+            rs -> {
+                consumer.accept(clientRowMapper.mapRow(rs, rs.getRow()));
+            }
+        );
+    }
+
     /**
      * Сохранить нового клиента в базе данных
      * @param client объект клиента для сохранения
@@ -83,7 +168,6 @@ public class ClientDao {
      * @throws IllegalArgumentException если данные клиента некорректны
      * @throws DataIntegrityViolationException если нарушена уникальность email или телефона
      */
-    @SuppressWarnings({ "null" })
     public Long save(Client client) {
         validateClientForSave(client);
         
@@ -101,14 +185,13 @@ public class ClientDao {
         
         logger.debug("Сохранение нового клиента: {} {}", client.getLastName(), client.getFirstName());
         
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-        
-        jdbcTemplate.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(
-                "INSERT INTO clients (first_name, last_name, middle_name, phone, email) " +
-                "VALUES (?, ?, ?, ?, ?)",
-                new String[]{"id_client"}
-            );
+        // Образ новой строки для журнала аудита возвращается той же командой
+        List<RowChange> inserted = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("""
+                INSERT INTO clients (first_name, last_name, middle_name, phone, email)
+                VALUES (?, ?, ?, ?, ?)
+                RETURNING id_client AS id, NULL AS before_image, row_to_json(clients)::text AS after_image
+                """);
             
             ps.setString(1, client.getFirstName());
             ps.setString(2, client.getLastName());
@@ -117,15 +200,17 @@ public class ClientDao {
             ps.setString(5, client.getEmail());
             
             return ps;
-        }, keyHolder);
+        }, AuditJournal.ROW_CHANGE_MAPPER);
         
-        Long generatedId = keyHolder.getKey() != null ? keyHolder.getKey().longValue() : null;
-        if (generatedId == null) {
+        if (inserted.isEmpty()) {
             logger.error("Не удалось получить сгенерированный id для клиента");
             throw new DataIntegrityViolationException("Не удалось создать клиента в базе данных");
         }
+        Long generatedId = inserted.get(0).id();
         
         logger.info("Клиент успешно сохранен с id: {}", generatedId);
+        auditJournal.recordInsert("Client", inserted.get(0));
+        clusterInvalidation.publish(ClusterInvalidationPublisher.CLIENT, inserted.get(0).id());
         return generatedId;
     }
 
@@ -199,12 +284,22 @@ public class ClientDao {
             sql.setLength(sql.length() - 2);
         }
         
-        sql.append(" WHERE id_client = ?");
+        // Строка до изменения блокируется и возвращается вместе с новой для журнала аудита
+        sql.append("""
+             FROM (SELECT * FROM clients WHERE id_client = ? FOR UPDATE) old
+            WHERE clients.id_client = old.id_client
+            RETURNING old.id_client AS id, row_to_json(old)::text AS before_image,
+                      row_to_json(clients)::text AS after_image
+            """);
         params.add(id);
         
-        int updatedRows = jdbcTemplate.update(sql.toString(), params.toArray());
+        List<RowChange> changes = jdbcTemplate.query(sql.toString(), AuditJournal.ROW_CHANGE_MAPPER, params.toArray());
+        int updatedRows = changes.size();
         
         if (updatedRows > 0) {
+            searchResultCache.invalidate("Client");
+            auditJournal.recordUpdate("Client", changes.get(0));
+            clusterInvalidation.publish(ClusterInvalidationPublisher.CLIENT, id);
             logger.info("Клиент с id {} успешно обновлен", id);
         } else {
             logger.warn("Клиент с id {} не найден для обновления", id);
@@ -227,12 +322,19 @@ public class ClientDao {
         
         logger.debug("Удаление клиента с id: {}", id);
         
-        int deletedRows = jdbcTemplate.update(
-            "DELETE FROM clients WHERE id_client = ?",
+        List<RowChange> deleted = jdbcTemplate.query("""
+            DELETE FROM clients WHERE id_client = ?
+            RETURNING id_client AS id, row_to_json(clients)::text AS before_image, NULL AS after_image
+            """,
+            AuditJournal.ROW_CHANGE_MAPPER,
             id
         );
+        int deletedRows = deleted.size();
         
         if (deletedRows > 0) {
+            searchResultCache.invalidate("Client");
+            auditJournal.recordDelete("Client", deleted.get(0));
+            clusterInvalidation.publish(ClusterInvalidationPublisher.CLIENT, id);
             logger.info("Клиент с id {} успешно удален", id);
         } else {
             logger.warn("Клиент с id {} не найден для удаления", id);
@@ -410,28 +512,66 @@ public class ClientDao {
      * @return список клиентов, соответствующих всем указанным критериям
      */
     public List<Client> search(String lastName, String email, String phone) {
-        StringBuilder sql = new StringBuilder("SELECT * FROM clients WHERE 1=1");
         List<Object> params = new ArrayList<>();
+        String where = buildClientFilter(lastName, email, phone, params);
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM clients");
+        if (!where.isEmpty()) {
+            sql.append(" WHERE ").append(where);
+        }
+        sql.append(" ORDER BY last_name, first_name");
+
+        return jdbcTemplate.query(sql.toString(), clientRowMapper, params.toArray());
+    }
+
+    /**
+     * Получить страницу клиентов для таблицы с фильтрацией и сортировкой
+     *
+     * @param lastName фамилия клиента (частичное совпадение)
+     * @param email    email клиента (точное совпадение)
+     * @param phone    телефон клиента (точное совпадение)
+     * @param query параметры страницы и сортировки
+     * @return страница клиентов с общим количеством
+     */
+    public TablePage<Client> searchPage(String lastName, String email, String phone, TableQuery query) {
+        TableQuery pageQuery = query.withAllowedSort(TABLE_SORT_COLUMNS.keySet(), "id");
+        List<Object> whereParams = new ArrayList<>();
+        String where = buildClientFilter(lastName, email, phone, whereParams);
+
+        List<Object> params = new ArrayList<>(whereParams);
+        String sql = "SELECT * FROM clients"
+            + (where.isEmpty() ? "" : " WHERE " + where)
+            + TablePaging.orderAndLimit(pageQuery, TABLE_SORT_COLUMNS, "id_client", params);
+
+        List<Client> rows = jdbcTemplate.query(sql, clientRowMapper, params.toArray());
+        return TablePaging.page(jdbcTemplate, rows, pageQuery, "clients", "clients", where, whereParams);
+    }
+
+    /**
+     * Построить условие фильтра клиентов
+     * @param params список, в который добавляются параметры условия
+     * @return условие без слова WHERE (пустая строка, если фильтр не задан)
+     */
+    private String buildClientFilter(String lastName, String email, String phone, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
 
         // Добавляем условия поиска только для непустых параметров
         if (lastName != null && !lastName.trim().isEmpty()) {
-            sql.append(" AND last_name ILIKE ?");
+            conditions.add("last_name ILIKE ?");
             params.add("%" + lastName.trim() + "%");
         }
 
         if (email != null && !email.trim().isEmpty()) {
-            sql.append(" AND email = ?");
+            conditions.add("email = ?");
             params.add(email.trim());
         }
 
         if (phone != null && !phone.trim().isEmpty()) {
-            sql.append(" AND phone = ?");
+            conditions.add("phone = ?");
             params.add(phone.trim());
         }
 
-        sql.append(" ORDER BY last_name, first_name");
-
-        return jdbcTemplate.query(sql.toString(), clientRowMapper, params.toArray());
+        return String.join(" AND ", conditions);
     }
     
     /**
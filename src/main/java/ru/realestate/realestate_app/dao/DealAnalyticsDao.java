@@ -0,0 +1,219 @@
+package ru.realestate.realestate_app.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import ru.realestate.realestate_app.mapper.dto.DealTimeseriesRowMapper;
+import ru.realestate.realestate_app.model.Deal;
+import ru.realestate.realestate_app.model.dto.DealTimeseriesPoint;
+import ru.realestate.realestate_app.model.dto.DealTimeseriesPoint.Bucket;
+import ru.realestate.realestate_app.model.dto.DealTimeseriesPoint.GroupBy;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * DAO аналитических запросов по сделкам
+ * Агрегация выполняется в базе данных, в приложение передаются только итоги по интервалам.
+ * Запросы читают сделки вместе с архивом ({@link ArchiveDao#DEALS_WITH_ARCHIVE}), поэтому
+ * перенос в архив не меняет итогов
+ */
+@Repository
+public class DealAnalyticsDao {
+
+    private static final Logger logger = LoggerFactory.getLogger(DealAnalyticsDao.class);
+
+    // Количество строк, получаемых драйвером за одно обращение при потоковом чтении
+    private static final int FETCH_SIZE = 5_000;
+
+    // %1$s - единица date_trunc, %2$s - выражение группы, %3$s - JOIN для группы, %4$s - условие по дате,
+    // %5$s - источник сделок
+    private static final String TIMESERIES_SQL = """
+            WITH grouped AS (
+                SELECT
+                    date_trunc('%1$s', d.deal_date::timestamp)::date AS bucket_start,
+                    %2$s AS group_id,
+                    COUNT(*) AS deal_count,
+                    SUM(d.deal_cost) AS revenue,
+                    ROUND(AVG(d.deal_cost), 2) AS average_cost
+                FROM %5$s d
+                %3$s
+                WHERE %4$s
+                GROUP BY 1, 2
+            )
+            SELECT
+                bucket_start,
+                group_id,
+                deal_count,
+                revenue,
+                average_cost,
+                ROUND(revenue / NULLIF(SUM(revenue) OVER (PARTITION BY bucket_start), 0), 4) AS revenue_share,
+                RANK() OVER (PARTITION BY bucket_start ORDER BY revenue DESC) AS revenue_rank
+            FROM grouped
+            ORDER BY bucket_start, revenue_rank, group_id
+            """;
+
+    /**
+     * Итоги риелтора за месяц
+     * @param realtorId идентификатор риелтора
+     * @param month месяц сделок
+     * @param dealCount количество сделок
+     * @param dealVolume суммарная стоимость сделок
+     */
+    public record RealtorMonthTotal(long realtorId, YearMonth month, long dealCount, BigDecimal dealVolume) {}
+
+    /**
+     * Итоги риелторов по месяцам и снимок, с которым они прочитаны
+     * @param totals итоги по парам "риелтор - месяц"
+     * @param snapshot снимок видимости транзакций запроса (по нему отделяются изменения, уже вошедшие в итоги)
+     */
+    public record RealtorTotals(List<RealtorMonthTotal> totals, TransactionSnapshot snapshot) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DealTimeseriesRowMapper dealTimeseriesRowMapper;
+
+    /**
+     * Конструктор DAO с инжекцией зависимостей
+     * @param jdbcTemplate шаблон для выполнения SQL запросов
+     * @param dealTimeseriesRowMapper маппер для DealTimeseriesPoint
+     */
+    public DealAnalyticsDao(JdbcTemplate jdbcTemplate, DealTimeseriesRowMapper dealTimeseriesRowMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dealTimeseriesRowMapper = dealTimeseriesRowMapper;
+    }
+
+    /**
+     * Получить временной ряд сделок за период
+     *
+     * Доля и место группы считаются оконными функциями внутри интервала, поэтому
+     * результат для интервала не зависит от соседних интервалов и может кэшироваться отдельно.
+     *
+     * @param bucket размер интервала
+     * @param groupBy группировка внутри интервала
+     * @param from начало периода включительно (null - с первой сделки)
+     * @param to конец периода не включительно (null - без ограничения)
+     * @return точки ряда, упорядоченные по интервалу и месту группы
+     */
+    public List<DealTimeseriesPoint> findTimeseries(Bucket bucket, GroupBy groupBy, LocalDate from, LocalDate to) {
+        List<Object> params = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (from != null) {
+            conditions.add("d.deal_date >= ?");
+            params.add(from);
+        }
+        if (to != null) {
+            conditions.add("d.deal_date < ?");
+            params.add(to);
+        }
+        String where = conditions.isEmpty() ? "TRUE" : String.join(" AND ", conditions);
+
+        String groupExpression = switch (groupBy) {
+            case NONE -> "NULL::bigint";
+            case DEAL_TYPE -> "d.id_deal_type";
+            case CITY -> "p.id_city";
+        };
+        String join = groupBy == GroupBy.CITY ? "JOIN properties p ON d.id_property = p.id_property" : "";
+
+        String sql = TIMESERIES_SQL.formatted(bucket.getSqlUnit(), groupExpression, join, where,
+                                           ArchiveDao.DEALS_WITH_ARCHIVE);
+        logger.debug("Временной ряд сделок: интервал {}, группировка {}, период [{}, {})", bucket, groupBy, from, to);
+        return jdbcTemplate.query(sql, dealTimeseriesRowMapper, params.toArray());
+    }
+
+    /**
+     * Получить количество и сумму сделок каждого риелтора по месяцам (одним агрегирующим запросом)
+     * @return итоги по парам "риелтор - месяц" и снимок, с которым они прочитаны
+     */
+    public RealtorTotals findRealtorMonthlyTotals() {
+        logger.debug("Получение итогов сделок риелторов по месяцам");
+        return queryRealtorTotals("", new Object[0]);
+    }
+
+    /**
+     * Получить количество и сумму сделок одного риелтора по месяцам
+     * @param realtorId идентификатор риелтора
+     * @return итоги риелтора по месяцам (пустой список, если сделок нет) и снимок, с которым они прочитаны
+     */
+    public RealtorTotals findRealtorMonthlyTotals(long realtorId) {
+        logger.debug("Получение итогов сделок риелтора {} по месяцам", realtorId);
+        return queryRealtorTotals("WHERE d.id_realtor = ?", new Object[] {realtorId});
+    }
+
+    /**
+     * Итоги риелторов вместе со снимком запроса: pg_current_snapshot() возвращает снимок
+     * выполняемой команды, поэтому итоги и снимок согласованы без отдельной транзакции
+     */
+    private RealtorTotals queryRealtorTotals(String condition, Object[] params) {
+        List<RealtorMonthTotal> totals = new ArrayList<>();
+        String[] snapshot = new String[1];
+        jdbcTemplate.query(
+            """
+            SELECT s.snapshot, t.id_realtor, t.month_start, t.deal_count, t.deal_volume
+            FROM (SELECT pg_current_snapshot()::text AS snapshot) s
+            LEFT JOIN (
+                SELECT
+                    d.id_realtor,
+                    date_trunc('month', d.deal_date::timestamp)::date AS month_start,
+                    COUNT(*) AS deal_count,
+                    SUM(d.deal_cost) AS deal_volume
+                FROM %s d
+                %s
+                GROUP BY 1, 2
+            ) t ON true
+            """.formatted(ArchiveDao.DEALS_WITH_ARCHIVE, condition),
+            (RowCallbackHandler) rs -> {
+                snapshot[0] = rs.getString("snapshot");
+                if (rs.getObject("id_realtor") != null) {
+                    totals.add(new RealtorMonthTotal(
+                        rs.getLong("id_realtor"),
+                        YearMonth.from(rs.getDate("month_start").toLocalDate()),
+                        rs.getLong("deal_count"),
+                        rs.getBigDecimal("deal_volume")
+                    ));
+                }
+            },
+            params
+        );
+        return new RealtorTotals(totals, TransactionSnapshot.parse(snapshot[0]));
+    }
+
+    /**
+     * Передать все сделки, включая архивные, обработчику построчно, не собирая их в список
+     * @param consumer обработчик сделки
+     * @return количество прочитанных строк
+     */
+    public long forEachDeal(Consumer<Deal> consumer) {
+        logger.debug("Потоковое чтение сделок");
+        long[] rows = {0};
+        jdbcTemplate.query(
+            connection -> {
+                PreparedStatement ps = connection.prepareStatement("""
+                    SELECT id_deal, deal_date, deal_cost, id_property, id_realtor, id_client, id_deal_type
+                    FROM %s d
+                    """.formatted(ArchiveDao.DEALS_WITH_ARCHIVE));
+                ps.setFetchSize(FETCH_SIZE);
+                return ps;
+            },
+            rs -> {
+                consumer.accept(new Deal(
+                    rs.getLong("id_deal"),
+                    rs.getObject("deal_date", LocalDate.class),
+                    rs.getBigDecimal("deal_cost"),
+                    rs.getLong("id_property"),
+                    rs.getLong("id_realtor"),
+                    rs.getLong("id_client"),
+                    rs.getLong("id_deal_type")
+                ));
+                rows[0]++;
+            }
+        );
+        return rows[0];
+    }
+}
@@ -4,9 +4,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import ru.realestate.realestate_app.audit.AuditJournal;
+import ru.realestate.realestate_app.audit.AuditJournal.RowChange;
+import ru.realestate.realestate_app.cache.DealColumnStore;
+import ru.realestate.realestate_app.cache.DealTimeseriesCache;
+import ru.realestate.realestate_app.cache.SearchResultCache;
 import ru.realestate.realestate_app.mapper.DealRowMapper;
 import ru.realestate.realestate_app.mapper.dto.DealWithDetailsRowMapper;
 import ru.realestate.realestate_app.mapper.dto.DealTableRowMapper;
@@ -14,6 +18,8 @@ import ru.realestate.realestate_app.model.Deal;
 import ru.realestate.realestate_app.model.dto.DealWithDetailsDto;
 import ru.realestate.realestate_app.model.dto.DealTableDto;
 import ru.realestate.realestate_app.model.dto.DealReportDto;
+import ru.realestate.realestate_app.model.dto.TablePage;
+import ru.realestate.realestate_app.model.dto.TableQuery;
 import ru.realestate.realestate_app.mapper.dto.DealReportRowMapper;
 
 import java.math.BigDecimal;
@@ -22,6 +28,8 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * DAO класс для работы с сделками
@@ -32,10 +40,78 @@ public class DealDao {
 
     private static final Logger logger = LoggerFactory.getLogger(DealDao.class);
 
+    // Общая часть запроса для табличного отображения сделок (%s - источник сделок, см. ArchiveDao.dealSource)
+    private static final String DEAL_TABLE_SELECT = """
+            SELECT 
+                d.id_deal as deal_id,
+                d.deal_date,
+                d.deal_cost,
+                CONCAT(c.last_name, ' ', c.first_name, CASE WHEN c.middle_name IS NOT NULL THEN CONCAT(' ', c.middle_name) ELSE '' END) as client_name,
+                c.phone as client_phone,
+                CONCAT(r.last_name, ' ', r.first_name, CASE WHEN r.middle_name IS NOT NULL THEN CONCAT(' ', r.middle_name) ELSE '' END) as realtor_name,
+                CONCAT(city.city_name, ', ', street.street_name, ', ', p.house_number, CASE WHEN p.apartment_number IS NOT NULL THEN CONCAT('-', p.apartment_number) ELSE '' END) as property_address,
+                pt.property_type_name,
+                dt.deal_type_name
+            FROM %s d
+            JOIN clients c ON d.id_client = c.id_client
+            JOIN realtors r ON d.id_realtor = r.id_realtor
+            JOIN properties p ON d.id_property = p.id_property
+            JOIN streets street ON p.id_street = street.id_street
+            JOIN cities city ON p.id_city = city.id_city
+            JOIN property_types pt ON p.id_property_type = pt.id_property_type
+            JOIN deal_types dt ON d.id_deal_type = dt.id_deal_type
+            """;
+
+    // Разрешённые ключи сортировки таблицы сделок (только столбцы основной таблицы, чтобы сортировка шла по индексу)
+    private static final Map<String, String> TABLE_SORT_COLUMNS = Map.of(
+        "id", "d.id_deal",
+        "date", "d.deal_date",
+        "cost", "d.deal_cost"
+    );
+
+    // Поля, изменение которых меняет показатели временного ряда сделок
+    private static final List<String> TIMESERIES_FIELDS =
+        List.of("dealDate", "deal_cost", "idDealType", "idProperty");
+
+    /**
+     * Изменённая сделка: образы строки для аудита, строка до изменения для рейтинга риелторов
+     * и пересчёта временного ряда, строка после изменения для колоночной копии
+     */
+    private record DealChange(RowChange row, Deal previous, Deal deal) {}
+
+    private static final RowMapper<DealChange> DEAL_CHANGE_MAPPER = (rs, rowNum) -> new DealChange(
+        AuditJournal.ROW_CHANGE_MAPPER.mapRow(rs, rowNum),
+        new Deal(
+            rs.getLong("id"),
+            rs.getDate("previous_date").toLocalDate(),
+            rs.getBigDecimal("previous_cost"),
+            rs.getLong("previous_property"),
+            rs.getLong("previous_realtor"),
+            rs.getLong("previous_client"),
+            rs.getLong("previous_deal_type")
+        ),
+        new Deal(
+            rs.getLong("id"),
+            rs.getDate("deal_date").toLocalDate(),
+            rs.getBigDecimal("deal_cost"),
+            rs.getLong("id_property"),
+            rs.getLong("id_realtor"),
+            rs.getLong("id_client"),
+            rs.getLong("id_deal_type")
+        )
+    );
+
     private final JdbcTemplate jdbcTemplate;
     private final DealRowMapper dealRowMapper;
     private final DealWithDetailsRowMapper dealWithDetailsRowMapper;
     private final DealTableRowMapper dealTableRowMapper;
+    private final DealReportRowMapper dealReportRowMapper;
+    private final SearchResultCache searchResultCache;
+    private final DealTimeseriesCache dealTimeseriesCache;
+    private final AuditJournal auditJournal;
+    private final DealColumnStore dealColumnStore;
+    private final ShardedReportExecutor shardedReportExecutor;
+    private final ArchiveDao archiveDao;
 
     /**
      * Конструктор DAO с инжекцией зависимостей
@@ -43,30 +119,52 @@ public class DealDao {
      * @param dealRowMapper маппер для преобразования строк результата в объекты Deal
      * @param dealWithDetailsRowMapper маппер для DealWithDetailsDto
      * @param dealTableRowMapper маппер для DealTableDto
+     * @param dealReportRowMapper маппер для DealReportDto
+     * @param searchResultCache кэш результатов поиска, сбрасываемый при изменении данных
+     * @param dealTimeseriesCache кэш временных рядов, в котором помечаются изменённые интервалы
+     * @param auditJournal журнал аудита изменений
+     * @param dealColumnStore колоночная копия сделок, обновляемая при изменении данных
+     * @param shardedReportExecutor выполнение отчёта частями по диапазонам ключа
+     * @param archiveDao архив завершённых сделок, подключаемый к поиску по периоду
      */
     public DealDao(JdbcTemplate jdbcTemplate, DealRowMapper dealRowMapper, 
                    DealWithDetailsRowMapper dealWithDetailsRowMapper, 
-                   DealTableRowMapper dealTableRowMapper) {
+                   DealTableRowMapper dealTableRowMapper,
+                   DealReportRowMapper dealReportRowMapper,
+                   SearchResultCache searchResultCache,
+                   DealTimeseriesCache dealTimeseriesCache,
+                   AuditJournal auditJournal,
+                   DealColumnStore dealColumnStore,
+                   ShardedReportExecutor shardedReportExecutor,
+                   ArchiveDao archiveDao) {
         this.jdbcTemplate = jdbcTemplate;
         this.dealRowMapper = dealRowMapper;
         this.dealWithDetailsRowMapper = dealWithDetailsRowMapper;
         this.dealTableRowMapper = dealTableRowMapper;
+        this.dealReportRowMapper = dealReportRowMapper;
+        this.searchResultCache = searchResultCache;
+        this.dealTimeseriesCache = dealTimeseriesCache;
+        this.auditJournal = auditJournal;
+        this.dealColumnStore = dealColumnStore;
+        this.shardedReportExecutor = shardedReportExecutor;
+        this.archiveDao = archiveDao;
     }
 
     /**
      * Получить все сделки, отсортированные по дате в убывающем порядке
+     * @param includeArchived включать ли архивные сделки
      * @return список всех сделок
      */
-    public List<Deal> findAll() {
+    public List<Deal> findAll(boolean includeArchived) {
         logger.debug("Получение списка всех сделок");
         return jdbcTemplate.query(
-            "SELECT * FROM deals ORDER BY id_deal",
+            "SELECT * FROM " + archiveDao.dealSource(includeArchived, null) + " d ORDER BY id_deal",
             dealRowMapper
         );
     }
 
     /**
-     * Найти сделку по уникальному идентификатору
+     * Найти сделку (в том числе архивную) по уникальному идентификатору
      * @param id идентификатор сделки
      * @return объект сделки
      * @throws org.springframework.dao.EmptyResultDataAccessException если сделка не найдена
@@ -80,12 +178,64 @@ public class DealDao {
         
         logger.debug("Поиск сделки по id: {}", id);
         return jdbcTemplate.queryForObject(
-            "SELECT * FROM deals WHERE id_deal = ?",
+            "SELECT * FROM " + ArchiveDao.DEALS_WITH_ARCHIVE + " d WHERE id_deal = ?",
             dealRowMapper,
             id
         );
     }
 
+    /**
+     * Заблокировать сделку до конца транзакции и получить её стоимость
+     * @param id идентификатор сделки
+     * @return стоимость сделки или пустой Optional, если сделка не найдена
+     */
+    public Optional<BigDecimal> lockCost(Long id) {
+        return jdbcTemplate.query("SELECT deal_cost FROM deals WHERE id_deal = ? FOR UPDATE",
+            (rs, _) -> rs.getBigDecimal(1), id).stream().findFirst();
+    }
+
+    /**
+     * Найти сделки (в том числе архивные) по списку идентификаторов одним запросом
+     * @param ids список идентификаторов
+     * @return найденные сделки, отсортированные по идентификатору (отсутствующие id пропускаются)
+     */
+    public List<Deal> findByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(
+            connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                    "SELECT * FROM " + ArchiveDao.DEALS_WITH_ARCHIVE + " d WHERE id_deal = ANY(?) ORDER BY id_deal"
+                );
+                ps.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+                return ps;
+            },
+            dealRowMapper
+        );
+    }
+
+    /**
+     * Найти сделки (в том числе архивные) в формате таблицы по списку идентификаторов одним запросом
+     * @param ids список идентификаторов
+     * @return найденные сделки (отсутствующие id пропускаются)
+     */
+    public List<DealTableDto> findForTableByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(
+            connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                    DEAL_TABLE_SELECT.formatted(ArchiveDao.DEALS_WITH_ARCHIVE) + "WHERE d.id_deal = ANY(?)"
+                );
+                ps.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+                return ps;
+            },
+            dealTableRowMapper
+        );
+    }
+
     /**
      * Сохранить новую сделку в базе данных
      * @param deal объект сделки для сохранения
@@ -93,7 +243,6 @@ public class DealDao {
      * @throws IllegalArgumentException если данные сделки некорректны
      * @throws DataIntegrityViolationException если связанные сущности не существуют
      */
-    @SuppressWarnings({ "null" })
     public Long save(Deal deal) {
         validateDealForSave(deal);
         
@@ -103,14 +252,13 @@ public class DealDao {
         logger.debug("Сохранение новой сделки: дата={}, стоимость={}", 
                     deal.getDealDate(), deal.getDealCost());
         
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-        
-        jdbcTemplate.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(
-                "INSERT INTO deals (deal_date, deal_cost, id_property, id_realtor, id_client, id_deal_type) " +
-                "VALUES (?, ?, ?, ?, ?, ?)",
-                new String[]{"id_deal"}
-            );
+        // Образ новой строки для журнала аудита возвращается той же командой
+        List<RowChange> inserted = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("""
+                INSERT INTO deals (deal_date, deal_cost, id_property, id_realtor, id_client, id_deal_type)
+                VALUES (?, ?, ?, ?, ?, ?)
+                RETURNING id_deal AS id, NULL AS before_image, row_to_json(deals)::text AS after_image
+                """);
             
             ps.setDate(1, java.sql.Date.valueOf(deal.getDealDate()));
             ps.setBigDecimal(2, deal.getDealCost());
@@ -120,27 +268,34 @@ public class DealDao {
             ps.setLong(6, deal.getIdDealType());
             
             return ps;
-        }, keyHolder);
+        }, AuditJournal.ROW_CHANGE_MAPPER);
         
-        Long generatedId = keyHolder.getKey() != null ? keyHolder.getKey().longValue() : null;
-        if (generatedId == null) {
+        if (inserted.isEmpty()) {
             logger.error("Не удалось получить сгенерированный id для сделки");
             throw new DataIntegrityViolationException("Не удалось создать сделку в базе данных");
         }
+        Long generatedId = inserted.get(0).id();
         
         logger.info("Сделка успешно сохранена с id: {}", generatedId);
+        searchResultCache.invalidate("Deal");
+        dealTimeseriesCache.invalidate(deal.getDealDate());
+        auditJournal.recordInsert("Deal", inserted.get(0));
+        dealColumnStore.put(new Deal(generatedId, deal.getDealDate(), deal.getDealCost(), deal.getIdProperty(),
+                                     deal.getIdRealtor(), deal.getIdClient(), deal.getIdDealType()));
         return generatedId;
     }
 
     /**
      * Обновить данные существующей сделки
+     * Строка блокируется до изменения, поэтому возвращённое состояние не может устареть
+     * до конца транзакции вызывающего
      * @param id идентификатор сделки для обновления
      * @param updates карта с полями для обновления (ключ - название поля, значение - новое значение)
-     * @return true если обновление прошло успешно, false если данных для обновления нет
+     * @return сделка до изменения или пустой Optional, если данных для обновления нет или сделка не найдена
      * @throws IllegalArgumentException если id равен null или данные некорректны
      * @throws DataIntegrityViolationException если связанные сущности не существуют
      */
-    public boolean update(Long id, Map<String, Object> updates) {
+    public Optional<Deal> update(Long id, Map<String, Object> updates) {
         if (id == null) {
             logger.error("Попытка обновления сделки с null id");
             throw new IllegalArgumentException("Идентификатор сделки не может быть null");
@@ -148,7 +303,7 @@ public class DealDao {
         
         if (updates == null || updates.isEmpty()) {
             logger.debug("Нет данных для обновления сделки с id: {}", id);
-            return false;
+            return Optional.empty();
         }
         
         validateDealUpdates(updates);
@@ -163,6 +318,8 @@ public class DealDao {
             updates.put("deal_cost", new BigDecimal(integer));
         }
         
+        boolean affectsTimeseries = TIMESERIES_FIELDS.stream().anyMatch(updates::containsKey);
+        
         // Строим динамический SQL запрос
         StringBuilder sql = new StringBuilder("UPDATE deals SET ");
         List<Object> params = new ArrayList<>();
@@ -207,18 +364,40 @@ public class DealDao {
             sql.setLength(sql.length() - 2);
         }
         
-        sql.append(" WHERE id_deal = ?");
+        // Строка до изменения блокируется и возвращается вместе с новой: из неё берутся образ для аудита,
+        // состояние для рейтинга риелторов и дата, чтобы пересчитать интервал временного ряда, из которого
+        // уходит сделка. Другим узлам
+        // изменение рассылает триггер таблицы. Условие по полному ключу (id, дата) оставляет
+        // обновлению одну секцию вместо поиска по всем
+        sql.append("""
+             FROM (SELECT * FROM deals WHERE id_deal = ? FOR UPDATE) old
+            WHERE deals.id_deal = old.id_deal AND deals.deal_date = old.deal_date
+            RETURNING old.id_deal AS id, row_to_json(old)::text AS before_image,
+                      row_to_json(deals)::text AS after_image, old.deal_date AS previous_date,
+                      old.deal_cost AS previous_cost, old.id_property AS previous_property,
+                      old.id_realtor AS previous_realtor, old.id_client AS previous_client,
+                      old.id_deal_type AS previous_deal_type, deals.deal_date, deals.deal_cost, deals.id_property, deals.id_realtor, deals.id_client, deals.id_deal_type
+            """);
         params.add(id);
         
-        int updatedRows = jdbcTemplate.update(sql.toString(), params.toArray());
+        List<DealChange> changes = jdbcTemplate.query(sql.toString(), DEAL_CHANGE_MAPPER, params.toArray());
+        int updatedRows = changes.size();
         
         if (updatedRows > 0) {
+            DealChange change = changes.get(0);
+            searchResultCache.invalidate("Deal");
+            if (affectsTimeseries) {
+                dealTimeseriesCache.invalidate(change.previous().getDealDate());
+                dealTimeseriesCache.invalidate(change.deal().getDealDate());
+            }
+            auditJournal.recordUpdate("Deal", change.row());
+            dealColumnStore.put(change.deal());
             logger.info("Сделка с id {} успешно обновлена", id);
         } else {
             logger.warn("Сделка с id {} не найдена для обновления", id);
         }
         
-        return updatedRows > 0;
+        return changes.stream().findFirst().map(DealChange::previous);
     }
 
     /**
@@ -235,12 +414,24 @@ public class DealDao {
         
         logger.debug("Удаление сделки с id: {}", id);
         
-        int deletedRows = jdbcTemplate.update(
-            "DELETE FROM deals WHERE id_deal = ?",
+        List<DealChange> deleted = jdbcTemplate.query("""
+            DELETE FROM deals WHERE id_deal = ?
+            RETURNING id_deal AS id, row_to_json(deals)::text AS before_image, NULL AS after_image,
+                      deal_date AS previous_date, deal_cost AS previous_cost, id_property AS previous_property,
+                      id_realtor AS previous_realtor, id_client AS previous_client,
+                      id_deal_type AS previous_deal_type, deal_date, id_realtor,
+                      deal_cost, id_property, id_client, id_deal_type
+            """,
+            DEAL_CHANGE_MAPPER,
             id
         );
+        int deletedRows = deleted.size();
         
         if (deletedRows > 0) {
+            searchResultCache.invalidate("Deal");
+            dealTimeseriesCache.invalidate(deleted.get(0).deal().getDealDate());
+            auditJournal.recordDelete("Deal", deleted.get(0).row());
+            dealColumnStore.remove(id);
             logger.info("Сделка с id {} успешно удалена", id);
         } else {
             logger.warn("Сделка с id {} не найдена для удаления", id);
@@ -249,13 +440,25 @@ public class DealDao {
         return deletedRows > 0;
     }
 
+    /**
+     * Номер текущей транзакции (pg_current_xact_id())
+     * Вызывается после изменения сделки в той же транзакции: по номеру рейтинг риелторов отличает
+     * изменения, уже вошедшие в прочитанные итоги, от изменений, которые нужно к ним добавить
+     * @return номер транзакции
+     */
+    public long currentTransactionId() {
+        String xid = jdbcTemplate.queryForObject("SELECT pg_current_xact_id()::text", String.class);
+        return Long.parseLong(xid);
+    }
+
     /**
      * Найти сделки по конкретной дате
      * @param date дата совершения сделки
+     * @param includeArchived включать ли архивные сделки (архив читается, только если дата раньше его границы)
      * @return список сделок, совершенных в указанную дату, отсортированный по убыванию стоимости
      * @throws IllegalArgumentException если date равен null
      */
-    public List<Deal> findByDate(LocalDate date) {
+    public List<Deal> findByDate(LocalDate date, boolean includeArchived) {
         if (date == null) {
             logger.error("Попытка поиска сделок с null датой");
             throw new IllegalArgumentException("Дата не может быть null");
@@ -263,7 +466,8 @@ public class DealDao {
         
         logger.debug("Поиск сделок по дате: {}", date);
         return jdbcTemplate.query(
-            "SELECT * FROM deals WHERE deal_date = ? ORDER BY deal_cost DESC",
+            "SELECT * FROM " + archiveDao.dealSource(includeArchived, date) + " d"
+                + " WHERE deal_date = ? ORDER BY deal_cost DESC",
             dealRowMapper,
             java.sql.Date.valueOf(date)
         );
@@ -273,10 +477,11 @@ public class DealDao {
      * Найти сделки в указанном диапазоне дат
      * @param startDate начальная дата периода (включительно)
      * @param endDate конечная дата периода (включительно)
+     * @param includeArchived включать ли архивные сделки (архив читается, только если период начинается раньше его границы)
      * @return список сделок в указанном диапазоне дат, отсортированный по убыванию даты
      * @throws IllegalArgumentException если даты некорректны
      */
-    public List<Deal> findByDateRange(LocalDate startDate, LocalDate endDate) {
+    public List<Deal> findByDateRange(LocalDate startDate, LocalDate endDate, boolean includeArchived) {
         // Валидация входных параметров
         if (startDate == null) {
             logger.error("Попытка поиска сделок с null начальной датой");
@@ -294,20 +499,23 @@ public class DealDao {
         }
         
         logger.debug("Поиск сделок в диапазоне дат: {} - {}", startDate, endDate);
+        // Полуинтервал по колонке без преобразований: по нему отсекаются помесячные секции вне периода
         return jdbcTemplate.query(
-            "SELECT * FROM deals WHERE deal_date BETWEEN ? AND ? ORDER BY deal_date DESC",
+            "SELECT * FROM " + archiveDao.dealSource(includeArchived, startDate) + " d"
+                + " WHERE deal_date >= ? AND deal_date < ? ORDER BY deal_date DESC",
             dealRowMapper,
-            java.sql.Date.valueOf(startDate), java.sql.Date.valueOf(endDate)
+            java.sql.Date.valueOf(startDate), java.sql.Date.valueOf(endDate.plusDays(1))
         );
     }
 
     /**
      * Найти сделки конкретного риелтора
      * @param realtorId идентификатор риелтора
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок указанного риелтора, отсортированный по убыванию даты
      * @throws IllegalArgumentException если realtorId равен null
      */
-    public List<Deal> findByRealtorId(Long realtorId) {
+    public List<Deal> findByRealtorId(Long realtorId, boolean includeArchived) {
         // Валидация входного параметра
         if (realtorId == null) {
             logger.error("Попытка поиска сделок с null id риелтора");
@@ -316,7 +524,8 @@ public class DealDao {
         
         logger.debug("Поиск сделок по id риелтора: {}", realtorId);
         return jdbcTemplate.query(
-            "SELECT * FROM deals WHERE id_realtor = ? ORDER BY deal_date DESC",
+            "SELECT * FROM " + archiveDao.dealSource(includeArchived, null) + " d"
+                + " WHERE id_realtor = ? ORDER BY deal_date DESC",
             dealRowMapper,
             realtorId
         );
@@ -325,11 +534,13 @@ public class DealDao {
     /**
      * Найти сделки конкретного клиента
      * @param clientId идентификатор клиента
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок указанного клиента, отсортированный по убыванию даты
      */
-    public List<Deal> findByClientId(Long clientId) {
+    public List<Deal> findByClientId(Long clientId, boolean includeArchived) {
         return jdbcTemplate.query(
-            "SELECT * FROM deals WHERE id_client = ? ORDER BY deal_date DESC",
+            "SELECT * FROM " + archiveDao.dealSource(includeArchived, null) + " d"
+                + " WHERE id_client = ? ORDER BY deal_date DESC",
             dealRowMapper,
             clientId
         );
@@ -338,11 +549,13 @@ public class DealDao {
     /**
      * Найти сделки по конкретному объекту недвижимости
      * @param propertyId идентификатор объекта недвижимости
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок по указанному объекту недвижимости, отсортированный по убыванию даты
      */
-    public List<Deal> findByPropertyId(Long propertyId) {
+    public List<Deal> findByPropertyId(Long propertyId, boolean includeArchived) {
         return jdbcTemplate.query(
-            "SELECT * FROM deals WHERE id_property = ? ORDER BY deal_date DESC",
+            "SELECT * FROM " + archiveDao.dealSource(includeArchived, null) + " d"
+                + " WHERE id_property = ? ORDER BY deal_date DESC",
             dealRowMapper,
             propertyId
         );
@@ -351,11 +564,13 @@ public class DealDao {
     /**
      * Найти сделки по типу сделки
      * @param dealTypeId идентификатор типа сделки
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок указанного типа, отсортированный по убыванию даты
      */
-    public List<Deal> findByDealTypeId(Long dealTypeId) {
+    public List<Deal> findByDealTypeId(Long dealTypeId, boolean includeArchived) {
         return jdbcTemplate.query(
-            "SELECT * FROM deals WHERE id_deal_type = ? ORDER BY deal_date DESC",
+            "SELECT * FROM " + archiveDao.dealSource(includeArchived, null) + " d"
+                + " WHERE id_deal_type = ? ORDER BY deal_date DESC",
             dealRowMapper,
             dealTypeId
         );
@@ -365,36 +580,38 @@ public class DealDao {
      * Найти сделки в указанном ценовом диапазоне
      * @param minCost минимальная стоимость сделки
      * @param maxCost максимальная стоимость сделки
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок в ценовом диапазоне, отсортированный по убыванию стоимости
      */
-    public List<Deal> findByCostRange(BigDecimal minCost, BigDecimal maxCost) {
+    public List<Deal> findByCostRange(BigDecimal minCost, BigDecimal maxCost, boolean includeArchived) {
         return jdbcTemplate.query(
-            "SELECT * FROM deals WHERE deal_cost BETWEEN ? AND ? ORDER BY deal_cost DESC",
+            "SELECT * FROM " + archiveDao.dealSource(includeArchived, null) + " d"
+                + " WHERE deal_cost BETWEEN ? AND ? ORDER BY deal_cost DESC",
             dealRowMapper,
             minCost, maxCost
         );
     }
 
     /**
-     * Получить общую сумму всех сделок
+     * Получить общую сумму всех сделок, включая архивные
      * @return общая сумма сделок или 0 если сделок нет
      */
     public BigDecimal getTotalDealsAmount() {
         BigDecimal total = jdbcTemplate.queryForObject(
-            "SELECT SUM(deal_cost) FROM deals",
+            "SELECT SUM(deal_cost) FROM " + ArchiveDao.DEALS_WITH_ARCHIVE + " d",
             BigDecimal.class
         );
         return total != null ? total : BigDecimal.ZERO;
     }
 
     /**
-     * Получить общее количество сделок в базе данных
+     * Получить общее количество сделок в базе данных, включая архивные
      * @return количество сделок
      */
     public int getCount() {
         logger.debug("Получение общего количества сделок");
         Integer count = jdbcTemplate.queryForObject(
-            "SELECT COUNT(*) FROM deals",
+            "SELECT COUNT(*) FROM " + ArchiveDao.DEALS_WITH_ARCHIVE + " d",
             Integer.class
         );
         return count != null ? count : 0;
@@ -404,9 +621,10 @@ public class DealDao {
 
     /**
      * Получить все сделки с детальной информацией (JOIN запрос)
+     * @param includeArchived включать ли архивные сделки
      * @return список всех сделок с полной информацией о связанных сущностях
      */
-    public List<DealWithDetailsDto> findAllWithDetails() {
+    public List<DealWithDetailsDto> findAllWithDetails(boolean includeArchived) {
         logger.debug("Получение списка всех сделок с детальной информацией");
         String sql = """
             SELECT 
@@ -447,7 +665,7 @@ public class DealDao {
                 -- Типы
                 pt.property_type_name,
                 dt.deal_type_name
-            FROM deals d
+            FROM %s d
             JOIN clients c ON d.id_client = c.id_client
             JOIN realtors r ON d.id_realtor = r.id_realtor
             JOIN properties p ON d.id_property = p.id_property
@@ -459,12 +677,12 @@ public class DealDao {
             JOIN property_types pt ON p.id_property_type = pt.id_property_type
             JOIN deal_types dt ON d.id_deal_type = dt.id_deal_type
             ORDER BY d.id_deal
-            """;
+            """.formatted(archiveDao.dealSource(includeArchived, null));
         return jdbcTemplate.query(sql, dealWithDetailsRowMapper);
     }
 
     /**
-     * Найти сделку с детальной информацией по идентификатору
+     * Найти сделку (в том числе архивную) с детальной информацией по идентификатору
      * @param id идентификатор сделки
      * @return сделка с полной информацией о связанных сущностях
      * @throws org.springframework.dao.EmptyResultDataAccessException если сделка не найдена
@@ -515,7 +733,7 @@ public class DealDao {
                 -- Типы
                 pt.property_type_name,
                 dt.deal_type_name
-            FROM deals d
+            FROM %s d
             JOIN clients c ON d.id_client = c.id_client
             JOIN realtors r ON d.id_realtor = r.id_realtor
             JOIN properties p ON d.id_property = p.id_property
@@ -527,15 +745,16 @@ public class DealDao {
             JOIN property_types pt ON p.id_property_type = pt.id_property_type
             JOIN deal_types dt ON d.id_deal_type = dt.id_deal_type
             WHERE d.id_deal = ?
-            """;
+            """.formatted(ArchiveDao.DEALS_WITH_ARCHIVE);
         return jdbcTemplate.queryForObject(sql, dealWithDetailsRowMapper, id);
     }
 
     /**
      * Получить все сделки для табличного отображения (компактная информация)
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок с компактной информацией
      */
-    public List<DealTableDto> findAllForTable() {
+    public List<DealTableDto> findAllForTable(boolean includeArchived) {
         logger.debug("Получение списка всех сделок для табличного отображения");
         String sql = """
             SELECT 
@@ -555,7 +774,7 @@ public class DealDao {
                 -- Типы
                 pt.property_type_name,
                 dt.deal_type_name
-            FROM deals d
+            FROM %s d
             JOIN clients c ON d.id_client = c.id_client
             JOIN realtors r ON d.id_realtor = r.id_realtor
             JOIN properties p ON d.id_property = p.id_property
@@ -564,16 +783,39 @@ public class DealDao {
             JOIN property_types pt ON p.id_property_type = pt.id_property_type
             JOIN deal_types dt ON d.id_deal_type = dt.id_deal_type
             ORDER BY d.id_deal
-            """;
+            """.formatted(archiveDao.dealSource(includeArchived, null));
         return jdbcTemplate.query(sql, dealTableRowMapper);
     }
 
+    /**
+     * Найти сделки для выпадающего списка с поиском
+     * Запрос из цифр ищется как начало номера сделки, иначе - как подстрока фамилии клиента;
+     * пустой запрос возвращает последние сделки
+     * @param query строка поиска (может быть пустой)
+     * @param limit максимальное количество сделок
+     * @param includeArchived включать ли архивные сделки
+     * @return сделки в табличном формате, от новых к старым
+     */
+    public List<DealTableDto> findForLookup(String query, int limit, boolean includeArchived) {
+        logger.debug("Поиск сделок для выпадающего списка: '{}'", query);
+        boolean byId = !query.isEmpty() && query.chars().allMatch(Character::isDigit);
+        return jdbcTemplate.query(DEAL_TABLE_SELECT.formatted(archiveDao.dealSource(includeArchived, null)) + """
+            WHERE ? = '' OR d.id_deal::text LIKE ? OR c.last_name ILIKE ?
+            ORDER BY d.id_deal DESC
+            LIMIT ?
+            """,
+            dealTableRowMapper,
+            query, byId ? query + "%" : "", byId ? "" : "%" + query + "%", limit
+        );
+    }
+
     /**
      * Найти сделки по дате с детальной информацией
      * @param date дата сделки
+     * @param includeArchived включать ли архивные сделки (архив читается, только если дата раньше его границы)
      * @return список сделок с полной информацией
      */
-    public List<DealWithDetailsDto> findByDateWithDetails(LocalDate date) {
+    public List<DealWithDetailsDto> findByDateWithDetails(LocalDate date, boolean includeArchived) {
         if (date == null) {
             logger.error("Попытка поиска сделок с null датой");
             throw new IllegalArgumentException("Дата не может быть null");
@@ -619,7 +861,7 @@ public class DealDao {
                 -- Типы
                 pt.property_type_name,
                 dt.deal_type_name
-            FROM deals d
+            FROM %s d
             JOIN clients c ON d.id_client = c.id_client
             JOIN realtors r ON d.id_realtor = r.id_realtor
             JOIN properties p ON d.id_property = p.id_property
@@ -632,7 +874,7 @@ public class DealDao {
             JOIN deal_types dt ON d.id_deal_type = dt.id_deal_type
             WHERE d.deal_date = ?
             ORDER BY d.deal_date DESC
-            """;
+            """.formatted(archiveDao.dealSource(includeArchived, date));
         return jdbcTemplate.query(sql, dealWithDetailsRowMapper, date);
     }
 
@@ -640,9 +882,11 @@ public class DealDao {
      * Найти сделки по диапазону дат с детальной информацией
      * @param startDate начальная дата (включительно)
      * @param endDate конечная дата (включительно)
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок с полной информацией
      */
-    public List<DealWithDetailsDto> findByDateRangeWithDetails(LocalDate startDate, LocalDate endDate) {
+    public List<DealWithDetailsDto> findByDateRangeWithDetails(LocalDate startDate, LocalDate endDate,
+                                                               boolean includeArchived) {
         if (startDate == null || endDate == null) {
             logger.error("Попытка поиска сделок с null датами: start={}, end={}", startDate, endDate);
             throw new IllegalArgumentException("Даты не могут быть null");
@@ -693,7 +937,7 @@ public class DealDao {
                 -- Типы
                 pt.property_type_name,
                 dt.deal_type_name
-            FROM deals d
+            FROM %s d
             JOIN clients c ON d.id_client = c.id_client
             JOIN realtors r ON d.id_realtor = r.id_realtor
             JOIN properties p ON d.id_property = p.id_property
@@ -704,18 +948,19 @@ public class DealDao {
             JOIN streets street ON p.id_street = street.id_street
             JOIN property_types pt ON p.id_property_type = pt.id_property_type
             JOIN deal_types dt ON d.id_deal_type = dt.id_deal_type
-            WHERE d.deal_date BETWEEN ? AND ?
+            WHERE d.deal_date >= ? AND d.deal_date < ?
             ORDER BY d.deal_date DESC
-            """;
-        return jdbcTemplate.query(sql, dealWithDetailsRowMapper, startDate, endDate);
+            """.formatted(archiveDao.dealSource(includeArchived, startDate));
+        return jdbcTemplate.query(sql, dealWithDetailsRowMapper, startDate, endDate.plusDays(1));
     }
 
     /**
      * Найти сделки по риелтору с детальной информацией
      * @param realtorId идентификатор риелтора
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок с полной информацией
      */
-    public List<DealWithDetailsDto> findByRealtorIdWithDetails(Long realtorId) {
+    public List<DealWithDetailsDto> findByRealtorIdWithDetails(Long realtorId, boolean includeArchived) {
         if (realtorId == null) {
             logger.error("Попытка поиска сделок с null id риелтора");
             throw new IllegalArgumentException("Идентификатор риелтора не может быть null");
@@ -761,7 +1006,7 @@ public class DealDao {
                 -- Типы
                 pt.property_type_name,
                 dt.deal_type_name
-            FROM deals d
+            FROM %s d
             JOIN clients c ON d.id_client = c.id_client
             JOIN realtors r ON d.id_realtor = r.id_realtor
             JOIN properties p ON d.id_property = p.id_property
@@ -774,16 +1019,17 @@ public class DealDao {
             JOIN deal_types dt ON d.id_deal_type = dt.id_deal_type
             WHERE d.id_realtor = ?
             ORDER BY d.deal_date DESC
-            """;
+            """.formatted(archiveDao.dealSource(includeArchived, null));
         return jdbcTemplate.query(sql, dealWithDetailsRowMapper, realtorId);
     }
 
     /**
      * Найти сделки по клиенту с детальной информацией
      * @param clientId идентификатор клиента
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок с полной информацией
      */
-    public List<DealWithDetailsDto> findByClientIdWithDetails(Long clientId) {
+    public List<DealWithDetailsDto> findByClientIdWithDetails(Long clientId, boolean includeArchived) {
         if (clientId == null) {
             logger.error("Попытка поиска сделок с null id клиента");
             throw new IllegalArgumentException("Идентификатор клиента не может быть null");
@@ -829,7 +1075,7 @@ public class DealDao {
                 -- Типы
                 pt.property_type_name,
                 dt.deal_type_name
-            FROM deals d
+            FROM %s d
             JOIN clients c ON d.id_client = c.id_client
             JOIN realtors r ON d.id_realtor = r.id_realtor
             JOIN properties p ON d.id_property = p.id_property
@@ -842,7 +1088,7 @@ public class DealDao {
             JOIN deal_types dt ON d.id_deal_type = dt.id_deal_type
             WHERE d.id_client = ?
             ORDER BY d.deal_date DESC
-            """;
+            """.formatted(archiveDao.dealSource(includeArchived, null));
         return jdbcTemplate.query(sql, dealWithDetailsRowMapper, clientId);
     }
 
@@ -1060,7 +1306,7 @@ public class DealDao {
     }
     
     /**
-     * Найти сделку по идентификатору в формате таблицы
+     * Найти сделку (в том числе архивную) по идентификатору в формате таблицы
      * @param id идентификатор сделки
      * @return сделка в формате таблицы
      * @throws org.springframework.dao.EmptyResultDataAccessException если сделка не найдена
@@ -1090,7 +1336,7 @@ public class DealDao {
                 -- Типы
                 pt.property_type_name,
                 dt.deal_type_name
-            FROM deals d
+            FROM %s d
             JOIN clients c ON d.id_client = c.id_client
             JOIN realtors r ON d.id_realtor = r.id_realtor
             JOIN properties p ON d.id_property = p.id_property
@@ -1099,12 +1345,13 @@ public class DealDao {
             JOIN property_types pt ON p.id_property_type = pt.id_property_type
             JOIN deal_types dt ON d.id_deal_type = dt.id_deal_type
             WHERE d.id_deal = ?
-            """;
+            """.formatted(ArchiveDao.DEALS_WITH_ARCHIVE);
         return jdbcTemplate.queryForObject(sql, dealTableRowMapper, id);
     }
     
     /**
      * Осуществляет поиск сделок по заданным критериям с помощью динамического SQL-запроса.
+     * Архив подключается, если период начинается раньше его границы.
      *
      * @param startDate  Начальная дата для поиска (может быть null).
      * @param endDate    Конечная дата для поиска (может быть null).
@@ -1114,30 +1361,57 @@ public class DealDao {
      * @return Список отфильтрованных сделок в формате DealTableDto.
      */
     public List<DealTableDto> searchDeals(LocalDate startDate, LocalDate endDate, Long realtorId, Long clientId, Long dealTypeId) {
-        // Базовый SQL-запрос, который мы будем расширять
-        String baseSql = """
-            SELECT 
-                d.id_deal as deal_id,
-                d.deal_date,
-                d.deal_cost,
-                CONCAT(c.last_name, ' ', c.first_name, CASE WHEN c.middle_name IS NOT NULL THEN CONCAT(' ', c.middle_name) ELSE '' END) as client_name,
-                c.phone as client_phone,
-                CONCAT(r.last_name, ' ', r.first_name, CASE WHEN r.middle_name IS NOT NULL THEN CONCAT(' ', r.middle_name) ELSE '' END) as realtor_name,
-                CONCAT(city.city_name, ', ', street.street_name, ', ', p.house_number, CASE WHEN p.apartment_number IS NOT NULL THEN CONCAT('-', p.apartment_number) ELSE '' END) as property_address,
-                pt.property_type_name,
-                dt.deal_type_name
-            FROM deals d
-            JOIN clients c ON d.id_client = c.id_client
-            JOIN realtors r ON d.id_realtor = r.id_realtor
-            JOIN properties p ON d.id_property = p.id_property
-            JOIN streets street ON p.id_street = street.id_street
-            JOIN cities city ON p.id_city = city.id_city
-            JOIN property_types pt ON p.id_property_type = pt.id_property_type
-            JOIN deal_types dt ON d.id_deal_type = dt.id_deal_type
-            """;
+        List<Object> params = new ArrayList<>();
+        String where = buildDealFilter(startDate, endDate, realtorId, clientId, dealTypeId, params);
+
+        String finalSql = DEAL_TABLE_SELECT.formatted(archiveDao.dealSource(true, startDate));
+        if (!where.isEmpty()) {
+            finalSql += " WHERE " + where;
+        }
+        finalSql += " ORDER BY d.deal_date DESC";
         
+        return jdbcTemplate.query(finalSql, dealTableRowMapper, params.toArray());
+    }
+
+    /**
+     * Получить страницу сделок для таблицы с фильтрацией и сортировкой
+     *
+     * @param startDate  Начальная дата для поиска (может быть null).
+     * @param endDate    Конечная дата для поиска (может быть null).
+     * @param realtorId  ID риелтора для фильтрации (может быть null).
+     * @param clientId   ID клиента для фильтрации (может быть null).
+     * @param dealTypeId ID типа сделки для фильтрации (может быть null).
+     * @param includeArchived включать ли архивные сделки
+     * @param query      параметры страницы и сортировки
+     * @return страница сделок в формате DealTableDto с общим количеством
+     */
+    public TablePage<DealTableDto> searchDealsPage(LocalDate startDate, LocalDate endDate, Long realtorId,
+                                                   Long clientId, Long dealTypeId, boolean includeArchived,
+                                                   TableQuery query) {
+        TableQuery pageQuery = query.withAllowedSort(TABLE_SORT_COLUMNS.keySet(), "id");
+        List<Object> whereParams = new ArrayList<>();
+        String where = buildDealFilter(startDate, endDate, realtorId, clientId, dealTypeId, whereParams);
+
+        List<Object> params = new ArrayList<>(whereParams);
+        String source = archiveDao.dealSource(includeArchived, startDate);
+        String sql = DEAL_TABLE_SELECT.formatted(source)
+            + (where.isEmpty() ? "" : " WHERE " + where)
+            + TablePaging.orderAndLimit(pageQuery, TABLE_SORT_COLUMNS, "d.id_deal", params);
+
+        List<DealTableDto> rows = jdbcTemplate.query(sql, dealTableRowMapper, params.toArray());
+        // Оценка по статистике есть только у таблицы: с архивом количество считается всегда
+        String estimateTable = source.equals("deals") ? "deals" : null;
+        return TablePaging.page(jdbcTemplate, rows, pageQuery, estimateTable, source + " d", where, whereParams);
+    }
+
+    /**
+     * Построить условие фильтра сделок для таблицы
+     * @param params список, в который добавляются параметры условия
+     * @return условие без слова WHERE (пустая строка, если фильтр не задан)
+     */
+    private String buildDealFilter(LocalDate startDate, LocalDate endDate, Long realtorId, Long clientId,
+                                   Long dealTypeId, List<Object> params) {
         StringBuilder whereClause = new StringBuilder();
-        List<Object> params = new ArrayList<>();
         
         // Динамически добавляем условия в WHERE
         if (startDate != null) {
@@ -1167,22 +1441,19 @@ public class DealDao {
             whereClause.append("d.id_deal_type = ?");
             params.add(dealTypeId);
         }
-        
-        String finalSql = baseSql;
-        if (!whereClause.isEmpty()) {
-            finalSql += " WHERE " + whereClause.toString();
-        }
-        finalSql += " ORDER BY d.deal_date DESC";
-        
-        return jdbcTemplate.query(finalSql, dealTableRowMapper, params.toArray());
+
+        return whereClause.toString();
     }
 
     /**
-     * Получить все сделки для отчета
-     * @return список всех сделок с полной информацией для отчета
+     * Передать все сделки, включая архивные, для отчета обработчику по убыванию даты
+     * Отчёт выполняется частями по диапазонам даты сделки (см. {@link ShardedReportExecutor})
+     * @param consumer обработчик строки отчёта
+     * @return количество строк
      */
-    public List<DealReportDto> findAllForReport() {
-        logger.debug("Получение списка всех сделок для отчета");
+    public long forEachForReport(Consumer<DealReportDto> consumer) {
+        logger.debug("Выгрузка всех сделок для отчета");
+        // Источник строк подставляется сразу, условие на ключ (%s) - в ShardedReportExecutor
         String sql = """
             SELECT
                 d.id_deal,
@@ -1195,15 +1466,24 @@ public class DealDao {
                 CONCAT(city.city_name, ', ', street.street_name, ', ', p.house_number,
                        CASE WHEN p.apartment_number IS NOT NULL THEN CONCAT('-', p.apartment_number) ELSE '' END) as property_address,
                 dt.deal_type_name
-            FROM deals d
+            FROM %s d
             JOIN clients c ON d.id_client = c.id_client
             JOIN realtors r ON d.id_realtor = r.id_realtor
             JOIN properties p ON d.id_property = p.id_property
             JOIN streets street ON p.id_street = street.id_street
             JOIN cities city ON p.id_city = city.id_city
             JOIN deal_types dt ON d.id_deal_type = dt.id_deal_type
-            ORDER BY d.deal_date DESC
-            """;
-        return jdbcTemplate.query(sql, new DealReportRowMapper());
+            WHERE %s
+            ORDER BY d.deal_date DESC, d.id_deal DESC
+            """.formatted(ArchiveDao.DEALS_WITH_ARCHIVE, "%s");
+        return shardedReportExecutor.forEach(new ShardedReportExecutor.RangeQuery<>(
+            "SELECT min(deal_date) - DATE '1970-01-01', max(deal_date) - DATE '1970-01-01' FROM "
+                + ArchiveDao.DEALS_WITH_ARCHIVE + " d",
+            sql,
+            "d.deal_date",
+            LocalDate::ofEpochDay,
+            true,
+            dealReportRowMapper
+        ), consumer);
     }
 }
\ No newline at end of file
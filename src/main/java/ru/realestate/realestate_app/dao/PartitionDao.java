@@ -0,0 +1,117 @@
+package ru.realestate.realestate_app.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DAO помесячных секций таблиц deals и payments
+ *
+ * Секции создаёт функция create_monthly_partitions из миграции V4: она пропускает уже
+ * существующие секции и переносит строки новых месяцев из секции DEFAULT.
+ * Имена таблиц и колонок в запросах берутся только из констант DEALS и PAYMENTS.
+ */
+@Repository
+public class PartitionDao {
+
+    /**
+     * Секционированная таблица
+     * @param name имя таблицы
+     * @param keyColumn колонка даты, по которой таблица секционирована
+     */
+    public record PartitionedTable(String name, String keyColumn) {}
+
+    public static final PartitionedTable DEALS = new PartitionedTable("deals", "deal_date");
+
+    public static final PartitionedTable PAYMENTS = new PartitionedTable("payments", "payment_date");
+
+    private static final Pattern PARTITION_NAME = Pattern.compile(".+_y(\\d{4})m(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Конструктор DAO с инжекцией зависимостей
+     * @param jdbcTemplate шаблон для выполнения SQL запросов
+     */
+    public PartitionDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Создать недостающие помесячные секции
+     * @param table секционированная таблица
+     * @param from первый месяц (берётся месяц даты)
+     * @param until месяц, до которого создаются секции (не включительно)
+     * @return количество созданных секций
+     */
+    public int createMonthlyPartitions(PartitionedTable table, LocalDate from, LocalDate until) {
+        Integer created = jdbcTemplate.queryForObject(
+            "SELECT create_monthly_partitions(?, ?, ?, ?)",
+            Integer.class,
+            table.name(), table.keyColumn(), from, until
+        );
+        return created == null ? 0 : created;
+    }
+
+    /**
+     * Ограничить ожидание блокировок до конца текущей транзакции (SET LOCAL lock_timeout)
+     * @param timeout наибольшее время ожидания блокировки
+     */
+    public void setLocalLockTimeout(Duration timeout) {
+        jdbcTemplate.queryForObject("SELECT set_config('lock_timeout', ?, true)", String.class,
+                                    timeout.toMillis() + "ms");
+    }
+
+    /**
+     * Месяцы, для которых у таблицы есть своя секция
+     * Секции создаёт create_monthly_partitions, их имена имеют вид таблица_yГГГГmММ
+     * @param table секционированная таблица
+     * @return первые дни месяцев секций
+     */
+    public Set<LocalDate> findPartitionMonths(PartitionedTable table) {
+        Set<LocalDate> months = new HashSet<>();
+        jdbcTemplate.query("""
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = to_regclass(?)
+            """, (RowCallbackHandler) rs -> {
+                Matcher name = PARTITION_NAME.matcher(rs.getString("relname"));
+                if (name.matches()) {
+                    months.add(LocalDate.of(Integer.parseInt(name.group(1)), Integer.parseInt(name.group(2)), 1));
+                }
+            }, table.name());
+        return months;
+    }
+
+    /**
+     * Месяцы строк секции DEFAULT раньше указанной даты (задним числом внесённые строки)
+     * @param table секционированная таблица
+     * @param before дата, до которой искать (не включительно)
+     * @return первые дни месяцев по возрастанию
+     */
+    public List<LocalDate> findDefaultMonthsBefore(PartitionedTable table, LocalDate before) {
+        return jdbcTemplate.queryForList(
+            "SELECT DISTINCT date_trunc('month', " + table.keyColumn() + ")::date FROM " + table.name()
+                + "_default WHERE " + table.keyColumn() + " < ? ORDER BY 1",
+            LocalDate.class, before);
+    }
+
+    /**
+     * Количество строк в секции DEFAULT (строки за месяцы, для которых секция ещё не создана)
+     * @param table секционированная таблица
+     */
+    public long countDefaultRows(PartitionedTable table) {
+        Long count = jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM " + table.name() + "_default", Long.class);
+        return count == null ? 0 : count;
+    }
+}
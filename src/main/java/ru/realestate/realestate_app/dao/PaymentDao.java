@@ -3,22 +3,28 @@ package ru.realestate.realestate_app.dao;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import ru.realestate.realestate_app.audit.AuditJournal;
+import ru.realestate.realestate_app.audit.AuditJournal.RowChange;
+import ru.realestate.realestate_app.cache.SearchResultCache;
 import ru.realestate.realestate_app.exception.DatabaseException;
 import ru.realestate.realestate_app.mapper.PaymentRowMapper;
 import ru.realestate.realestate_app.mapper.dto.PaymentTableRowMapper;
 import ru.realestate.realestate_app.model.Payment;
 import ru.realestate.realestate_app.model.dto.PaymentTableDto;
 import ru.realestate.realestate_app.model.dto.PaymentReportDto;
+import ru.realestate.realestate_app.model.dto.TablePage;
+import ru.realestate.realestate_app.model.dto.TableQuery;
 import ru.realestate.realestate_app.mapper.dto.PaymentReportRowMapper;
 
 import java.sql.PreparedStatement;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Класс для доступа к данным о платежах в базе данных
@@ -26,15 +32,50 @@ import java.util.Optional;
 @Repository
 public class PaymentDao {
     private static final Logger logger = LoggerFactory.getLogger(PaymentDao.class);
+
+    // Общая часть запроса для табличного отображения платежей
+    private static final String PAYMENT_TABLE_SELECT = """
+            SELECT
+                p.id_payment,
+                p.payment_date,
+                p.amount,
+                d.id_deal,
+                d.deal_date,
+                CONCAT(c.last_name, ' ', c.first_name, CASE WHEN c.middle_name IS NOT NULL THEN CONCAT(' ', c.middle_name) ELSE '' END) as client_fio,
+                CONCAT(city.city_name, ', ', street.street_name, ', ', prop.house_number, CASE WHEN prop.apartment_number IS NOT NULL THEN CONCAT('-', prop.apartment_number) ELSE '' END) as property_address
+            FROM payments p
+            JOIN deals d ON p.id_deal = d.id_deal
+            JOIN clients c ON d.id_client = c.id_client
+            JOIN properties prop ON d.id_property = prop.id_property
+            JOIN streets street ON prop.id_street = street.id_street
+            JOIN cities city ON prop.id_city = city.id_city
+            """;
+
+    // Разрешённые ключи сортировки таблицы платежей (только столбцы основной таблицы, чтобы сортировка шла по индексу)
+    private static final Map<String, String> TABLE_SORT_COLUMNS = Map.of(
+        "id", "p.id_payment",
+        "date", "p.payment_date",
+        "amount", "p.amount"
+    );
     
     private final JdbcTemplate jdbcTemplate;
     private final PaymentRowMapper paymentRowMapper;
     private final PaymentTableRowMapper paymentTableRowMapper;
+    private final PaymentReportRowMapper paymentReportRowMapper;
+    private final SearchResultCache searchResultCache;
+    private final AuditJournal auditJournal;
+    private final ShardedReportExecutor shardedReportExecutor;
 
-    public PaymentDao(JdbcTemplate jdbcTemplate, PaymentRowMapper paymentRowMapper, PaymentTableRowMapper paymentTableRowMapper) {
+    public PaymentDao(JdbcTemplate jdbcTemplate, PaymentRowMapper paymentRowMapper, PaymentTableRowMapper paymentTableRowMapper,
+                      PaymentReportRowMapper paymentReportRowMapper, SearchResultCache searchResultCache, AuditJournal auditJournal,
+                      ShardedReportExecutor shardedReportExecutor) {
         this.jdbcTemplate = jdbcTemplate;
         this.paymentRowMapper = paymentRowMapper;
         this.paymentTableRowMapper = paymentTableRowMapper;
+        this.paymentReportRowMapper = paymentReportRowMapper;
+        this.searchResultCache = searchResultCache;
+        this.auditJournal = auditJournal;
+        this.shardedReportExecutor = shardedReportExecutor;
     }
 
     public List<Payment> findAll() {
@@ -48,46 +89,148 @@ public class PaymentDao {
         return payments.stream().findFirst();
     }
 
+    public List<Payment> findByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(
+            connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                    "SELECT * FROM payments WHERE id_payment = ANY(?) ORDER BY id_payment"
+                );
+                ps.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+                return ps;
+            },
+            paymentRowMapper
+        );
+    }
+
     public Payment save(Payment payment) {
-        String sql = "INSERT INTO payments (payment_date, amount, id_deal) VALUES (?, ?, ?)";
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-        jdbcTemplate.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(sql, new String[]{"id_payment"});
+        String sql = """
+            INSERT INTO payments (payment_date, amount, id_deal) VALUES (?, ?, ?)
+            RETURNING id_payment AS id, NULL AS before_image, row_to_json(payments)::text AS after_image
+            """;
+        List<RowChange> inserted = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
             ps.setObject(1, payment.getPaymentDate());
             ps.setBigDecimal(2, payment.getAmount());
             ps.setLong(3, payment.getIdDeal());
             return ps;
-        }, keyHolder);
-        Number key = keyHolder.getKey();
-        Long generatedId = null;
-        if (key != null) {
-            generatedId = key.longValue();
-        }
-        if (generatedId == null) {
+        }, AuditJournal.ROW_CHANGE_MAPPER);
+        if (inserted.isEmpty()) {
             logger.error("Не удалось получить сгенерированный id для платежа");
             throw new DatabaseException("INSERT", "Не удалось создать платеж в базе данных");
         }
-        payment.setIdPayment(generatedId);
+        payment.setIdPayment(inserted.get(0).id());
+        searchResultCache.invalidate("Payment");
+        auditJournal.recordInsert("Payment", inserted.get(0));
         return payment;
     }
 
+    /**
+     * Создать несколько платежей одной командой INSERT ... SELECT FROM unnest
+     * @param payments платежи в порядке создания (идентификаторы заполняются)
+     * @return идентификаторы созданных платежей в том же порядке
+     */
+    public List<Long> saveAll(List<Payment> payments) {
+        if (payments.isEmpty()) {
+            return List.of();
+        }
+        String sql = """
+            INSERT INTO payments (payment_date, amount, id_deal)
+            SELECT s.payment_date, s.amount, s.id_deal
+            FROM unnest(?::date[], ?::numeric[], ?::bigint[]) WITH ORDINALITY AS s(payment_date, amount, id_deal, n)
+            ORDER BY s.n
+            RETURNING id_payment AS id, NULL AS before_image, row_to_json(payments)::text AS after_image
+            """;
+        List<RowChange> inserted = new ArrayList<>(jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setArray(1, connection.createArrayOf("varchar",
+                payments.stream().map(payment -> payment.getPaymentDate().toString()).toArray()));
+            ps.setArray(2, connection.createArrayOf("numeric",
+                payments.stream().map(Payment::getAmount).toArray()));
+            ps.setArray(3, connection.createArrayOf("bigint",
+                payments.stream().map(Payment::getIdDeal).toArray()));
+            return ps;
+        }, AuditJournal.ROW_CHANGE_MAPPER));
+        if (inserted.size() != payments.size()) {
+            logger.error("Создано {} платежей из {}", inserted.size(), payments.size());
+            throw new DatabaseException("INSERT", "Не удалось создать платежи в базе данных");
+        }
+
+        // Идентификаторы выдаются последовательностью в порядке вставки строк
+        inserted.sort(Comparator.comparingLong(RowChange::id));
+        List<Long> ids = new ArrayList<>(inserted.size());
+        for (int i = 0; i < inserted.size(); i++) {
+            RowChange change = inserted.get(i);
+            payments.get(i).setIdPayment(change.id());
+            ids.add(change.id());
+            auditJournal.recordInsert("Payment", change);
+        }
+        searchResultCache.invalidate("Payment");
+        return ids;
+    }
+
     public Payment update(Payment payment) {
-        String sql = "UPDATE payments SET payment_date = ?, amount = ?, id_deal = ? WHERE id_payment = ?";
-        jdbcTemplate.update(sql,
+        String sql = """
+            UPDATE payments SET payment_date = ?, amount = ?, id_deal = ?
+            FROM (SELECT * FROM payments WHERE id_payment = ? FOR UPDATE) old
+            WHERE payments.id_payment = old.id_payment AND payments.payment_date = old.payment_date
+            RETURNING old.id_payment AS id, row_to_json(old)::text AS before_image,
+                      row_to_json(payments)::text AS after_image
+            """;
+        List<RowChange> changes = jdbcTemplate.query(sql, AuditJournal.ROW_CHANGE_MAPPER,
                 payment.getPaymentDate(),
                 payment.getAmount(),
                 payment.getIdDeal(),
                 payment.getIdPayment());
+        searchResultCache.invalidate("Payment");
+        if (!changes.isEmpty()) {
+            auditJournal.recordUpdate("Payment", changes.get(0));
+        }
         return payment;
     }
 
     public void delete(Long id) {
-        String sql = "DELETE FROM payments WHERE id_payment = ?";
-        jdbcTemplate.update(sql, id);
+        String sql = """
+            DELETE FROM payments WHERE id_payment = ?
+            RETURNING id_payment AS id, row_to_json(payments)::text AS before_image, NULL AS after_image
+            """;
+        List<RowChange> deleted = jdbcTemplate.query(sql, AuditJournal.ROW_CHANGE_MAPPER, id);
+        searchResultCache.invalidate("Payment");
+        if (!deleted.isEmpty()) {
+            auditJournal.recordDelete("Payment", deleted.get(0));
+        }
+    }
+
+    /**
+     * Найти платежи в формате таблицы по списку идентификаторов одним запросом
+     * @param ids список идентификаторов
+     * @return найденные платежи (отсутствующие id пропускаются)
+     */
+    public List<PaymentTableDto> findForTableByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(
+            connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                    PAYMENT_TABLE_SELECT + "WHERE p.id_payment = ANY(?)"
+                );
+                ps.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+                return ps;
+            },
+            paymentTableRowMapper
+        );
     }
 
+    /**
+     * Найти платежи сделки, включая платежи архивной сделки
+     * @param dealId идентификатор сделки
+     * @return платежи сделки
+     */
     public List<Payment> findByDealId(Long dealId) {
-        String sql = "SELECT * FROM payments WHERE id_deal = ?";
+        String sql = "SELECT * FROM " + ArchiveDao.PAYMENTS_WITH_ARCHIVE + " p WHERE id_deal = ?";
         return jdbcTemplate.query(sql, paymentRowMapper, dealId);
     }
     
@@ -129,26 +272,49 @@ public class PaymentDao {
      * @return Список отфильтрованных платежей в формате PaymentTableDto.
      */
     public List<PaymentTableDto> searchPayments(Long dealId, LocalDate startDate, LocalDate endDate) {
-        // Базовый SQL-запрос, который мы будем расширять
-        String baseSql = """
-            SELECT
-                p.id_payment,
-                p.payment_date,
-                p.amount,
-                d.id_deal,
-                d.deal_date,
-                CONCAT(c.last_name, ' ', c.first_name, CASE WHEN c.middle_name IS NOT NULL THEN CONCAT(' ', c.middle_name) ELSE '' END) as client_fio,
-                CONCAT(city.city_name, ', ', street.street_name, ', ', prop.house_number, CASE WHEN prop.apartment_number IS NOT NULL THEN CONCAT('-', prop.apartment_number) ELSE '' END) as property_address
-            FROM payments p
-            JOIN deals d ON p.id_deal = d.id_deal
-            JOIN clients c ON d.id_client = c.id_client
-            JOIN properties prop ON d.id_property = prop.id_property
-            JOIN streets street ON prop.id_street = street.id_street
-            JOIN cities city ON prop.id_city = city.id_city
-            """;
+        List<Object> params = new ArrayList<>();
+        String where = buildPaymentFilter(dealId, startDate, endDate, params);
+
+        String finalSql = PAYMENT_TABLE_SELECT;
+        if (!where.isEmpty()) {
+            finalSql += " WHERE " + where;
+        }
+        finalSql += " ORDER BY p.payment_date DESC";
+
+        return jdbcTemplate.query(finalSql, paymentTableRowMapper, params.toArray());
+    }
+
+    /**
+     * Получить страницу платежей для таблицы с фильтрацией и сортировкой
+     *
+     * @param dealId     ID сделки для фильтрации (может быть null).
+     * @param startDate  Начальная дата для поиска (может быть null).
+     * @param endDate    Конечная дата для поиска (может быть null).
+     * @param query      параметры страницы и сортировки
+     * @return страница платежей в формате PaymentTableDto с общим количеством
+     */
+    public TablePage<PaymentTableDto> searchPaymentsPage(Long dealId, LocalDate startDate, LocalDate endDate,
+                                                         TableQuery query) {
+        TableQuery pageQuery = query.withAllowedSort(TABLE_SORT_COLUMNS.keySet(), "id");
+        List<Object> whereParams = new ArrayList<>();
+        String where = buildPaymentFilter(dealId, startDate, endDate, whereParams);
+
+        List<Object> params = new ArrayList<>(whereParams);
+        String sql = PAYMENT_TABLE_SELECT
+            + (where.isEmpty() ? "" : " WHERE " + where)
+            + TablePaging.orderAndLimit(pageQuery, TABLE_SORT_COLUMNS, "p.id_payment", params);
+
+        List<PaymentTableDto> rows = jdbcTemplate.query(sql, paymentTableRowMapper, params.toArray());
+        return TablePaging.page(jdbcTemplate, rows, pageQuery, "payments", "payments p", where, whereParams);
+    }
 
+    /**
+     * Построить условие фильтра платежей для таблицы
+     * @param params список, в который добавляются параметры условия
+     * @return условие без слова WHERE (пустая строка, если фильтр не задан)
+     */
+    private String buildPaymentFilter(Long dealId, LocalDate startDate, LocalDate endDate, List<Object> params) {
         StringBuilder whereClause = new StringBuilder();
-        List<Object> params = new ArrayList<>();
 
         // Динамически добавляем условия в WHERE
         if (dealId != null) {
@@ -166,36 +332,47 @@ public class PaymentDao {
             params.add(endDate.plusDays(1));
         }
 
-        String finalSql = baseSql;
-        if (!whereClause.isEmpty()) {
-            finalSql += " WHERE " + whereClause.toString();
-        }
-        finalSql += " ORDER BY p.payment_date DESC";
-
-        return jdbcTemplate.query(finalSql, paymentTableRowMapper, params.toArray());
+        return whereClause.toString();
     }
 
     /**
-     * Получить все платежи для отчета
-     * @return список всех платежей с полной информацией для отчета
+     * Передать все платежи, включая архивные, для отчета обработчику по возрастанию идентификатора
+     * Отчёт выполняется частями по диапазонам идентификатора (см. {@link ShardedReportExecutor})
+     * @param consumer обработчик строки отчёта
+     * @return количество строк
      */
-    public List<PaymentReportDto> findAllForReport() {
+    public long forEachForReport(Consumer<PaymentReportDto> consumer) {
         logger.debug("Получение списка всех платежей для отчета");
+        // Платежи переносятся в архив вместе со сделкой, поэтому основные и архивные таблицы
+        // соединяются попарно: соединение объединений перебирало бы секции платежей для каждой сделки
         String sql = """
             SELECT
                 p.id_payment,
                 p.payment_date,
                 p.amount,
-                d.deal_cost,
+                p.deal_cost,
                 CONCAT(c.last_name, ' ', SUBSTRING(c.first_name, 1, 1), '.',
                        CASE WHEN c.middle_name IS NOT NULL THEN CONCAT(SUBSTRING(c.middle_name, 1, 1), '.') ELSE '' END) as client_full_name,
                 dt.deal_type_name
-            FROM payments p
-            JOIN deals d ON p.id_deal = d.id_deal
-            JOIN clients c ON d.id_client = c.id_client
-            JOIN deal_types dt ON d.id_deal_type = dt.id_deal_type
+            FROM (SELECT p.id_payment, p.payment_date, p.amount, d.deal_cost, d.id_client, d.id_deal_type
+                  FROM payments p
+                  JOIN deals d ON p.id_deal = d.id_deal
+                  UNION ALL
+                  SELECT p.id_payment, p.payment_date, p.amount, d.deal_cost, d.id_client, d.id_deal_type
+                  FROM payments_archive p
+                  JOIN deals_archive d ON p.id_deal = d.id_deal) p
+            JOIN clients c ON p.id_client = c.id_client
+            JOIN deal_types dt ON p.id_deal_type = dt.id_deal_type
+            WHERE %s
             ORDER BY p.id_payment
             """;
-        return jdbcTemplate.query(sql, new PaymentReportRowMapper());
+        return shardedReportExecutor.forEach(new ShardedReportExecutor.RangeQuery<>(
+            "SELECT min(id_payment), max(id_payment) FROM " + ArchiveDao.PAYMENTS_WITH_ARCHIVE + " p",
+            sql,
+            "p.id_payment",
+            Long::valueOf,
+            false,
+            paymentReportRowMapper
+        ), consumer);
     }
 }
\ No newline at end of file
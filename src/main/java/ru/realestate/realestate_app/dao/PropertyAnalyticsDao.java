@@ -0,0 +1,77 @@
+package ru.realestate.realestate_app.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.function.Consumer;
+
+/**
+ * DAO аналитических запросов по объектам недвижимости
+ */
+@Repository
+public class PropertyAnalyticsDao {
+
+    private static final Logger logger = LoggerFactory.getLogger(PropertyAnalyticsDao.class);
+
+    // Количество строк, получаемых драйвером за одно обращение при потоковом чтении
+    private static final int FETCH_SIZE = 5_000;
+
+    /**
+     * Цена, площадь и группа объекта
+     * @param propertyId идентификатор объекта
+     * @param cityId идентификатор города
+     * @param districtId идентификатор района (может быть null)
+     * @param propertyTypeId идентификатор типа недвижимости
+     * @param cost стоимость объекта
+     * @param area площадь объекта
+     */
+    public record PriceSample(Long propertyId, Long cityId, Long districtId, Long propertyTypeId,
+                              BigDecimal cost, BigDecimal area) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Конструктор DAO с инжекцией зависимостей
+     * @param jdbcTemplate шаблон для выполнения SQL запросов
+     */
+    public PropertyAnalyticsDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Передать цены и площади всех объектов недвижимости обработчику построчно, не собирая их в список
+     * @param consumer обработчик строки объекта
+     * @return количество прочитанных строк
+     */
+    public long forEachPriceSample(Consumer<PriceSample> consumer) {
+        logger.debug("Потоковое чтение цен объектов недвижимости");
+        long[] rows = {0};
+        jdbcTemplate.query(
+            connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                    "SELECT id_property, id_city, id_district, id_property_type, cost, area FROM properties"
+                );
+                ps.setFetchSize(FETCH_SIZE);
+                return ps;
+            },
+            rs -> {
+                long districtId = rs.getLong("id_district");
+                boolean noDistrict = rs.wasNull();
+                consumer.accept(new PriceSample(
+                    rs.getLong("id_property"),
+                    rs.getLong("id_city"),
+                    noDistrict ? null : districtId,
+                    rs.getLong("id_property_type"),
+                    rs.getBigDecimal("cost"),
+                    rs.getBigDecimal("area")
+                ));
+                rows[0]++;
+            }
+        );
+        return rows[0];
+    }
+}
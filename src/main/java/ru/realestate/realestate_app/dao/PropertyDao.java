@@ -3,10 +3,18 @@ package ru.realestate.realestate_app.dao;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import ru.realestate.realestate_app.audit.AuditJournal;
+import ru.realestate.realestate_app.audit.AuditJournal.RowChange;
+import ru.realestate.realestate_app.cache.GeographyIndex;
+import ru.realestate.realestate_app.cache.PriceQuantileIndex;
+import ru.realestate.realestate_app.cache.DealTimeseriesCache;
+import ru.realestate.realestate_app.cache.ClusterInvalidationPublisher;
+import ru.realestate.realestate_app.cache.SearchResultCache;
+import ru.realestate.realestate_app.cache.SimilarPropertyIndex;
+import ru.realestate.realestate_app.dao.CacheInvalidationDao.Key;
 import ru.realestate.realestate_app.mapper.PropertyRowMapper;
 import ru.realestate.realestate_app.mapper.dto.PropertyWithDetailsRowMapper;
 import ru.realestate.realestate_app.mapper.dto.PropertyTableRowMapper;
@@ -14,13 +22,17 @@ import ru.realestate.realestate_app.model.Property;
 import ru.realestate.realestate_app.model.dto.PropertyWithDetailsDto;
 import ru.realestate.realestate_app.model.dto.PropertyTableDto;
 import ru.realestate.realestate_app.model.dto.PropertyReportDto;
+import ru.realestate.realestate_app.model.dto.TablePage;
+import ru.realestate.realestate_app.model.dto.TableQuery;
 import ru.realestate.realestate_app.mapper.dto.PropertyReportRowMapper;
+import ru.realestate.realestate_app.transaction.AfterCommit;
 
 import java.math.BigDecimal;
 import java.sql.PreparedStatement;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * DAO класс для работы с объектами недвижимости
@@ -32,10 +44,45 @@ public class PropertyDao {
     // Логгер для записи событий и ошибок
     private static final Logger logger = LoggerFactory.getLogger(PropertyDao.class);
 
+    // Поля адреса, изменение любого из которых требует проверки всей цепочки
+    private static final List<String> ADDRESS_FIELDS =
+        List.of("idCountry", "idRegion", "idCity", "idDistrict", "idStreet");
+
+    // Поля, от которых зависят скетчи квантилей цен и индекс похожих объектов (цена, площадь, тип и место)
+    private static final List<String> PRICE_FEATURE_FIELDS =
+        List.of("cost", "area", "idCity", "idDistrict", "idPropertyType");
+
+    // Общая часть запроса для табличного отображения объектов недвижимости
+    private static final String PROPERTY_TABLE_SELECT =
+        "SELECT p.id_property as property_id, p.area, p.cost, SUBSTRING(p.description, 1, 100) as short_description, " +
+        "p.house_number, p.house_letter, p.building_number, p.apartment_number, pt.property_type_name, " +
+        "city.city_name, district.district_name, street.street_name " +
+        "FROM properties p " +
+        "JOIN property_types pt ON p.id_property_type = pt.id_property_type " +
+        "JOIN cities city ON p.id_city = city.id_city " +
+        "LEFT JOIN districts district ON p.id_district = district.id_district " +
+        "JOIN streets street ON p.id_street = street.id_street";
+
+    // Разрешённые ключи сортировки таблицы объектов (только столбцы основной таблицы, чтобы сортировка шла по индексу)
+    private static final Map<String, String> TABLE_SORT_COLUMNS = Map.of(
+        "id", "p.id_property",
+        "cost", "p.cost",
+        "area", "p.area"
+    );
+
     private final JdbcTemplate jdbcTemplate;
     private final PropertyRowMapper propertyRowMapper;
     private final PropertyWithDetailsRowMapper propertyWithDetailsRowMapper;
     private final PropertyTableRowMapper propertyTableRowMapper;
+    private final PropertyReportRowMapper propertyReportRowMapper;
+    private final SearchResultCache searchResultCache;
+    private final GeographyIndex geographyIndex;
+    private final DealTimeseriesCache dealTimeseriesCache;
+    private final PriceQuantileIndex priceQuantileIndex;
+    private final SimilarPropertyIndex similarPropertyIndex;
+    private final AuditJournal auditJournal;
+    private final ClusterInvalidationPublisher clusterInvalidation;
+    private final ShardedReportExecutor shardedReportExecutor;
 
     /**
      * Конструктор DAO с инжекцией зависимостей
@@ -43,14 +90,41 @@ public class PropertyDao {
      * @param propertyRowMapper маппер для преобразования строк результата в объекты Property
      * @param propertyWithDetailsRowMapper маппер для PropertyWithDetailsDto
      * @param propertyTableRowMapper маппер для PropertyTableDto
+     * @param propertyReportRowMapper маппер для PropertyReportDto
+     * @param searchResultCache кэш результатов поиска, сбрасываемый при изменении данных
+     * @param geographyIndex индекс географии для проверки адреса в памяти
+     * @param dealTimeseriesCache кэш временных рядов сделок (группировка по городу объекта)
+     * @param priceQuantileIndex скетчи квантилей цен, обновляемые при изменении объектов
+     * @param similarPropertyIndex индекс похожих объектов, обновляемый при изменении объектов
+     * @param auditJournal журнал аудита изменений
+     * @param clusterInvalidation рассылка изменений для сброса кэшей других экземпляров приложения
+     * @param shardedReportExecutor выполнение отчёта частями по диапазонам ключа
      */
     public PropertyDao(JdbcTemplate jdbcTemplate, PropertyRowMapper propertyRowMapper,
                       PropertyWithDetailsRowMapper propertyWithDetailsRowMapper,
-                      PropertyTableRowMapper propertyTableRowMapper) {
+                      PropertyTableRowMapper propertyTableRowMapper,
+                      PropertyReportRowMapper propertyReportRowMapper,
+                      SearchResultCache searchResultCache,
+                      GeographyIndex geographyIndex,
+                      DealTimeseriesCache dealTimeseriesCache,
+                      PriceQuantileIndex priceQuantileIndex,
+                      SimilarPropertyIndex similarPropertyIndex,
+                      AuditJournal auditJournal,
+                      ClusterInvalidationPublisher clusterInvalidation,
+                      ShardedReportExecutor shardedReportExecutor) {
         this.jdbcTemplate = jdbcTemplate;
         this.propertyRowMapper = propertyRowMapper;
         this.propertyWithDetailsRowMapper = propertyWithDetailsRowMapper;
         this.propertyTableRowMapper = propertyTableRowMapper;
+        this.propertyReportRowMapper = propertyReportRowMapper;
+        this.searchResultCache = searchResultCache;
+        this.geographyIndex = geographyIndex;
+        this.dealTimeseriesCache = dealTimeseriesCache;
+        this.priceQuantileIndex = priceQuantileIndex;
+        this.similarPropertyIndex = similarPropertyIndex;
+        this.auditJournal = auditJournal;
+        this.clusterInvalidation = clusterInvalidation;
+        this.shardedReportExecutor = shardedReportExecutor;
     }
 
     /**
@@ -87,6 +161,27 @@ public class PropertyDao {
         );
     }
 
+    /**
+     * Найти объекты недвижимости по списку идентификаторов одним запросом
+     * @param ids список идентификаторов
+     * @return найденные объекты недвижимости, отсортированные по идентификатору (отсутствующие id пропускаются)
+     */
+    public List<Property> findByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(
+            connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                    "SELECT * FROM properties WHERE id_property = ANY(?) ORDER BY id_property"
+                );
+                ps.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+                return ps;
+            },
+            propertyRowMapper
+        );
+    }
+
     /**
      * Сохранить новый объект недвижимости в базе данных
      * @param property объект недвижимости для сохранения
@@ -94,7 +189,6 @@ public class PropertyDao {
      * @throws IllegalArgumentException если данные объекта некорректны
      * @throws DataIntegrityViolationException если связанные сущности не существуют
      */
-    @SuppressWarnings({ "null" })
     public Long save(Property property) {
         // Валидация входного объекта
         validatePropertyForSave(property);
@@ -105,15 +199,15 @@ public class PropertyDao {
         logger.debug("Сохранение нового объекта недвижимости: тип={}, стоимость={}", 
                     property.getIdPropertyType(), property.getCost());
         
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-        
-        jdbcTemplate.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(
-                "INSERT INTO properties (area, cost, description, postal_code, house_number, " +
-                "house_letter, building_number, apartment_number, id_property_type, id_country, " +
-                "id_region, id_city, id_district, id_street) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
-                new String[]{"id_property"}
-            );
+        // Образ новой строки для журнала аудита возвращается той же командой
+        List<RowChange> inserted = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("""
+                INSERT INTO properties (area, cost, description, postal_code, house_number,
+                    house_letter, building_number, apartment_number, id_property_type, id_country,
+                    id_region, id_city, id_district, id_street)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                RETURNING id_property AS id, NULL AS before_image, row_to_json(properties)::text AS after_image
+                """);
             
             ps.setBigDecimal(1, property.getArea());
             ps.setBigDecimal(2, property.getCost());
@@ -131,15 +225,22 @@ public class PropertyDao {
             ps.setLong(14, property.getIdStreet());
             
             return ps;
-        }, keyHolder);
+        }, AuditJournal.ROW_CHANGE_MAPPER);
         
-        Long generatedId = keyHolder.getKey() != null ? keyHolder.getKey().longValue() : null;
-        if (generatedId == null) {
+        if (inserted.isEmpty()) {
             logger.error("Не удалось получить сгенерированный id для объекта недвижимости");
             throw new DataIntegrityViolationException("Не удалось создать объект недвижимости в базе данных");
         }
+        Long generatedId = inserted.get(0).id();
         
         logger.info("Объект недвижимости успешно сохранен с id: {}", generatedId);
+        searchResultCache.invalidate("Property");
+        AfterCommit.run(() -> {
+            priceQuantileIndex.add(property);
+            similarPropertyIndex.put(generatedId, property);
+        });
+        auditJournal.recordInsert("Property", inserted.get(0));
+        clusterInvalidation.publish(ClusterInvalidationPublisher.PROPERTY, generatedId);
         return generatedId;
     }
 
@@ -168,7 +269,7 @@ public class PropertyDao {
         validatePropertyUpdates(updates);
         
         // Проверка существования связанных сущностей при обновлении
-        validateRelatedEntitiesForUpdate(updates);
+        validateRelatedEntitiesForUpdate(id, updates);
         
         logger.debug("Обновление объекта недвижимости с id: {}", id);
         
@@ -239,14 +340,36 @@ public class PropertyDao {
             sql.setLength(sql.length() - 2);
         }
         
-        // Добавляем условие WHERE
-        sql.append(" WHERE id_property = ?");
+        // Строка до изменения блокируется и возвращается вместе с новой для журнала аудита
+        sql.append("""
+             FROM (SELECT * FROM properties WHERE id_property = ? FOR UPDATE) old
+            WHERE properties.id_property = old.id_property
+            RETURNING old.id_property AS id, row_to_json(old)::text AS before_image,
+                      row_to_json(properties)::text AS after_image
+            """);
         params.add(id);
         
-        // Выполняем обновление
-        int updatedRows = jdbcTemplate.update(sql.toString(), params.toArray());
+        List<RowChange> changes = jdbcTemplate.query(sql.toString(), AuditJournal.ROW_CHANGE_MAPPER, params.toArray());
+        int updatedRows = changes.size();
         
         if (updatedRows > 0) {
+            searchResultCache.invalidate("Property");
+            auditJournal.recordUpdate("Property", changes.get(0));
+            List<Key> invalidations = new ArrayList<>();
+            invalidations.add(new Key(ClusterInvalidationPublisher.PROPERTY, id));
+            if (updates.containsKey("idCity")) {
+                // Сделки объекта переходят в другой город во всех интервалах сразу
+                dealTimeseriesCache.invalidateAll();
+                invalidations.add(new Key(ClusterInvalidationPublisher.DEAL_TIMESERIES, null));
+            }
+            clusterInvalidation.publish(invalidations);
+            if (PRICE_FEATURE_FIELDS.stream().anyMatch(updates::containsKey)) {
+                Property updated = findById(id);
+                AfterCommit.run(() -> {
+                    priceQuantileIndex.replace(updated);
+                    similarPropertyIndex.put(id, updated);
+                });
+            }
             logger.info("Объект недвижимости с id {} успешно обновлен", id);
         } else {
             logger.warn("Объект недвижимости с id {} не найден для обновления", id);
@@ -270,12 +393,23 @@ public class PropertyDao {
         
         logger.debug("Удаление объекта недвижимости с id: {}", id);
         
-        int deletedRows = jdbcTemplate.update(
-            "DELETE FROM properties WHERE id_property = ?",
+        List<RowChange> deleted = jdbcTemplate.query("""
+            DELETE FROM properties WHERE id_property = ?
+            RETURNING id_property AS id, row_to_json(properties)::text AS before_image, NULL AS after_image
+            """,
+            AuditJournal.ROW_CHANGE_MAPPER,
             id
         );
+        int deletedRows = deleted.size();
         
         if (deletedRows > 0) {
+            searchResultCache.invalidate("Property");
+            auditJournal.recordDelete("Property", deleted.get(0));
+            clusterInvalidation.publish(ClusterInvalidationPublisher.PROPERTY, id);
+            AfterCommit.run(() -> {
+                priceQuantileIndex.markRemoved();
+                similarPropertyIndex.remove(id);
+            });
             logger.info("Объект недвижимости с id {} успешно удален", id);
         } else {
             logger.warn("Объект недвижимости с id {} не найден для удаления", id);
@@ -466,6 +600,25 @@ public class PropertyDao {
         return jdbcTemplate.query(sql, propertyTableRowMapper);
     }
 
+    /**
+     * Найти объекты недвижимости для выпадающего списка с поиском
+     * Ищется подстрока в адресе (город, улица, дом); пустой запрос возвращает первые объекты по id
+     * @param query строка поиска (может быть пустой)
+     * @param limit максимальное количество объектов
+     * @return объекты недвижимости в табличном формате, отсортированные по id
+     */
+    public List<PropertyTableDto> findForLookup(String query, int limit) {
+        logger.debug("Поиск объектов недвижимости для выпадающего списка: '{}'", query);
+        return jdbcTemplate.query(PROPERTY_TABLE_SELECT + """
+             WHERE ? = '' OR concat_ws(' ', city.city_name, street.street_name, p.house_number) ILIKE ?
+            ORDER BY p.id_property
+            LIMIT ?
+            """,
+            propertyTableRowMapper,
+            query, "%" + query + "%", limit
+        );
+    }
+
     /**
      * Найти объекты недвижимости по ценовому диапазону с детальной информацией
      * @param minPrice минимальная цена (включительно)
@@ -626,54 +779,88 @@ public class PropertyDao {
      * @return список объектов недвижимости, соответствующих критериям поиска
      */
     public List<PropertyTableDto> search(BigDecimal minPrice, BigDecimal maxPrice, Long cityId, Long propertyTypeId, Long districtId, Long streetId) {
-        StringBuilder sql = new StringBuilder(
-            "SELECT p.id_property as property_id, p.area, p.cost, SUBSTRING(p.description, 1, 100) as short_description, " +
-            "p.house_number, p.house_letter, p.building_number, p.apartment_number, pt.property_type_name, " +
-            "city.city_name, district.district_name, street.street_name " +
-            "FROM properties p " +
-            "JOIN property_types pt ON p.id_property_type = pt.id_property_type " +
-            "JOIN cities city ON p.id_city = city.id_city " +
-            "LEFT JOIN districts district ON p.id_district = district.id_district " +
-            "JOIN streets street ON p.id_street = street.id_street " +
-            "WHERE 1=1"
-        );
-
         List<Object> params = new ArrayList<>();
+        String where = buildPropertyFilter(minPrice, maxPrice, cityId, propertyTypeId, districtId, streetId, params);
+
+        StringBuilder sql = new StringBuilder(PROPERTY_TABLE_SELECT);
+        if (!where.isEmpty()) {
+            sql.append(" WHERE ").append(where);
+        }
+        sql.append(" ORDER BY p.id_property");
+
+        return jdbcTemplate.query(sql.toString(), propertyTableRowMapper, params.toArray());
+    }
+
+    /**
+     * Получить страницу объектов недвижимости для таблицы с фильтрацией и сортировкой
+     * @param minPrice минимальная цена
+     * @param maxPrice максимальная цена
+     * @param cityId идентификатор города
+     * @param propertyTypeId идентификатор типа недвижимости
+     * @param districtId идентификатор района
+     * @param streetId идентификатор улицы
+     * @param query параметры страницы и сортировки
+     * @return страница объектов недвижимости с общим количеством
+     */
+    public TablePage<PropertyTableDto> searchPage(BigDecimal minPrice, BigDecimal maxPrice, Long cityId,
+                                                  Long propertyTypeId, Long districtId, Long streetId,
+                                                  TableQuery query) {
+        TableQuery pageQuery = query.withAllowedSort(TABLE_SORT_COLUMNS.keySet(), "id");
+        List<Object> whereParams = new ArrayList<>();
+        String where = buildPropertyFilter(minPrice, maxPrice, cityId, propertyTypeId, districtId, streetId, whereParams);
+
+        List<Object> params = new ArrayList<>(whereParams);
+        String sql = PROPERTY_TABLE_SELECT
+            + (where.isEmpty() ? "" : " WHERE " + where)
+            + TablePaging.orderAndLimit(pageQuery, TABLE_SORT_COLUMNS, "p.id_property", params);
+
+        List<PropertyTableDto> rows = jdbcTemplate.query(sql, propertyTableRowMapper, params.toArray());
+        return TablePaging.page(jdbcTemplate, rows, pageQuery, "properties", "properties p", where, whereParams);
+    }
+
+    /**
+     * Построить условие фильтра объектов недвижимости для таблицы
+     * @param params список, в который добавляются параметры условия
+     * @return условие без слова WHERE (пустая строка, если фильтр не задан)
+     */
+    private String buildPropertyFilter(BigDecimal minPrice, BigDecimal maxPrice, Long cityId, Long propertyTypeId,
+                                       Long districtId, Long streetId, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
 
         if (minPrice != null) {
-            sql.append(" AND p.cost >= ?");
+            conditions.add("p.cost >= ?");
             params.add(minPrice);
         }
         if (maxPrice != null) {
-            sql.append(" AND p.cost <= ?");
+            conditions.add("p.cost <= ?");
             params.add(maxPrice);
         }
         if (cityId != null) {
-            sql.append(" AND p.id_city = ?");
+            conditions.add("p.id_city = ?");
             params.add(cityId);
         }
         if (propertyTypeId != null) {
-            sql.append(" AND p.id_property_type = ?");
+            conditions.add("p.id_property_type = ?");
             params.add(propertyTypeId);
         }
         if (districtId != null) {
-            sql.append(" AND p.id_district = ?");
+            conditions.add("p.id_district = ?");
             params.add(districtId);
         }
         if (streetId != null) {
-            sql.append(" AND p.id_street = ?");
+            conditions.add("p.id_street = ?");
             params.add(streetId);
         }
 
-        sql.append(" ORDER BY p.id_property");
-
-        return jdbcTemplate.query(sql.toString(), new PropertyTableRowMapper(), params.toArray());
+        return String.join(" AND ", conditions);
     }
     /**
-     * Получить все объекты недвижимости для отчета
-     * @return список всех объектов недвижимости с полной информацией для отчета
+     * Передать все объекты недвижимости для отчета обработчику по возрастанию идентификатора
+     * Отчёт выполняется частями по диапазонам идентификатора (см. {@link ShardedReportExecutor})
+     * @param consumer обработчик строки отчёта
+     * @return количество строк
      */
-    public List<PropertyReportDto> findAllForReport() {
+    public long forEachForReport(Consumer<PropertyReportDto> consumer) {
         logger.debug("Получение списка всех объектов недвижимости для отчета");
         String sql = """
             SELECT 
@@ -702,9 +889,17 @@ public class PropertyDao {
             JOIN cities city ON p.id_city = city.id_city
             JOIN districts district ON p.id_district = district.id_district
             JOIN streets street ON p.id_street = street.id_street
+            WHERE %s
             ORDER BY p.id_property
             """;
-        return jdbcTemplate.query(sql, new PropertyReportRowMapper());
+        return shardedReportExecutor.forEach(new ShardedReportExecutor.RangeQuery<>(
+            "SELECT min(id_property), max(id_property) FROM properties",
+            sql,
+            "p.id_property",
+            Long::valueOf,
+            false,
+            propertyReportRowMapper
+        ), consumer);
     }
 
     /**
@@ -814,6 +1009,13 @@ public class PropertyDao {
             throw new DataIntegrityViolationException("Тип недвижимости с id " + property.getIdPropertyType() + " не найден");
         }
         
+        // Адрес целиком проверяется по индексу географии, включая принадлежность улицы и района городу
+        if (geographyIndex.isLoaded()) {
+            validateAddressChain(property.getIdCountry(), property.getIdRegion(), property.getIdCity(),
+                                 property.getIdDistrict(), property.getIdStreet());
+            return;
+        }
+        
         // Проверка страны
         if (!countryExists(property.getIdCountry())) {
             logger.error("Попытка сохранения объекта недвижимости с несуществующей страной: {}", property.getIdCountry());
@@ -847,10 +1049,11 @@ public class PropertyDao {
 
     /**
      * Проверка существования связанных сущностей при обновлении
+     * @param id идентификатор обновляемого объекта недвижимости
      * @param updates карта с полями для обновления
      * @throws DataIntegrityViolationException если связанная сущность не существует
      */
-    private void validateRelatedEntitiesForUpdate(Map<String, Object> updates) {
+    private void validateRelatedEntitiesForUpdate(Long id, Map<String, Object> updates) {
         // Проверка типа недвижимости
         if (updates.containsKey("idPropertyType")) {
             Long propertyTypeId = (Long) updates.get("idPropertyType");
@@ -860,6 +1063,14 @@ public class PropertyDao {
             }
         }
         
+        // При изменении адреса проверяется итоговая цепочка: новые значения поверх текущих
+        if (geographyIndex.isLoaded()) {
+            if (ADDRESS_FIELDS.stream().anyMatch(updates::containsKey)) {
+                validateAddressChainForUpdate(id, updates);
+            }
+            return;
+        }
+        
         // Проверка страны
         if (updates.containsKey("idCountry")) {
             Long countryId = (Long) updates.get("idCountry");
@@ -906,6 +1117,40 @@ public class PropertyDao {
         }
     }
 
+    /**
+     * Проверка адреса по индексу географии
+     * @throws DataIntegrityViolationException если элемент адреса не найден или не относится к родителю
+     */
+    private void validateAddressChain(Long countryId, Long regionId, Long cityId, Long districtId, Long streetId) {
+        geographyIndex.validateAddress(countryId, regionId, cityId, districtId, streetId)
+            .ifPresent(error -> {
+                logger.error("Некорректный адрес объекта недвижимости: {}", error);
+                throw new DataIntegrityViolationException(error);
+            });
+    }
+
+    /**
+     * Проверка адреса при обновлении: недостающие поля адреса берутся из текущей записи
+     * @param id идентификатор обновляемого объекта недвижимости
+     * @param updates карта с полями для обновления
+     */
+    private void validateAddressChainForUpdate(Long id, Map<String, Object> updates) {
+        Property current;
+        try {
+            current = findById(id);
+        } catch (EmptyResultDataAccessException e) {
+            // Объекта нет - обновление не затронет ни одной строки
+            return;
+        }
+        validateAddressChain(
+            (Long) updates.getOrDefault("idCountry", current.getIdCountry()),
+            (Long) updates.getOrDefault("idRegion", current.getIdRegion()),
+            (Long) updates.getOrDefault("idCity", current.getIdCity()),
+            (Long) updates.getOrDefault("idDistrict", current.getIdDistrict()),
+            (Long) updates.getOrDefault("idStreet", current.getIdStreet())
+        );
+    }
+
     /**
      * Проверить существование типа недвижимости
      * @param propertyTypeId идентификатор типа недвижимости
@@ -4,11 +4,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import ru.realestate.realestate_app.audit.AuditJournal;
+import ru.realestate.realestate_app.audit.AuditJournal.RowChange;
+import ru.realestate.realestate_app.cache.ClusterInvalidationPublisher;
+import ru.realestate.realestate_app.cache.SearchResultCache;
 import ru.realestate.realestate_app.mapper.RealtorRowMapper;
 import ru.realestate.realestate_app.model.Realtor;
+import ru.realestate.realestate_app.model.dto.TablePage;
+import ru.realestate.realestate_app.model.dto.TableQuery;
 
 
 import java.sql.PreparedStatement;
@@ -26,6 +30,13 @@ public class RealtorDao {
 
     // Логгер для записи событий и ошибок
     private static final Logger logger = LoggerFactory.getLogger(RealtorDao.class);
+
+    // Разрешённые ключи сортировки таблицы риелторов (столбцы, по которым сортировка может идти по индексу)
+    private static final Map<String, String> TABLE_SORT_COLUMNS = Map.of(
+        "id", "id_realtor",
+        "lastName", "last_name",
+        "experience", "experience_years"
+    );
     
     // Регулярное выражение для валидации email
     private static final Pattern EMAIL_PATTERN = Pattern.compile(
@@ -34,15 +45,27 @@ public class RealtorDao {
 
     private final JdbcTemplate jdbcTemplate;
     private final RealtorRowMapper realtorRowMapper;
+    private final SearchResultCache searchResultCache;
+    private final AuditJournal auditJournal;
+    private final ClusterInvalidationPublisher clusterInvalidation;
 
     /**
      * Конструктор DAO с инжекцией зависимостей
      * @param jdbcTemplate шаблон для выполнения SQL запросов
      * @param realtorRowMapper маппер для преобразования строк результата в объекты Realtor
+     * @param searchResultCache кэш результатов поиска, сбрасываемый при изменении данных
+     * @param auditJournal журнал аудита изменений
+     * @param clusterInvalidation рассылка изменений для сброса кэшей других экземпляров приложения
      */
-    public RealtorDao(JdbcTemplate jdbcTemplate, RealtorRowMapper realtorRowMapper) {
+    public RealtorDao(JdbcTemplate jdbcTemplate, RealtorRowMapper realtorRowMapper,
+                   SearchResultCache searchResultCache,
+                   AuditJournal auditJournal,
+                   ClusterInvalidationPublisher clusterInvalidation) {
         this.jdbcTemplate = jdbcTemplate;
         this.realtorRowMapper = realtorRowMapper;
+        this.searchResultCache = searchResultCache;
+        this.auditJournal = auditJournal;
+        this.clusterInvalidation = clusterInvalidation;
     }
 
     /**
@@ -57,6 +80,26 @@ public class RealtorDao {
         );
     }
 
+    /**
+     * Найти риелторов для выпадающего списка с поиском
+     * Ищется подстрока в полном имени или телефоне; пустой запрос возвращает первых риелторов по алфавиту
+     * @param query строка поиска (может быть пустой)
+     * @param limit максимальное количество риелторов
+     * @return риелторы, отсортированные по фамилии и имени
+     */
+    public List<Realtor> findForLookup(String query, int limit) {
+        logger.debug("Поиск риелторов для выпадающего списка: '{}'", query);
+        return jdbcTemplate.query("""
+            SELECT * FROM realtors
+            WHERE ? = '' OR concat_ws(' ', last_name, first_name, middle_name) ILIKE ? OR phone LIKE ?
+            ORDER BY last_name, first_name, id_realtor
+            LIMIT ?
+            """,
+            realtorRowMapper,
+            query, "%" + query + "%", "%" + query + "%", limit
+        );
+    }
+
     /**
      * Найти риелтора по уникальному идентификатору
      * @param id идентификатор риелтора
@@ -79,6 +122,27 @@ public class RealtorDao {
         );
     }
 
+    /**
+     * Найти риелторов по списку идентификаторов одним запросом
+     * @param ids список идентификаторов
+     * @return найденные риелторы, отсортированные по идентификатору (отсутствующие id пропускаются)
+     */
+    public List<Realtor> findByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(
+            connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                    "SELECT * FROM realtors WHERE id_realtor = ANY(?) ORDER BY id_realtor"
+                );
+                ps.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+                return ps;
+            },
+            realtorRowMapper
+        );
+    }
+
     /**
      * Сохранить нового риелтора в базе данных
      * @param realtor объект риелтора для сохранения
@@ -86,7 +150,6 @@ public class RealtorDao {
      * @throws IllegalArgumentException если данные риелтора некорректны
      * @throws DataIntegrityViolationException если нарушена уникальность email или телефона
      */
-    @SuppressWarnings({ "null" })
     public Long save(Realtor realtor) {
         // Валидация входного объекта
         validateRealtorForSave(realtor);
@@ -105,14 +168,13 @@ public class RealtorDao {
         
         logger.debug("Сохранение нового риелтора: {} {}", realtor.getLastName(), realtor.getFirstName());
         
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-        
-        jdbcTemplate.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(
-                "INSERT INTO realtors (first_name, last_name, middle_name, phone, email, experience_years) " +
-                "VALUES (?, ?, ?, ?, ?, ?)",
-                new String[]{"id_realtor"}
-            );
+        // Образ новой строки для журнала аудита возвращается той же командой
+        List<RowChange> inserted = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("""
+                INSERT INTO realtors (first_name, last_name, middle_name, phone, email, experience_years)
+                VALUES (?, ?, ?, ?, ?, ?)
+                RETURNING id_realtor AS id, NULL AS before_image, row_to_json(realtors)::text AS after_image
+                """);
             
             ps.setString(1, realtor.getFirstName());
             ps.setString(2, realtor.getLastName());
@@ -122,15 +184,17 @@ public class RealtorDao {
             ps.setInt(6, realtor.getExperienceYears());
             
             return ps;
-        }, keyHolder);
+        }, AuditJournal.ROW_CHANGE_MAPPER);
         
-        Long generatedId = keyHolder.getKey() != null ? keyHolder.getKey().longValue() : null;
-        if (generatedId == null) {
+        if (inserted.isEmpty()) {
             logger.error("Не удалось получить сгенерированный id для риелтора");
             throw new DataIntegrityViolationException("Не удалось создать риелтора в базе данных");
         }
+        Long generatedId = inserted.get(0).id();
         
         logger.info("Риелтор успешно сохранен с id: {}", generatedId);
+        auditJournal.recordInsert("Realtor", inserted.get(0));
+        clusterInvalidation.publish(ClusterInvalidationPublisher.REALTOR, inserted.get(0).id());
         return generatedId;
     }
 
@@ -214,13 +278,22 @@ public class RealtorDao {
         }
         
         // Добавляем условие WHERE
-        sql.append(" WHERE id_realtor = ?");
+        // Строка до изменения блокируется и возвращается вместе с новой для журнала аудита
+        sql.append("""
+             FROM (SELECT * FROM realtors WHERE id_realtor = ? FOR UPDATE) old
+            WHERE realtors.id_realtor = old.id_realtor
+            RETURNING old.id_realtor AS id, row_to_json(old)::text AS before_image,
+                      row_to_json(realtors)::text AS after_image
+            """);
         params.add(id);
         
-        // Выполняем обновление
-        int updatedRows = jdbcTemplate.update(sql.toString(), params.toArray());
+        List<RowChange> changes = jdbcTemplate.query(sql.toString(), AuditJournal.ROW_CHANGE_MAPPER, params.toArray());
+        int updatedRows = changes.size();
         
         if (updatedRows > 0) {
+            searchResultCache.invalidate("Realtor");
+            auditJournal.recordUpdate("Realtor", changes.get(0));
+            clusterInvalidation.publish(ClusterInvalidationPublisher.REALTOR, id);
             logger.info("Риелтор с id {} успешно обновлен", id);
         } else {
             logger.warn("Риелтор с id {} не найден для обновления", id);
@@ -244,12 +317,19 @@ public class RealtorDao {
         
         logger.debug("Удаление риелтора с id: {}", id);
         
-        int deletedRows = jdbcTemplate.update(
-            "DELETE FROM realtors WHERE id_realtor = ?",
+        List<RowChange> deleted = jdbcTemplate.query("""
+            DELETE FROM realtors WHERE id_realtor = ?
+            RETURNING id_realtor AS id, row_to_json(realtors)::text AS before_image, NULL AS after_image
+            """,
+            AuditJournal.ROW_CHANGE_MAPPER,
             id
         );
+        int deletedRows = deleted.size();
         
         if (deletedRows > 0) {
+            searchResultCache.invalidate("Realtor");
+            auditJournal.recordDelete("Realtor", deleted.get(0));
+            clusterInvalidation.publish(ClusterInvalidationPublisher.REALTOR, id);
             logger.info("Риелтор с id {} успешно удален", id);
         } else {
             logger.warn("Риелтор с id {} не найден для удаления", id);
@@ -310,33 +390,72 @@ public class RealtorDao {
      * @return список риелторов, соответствующих всем указанным критериям
      */
     public List<Realtor> search(String lastName, String email, String phone, Integer minExperience) {
-        StringBuilder sql = new StringBuilder("SELECT * FROM realtors WHERE 1=1");
         List<Object> params = new ArrayList<>();
+        String where = buildRealtorFilter(lastName, email, phone, minExperience, params);
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM realtors");
+        if (!where.isEmpty()) {
+            sql.append(" WHERE ").append(where);
+        }
+        sql.append(" ORDER BY id_realtor");
+
+        return jdbcTemplate.query(sql.toString(), realtorRowMapper, params.toArray());
+    }
+
+    /**
+     * Получить страницу риелторов для таблицы с фильтрацией и сортировкой
+     *
+     * @param lastName фамилия риелтора (частичное совпадение)
+     * @param email email риелтора (точное совпадение)
+     * @param phone телефон риелтора (точное совпадение)
+     * @param minExperience минимальный опыт работы риелтора
+     * @param query параметры страницы и сортировки
+     * @return страница риелторов с общим количеством
+     */
+    public TablePage<Realtor> searchPage(String lastName, String email, String phone, Integer minExperience, TableQuery query) {
+        TableQuery pageQuery = query.withAllowedSort(TABLE_SORT_COLUMNS.keySet(), "id");
+        List<Object> whereParams = new ArrayList<>();
+        String where = buildRealtorFilter(lastName, email, phone, minExperience, whereParams);
+
+        List<Object> params = new ArrayList<>(whereParams);
+        String sql = "SELECT * FROM realtors"
+            + (where.isEmpty() ? "" : " WHERE " + where)
+            + TablePaging.orderAndLimit(pageQuery, TABLE_SORT_COLUMNS, "id_realtor", params);
+
+        List<Realtor> rows = jdbcTemplate.query(sql, realtorRowMapper, params.toArray());
+        return TablePaging.page(jdbcTemplate, rows, pageQuery, "realtors", "realtors", where, whereParams);
+    }
+
+    /**
+     * Построить условие фильтра риелторов
+     * @param params список, в который добавляются параметры условия
+     * @return условие без слова WHERE (пустая строка, если фильтр не задан)
+     */
+    private String buildRealtorFilter(String lastName, String email, String phone, Integer minExperience, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
 
         // Добавляем условия поиска только для непустых параметров
         if (lastName != null && !lastName.trim().isEmpty()) {
-            sql.append(" AND last_name ILIKE ?");
+            conditions.add("last_name ILIKE ?");
             params.add("%" + lastName.trim() + "%");
         }
 
         if (email != null && !email.trim().isEmpty()) {
-            sql.append(" AND email = ?");
+            conditions.add("email = ?");
             params.add(email.trim());
         }
 
         if (phone != null && !phone.trim().isEmpty()) {
-            sql.append(" AND phone = ?");
+            conditions.add("phone = ?");
             params.add(phone.trim());
         }
 
         if (minExperience != null) {
-            sql.append(" AND experience_years >= ?");
+            conditions.add("experience_years >= ?");
             params.add(minExperience);
         }
 
-        sql.append(" ORDER BY id_realtor");
-
-        return jdbcTemplate.query(sql.toString(), realtorRowMapper, params.toArray());
+        return String.join(" AND ", conditions);
     }
 
     /**
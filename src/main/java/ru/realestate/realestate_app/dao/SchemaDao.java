@@ -0,0 +1,224 @@
+package ru.realestate.realestate_app.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * DAO таблицы версий схемы и системного каталога PostgreSQL
+ *
+ * Используется при применении миграций и при проверке, что в базе данных есть
+ * таблицы и индексы, на которые рассчитаны запросы остальных DAO.
+ */
+@Repository
+public class SchemaDao {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaDao.class);
+
+    // Ключ рекомендательной блокировки, под которой миграции применяются одним экземпляром приложения
+    private static final long MIGRATION_LOCK_KEY = 0x5245_414C_4553_5441L;
+
+    /**
+     * Применённая миграция
+     * @param version номер версии
+     * @param description описание из имени файла
+     * @param checksum контрольная сумма скрипта на момент применения
+     */
+    public record AppliedMigration(int version, String description, long checksum) {}
+
+    /**
+     * Индекс таблицы
+     * @param tableName имя таблицы
+     * @param indexName имя индекса
+     * @param method метод доступа (btree, brin, gin...)
+     * @param keyColumns ключевые колонки в порядке индекса
+     * @param includeColumns неключевые колонки из INCLUDE
+     */
+    public record IndexInfo(String tableName, String indexName, String method,
+                            List<String> keyColumns, List<String> includeColumns) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Конструктор DAO с инжекцией зависимостей
+     * @param jdbcTemplate шаблон для выполнения SQL запросов
+     */
+    public SchemaDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Создать таблицу версий схемы, если её ещё нет
+     */
+    public void createVersionTableIfAbsent() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS schema_version (
+                version      INTEGER PRIMARY KEY,
+                description  VARCHAR(200) NOT NULL,
+                checksum     BIGINT NOT NULL,
+                installed_on TIMESTAMP NOT NULL DEFAULT now(),
+                execution_ms BIGINT NOT NULL
+            )
+            """);
+    }
+
+    /**
+     * Проверить, существует ли таблица версий схемы
+     */
+    public boolean versionTableExists() {
+        Boolean exists = jdbcTemplate.queryForObject(
+            "SELECT to_regclass('schema_version') IS NOT NULL", Boolean.class);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Получить применённые миграции
+     * @return миграции, упорядоченные по версии
+     */
+    public List<AppliedMigration> findAppliedMigrations() {
+        return jdbcTemplate.query(
+            "SELECT version, description, checksum FROM schema_version ORDER BY version",
+            (rs, _) -> new AppliedMigration(
+                rs.getInt("version"),
+                rs.getString("description"),
+                rs.getLong("checksum")
+            )
+        );
+    }
+
+    /**
+     * Захватить блокировку миграций до конца текущей транзакции
+     * Должен вызываться внутри транзакции, иначе блокировка снимается сразу
+     */
+    public void lockForMigration() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)::text", String.class, MIGRATION_LOCK_KEY);
+    }
+
+    /**
+     * Проверить внутри блокировки, применена ли версия (её мог применить другой экземпляр)
+     * @param version номер версии
+     */
+    public boolean isApplied(int version) {
+        Integer count = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM schema_version WHERE version = ?", Integer.class, version);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Выполнить SQL скрипт миграции на соединении текущей транзакции
+     * Скрипт делится на команды с учётом долларовых кавычек (см. {@link SqlScriptSplitter})
+     * @param script скрипт миграции
+     */
+    public void executeScript(EncodedResource script) {
+        logger.debug("Выполнение скрипта миграции {}", script.getResource().getFilename());
+        List<String> statements;
+        try {
+            statements = SqlScriptSplitter.split(FileCopyUtils.copyToString(script.getReader()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать скрипт миграции " + script.getResource(), e);
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : statements) {
+                    statement.execute(sql);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Записать применённую миграцию
+     * @param version номер версии
+     * @param description описание
+     * @param checksum контрольная сумма скрипта
+     * @param executionMs время выполнения в миллисекундах
+     */
+    public void recordMigration(int version, String description, long checksum, long executionMs) {
+        jdbcTemplate.update(
+            "INSERT INTO schema_version (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)",
+            version, description, checksum, executionMs
+        );
+    }
+
+    /**
+     * Найти существующие таблицы текущей схемы из указанного списка
+     * @param tableNames имена таблиц
+     * @return имена существующих таблиц
+     */
+    public Set<String> findExistingTables(Collection<String> tableNames) {
+        List<String> existing = jdbcTemplate.query(
+            connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                    "SELECT tablename FROM pg_tables WHERE schemaname = current_schema() AND tablename = ANY(?)"
+                );
+                ps.setArray(1, connection.createArrayOf("text", tableNames.toArray()));
+                return ps;
+            },
+            (rs, _) -> rs.getString("tablename")
+        );
+        return Set.copyOf(existing);
+    }
+
+    /**
+     * Получить индексы указанных таблиц текущей схемы с ключевыми и включёнными (INCLUDE) колонками
+     * Выражения в индексах не раскрываются, такие индексы возвращаются без соответствующих колонок
+     * @param tableNames имена таблиц
+     * @return индексы, сгруппированные по имени таблицы
+     */
+    public Map<String, List<IndexInfo>> findIndexes(Collection<String> tableNames) {
+        String sql = """
+            SELECT t.relname AS table_name,
+                   i.relname AS index_name,
+                   am.amname AS method,
+                   ix.indnkeyatts AS key_count,
+                   ARRAY(
+                       SELECT a.attname::text
+                       FROM unnest(ix.indkey::int2[]) WITH ORDINALITY AS k(attnum, ord)
+                       JOIN pg_attribute a ON a.attrelid = t.oid AND a.attnum = k.attnum
+                       ORDER BY k.ord
+                   ) AS columns
+            FROM pg_index ix
+            JOIN pg_class t ON t.oid = ix.indrelid
+            JOIN pg_class i ON i.oid = ix.indexrelid
+            JOIN pg_am am ON am.oid = i.relam
+            JOIN pg_namespace n ON n.oid = t.relnamespace
+            WHERE n.nspname = current_schema() AND t.relname = ANY(?)
+            """;
+
+        List<IndexInfo> indexes = jdbcTemplate.query(
+            connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql);
+                ps.setArray(1, connection.createArrayOf("text", tableNames.toArray()));
+                return ps;
+            },
+            (rs, _) -> {
+                List<String> columns = Arrays.asList((String[]) rs.getArray("columns").getArray());
+                int keyCount = Math.min(rs.getInt("key_count"), columns.size());
+                return new IndexInfo(
+                    rs.getString("table_name"),
+                    rs.getString("index_name"),
+                    rs.getString("method"),
+                    List.copyOf(columns.subList(0, keyCount)),
+                    List.copyOf(columns.subList(keyCount, columns.size()))
+                );
+            }
+        );
+        return indexes.stream().collect(Collectors.groupingBy(IndexInfo::tableName));
+    }
+}
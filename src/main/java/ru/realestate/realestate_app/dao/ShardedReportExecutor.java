@@ -0,0 +1,337 @@
+package ru.realestate.realestate_app.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.realestate.realestate_app.workload.WorkloadContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * Выполнение запроса полного отчёта частями по диапазонам ключа
+ *
+ * Диапазон ключа [min, max] делится на равные части, каждая часть читается отдельным SQL запросом.
+ * Строки передаются обработчику в порядке частей, поэтому результат совпадает с результатом одного
+ * запроса с той же сортировкой. В памяти находятся строки не более parallelism частей: следующая
+ * часть начинается, когда обработчик забрал строки очередной.
+ *
+ * Части читаются параллельно несколькими соединениями, каждое в своём виртуальном потоке. Соединения
+ * учитываются в ограничителе класса нагрузки HTTP запроса: кроме места самого запроса выгрузка занимает
+ * свободные места класса (см. {@link WorkloadContext#tryAcquireExtraPermits(int)}) и без них читает
+ * отчёт одним запросом, поэтому выгрузки не выходят за бюджет соединений своего класса.
+ *
+ * Все соединения выгрузки читают один снимок данных: первое открывает транзакцию REPEATABLE READ,
+ * читает границы ключа и экспортирует снимок (pg_export_snapshot), остальные начинают транзакции
+ * с этим снимком (SET TRANSACTION SNAPSHOT). Экспортирующая транзакция не завершается, пока
+ * снимок не импортирован всеми, поэтому части согласованы между собой, как строки одного запроса.
+ * Части наследуют контекст нагрузки HTTP запроса: тайм-аут класса и отмену при отключении клиента.
+ */
+@Component
+public class ShardedReportExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedReportExecutor.class);
+
+    private static final ResultSetExtractor<long[]> BOUNDS_EXTRACTOR = rs -> {
+        if (!rs.next()) {
+            return null;
+        }
+        long min = rs.getLong(1);
+        return rs.wasNull() ? null : new long[] {min, rs.getLong(2)};
+    };
+
+    /**
+     * Запрос отчёта, разбиваемый по диапазонам ключа
+     * @param boundsSql запрос минимального и максимального значения ключа в виде целых чисел
+     *                  (NULL для пустой таблицы)
+     * @param sql запрос отчёта; %s - условие на ключ, вместо которого подставляется "ключ BETWEEN ? AND ?"
+     * @param key выражение ключа в запросе отчёта
+     * @param parameter преобразование границы диапазона в параметр запроса
+     * @param descending отчёт отсортирован по убыванию ключа (части идут от старших значений)
+     * @param rowMapper маппер строки отчёта
+     */
+    public record RangeQuery<T>(String boundsSql, String sql, String key, LongFunction<Object> parameter,
+                                boolean descending, RowMapper<T> rowMapper) {}
+
+    /**
+     * Диапазон ключа одной части (границы включительно)
+     */
+    record Range(long from, long to) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final boolean parallel;
+    private final int shards;
+    private final int parallelism;
+
+    /**
+     * Конструктор с инжекцией зависимостей
+     * @param jdbcTemplate шаблон для выполнения SQL запросов
+     * @param transactionManager менеджер транзакций для чтения частей в общем снимке
+     * @param parallel выполнять ли отчёты частями параллельно (false - одним запросом)
+     * @param shards количество частей диапазона ключа
+     * @param parallelism сколько частей одного отчёта читается одновременно (и сколько соединений
+     *                    может занять одна выгрузка, если в классе нагрузки есть свободные места)
+     */
+    public ShardedReportExecutor(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.report-export.parallel:true}") boolean parallel,
+                                 @Value("${app.report-export.shards:16}") int shards,
+                                 @Value("${app.report-export.parallelism:4}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransaction.setReadOnly(true);
+        this.parallel = parallel;
+        this.shards = Math.max(1, shards);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Выполнить отчёт и передать строки обработчику в порядке сортировки отчёта
+     * Обработчик вызывается в потоке, вызвавшем метод
+     * @param query запрос отчёта
+     * @param consumer обработчик строки
+     * @return количество строк
+     */
+    public <T> long forEach(RangeQuery<T> query, Consumer<T> consumer) {
+        WorkloadContext context = WorkloadContext.current();
+        // Вне HTTP запроса нет ограничителя, в котором можно учесть дополнительные соединения
+        int extra = parallel && shards > 1 && context != null ? context.tryAcquireExtraPermits(parallelism - 1) : 0;
+        try {
+            return extra > 0
+                ? forEachParallel(query, 1 + extra, context, consumer)
+                : forEachSingle(query, consumer);
+        } finally {
+            if (extra > 0) {
+                context.releaseExtraPermits(extra);
+            }
+        }
+    }
+
+    private <T> long forEachSingle(RangeQuery<T> query, Consumer<T> consumer) {
+        long[] bounds = jdbcTemplate.query(query.boundsSql(), BOUNDS_EXTRACTOR);
+        if (bounds == null) {
+            return 0;
+        }
+        List<T> rows = queryRange(query, new Range(bounds[0], bounds[1]));
+        rows.forEach(consumer);
+        return rows.size();
+    }
+
+    private <T> long forEachParallel(RangeQuery<T> query, int connections, WorkloadContext context,
+                                     Consumer<T> consumer) {
+        long start = System.nanoTime();
+        SnapshotExport<T> export = new SnapshotExport<>(query, connections);
+        long rows = 0;
+        int parts = 0;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                executor.submit(context.wrap(export::lead));
+                for (int i = 1; i < connections; i++) {
+                    executor.submit(context.wrap(export::follow));
+                }
+                List<CompletableFuture<List<T>>> results = export.results.get();
+                parts = results.size();
+                for (int i = 0; i < parts; i++) {
+                    List<T> shardRows = results.get(i).get();
+                    // Строки части больше не нужны выгрузке: место освобождается для следующей части
+                    results.set(i, null);
+                    export.buffered.release();
+                    shardRows.forEach(consumer);
+                    rows += shardRows.size();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Выгрузка отчёта прервана", e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException runtime
+                    ? runtime : new IllegalStateException(e.getCause());
+            } finally {
+                // После ошибки ещё не начатые части не выполняются; выполняемые завершатся до выхода из try
+                export.stop(new CancellationException("Выгрузка отчёта остановлена"));
+            }
+        }
+
+        logger.debug("Отчёт выгружен частями за {} мс: {} частей, {} соединений, {} строк",
+                    (System.nanoTime() - start) / 1_000_000, parts, connections, rows);
+        return rows;
+    }
+
+    private <T> List<T> queryRange(RangeQuery<T> query, Range range) {
+        String sql = query.sql().formatted(query.key() + " BETWEEN ? AND ?");
+        return jdbcTemplate.query(sql, query.rowMapper(),
+            query.parameter().apply(range.from()), query.parameter().apply(range.to()));
+    }
+
+    /**
+     * Одна параллельная выгрузка: соединения в общем снимке разбирают части по порядку
+     */
+    private final class SnapshotExport<T> {
+
+        private final RangeQuery<T> query;
+        private final CompletableFuture<String> snapshot = new CompletableFuture<>();
+        private final CompletableFuture<List<CompletableFuture<List<T>>>> results = new CompletableFuture<>();
+        private final CountDownLatch imported;
+        // Части, которые читаются или прочитаны, но ещё не переданы обработчику
+        private final Semaphore buffered = new Semaphore(parallelism);
+        private final AtomicInteger next = new AtomicInteger();
+        private volatile List<Range> ranges = List.of();
+        private volatile boolean stopped;
+
+        SnapshotExport(RangeQuery<T> query, int connections) {
+            this.query = query;
+            this.imported = new CountDownLatch(connections - 1);
+        }
+
+        /**
+         * Первое соединение: границы ключа, экспорт снимка и чтение частей
+         */
+        Void lead() {
+            try {
+                snapshotTransaction.executeWithoutResult(_ -> {
+                    long[] bounds = jdbcTemplate.query(query.boundsSql(), BOUNDS_EXTRACTOR);
+                    String snapshotId = jdbcTemplate.queryForObject("SELECT pg_export_snapshot()", String.class);
+                    List<Range> split = bounds == null ? new ArrayList<>() : split(bounds[0], bounds[1], shards);
+                    if (query.descending()) {
+                        Collections.reverse(split);
+                    }
+                    List<CompletableFuture<List<T>>> futures = new ArrayList<>(split.size());
+                    split.forEach(_ -> futures.add(new CompletableFuture<>()));
+                    ranges = split;
+                    results.complete(futures);
+                    snapshot.complete(snapshotId);
+                    try {
+                        work(futures);
+                    } finally {
+                        // Снимок доступен для импорта, только пока экспортировавшая его транзакция открыта
+                        awaitImported();
+                    }
+                });
+            } catch (RuntimeException e) {
+                stop(e);
+                throw e;
+            }
+            return null;
+        }
+
+        /**
+         * Остальные соединения: импорт снимка и чтение частей
+         */
+        Void follow() throws InterruptedException {
+            AtomicBoolean counted = new AtomicBoolean();
+            try {
+                String snapshotId = snapshot.get();
+                List<CompletableFuture<List<T>>> futures = results.get();
+                snapshotTransaction.executeWithoutResult(_ -> {
+                    jdbcTemplate.execute("SET TRANSACTION SNAPSHOT '" + snapshotId + "'");
+                    if (counted.compareAndSet(false, true)) {
+                        imported.countDown();
+                    }
+                    work(futures);
+                });
+            } catch (ExecutionException | CancellationException e) {
+                // Первое соединение не экспортировало снимок или выгрузка остановлена - читать нечего
+            } catch (RuntimeException e) {
+                stop(e);
+                throw e;
+            } finally {
+                if (counted.compareAndSet(false, true)) {
+                    imported.countDown();
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Читать части по порядку, пока они не закончатся или выгрузка не остановится
+         */
+        private void work(List<CompletableFuture<List<T>>> futures) {
+            while (!stopped) {
+                try {
+                    buffered.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    stop(e);
+                    return;
+                }
+                // Номер части берётся после места в буфере: занятые места всегда принадлежат
+                // первым невыданным обработчику частям, и ожидание места не блокирует выгрузку
+                int index = next.getAndIncrement();
+                if (stopped || index >= ranges.size()) {
+                    buffered.release();
+                    return;
+                }
+                try {
+                    futures.get(index).complete(queryRange(query, ranges.get(index)));
+                } catch (RuntimeException e) {
+                    futures.get(index).completeExceptionally(e);
+                    stop(e);
+                    throw e;
+                }
+            }
+        }
+
+        private void awaitImported() {
+            try {
+                imported.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Остановить выгрузку: ожидающие соединения и обработчик получают ошибку
+         */
+        void stop(Throwable cause) {
+            stopped = true;
+            snapshot.completeExceptionally(cause);
+            if (!results.completeExceptionally(cause)) {
+                results.join().forEach(future -> {
+                    if (future != null) {
+                        future.completeExceptionally(cause);
+                    }
+                });
+            }
+            buffered.release(parallelism);
+        }
+    }
+
+    /**
+     * Разбить диапазон [min, max] на не более count равных частей по возрастанию
+     */
+    static List<Range> split(long min, long max, int count) {
+        long span = max - min + 1;
+        int parts = (int) Math.max(1, Math.min(count, span));
+        long width = (span + parts - 1) / parts;
+        List<Range> ranges = new ArrayList<>(parts);
+        for (long from = min; from <= max; from += width) {
+            ranges.add(new Range(from, Math.min(max, from + width - 1)));
+            if (from > max - width) {
+                break;
+            }
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,121 @@
+package ru.realestate.realestate_app.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Разбиение SQL скрипта PostgreSQL на отдельные команды
+ *
+ * Команды разделяются символом ';' вне строк, идентификаторов в кавычках, комментариев
+ * и строк в долларовых кавычках ($$ ... $$, $tag$ ... $tag$), поэтому тела функций
+ * можно записывать как обычно. Комментарии в команды не попадают.
+ */
+public final class SqlScriptSplitter {
+
+    // Открывающая долларовая кавычка: $$ или $метка$ (метка не начинается с цифры)
+    private static final Pattern DOLLAR_TAG = Pattern.compile("\\$(?:[A-Za-z_][A-Za-z_0-9]*)?\\$");
+
+    private SqlScriptSplitter() {
+    }
+
+    /**
+     * Разбить скрипт на команды
+     * @param script текст скрипта
+     * @return команды без завершающего ';' и без комментариев, пустые команды пропускаются
+     * @throws IllegalArgumentException если строка, кавычка или комментарий не закрыты
+     */
+    public static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        Matcher dollarTag = DOLLAR_TAG.matcher(script);
+        int length = script.length();
+        int i = 0;
+        while (i < length) {
+            char c = script.charAt(i);
+            char next = i + 1 < length ? script.charAt(i + 1) : 0;
+            if (c == ';') {
+                addStatement(statements, current);
+                i++;
+            } else if (c == '-' && next == '-') {
+                int end = script.indexOf('\n', i);
+                i = end < 0 ? length : end;
+            } else if (c == '/' && next == '*') {
+                i = skipBlockComment(script, i);
+                current.append(' ');
+            } else if (c == '\'' || c == '"') {
+                int end = skipQuoted(script, i, c);
+                current.append(script, i, end);
+                i = end;
+            } else if (c == '$' && !isIdentifierPart(script, i - 1) && dollarTag.region(i, length).lookingAt()) {
+                String tag = dollarTag.group();
+                int close = script.indexOf(tag, i + tag.length());
+                if (close < 0) {
+                    throw new IllegalArgumentException("Не закрыта долларовая кавычка " + tag);
+                }
+                int end = close + tag.length();
+                current.append(script, i, end);
+                i = end;
+            } else {
+                current.append(c);
+                i++;
+            }
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String statement = current.toString().strip();
+        if (!statement.isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+
+    /**
+     * Позиция после закрывающей кавычки; удвоенная кавычка внутри строки не закрывает её
+     */
+    private static int skipQuoted(String script, int start, char quote) {
+        int i = start + 1;
+        while (i < script.length()) {
+            if (script.charAt(i) == quote) {
+                if (i + 1 < script.length() && script.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        throw new IllegalArgumentException("Не закрыта кавычка " + quote + " с позиции " + start);
+    }
+
+    /**
+     * Позиция после блочного комментария; в PostgreSQL блочные комментарии могут быть вложенными
+     */
+    private static int skipBlockComment(String script, int start) {
+        int depth = 0;
+        int i = start;
+        while (i + 1 < script.length()) {
+            if (script.startsWith("/*", i)) {
+                depth++;
+                i += 2;
+            } else if (script.startsWith("*/", i)) {
+                depth--;
+                i += 2;
+                if (depth == 0) {
+                    return i;
+                }
+            } else {
+                i++;
+            }
+        }
+        throw new IllegalArgumentException("Не закрыт комментарий с позиции " + start);
+    }
+
+    private static boolean isIdentifierPart(String script, int index) {
+        return index >= 0 && (Character.isLetterOrDigit(script.charAt(index)) || script.charAt(index) == '_');
+    }
+}
@@ -0,0 +1,101 @@
+package ru.realestate.realestate_app.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import ru.realestate.realestate_app.model.dto.TablePage;
+import ru.realestate.realestate_app.model.dto.TablePage.TotalType;
+import ru.realestate.realestate_app.model.dto.TableQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Утилитный класс постраничной выборки для табличных страниц
+ *
+ * Сортировка допускается только по столбцам из переданного списка, поэтому ключ
+ * сортировки из запроса никогда не попадает в SQL напрямую. Общее количество строк:
+ * - без фильтра - оценка из pg_class.reltuples (для небольших таблиц - точный COUNT);
+ * - с фильтром - точный COUNT, но не более EXACT_COUNT_LIMIT строк;
+ * - если страница неполная, количество известно и без запроса.
+ */
+public final class TablePaging {
+
+    /**
+     * Порог, до которого количество строк считается точно
+     */
+    public static final long EXACT_COUNT_LIMIT = 10_000;
+
+    private TablePaging() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Построить ORDER BY ... LIMIT ? OFFSET ? и добавить параметры страницы
+     * @param query параметры страницы с проверенным ключом сортировки
+     * @param sortColumns разрешённые ключи сортировки и соответствующие им столбцы
+     * @param tieBreaker уникальный столбец для стабильного порядка строк с одинаковым значением
+     * @param params список параметров запроса, в который добавляются LIMIT и OFFSET
+     * @return окончание SQL запроса
+     */
+    public static String orderAndLimit(TableQuery query, Map<String, String> sortColumns,
+                                       String tieBreaker, List<Object> params) {
+        String column = sortColumns.get(query.getSort());
+        String direction = query.isDescending() ? " DESC" : " ASC";
+        StringBuilder sql = new StringBuilder(" ORDER BY ").append(column).append(direction);
+        if (!column.equals(tieBreaker)) {
+            sql.append(", ").append(tieBreaker).append(direction);
+        }
+        sql.append(" LIMIT ? OFFSET ?");
+        params.add(query.getSize());
+        params.add(query.getOffset());
+        return sql.toString();
+    }
+
+    /**
+     * Собрать страницу, определив общее количество строк наиболее дешёвым способом
+     * @param jdbcTemplate шаблон для выполнения SQL запросов
+     * @param rows строки текущей страницы
+     * @param query параметры страницы
+     * @param table таблица для оценки количества строк без фильтра (null - считать всегда)
+     * @param countFrom FROM для подсчёта (основная таблица с псевдонимом, без JOIN справочников)
+     * @param where условие фильтра без слова WHERE (пустая строка - без фильтра)
+     * @param whereParams параметры условия фильтра
+     * @return страница с общим количеством строк
+     */
+    public static <T> TablePage<T> page(JdbcTemplate jdbcTemplate, List<T> rows, TableQuery query,
+                                        String table, String countFrom, String where, List<Object> whereParams) {
+        long seen = query.getOffset() + rows.size();
+
+        // Неполная непустая страница (или первая) - последняя, количество известно
+        if (rows.size() < query.getSize() && (!rows.isEmpty() || query.getOffset() == 0)) {
+            return new TablePage<>(rows, query, seen, TotalType.EXACT);
+        }
+
+        if (where.isEmpty() && table != null) {
+            Long estimate = jdbcTemplate.queryForObject(
+                "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)",
+                Long.class,
+                table
+            );
+            // reltuples = -1 (или 0 в старых версиях), если таблица ещё не анализировалась
+            if (estimate != null && estimate > EXACT_COUNT_LIMIT) {
+                return new TablePage<>(rows, query, Math.max(estimate, seen), TotalType.ESTIMATE);
+            }
+        }
+
+        String whereSql = where.isEmpty() ? "" : " WHERE " + where;
+        List<Object> countParams = new ArrayList<>(whereParams);
+        countParams.add(EXACT_COUNT_LIMIT + 1);
+        Long count = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM (SELECT 1 FROM " + countFrom + whereSql + " LIMIT ?) limited",
+            Long.class,
+            countParams.toArray()
+        );
+        long total = count != null ? count : 0;
+        if (total > EXACT_COUNT_LIMIT) {
+            return new TablePage<>(rows, query, Math.max(EXACT_COUNT_LIMIT, seen), TotalType.AT_LEAST);
+        }
+        return new TablePage<>(rows, query, total, TotalType.EXACT);
+    }
+}
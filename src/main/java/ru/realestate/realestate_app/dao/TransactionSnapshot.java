@@ -0,0 +1,44 @@
+package ru.realestate.realestate_app.dao;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Снимок видимости транзакций PostgreSQL (результат pg_current_snapshot())
+ *
+ * Позволяет определить, вошли ли в результат запроса изменения транзакции с известным
+ * номером (pg_current_xact_id()): зафиксированная транзакция видна снимку, если её номер
+ * меньше xmin или меньше xmax и не входит в список выполнявшихся в момент снимка.
+ *
+ * @param xmin наименьший номер ещё выполнявшейся транзакции
+ * @param xmax номер, начиная с которого транзакции ещё не начались
+ * @param inProgress номера выполнявшихся транзакций из интервала [xmin, xmax)
+ */
+public record TransactionSnapshot(long xmin, long xmax, Set<Long> inProgress) {
+
+    /**
+     * Разобрать текстовое представление снимка "xmin:xmax:xip1,xip2,..."
+     * @param text снимок в текстовом виде
+     * @return снимок
+     */
+    public static TransactionSnapshot parse(String text) {
+        String[] parts = text.split(":", -1);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Некорректный снимок транзакций: " + text);
+        }
+        Set<Long> inProgress = parts[2].isEmpty()
+            ? Set.of()
+            : Arrays.stream(parts[2].split(",")).map(Long::valueOf).collect(Collectors.toUnmodifiableSet());
+        return new TransactionSnapshot(Long.parseLong(parts[0]), Long.parseLong(parts[1]), inProgress);
+    }
+
+    /**
+     * Видны ли снимку изменения зафиксированной транзакции
+     * @param xid номер транзакции
+     * @return true если изменения транзакции входят в данные, прочитанные со снимком
+     */
+    public boolean isVisible(long xid) {
+        return xid < xmin || (xid < xmax && !inProgress.contains(xid));
+    }
+}
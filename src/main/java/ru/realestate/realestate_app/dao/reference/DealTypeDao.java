@@ -4,6 +4,7 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.realestate.realestate_app.model.DealType;
 
+import java.sql.PreparedStatement;
 import java.util.List;
 
 /**
@@ -54,6 +55,30 @@ public class DealTypeDao {
         );
     }
 
+    /**
+     * Найти типы сделок по списку идентификаторов одним запросом
+     * @param ids список идентификаторов
+     * @return найденные типы сделок, отсортированные по идентификатору (отсутствующие id пропускаются)
+     */
+    public List<DealType> findByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(
+            connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                    "SELECT * FROM deal_types WHERE id_deal_type = ANY(?) ORDER BY id_deal_type"
+                );
+                ps.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+                return ps;
+            },
+            (rs, _) -> new DealType(
+                rs.getLong("id_deal_type"),
+                rs.getString("deal_type_name")
+            )
+        );
+    }
+
     /**
      * Найти тип сделки по названию (точное совпадение)
      * @param name название типа сделки
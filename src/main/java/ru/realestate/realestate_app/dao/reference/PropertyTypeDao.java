@@ -4,6 +4,7 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.realestate.realestate_app.model.PropertyType;
 
+import java.sql.PreparedStatement;
 import java.util.List;
 
 /**
@@ -54,6 +55,30 @@ public class PropertyTypeDao {
         );
     }
 
+    /**
+     * Найти типы недвижимости по списку идентификаторов одним запросом
+     * @param ids список идентификаторов
+     * @return найденные типы недвижимости, отсортированные по идентификатору (отсутствующие id пропускаются)
+     */
+    public List<PropertyType> findByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(
+            connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                    "SELECT * FROM property_types WHERE id_property_type = ANY(?) ORDER BY id_property_type"
+                );
+                ps.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+                return ps;
+            },
+            (rs, _) -> new PropertyType(
+                rs.getLong("id_property_type"),
+                rs.getString("property_type_name")
+            )
+        );
+    }
+
     /**
      * Найти тип недвижимости по названию (точное совпадение)
      * @param name название типа недвижимости
@@ -0,0 +1,12 @@
+package ru.realestate.realestate_app.event;
+
+/**
+ * Изменение строки таблицы, рассылаемое подписчикам потока изменений
+ *
+ * @param sequence сквозной номер события (используется как id события SSE)
+ * @param entity тип сущности: deal или payment
+ * @param operation операция: CREATED, UPDATED или DELETED
+ * @param id идентификатор строки
+ * @param row строка в формате таблицы (DealTableDto, PaymentTableDto) или null для DELETED
+ */
+public record ChangeEvent(long sequence, String entity, String operation, long id, Object row) {}
@@ -0,0 +1,316 @@
+package ru.realestate.realestate_app.event;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import ru.realestate.realestate_app.dao.DealDao;
+import ru.realestate.realestate_app.dao.PaymentDao;
+import ru.realestate.realestate_app.model.dto.DealTableDto;
+import ru.realestate.realestate_app.model.dto.PaymentTableDto;
+import ru.realestate.realestate_app.transaction.AfterCommit;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Шина изменений сделок и платежей внутри приложения
+ *
+ * Сервисы публикуют только тип сущности, операцию и идентификатор после фиксации транзакции.
+ * Поток-диспетчер забирает накопившиеся изменения пачкой, схлопывает повторы одной строки,
+ * одним запросом на тип сущности читает изменённые строки в формате таблицы и раздаёт
+ * события подписчикам. Строки читаются один раз на изменение, а не на каждого подписчика,
+ * и не читаются вовсе, пока подписчиков нет.
+ *
+ * У каждого подписчика ограниченный буфер: если он не успевает забирать события, буфер
+ * очищается и подписчику выставляется признак пересинхронизации - клиент перечитывает
+ * страницу целиком. Последние события хранятся для переподключения по Last-Event-ID;
+ * если нужных событий уже нет, переподключившийся клиент также получает пересинхронизацию.
+ */
+@Component
+public class ChangeEventBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeEventBus.class);
+
+    public static final String DEAL = "deal";
+    public static final String PAYMENT = "payment";
+    public static final Set<String> ENTITIES = Set.of(DEAL, PAYMENT);
+
+    // Максимальное количество изменений, обрабатываемых диспетчером за один проход
+    private static final int DISPATCH_BATCH = 500;
+
+    /**
+     * Операция над строкой
+     */
+    public enum Operation { CREATED, UPDATED, DELETED }
+
+    private record Pending(String entity, Operation operation, long id) {}
+
+    /**
+     * Подписка на изменения с ограниченным буфером
+     */
+    public static final class Subscription {
+        private final Set<String> entities;
+        private final ArrayBlockingQueue<ChangeEvent> buffer;
+        private volatile boolean resyncRequired;
+        private volatile boolean closed;
+
+        private Subscription(Set<String> entities, int bufferSize) {
+            this.entities = Set.copyOf(entities);
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private boolean accepts(String entity) {
+            return entities.contains(entity);
+        }
+
+        private void offer(ChangeEvent event) {
+            if (!buffer.offer(event)) {
+                // Клиент отстал: отдельные события ему уже не помогут, он перечитает страницу
+                buffer.clear();
+                resyncRequired = true;
+            }
+        }
+
+        /**
+         * Получить следующее событие
+         * @param timeout сколько ждать события
+         * @return событие или null, если за время ожидания событий не было
+         */
+        public ChangeEvent poll(Duration timeout) throws InterruptedException {
+            return buffer.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Проверить и сбросить признак пересинхронизации
+         * @return true, если подписчик пропустил события и должен перечитать данные
+         */
+        public boolean takeResync() {
+            if (resyncRequired) {
+                resyncRequired = false;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Отметить подписку закрытой (клиент отключился)
+         */
+        public void close() {
+            closed = true;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+    }
+
+    private final DealDao dealDao;
+    private final PaymentDao paymentDao;
+    private final int bufferSize;
+    private final int replaySize;
+
+    private final CopyOnWriteArrayList<Subscription> subscribers = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<Pending> pending = new ConcurrentLinkedQueue<>();
+
+    // Последние события и следующий номер; изменяются под монитором replay
+    private final ArrayDeque<ChangeEvent> replay = new ArrayDeque<>();
+    // Номера продолжаются после перезапуска, поэтому Last-Event-ID прошлого процесса приводит к пересинхронизации
+    private long nextSequence = System.currentTimeMillis() * 1000;
+
+    private volatile Thread dispatcher;
+    private volatile boolean running;
+
+    /**
+     * Конструктор шины
+     * @param dealDao DAO сделок для чтения изменённых строк
+     * @param paymentDao DAO платежей для чтения изменённых строк
+     * @param bufferSize размер буфера событий одного подписчика
+     * @param replaySize сколько последних событий хранить для переподключения
+     */
+    public ChangeEventBus(DealDao dealDao, PaymentDao paymentDao,
+                          @Value("${app.stream.buffer-size:256}") int bufferSize,
+                          @Value("${app.stream.replay-size:1024}") int replaySize) {
+        this.dealDao = dealDao;
+        this.paymentDao = paymentDao;
+        this.bufferSize = bufferSize;
+        this.replaySize = replaySize;
+    }
+
+    /**
+     * Запустить поток-диспетчер
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        dispatcher = Thread.ofPlatform().name("change-event-dispatcher").daemon().start(this::runDispatcher);
+    }
+
+    /**
+     * Остановить диспетчер и закрыть подписки
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        subscribers.forEach(Subscription::close);
+    }
+
+    /**
+     * Опубликовать изменение строки
+     * Внутри транзакции событие уходит только после её фиксации
+     * @param entity тип сущности (DEAL, PAYMENT)
+     * @param operation операция
+     * @param id идентификатор строки
+     */
+    public void publish(String entity, Operation operation, Long id) {
+        if (id == null) {
+            return;
+        }
+        Pending change = new Pending(entity, operation, id);
+        AfterCommit.run(() -> enqueue(change));
+    }
+
+    /**
+     * Подписаться на изменения
+     * @param entities типы сущностей
+     * @param lastEventId номер последнего полученного события при переподключении (может быть null)
+     * @return подписка; после отключения клиента её нужно передать в {@link #unsubscribe}
+     */
+    public Subscription subscribe(Set<String> entities, Long lastEventId) {
+        Subscription subscription = new Subscription(entities, bufferSize);
+        synchronized (replay) {
+            if (lastEventId != null) {
+                long first = replay.isEmpty() ? nextSequence : replay.peekFirst().sequence();
+                if (lastEventId + 1 < first || lastEventId >= nextSequence) {
+                    subscription.resyncRequired = true;
+                } else {
+                    for (ChangeEvent event : replay) {
+                        if (event.sequence() > lastEventId && subscription.accepts(event.entity())) {
+                            subscription.offer(event);
+                        }
+                    }
+                }
+            }
+            // Добавление под тем же монитором, под которым раздаются события, чтобы не потерять ни одного
+            subscribers.add(subscription);
+        }
+        return subscription;
+    }
+
+    /**
+     * Отписаться от изменений
+     * @param subscription подписка
+     */
+    public void unsubscribe(Subscription subscription) {
+        subscription.close();
+        subscribers.remove(subscription);
+    }
+
+    /**
+     * Количество подписчиков и ожидающих раздачи изменений
+     */
+    public Map<String, Object> getStats() {
+        return Map.of("subscribers", subscribers.size(), "pending", pending.size());
+    }
+
+    private void enqueue(Pending change) {
+        pending.offer(change);
+        LockSupport.unpark(dispatcher);
+    }
+
+    private void runDispatcher() {
+        while (running) {
+            if (pending.isEmpty()) {
+                LockSupport.park(this);
+                continue;
+            }
+            try {
+                dispatch(drain());
+            } catch (RuntimeException e) {
+                logger.warn("Не удалось разослать изменения, подписчики перечитают данные: {}", e.getMessage());
+                subscribers.forEach(subscription -> subscription.resyncRequired = true);
+            }
+        }
+    }
+
+    /**
+     * Забрать накопившиеся изменения, оставив для каждой строки одно
+     */
+    private List<Pending> drain() {
+        Map<String, Pending> latest = new LinkedHashMap<>();
+        Pending change;
+        while (latest.size() < DISPATCH_BATCH && (change = pending.poll()) != null) {
+            String key = change.entity() + ":" + change.id();
+            Pending previous = latest.remove(key);
+            // Созданная и тут же изменённая строка для клиента остаётся новой
+            if (previous != null && previous.operation() == Operation.CREATED
+                && change.operation() == Operation.UPDATED) {
+                change = previous;
+            }
+            latest.put(key, change);
+        }
+        return new ArrayList<>(latest.values());
+    }
+
+    private void dispatch(List<Pending> changes) {
+        if (subscribers.isEmpty()) {
+            // Строки не читаются; пропуск номеров заставит переподключившихся клиентов перечитать данные
+            synchronized (replay) {
+                replay.clear();
+                nextSequence += changes.size();
+            }
+            return;
+        }
+
+        Map<Long, DealTableDto> deals = new HashMap<>();
+        Map<Long, PaymentTableDto> payments = new HashMap<>();
+        List<Long> dealIds = idsToLoad(changes, DEAL);
+        List<Long> paymentIds = idsToLoad(changes, PAYMENT);
+        dealDao.findForTableByIds(dealIds).forEach(row -> deals.put(row.getDealId(), row));
+        paymentDao.findForTableByIds(paymentIds).forEach(row -> payments.put(row.getIdPayment(), row));
+
+        synchronized (replay) {
+            for (Pending change : changes) {
+                Object row = DEAL.equals(change.entity()) ? deals.get(change.id()) : payments.get(change.id());
+                // Строки уже нет - к моменту рассылки её удалили
+                Operation operation = row == null ? Operation.DELETED : change.operation();
+                ChangeEvent event = new ChangeEvent(nextSequence++, change.entity(), operation.name(),
+                                                    change.id(), row);
+                replay.addLast(event);
+                if (replay.size() > replaySize) {
+                    replay.pollFirst();
+                }
+                for (Subscription subscription : subscribers) {
+                    if (subscription.accepts(event.entity())) {
+                        subscription.offer(event);
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<Long> idsToLoad(List<Pending> changes, String entity) {
+        List<Long> ids = new ArrayList<>();
+        for (Pending change : changes) {
+            if (change.entity().equals(entity) && change.operation() != Operation.DELETED) {
+                ids.add(change.id());
+            }
+        }
+        return ids;
+    }
+}
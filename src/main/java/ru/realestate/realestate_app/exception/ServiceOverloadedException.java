@@ -0,0 +1,59 @@
+package ru.realestate.realestate_app.exception;
+
+/**
+ * Исключение для запросов, отклонённых ограничителем нагрузки
+ * Запрос не выполнялся: очередь класса нагрузки заполнена или свободное место
+ * не освободилось за допустимое время ожидания
+ */
+public class ServiceOverloadedException extends RealEstateException {
+
+    // Имя класса нагрузки (interactive, search, report, export)
+    private final String workloadClass;
+
+    // true - очередь заполнена, false - истекло время ожидания в очереди
+    private final boolean queueFull;
+
+    // Через сколько секунд клиенту стоит повторить запрос
+    private final long retryAfterSeconds;
+
+    /**
+     * Конструктор с полной информацией об отказе
+     * @param workloadClass имя класса нагрузки
+     * @param queueFull true - очередь заполнена, false - истекло время ожидания
+     * @param retryAfterSeconds через сколько секунд повторить запрос
+     */
+    public ServiceOverloadedException(String workloadClass, boolean queueFull, long retryAfterSeconds) {
+        super("SERVICE_OVERLOADED",
+              queueFull
+                  ? String.format("Очередь запросов класса '%s' заполнена", workloadClass)
+                  : String.format("Запрос класса '%s' не дождался очереди", workloadClass),
+              workloadClass, queueFull, retryAfterSeconds);
+        this.workloadClass = workloadClass;
+        this.queueFull = queueFull;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Получить имя класса нагрузки
+     * @return имя класса
+     */
+    public String getWorkloadClass() {
+        return workloadClass;
+    }
+
+    /**
+     * Проверить, отклонён ли запрос из-за заполненной очереди
+     * @return true если очередь заполнена, false если истекло время ожидания
+     */
+    public boolean isQueueFull() {
+        return queueFull;
+    }
+
+    /**
+     * Получить рекомендуемую паузу перед повтором
+     * @return количество секунд
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
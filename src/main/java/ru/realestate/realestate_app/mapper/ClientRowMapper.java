@@ -1,28 +1,14 @@
 package ru.realestate.realestate_app.mapper;
 
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.lang.NonNull;
-import org.springframework.stereotype.Component;
 
+import ru.realestate.realestate_app.mapper.generator.RowMapping;
 import ru.realestate.realestate_app.model.Client;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
-
-@Component
-public class ClientRowMapper implements RowMapper<Client> {
-    
-    @Override
-    public Client mapRow(@NonNull ResultSet rs, int rowNum) throws SQLException {
-        Client client = new Client();
-        
-        client.setIdClient(rs.getLong("id_client"));
-        client.setFirstName(rs.getString("first_name"));
-        client.setLastName(rs.getString("last_name"));
-        client.setMiddleName(rs.getString("middle_name"));
-        client.setPhone(rs.getString("phone"));
-        client.setEmail(rs.getString("email"));
-        
-        return client;
-    }
-} 
\ No newline at end of file
+/**
+ * RowMapper для преобразования строки таблицы в Client
+ * Реализация генерируется при компиляции по аннотации {@link RowMapping}
+ */
+@RowMapping
+public interface ClientRowMapper extends RowMapper<Client> {
+}
@@ -1,32 +1,15 @@
 package ru.realestate.realestate_app.mapper;
 
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.lang.NonNull;
-import org.springframework.stereotype.Component;
-import ru.realestate.realestate_app.model.Payment;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import ru.realestate.realestate_app.mapper.generator.Column;
+import ru.realestate.realestate_app.mapper.generator.RowMapping;
+import ru.realestate.realestate_app.model.Payment;
 
-@Component
-public class PaymentRowMapper implements RowMapper<Payment> {
-    
-    @Override
-    public Payment mapRow(@NonNull ResultSet rs, int rowNum) throws SQLException {
-        Payment payment = new Payment();
-        
-        payment.setIdPayment(rs.getLong("id_payment"));
-        
-        // Обработка даты (payment_date NOT NULL в БД)
-        java.sql.Date paymentDate = rs.getDate("payment_date");
-        if (paymentDate == null) {
-            throw new SQLException("Дата оплаты не может быть null для записи " + rowNum);
-        }
-        payment.setPaymentDate(paymentDate.toLocalDate());
-        
-        payment.setAmount(rs.getBigDecimal("amount"));
-        payment.setIdDeal(rs.getLong("id_deal"));
-        
-        return payment;
-    }
-} 
\ No newline at end of file
+/**
+ * RowMapper для преобразования строки таблицы в Payment
+ * Реализация генерируется при компиляции по аннотации {@link RowMapping}
+ */
+@RowMapping(columns = @Column(property = "paymentDate", required = true))
+public interface PaymentRowMapper extends RowMapper<Payment> {
+}
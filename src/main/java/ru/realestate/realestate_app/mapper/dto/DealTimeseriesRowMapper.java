@@ -0,0 +1,22 @@
+package ru.realestate.realestate_app.mapper.dto;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import ru.realestate.realestate_app.mapper.generator.Column;
+import ru.realestate.realestate_app.mapper.generator.RowMapping;
+import ru.realestate.realestate_app.model.dto.DealTimeseriesPoint;
+
+/**
+ * RowMapper для преобразования строки агрегированного запроса в DealTimeseriesPoint
+ *
+ * Название группы и признак завершённости интервала заполняются сервисом.
+ *
+ * Реализация генерируется при компиляции по аннотации {@link RowMapping}
+ */
+@RowMapping(columns = {
+    @Column(property = "groupId", nullable = true),
+    @Column(property = "groupName", ignore = true),
+    @Column(property = "closed", ignore = true)
+})
+public interface DealTimeseriesRowMapper extends RowMapper<DealTimeseriesPoint> {
+}
@@ -1,49 +1,21 @@
 package ru.realestate.realestate_app.mapper.dto;
 
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.lang.NonNull;
-import org.springframework.stereotype.Component;
-import ru.realestate.realestate_app.model.dto.PropertyReportDto;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import ru.realestate.realestate_app.mapper.generator.Column;
+import ru.realestate.realestate_app.mapper.generator.RowMapping;
+import ru.realestate.realestate_app.model.dto.PropertyReportDto;
 
 /**
  * RowMapper для преобразования результата JOIN запроса в PropertyReportDto
+ *
+ * Реализация генерируется при компиляции по аннотации {@link RowMapping}
  */
-@Component
-public class PropertyReportRowMapper implements RowMapper<PropertyReportDto> {
-    
-    /**
-     * Преобразует строку ResultSet в объект PropertyReportDto
-     * 
-     * @param rs строка результата SQL запроса
-     * @param rowNum номер строки (не используется)
-     * @return заполненный объект PropertyReportDto
-     * @throws SQLException если произошла ошибка при чтении данных из ResultSet
-     */
-    @Override
-    public PropertyReportDto mapRow(@NonNull ResultSet rs, int rowNum) throws SQLException {
-        PropertyReportDto dto = new PropertyReportDto();
-        
-        // Основные данные недвижимости
-        dto.setId(rs.getLong("property_id"));
-        dto.setArea(rs.getBigDecimal("area"));
-        dto.setCost(rs.getBigDecimal("cost"));
-        dto.setDescription(rs.getString("description"));
-        dto.setPropertyTypeName(rs.getString("property_type_name"));
-        dto.setPostalCode(rs.getString("postal_code"));
-        dto.setHouseNumber(rs.getString("house_number"));
-        dto.setHouseLetter(rs.getString("house_letter"));
-        dto.setBuildingNumber(rs.getString("building_number"));
-        dto.setApartmentNumber(rs.getString("apartment_number"));
-        dto.setStreetName(rs.getString("street_name"));
-        dto.setDistrictName(rs.getString("district_name"));
-        dto.setCityName(rs.getString("city_name"));
-        dto.setRegionCode(rs.getString("region_code"));
-        dto.setRegionName(rs.getString("region_name"));
-        dto.setCountryName(rs.getString("country_name"));
-        
-        return dto;
+@RowMapping(
+    columns = @Column(property = "id", name = "property_id"),
+    dictionary = {
+        "propertyTypeName", "streetName", "districtName", "cityName", "regionCode", "regionName", "countryName"
     }
-}
\ No newline at end of file
+)
+public interface PropertyReportRowMapper extends RowMapper<PropertyReportDto> {
+}
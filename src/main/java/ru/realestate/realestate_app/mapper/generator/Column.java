@@ -0,0 +1,40 @@
+package ru.realestate.realestate_app.mapper.generator;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Настройка одного свойства в {@link RowMapping}
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target({})
+public @interface Column {
+
+    /**
+     * Имя свойства (по сеттеру: setDealDate - dealDate)
+     */
+    String property();
+
+    /**
+     * Имя колонки, если оно не совпадает с именем свойства в snake_case
+     */
+    String name() default "";
+
+    /**
+     * NULL и отсутствие колонки - ошибка SQLException (только для ссылочных типов)
+     */
+    boolean required() default false;
+
+    /**
+     * NULL в числовой колонке даёт null, а не 0 (только для типов-обёрток)
+     */
+    boolean nullable() default false;
+
+    /**
+     * Не заполнять свойство
+     */
+    boolean ignore() default false;
+}
@@ -0,0 +1,138 @@
+package ru.realestate.realestate_app.mapper.generator;
+
+import java.lang.ref.WeakReference;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Индексы колонок и словари строк сгенерированного RowMapper для недавних ResultSet
+ *
+ * RowMapper вызывается для каждой строки, а набор колонок один на весь ResultSet, поэтому
+ * имена колонок сопоставляются с индексами один раз. Один маппер может одновременно читать
+ * несколько ResultSet в разных потоках: они раскладываются по ячейкам по identityHashCode,
+ * и пересчёт индексов нужен только при совпадении ячеек. Записи создаются и используются
+ * потоком, читающим свой ResultSet, поэтому ячейки читаются и пишутся без синхронизации.
+ * Маппер живёт всё время работы приложения, поэтому ячейка держит ResultSet слабой ссылкой:
+ * прочитанный результат не остаётся в памяти из-за кэша, а его словари освобождаются при чтении
+ * следующего ResultSet.
+ */
+public final class ColumnIndexCache {
+
+    // Количество ячеек (степень двойки)
+    private static final int SLOTS = 8;
+
+    // Максимальное количество разных значений в словаре одной колонки; дальше значения
+    // не запоминаются - колонка оказалась не такой однообразной, как ожидалось
+    static final int MAX_DICTIONARY_SIZE = 1024;
+
+    /**
+     * Состояние чтения одного ResultSet: индексы колонок и словари повторяющихся строк
+     */
+    public static final class Columns {
+
+        private final WeakReference<ResultSet> resultSet;
+        private final int[] indexes;
+        private final Map<String, String>[] dictionaries;
+
+        @SuppressWarnings("unchecked")
+        private Columns(ResultSet resultSet, int[] indexes, int dictionaries) {
+            this.resultSet = new WeakReference<>(resultSet);
+            this.indexes = indexes;
+            this.dictionaries = new Map[dictionaries];
+        }
+
+        /**
+         * Индексы (с 1) в порядке имён колонок; 0 - колонки нет в запросе
+         */
+        public int[] indexes() {
+            return indexes;
+        }
+
+        /**
+         * Вернуть для значения единственный экземпляр строки в пределах ResultSet
+         * Прочитанная строка всё равно создаётся драйвером, но живёт недолго, а в результат
+         * попадает общий экземпляр: сотни тысяч строк результата ссылаются на несколько названий
+         * @param dictionary номер словаря
+         * @param value прочитанное значение
+         * @return ранее встреченный равный экземпляр или само значение
+         */
+        public String canonical(int dictionary, String value) {
+            if (value == null) {
+                return null;
+            }
+            Map<String, String> values = dictionaries[dictionary];
+            if (values == null) {
+                values = new HashMap<>();
+                dictionaries[dictionary] = values;
+            }
+            String existing = values.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            if (values.size() < MAX_DICTIONARY_SIZE) {
+                values.put(value, value);
+            }
+            return value;
+        }
+    }
+
+    private final String[] labels;
+    private final int dictionaries;
+    private final Columns[] entries = new Columns[SLOTS];
+
+    /**
+     * Конструктор кэша
+     * @param dictionaries количество колонок, значения которых приводятся к общим экземплярам
+     * @param labels имена колонок в порядке свойств маппера
+     */
+    public ColumnIndexCache(int dictionaries, String... labels) {
+        this.labels = labels;
+        this.dictionaries = dictionaries;
+    }
+
+    /**
+     * Получить состояние чтения ResultSet
+     * @param rs результат запроса
+     * @return индексы колонок и словари этого ResultSet
+     * @throws SQLException если не удалось прочитать метаданные
+     */
+    public Columns forResultSet(ResultSet rs) throws SQLException {
+        int slot = System.identityHashCode(rs) & (SLOTS - 1);
+        Columns entry = entries[slot];
+        if (entry == null || entry.resultSet.get() != rs) {
+            releaseCollected();
+            entry = new Columns(rs, resolve(rs), dictionaries);
+            entries[slot] = entry;
+        }
+        return entry;
+    }
+
+    // Освободить словари ячеек, чей ResultSet уже собран сборщиком мусора
+    private void releaseCollected() {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            Columns entry = entries[slot];
+            if (entry != null && entry.resultSet.get() == null) {
+                entries[slot] = null;
+            }
+        }
+    }
+
+    private int[] resolve(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int count = metaData.getColumnCount();
+        Map<String, Integer> byLabel = new HashMap<>(count * 2);
+        // С конца, чтобы при повторяющихся именах выиграла первая колонка, как в ResultSet.findColumn
+        for (int column = count; column >= 1; column--) {
+            byLabel.put(metaData.getColumnLabel(column).toLowerCase(Locale.ROOT), column);
+        }
+        int[] indexes = new int[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            indexes[i] = byLabel.getOrDefault(labels[i], 0);
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,319 @@
+package ru.realestate.realestate_app.mapper.generator;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Генератор реализаций RowMapper для интерфейсов с аннотацией {@link RowMapping}
+ *
+ * Для каждого публичного сеттера целевого класса (включая унаследованные) генерируется
+ * чтение колонки по индексу типизированным геттером ResultSet и прямой вызов сеттера,
+ * без рефлексии. Неподдерживаемый тип свойства, неизвестное свойство в {@link Column}
+ * и отсутствие публичного конструктора без параметров - ошибки компиляции.
+ *
+ * Генератор компилируется отдельным шагом maven-compiler-plugin до основного кода и подключается
+ * к нему только как путь процессоров аннотаций, в jar приложения он не входит (см. pom.xml).
+ */
+@SupportedAnnotationTypes("ru.realestate.realestate_app.mapper.generator.RowMapping")
+public class RowMapperProcessor extends AbstractProcessor {
+
+    private static final String ROW_MAPPER = "org.springframework.jdbc.core.RowMapper";
+
+    // Типы, читаемые методом ResultSet.getXxx(int); для обёрток - геттер примитива
+    private static final Map<String, String> GETTERS = Map.ofEntries(
+        Map.entry("java.lang.String", "getString"),
+        Map.entry("java.math.BigDecimal", "getBigDecimal"),
+        Map.entry("long", "getLong"),
+        Map.entry("int", "getInt"),
+        Map.entry("short", "getShort"),
+        Map.entry("double", "getDouble"),
+        Map.entry("float", "getFloat"),
+        Map.entry("boolean", "getBoolean"),
+        Map.entry("java.lang.Long", "getLong"),
+        Map.entry("java.lang.Integer", "getInt"),
+        Map.entry("java.lang.Short", "getShort"),
+        Map.entry("java.lang.Double", "getDouble"),
+        Map.entry("java.lang.Float", "getFloat"),
+        Map.entry("java.lang.Boolean", "getBoolean")
+    );
+
+    // Примитив, который возвращает геттер обёртки
+    private static final Map<String, String> UNBOXED = Map.of(
+        "java.lang.Long", "long",
+        "java.lang.Integer", "int",
+        "java.lang.Short", "short",
+        "java.lang.Double", "double",
+        "java.lang.Float", "float",
+        "java.lang.Boolean", "boolean"
+    );
+
+    // Типы java.time, читаемые через getObject(int, Class) без промежуточных java.sql.Date/Timestamp
+    private static final Set<String> OBJECT_TYPES = Set.of(
+        "java.time.LocalDate", "java.time.LocalDateTime", "java.time.LocalTime", "java.time.OffsetDateTime"
+    );
+
+    /**
+     * Свойство целевого класса и способ его чтения
+     */
+    private record Property(String name, String setter, String type, String column,
+                            boolean required, boolean nullable, int dictionary) {}
+
+    /**
+     * Ошибка в объявлении маппера
+     */
+    private static final class MappingException extends Exception {
+        private final transient Element element;
+
+        MappingException(Element element, String message) {
+            super(message);
+            this.element = element;
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(RowMapping.class)) {
+            try {
+                generate((TypeElement) element);
+            } catch (MappingException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage(), e.element);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Не удалось записать реализацию маппера: " + e.getMessage(), element);
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement mapper) throws MappingException, IOException {
+        if (mapper.getKind() != ElementKind.INTERFACE) {
+            throw new MappingException(mapper, "@RowMapping ставится на интерфейс, расширяющий RowMapper");
+        }
+        TypeElement target = findTarget(mapper);
+        checkConstructor(target);
+        List<Property> properties = collectProperties(mapper, target);
+
+        String packageName = ((PackageElement) processingEnv.getElementUtils().getPackageOf(mapper))
+            .getQualifiedName().toString();
+        String implName = mapper.getSimpleName() + "Impl";
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler()
+                .createSourceFile(packageName + "." + implName, mapper).openWriter())) {
+            write(out, packageName, implName, mapper, target, properties);
+        }
+    }
+
+    private TypeElement findTarget(TypeElement mapper) throws MappingException {
+        for (TypeMirror superInterface : mapper.getInterfaces()) {
+            DeclaredType declared = (DeclaredType) superInterface;
+            TypeElement element = (TypeElement) declared.asElement();
+            if (element.getQualifiedName().contentEquals(ROW_MAPPER) && declared.getTypeArguments().size() == 1
+                    && declared.getTypeArguments().getFirst().getKind() == TypeKind.DECLARED) {
+                return (TypeElement) ((DeclaredType) declared.getTypeArguments().getFirst()).asElement();
+            }
+        }
+        throw new MappingException(mapper, "Интерфейс с @RowMapping должен расширять RowMapper<T> с конкретным T");
+    }
+
+    private void checkConstructor(TypeElement target) throws MappingException {
+        boolean found = ElementFilter.constructorsIn(target.getEnclosedElements()).stream()
+            .anyMatch(constructor -> constructor.getModifiers().contains(Modifier.PUBLIC)
+                && constructor.getParameters().isEmpty());
+        if (!found || target.getModifiers().contains(Modifier.ABSTRACT)) {
+            throw new MappingException(target, "Для генерации RowMapper нужен публичный конструктор без параметров: "
+                + target.getQualifiedName());
+        }
+    }
+
+    private List<Property> collectProperties(TypeElement mapper, TypeElement target) throws MappingException {
+        RowMapping mapping = mapper.getAnnotation(RowMapping.class);
+        Map<String, Column> overrides = new HashMap<>();
+        for (Column column : mapping.columns()) {
+            overrides.put(column.property(), column);
+        }
+        List<String> dictionary = List.of(mapping.dictionary());
+
+        // Сеттеры от базового класса к целевому в порядке объявления
+        Deque<TypeElement> hierarchy = new ArrayDeque<>();
+        for (TypeElement type = target; type != null && !type.getQualifiedName().contentEquals("java.lang.Object");
+             type = superclass(type)) {
+            hierarchy.push(type);
+        }
+        Map<String, ExecutableElement> setters = new LinkedHashMap<>();
+        for (TypeElement type : hierarchy) {
+            for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                String name = method.getSimpleName().toString();
+                if (name.length() > 3 && name.startsWith("set") && method.getParameters().size() == 1
+                        && method.getModifiers().contains(Modifier.PUBLIC)
+                        && !method.getModifiers().contains(Modifier.STATIC)
+                        && method.getReturnType().getKind() == TypeKind.VOID) {
+                    setters.put(Character.toLowerCase(name.charAt(3)) + name.substring(4), method);
+                }
+            }
+        }
+
+        for (String property : overrides.keySet()) {
+            if (!setters.containsKey(property)) {
+                throw new MappingException(mapper, "У " + target.getSimpleName() + " нет свойства " + property);
+            }
+        }
+        for (String property : dictionary) {
+            if (!setters.containsKey(property)) {
+                throw new MappingException(mapper, "У " + target.getSimpleName() + " нет свойства " + property);
+            }
+        }
+
+        List<Property> properties = new ArrayList<>();
+        for (Map.Entry<String, ExecutableElement> entry : setters.entrySet()) {
+            Column override = overrides.get(entry.getKey());
+            if (override != null && override.ignore()) {
+                continue;
+            }
+            ExecutableElement setter = entry.getValue();
+            String type = typeName(setter.getParameters().getFirst().asType());
+            boolean required = override != null && override.required();
+            boolean nullable = override != null && override.nullable();
+            if (!GETTERS.containsKey(type) && !OBJECT_TYPES.contains(type)) {
+                throw new MappingException(setter, "Тип " + type + " свойства " + entry.getKey()
+                    + " не поддерживается генератором RowMapper; исключите свойство через @Column(ignore = true)");
+            }
+            boolean primitive = setter.getParameters().getFirst().asType().getKind().isPrimitive();
+            if (required && primitive) {
+                throw new MappingException(setter, "required применим только к свойствам ссылочного типа: " + entry.getKey());
+            }
+            if (nullable && !UNBOXED.containsKey(type)) {
+                throw new MappingException(setter, "nullable применим только к числовым типам-обёрткам: " + entry.getKey());
+            }
+            int dictionaryIndex = dictionary.indexOf(entry.getKey());
+            if (dictionaryIndex >= 0 && !type.equals("java.lang.String")) {
+                throw new MappingException(setter, "dictionary применим только к строковым свойствам: " + entry.getKey());
+            }
+            String column = override != null && !override.name().isEmpty()
+                ? override.name() : toSnakeCase(entry.getKey());
+            properties.add(new Property(entry.getKey(), setter.getSimpleName().toString(), type, column,
+                required, nullable, dictionaryIndex));
+        }
+        return properties;
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    private String typeName(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return type.toString();
+        }
+        if (type.getKind() == TypeKind.DECLARED) {
+            return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    private void write(PrintWriter out, String packageName, String implName, TypeElement mapper,
+                       TypeElement target, List<Property> properties) {
+        long dictionaries = properties.stream().filter(property -> property.dictionary() >= 0).count();
+        String targetName = target.getQualifiedName().toString();
+        out.println("package " + packageName + ";");
+        out.println();
+        out.println("import java.sql.ResultSet;");
+        out.println("import java.sql.SQLException;");
+        out.println();
+        out.println("/**");
+        out.println(" * Реализация {@link " + mapper.getSimpleName() + "}, сгенерированная " + getClass().getSimpleName());
+        out.println(" */");
+        out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+        out.println("@org.springframework.stereotype.Component");
+        out.println("public final class " + implName + " implements " + mapper.getSimpleName() + " {");
+        out.println();
+        out.println("    private final " + ColumnIndexCache.class.getName() + " columns = new "
+            + ColumnIndexCache.class.getName() + "(" + dictionaries + ",");
+        for (int i = 0; i < properties.size(); i++) {
+            out.println("        \"" + properties.get(i).column() + "\"" + (i < properties.size() - 1 ? "," : ");"));
+        }
+        out.println();
+        out.println("    @Override");
+        out.println("    public " + targetName + " mapRow(ResultSet rs, int rowNum) throws SQLException {");
+        out.println("        " + ColumnIndexCache.class.getCanonicalName() + ".Columns state = columns.forResultSet(rs);");
+        out.println("        int[] c = state.indexes();");
+        out.println("        " + targetName + " row = new " + targetName + "();");
+        for (int i = 0; i < properties.size(); i++) {
+            writeProperty(out, properties.get(i), i);
+        }
+        out.println("        return row;");
+        out.println("    }");
+        out.println("}");
+    }
+
+    private void writeProperty(PrintWriter out, Property property, int index) {
+        String column = "c[" + index + "]";
+        String read = OBJECT_TYPES.contains(property.type())
+            ? "rs.getObject(" + column + ", " + property.type() + ".class)"
+            : "rs." + GETTERS.get(property.type()) + "(" + column + ")";
+        if (property.dictionary() >= 0) {
+            read = "state.canonical(" + property.dictionary() + ", " + read + ")";
+        }
+
+        if (property.required()) {
+            String local = property.name() + "Value";
+            out.println("        " + property.type() + " " + local + " = " + column + " != 0 ? " + read + " : null;");
+            out.println("        if (" + local + " == null) {");
+            out.println("            throw new SQLException(\"Колонка " + property.column()
+                + " не может быть NULL (строка \" + rowNum + \")\");");
+            out.println("        }");
+            out.println("        row." + property.setter() + "(" + local + ");");
+            return;
+        }
+
+        out.println("        if (" + column + " != 0) {");
+        if (property.nullable()) {
+            String local = property.name() + "Value";
+            out.println("            " + UNBOXED.get(property.type()) + " " + local + " = " + read + ";");
+            out.println("            row." + property.setter() + "(rs.wasNull() ? null : " + local + ");");
+        } else {
+            out.println("            row." + property.setter() + "(" + read + ");");
+        }
+        out.println("        }");
+    }
+
+    private static String toSnakeCase(String property) {
+        StringBuilder column = new StringBuilder(property.length() + 8);
+        for (int i = 0; i < property.length(); i++) {
+            char ch = property.charAt(i);
+            if (Character.isUpperCase(ch)) {
+                column.append('_').append(Character.toLowerCase(ch));
+            } else {
+                column.append(ch);
+            }
+        }
+        return column.toString();
+    }
+}
@@ -0,0 +1,39 @@
+package ru.realestate.realestate_app.mapper.generator;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Объявление RowMapper, реализация которого генерируется при компиляции
+ *
+ * Ставится на интерфейс, расширяющий RowMapper&lt;T&gt;. {@link RowMapperProcessor} создаёт
+ * рядом класс &lt;Интерфейс&gt;Impl с аннотацией @Component, который заполняет T через
+ * публичные сеттеры. Колонка свойства по умолчанию - имя свойства в snake_case
+ * (dealDate - deal_date); свойства, колонок которых нет в запросе, не заполняются.
+ * Индексы колонок определяются один раз для каждого ResultSet, значения читаются по индексу.
+ *
+ * Числовые свойства читаются примитивными геттерами: NULL даёт 0, как при rs.getLong(...)
+ * в написанных вручную мапперах; {@link Column#nullable()} сохраняет NULL для типов-обёрток.
+ *
+ * Строковые свойства из {@link #dictionary()} - названия из справочников и другие колонки
+ * с небольшим числом разных значений - приводятся к одному экземпляру строки на значение
+ * в пределах ResultSet, чтобы большой результат не хранил тысячи копий одного названия.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface RowMapping {
+
+    /**
+     * Настройки отдельных свойств
+     */
+    Column[] columns() default {};
+
+    /**
+     * Строковые свойства с небольшим числом разных значений
+     */
+    String[] dictionary() default {};
+}
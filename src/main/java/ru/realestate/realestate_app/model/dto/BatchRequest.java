@@ -0,0 +1,134 @@
+package ru.realestate.realestate_app.model.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO пакетного запроса
+ *
+ * Содержит упорядоченный список операций, которые выполняются на одном соединении
+ * с базой данных. При transactional = true все операции выполняются в одной транзакции
+ * и откатываются при первой ошибке.
+ */
+public class BatchRequest {
+
+    /**
+     * Выполнять ли все операции в одной транзакции
+     */
+    private boolean transactional;
+
+    /**
+     * Операции в порядке выполнения
+     */
+    private List<Operation> operations = new ArrayList<>();
+
+    public BatchRequest() {}
+
+    public boolean isTransactional() {
+        return transactional;
+    }
+
+    public void setTransactional(boolean transactional) {
+        this.transactional = transactional;
+    }
+
+    public List<Operation> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<Operation> operations) {
+        this.operations = operations;
+    }
+
+    /**
+     * Отдельная операция пакета
+     *
+     * Пример получения нескольких клиентов: {"action": "get", "entity": "clients", "ids": [1, 2, 3]}
+     * Пример создания: {"action": "create", "entity": "payments", "body": {...}}
+     * Пример обновления: {"action": "update", "entity": "deals", "id": 5, "body": {"dealCost": 5200000}}
+     */
+    public static class Operation {
+
+        /**
+         * Действие: get, create или update
+         */
+        private String action;
+
+        /**
+         * Сущность: clients, realtors, properties, deals, payments, deal-types, property-types
+         */
+        private String entity;
+
+        /**
+         * Идентификаторы для действия get
+         */
+        private List<Long> ids;
+
+        /**
+         * Идентификатор для действия update
+         */
+        private Long id;
+
+        /**
+         * Тело запроса для create и update в том же формате, что и у REST эндпоинтов сущности
+         */
+        private Map<String, Object> body;
+
+        /**
+         * Для создания клиентов: создать клиента, даже если найден вероятный дубликат
+         * (как параметр allowDuplicates у POST /api/clients)
+         */
+        private boolean allowDuplicates;
+
+        public Operation() {}
+
+        public String getAction() {
+            return action;
+        }
+
+        public void setAction(String action) {
+            this.action = action;
+        }
+
+        public String getEntity() {
+            return entity;
+        }
+
+        public void setEntity(String entity) {
+            this.entity = entity;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public void setIds(List<Long> ids) {
+            this.ids = ids;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public Map<String, Object> getBody() {
+            return body;
+        }
+
+        public void setBody(Map<String, Object> body) {
+            this.body = body;
+        }
+
+        public boolean isAllowDuplicates() {
+            return allowDuplicates;
+        }
+
+        public void setAllowDuplicates(boolean allowDuplicates) {
+            this.allowDuplicates = allowDuplicates;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package ru.realestate.realestate_app.model.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO ответа на пакетный запрос
+ *
+ * Содержит результаты операций в порядке их выполнения. В транзакционном режиме
+ * выполнение прекращается на первой ошибке, и committed = false означает, что
+ * изменения всех операций пакета отменены.
+ */
+public class BatchResponse {
+
+    /**
+     * Выполнялись ли операции в одной транзакции
+     */
+    private final boolean transactional;
+
+    /**
+     * Зафиксированы ли изменения (для нетранзакционного режима всегда true)
+     */
+    private boolean committed = true;
+
+    /**
+     * Результаты выполненных операций
+     */
+    private final List<OperationResult> results = new ArrayList<>();
+
+    public BatchResponse(boolean transactional) {
+        this.transactional = transactional;
+    }
+
+    public boolean isTransactional() {
+        return transactional;
+    }
+
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    public void setCommitted(boolean committed) {
+        this.committed = committed;
+    }
+
+    public List<OperationResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Результат отдельной операции пакета
+     */
+    public static class OperationResult {
+
+        /**
+         * Порядковый номер операции в запросе (с нуля)
+         */
+        private final int index;
+
+        /**
+         * HTTP статус, который вернул бы соответствующий REST эндпоинт
+         */
+        private final int status;
+
+        /**
+         * Данные результата (список сущностей, id созданной записи и т.п.)
+         */
+        private final Object data;
+
+        /**
+         * Сообщение об ошибке (null при успешном выполнении)
+         */
+        private final String error;
+
+        public OperationResult(int index, int status, Object data, String error) {
+            this.index = index;
+            this.status = status;
+            this.data = data;
+            this.error = error;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public Object getData() {
+            return data;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
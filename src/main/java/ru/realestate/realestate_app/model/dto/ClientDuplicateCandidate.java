@@ -0,0 +1,60 @@
+package ru.realestate.realestate_app.model.dto;
+
+import ru.realestate.realestate_app.model.Client;
+
+import java.util.List;
+
+/**
+ * DTO вероятного дубликата клиента
+ *
+ * Содержит существующего клиента, оценку сходства и признаки, по которым он совпал.
+ */
+public class ClientDuplicateCandidate {
+
+    /**
+     * Существующий клиент
+     */
+    private Client client;
+
+    /**
+     * Оценка сходства от 0 до 1
+     */
+    private double score;
+
+    /**
+     * Совпавшие признаки: phone, email, emailLocalPart, lastName, firstName, middleName
+     */
+    private List<String> matchedOn;
+
+    public ClientDuplicateCandidate() {}
+
+    public ClientDuplicateCandidate(Client client, double score, List<String> matchedOn) {
+        this.client = client;
+        this.score = score;
+        this.matchedOn = matchedOn;
+    }
+
+    public Client getClient() {
+        return client;
+    }
+
+    public void setClient(Client client) {
+        this.client = client;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    public List<String> getMatchedOn() {
+        return matchedOn;
+    }
+
+    public void setMatchedOn(List<String> matchedOn) {
+        this.matchedOn = matchedOn;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.realestate.realestate_app.model.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * DTO итогов поиска сделок
+ *
+ * Содержит количество и суммарную стоимость подходящих сделок и самые дорогие из них.
+ */
+public class DealSummaryDto {
+
+    /**
+     * Количество подходящих сделок
+     */
+    private long dealCount;
+
+    /**
+     * Суммарная стоимость подходящих сделок
+     */
+    private BigDecimal totalAmount;
+
+    /**
+     * Самые дорогие сделки по убыванию стоимости
+     */
+    private List<DealTableDto> topDeals;
+
+    public DealSummaryDto() {}
+
+    public DealSummaryDto(long dealCount, BigDecimal totalAmount, List<DealTableDto> topDeals) {
+        this.dealCount = dealCount;
+        this.totalAmount = totalAmount;
+        this.topDeals = topDeals;
+    }
+
+    public long getDealCount() {
+        return dealCount;
+    }
+
+    public void setDealCount(long dealCount) {
+        this.dealCount = dealCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public List<DealTableDto> getTopDeals() {
+        return topDeals;
+    }
+
+    public void setTopDeals(List<DealTableDto> topDeals) {
+        this.topDeals = topDeals;
+    }
+}
@@ -0,0 +1,224 @@
+package ru.realestate.realestate_app.model.dto;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Точка временного ряда сделок: показатели одной группы за один интервал
+ *
+ * Интервал задаётся датой начала (результат date_trunc), группа - типом сделки,
+ * городом объекта или отсутствует (итог по всем сделкам интервала).
+ */
+public class DealTimeseriesPoint {
+
+    /**
+     * Размер интервала временного ряда
+     */
+    public enum Bucket {
+        DAY("day"),
+        WEEK("week"),
+        MONTH("month");
+
+        private final String sqlUnit;
+
+        Bucket(String sqlUnit) {
+            this.sqlUnit = sqlUnit;
+        }
+
+        /**
+         * Единица для date_trunc (значение из перечисления, поэтому безопасно подставляется в SQL)
+         */
+        public String getSqlUnit() {
+            return sqlUnit;
+        }
+
+        /**
+         * Начало интервала, содержащего дату (так же, как date_trunc: неделя начинается с понедельника)
+         */
+        public LocalDate truncate(LocalDate date) {
+            return switch (this) {
+                case DAY -> date;
+                case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> date.withDayOfMonth(1);
+            };
+        }
+
+        /**
+         * Начало следующего интервала
+         * @param start начало интервала
+         */
+        public LocalDate next(LocalDate start) {
+            return switch (this) {
+                case DAY -> start.plusDays(1);
+                case WEEK -> start.plusWeeks(1);
+                case MONTH -> start.plusMonths(1);
+            };
+        }
+
+        /**
+         * Разбор параметра запроса (day, week, month)
+         * @throws IllegalArgumentException если значение не поддерживается
+         */
+        public static Bucket fromParameter(String value) {
+            for (Bucket bucket : values()) {
+                if (bucket.sqlUnit.equalsIgnoreCase(value)) {
+                    return bucket;
+                }
+            }
+            throw new IllegalArgumentException("Неподдерживаемый интервал: " + value + ". Допустимые значения: day, week, month");
+        }
+    }
+
+    /**
+     * Группировка сделок внутри интервала
+     */
+    public enum GroupBy {
+        NONE("none"),
+        DEAL_TYPE("dealType"),
+        CITY("city");
+
+        private final String parameter;
+
+        GroupBy(String parameter) {
+            this.parameter = parameter;
+        }
+
+        public String getParameter() {
+            return parameter;
+        }
+
+        /**
+         * Разбор параметра запроса (none, dealType, city)
+         * @throws IllegalArgumentException если значение не поддерживается
+         */
+        public static GroupBy fromParameter(String value) {
+            for (GroupBy groupBy : values()) {
+                if (groupBy.parameter.equalsIgnoreCase(value)) {
+                    return groupBy;
+                }
+            }
+            throw new IllegalArgumentException("Неподдерживаемая группировка: " + value + ". Допустимые значения: none, dealType, city");
+        }
+    }
+
+    /**
+     * Дата начала интервала
+     */
+    private LocalDate bucketStart;
+
+    /**
+     * Интервал завершён (его показатели больше не меняются со временем)
+     */
+    private boolean closed;
+
+    /**
+     * Идентификатор группы (типа сделки или города), null без группировки
+     */
+    private Long groupId;
+
+    /**
+     * Название группы, null без группировки
+     */
+    private String groupName;
+
+    /**
+     * Количество сделок в интервале
+     */
+    private long dealCount;
+
+    /**
+     * Суммарная стоимость сделок (выручка) в интервале
+     */
+    private BigDecimal revenue;
+
+    /**
+     * Средняя стоимость сделки
+     */
+    private BigDecimal averageCost;
+
+    /**
+     * Доля группы в выручке интервала (от 0 до 1)
+     */
+    private BigDecimal revenueShare;
+
+    /**
+     * Место группы по выручке внутри интервала (с 1)
+     */
+    private int revenueRank;
+
+    public DealTimeseriesPoint() {}
+
+    public LocalDate getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDate bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void setClosed(boolean closed) {
+        this.closed = closed;
+    }
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public String getGroupName() {
+        return groupName;
+    }
+
+    public void setGroupName(String groupName) {
+        this.groupName = groupName;
+    }
+
+    public long getDealCount() {
+        return dealCount;
+    }
+
+    public void setDealCount(long dealCount) {
+        this.dealCount = dealCount;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public BigDecimal getAverageCost() {
+        return averageCost;
+    }
+
+    public void setAverageCost(BigDecimal averageCost) {
+        this.averageCost = averageCost;
+    }
+
+    public BigDecimal getRevenueShare() {
+        return revenueShare;
+    }
+
+    public void setRevenueShare(BigDecimal revenueShare) {
+        this.revenueShare = revenueShare;
+    }
+
+    public int getRevenueRank() {
+        return revenueRank;
+    }
+
+    public void setRevenueRank(int revenueRank) {
+        this.revenueRank = revenueRank;
+    }
+}
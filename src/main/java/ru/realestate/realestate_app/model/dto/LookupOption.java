@@ -0,0 +1,43 @@
+package ru.realestate.realestate_app.model.dto;
+
+/**
+ * DTO варианта выпадающего списка с поиском
+ *
+ * Содержит идентификатор записи и подпись в том же виде, что и в формах
+ * (например, полное имя клиента или адрес объекта недвижимости).
+ */
+public class LookupOption {
+
+    /**
+     * Идентификатор записи
+     */
+    private Long id;
+
+    /**
+     * Подпись варианта
+     */
+    private String label;
+
+    public LookupOption() {}
+
+    public LookupOption(Long id, String label) {
+        this.id = id;
+        this.label = label;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+}
@@ -0,0 +1,75 @@
+package ru.realestate.realestate_app.model.dto;
+
+import ru.realestate.realestate_app.model.Payment;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * DTO созданного графика платежей по сделке
+ *
+ * Сумма платежей графика равна стоимости сделки.
+ */
+public class PaymentScheduleDto {
+
+    /**
+     * ID сделки
+     */
+    private Long dealId;
+
+    /**
+     * Сумма всех платежей графика (стоимость сделки)
+     */
+    private BigDecimal totalAmount;
+
+    /**
+     * ID созданных платежей в порядке дат
+     */
+    private List<Long> paymentIds;
+
+    /**
+     * Созданные платежи в порядке дат
+     */
+    private List<Payment> payments;
+
+    public PaymentScheduleDto() {}
+
+    public PaymentScheduleDto(Long dealId, BigDecimal totalAmount, List<Long> paymentIds, List<Payment> payments) {
+        this.dealId = dealId;
+        this.totalAmount = totalAmount;
+        this.paymentIds = paymentIds;
+        this.payments = payments;
+    }
+
+    public Long getDealId() {
+        return dealId;
+    }
+
+    public void setDealId(Long dealId) {
+        this.dealId = dealId;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public List<Long> getPaymentIds() {
+        return paymentIds;
+    }
+
+    public void setPaymentIds(List<Long> paymentIds) {
+        this.paymentIds = paymentIds;
+    }
+
+    public List<Payment> getPayments() {
+        return payments;
+    }
+
+    public void setPayments(List<Payment> payments) {
+        this.payments = payments;
+    }
+}
@@ -0,0 +1,102 @@
+package ru.realestate.realestate_app.model.dto;
+
+import java.time.LocalDate;
+
+/**
+ * DTO запроса на создание графика платежей по сделке
+ *
+ * Пример: {"count": 12, "frequency": "month", "firstDate": "2025-01-15"}
+ */
+public class PaymentScheduleRequest {
+
+    /**
+     * Количество платежей
+     */
+    private Integer count;
+
+    /**
+     * Периодичность: week, month, quarter или year (по умолчанию month)
+     */
+    private String frequency = Frequency.MONTH.getParameter();
+
+    /**
+     * Дата первого платежа
+     */
+    private LocalDate firstDate;
+
+    public PaymentScheduleRequest() {}
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public void setCount(Integer count) {
+        this.count = count;
+    }
+
+    public String getFrequency() {
+        return frequency;
+    }
+
+    public void setFrequency(String frequency) {
+        this.frequency = frequency;
+    }
+
+    public LocalDate getFirstDate() {
+        return firstDate;
+    }
+
+    public void setFirstDate(LocalDate firstDate) {
+        this.firstDate = firstDate;
+    }
+
+    /**
+     * Периодичность платежей графика
+     */
+    public enum Frequency {
+        WEEK("week"),
+        MONTH("month"),
+        QUARTER("quarter"),
+        YEAR("year");
+
+        private final String parameter;
+
+        Frequency(String parameter) {
+            this.parameter = parameter;
+        }
+
+        public String getParameter() {
+            return parameter;
+        }
+
+        /**
+         * Дата платежа с указанным номером
+         * Отсчитывается от первой даты, а не от предыдущего платежа, поэтому после короткого месяца
+         * платежи возвращаются на исходное число (31.01 → 28.02 → 31.03)
+         * @param first дата первого платежа
+         * @param index номер платежа, начиная с 0
+         */
+        public LocalDate dateOf(LocalDate first, int index) {
+            return switch (this) {
+                case WEEK -> first.plusWeeks(index);
+                case MONTH -> first.plusMonths(index);
+                case QUARTER -> first.plusMonths(3L * index);
+                case YEAR -> first.plusYears(index);
+            };
+        }
+
+        /**
+         * Разбор значения запроса (week, month, quarter, year)
+         * @throws IllegalArgumentException если значение не поддерживается
+         */
+        public static Frequency fromParameter(String value) {
+            for (Frequency frequency : values()) {
+                if (frequency.parameter.equalsIgnoreCase(value)) {
+                    return frequency;
+                }
+            }
+            throw new IllegalArgumentException("Неподдерживаемая периодичность: " + value
+                + ". Допустимые значения: week, month, quarter, year");
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ru.realestate.realestate_app.model.dto;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * DTO квантилей цены и цены за м² для группы объектов недвижимости
+ *
+ * Поля группы, по которым не выполнялась группировка, равны null.
+ * Квантили приближённые (скетч KLL), ключи карт - p10, p50, p90 и т.п.
+ */
+public class PriceQuantilesDto {
+
+    private Long cityId;
+    private String cityName;
+    private Long districtId;
+    private String districtName;
+    private Long propertyTypeId;
+    private String propertyTypeName;
+
+    /**
+     * Количество объектов в группе (с учётом ещё не перестроенных изменений)
+     */
+    private long count;
+
+    /**
+     * Квантили стоимости объекта
+     */
+    private Map<String, BigDecimal> price;
+
+    /**
+     * Квантили стоимости квадратного метра (объекты с ненулевой площадью)
+     */
+    private Map<String, BigDecimal> pricePerSqm;
+
+    public PriceQuantilesDto() {}
+
+    public Long getCityId() {
+        return cityId;
+    }
+
+    public void setCityId(Long cityId) {
+        this.cityId = cityId;
+    }
+
+    public String getCityName() {
+        return cityName;
+    }
+
+    public void setCityName(String cityName) {
+        this.cityName = cityName;
+    }
+
+    public Long getDistrictId() {
+        return districtId;
+    }
+
+    public void setDistrictId(Long districtId) {
+        this.districtId = districtId;
+    }
+
+    public String getDistrictName() {
+        return districtName;
+    }
+
+    public void setDistrictName(String districtName) {
+        this.districtName = districtName;
+    }
+
+    public Long getPropertyTypeId() {
+        return propertyTypeId;
+    }
+
+    public void setPropertyTypeId(Long propertyTypeId) {
+        this.propertyTypeId = propertyTypeId;
+    }
+
+    public String getPropertyTypeName() {
+        return propertyTypeName;
+    }
+
+    public void setPropertyTypeName(String propertyTypeName) {
+        this.propertyTypeName = propertyTypeName;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public Map<String, BigDecimal> getPrice() {
+        return price;
+    }
+
+    public void setPrice(Map<String, BigDecimal> price) {
+        this.price = price;
+    }
+
+    public Map<String, BigDecimal> getPricePerSqm() {
+        return pricePerSqm;
+    }
+
+    public void setPricePerSqm(Map<String, BigDecimal> pricePerSqm) {
+        this.pricePerSqm = pricePerSqm;
+    }
+}
@@ -0,0 +1,86 @@
+package ru.realestate.realestate_app.model.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO строки рейтинга риелторов
+ *
+ * Содержит место в рейтинге, данные риелтора и его итоги за период.
+ */
+public class RealtorLeaderboardEntry {
+
+    /**
+     * Место в рейтинге (с 1)
+     */
+    private int rank;
+
+    /**
+     * Идентификатор риелтора
+     */
+    private Long realtorId;
+
+    /**
+     * Полное имя риелтора (Фамилия Имя Отчество)
+     */
+    private String realtorName;
+
+    /**
+     * Количество сделок за период
+     */
+    private long dealCount;
+
+    /**
+     * Суммарная стоимость сделок за период
+     */
+    private BigDecimal dealVolume;
+
+    public RealtorLeaderboardEntry() {}
+
+    public RealtorLeaderboardEntry(int rank, Long realtorId, String realtorName, long dealCount, BigDecimal dealVolume) {
+        this.rank = rank;
+        this.realtorId = realtorId;
+        this.realtorName = realtorName;
+        this.dealCount = dealCount;
+        this.dealVolume = dealVolume;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+
+    public Long getRealtorId() {
+        return realtorId;
+    }
+
+    public void setRealtorId(Long realtorId) {
+        this.realtorId = realtorId;
+    }
+
+    public String getRealtorName() {
+        return realtorName;
+    }
+
+    public void setRealtorName(String realtorName) {
+        this.realtorName = realtorName;
+    }
+
+    public long getDealCount() {
+        return dealCount;
+    }
+
+    public void setDealCount(long dealCount) {
+        this.dealCount = dealCount;
+    }
+
+    public BigDecimal getDealVolume() {
+        return dealVolume;
+    }
+
+    public void setDealVolume(BigDecimal dealVolume) {
+        this.dealVolume = dealVolume;
+    }
+}
@@ -0,0 +1,116 @@
+package ru.realestate.realestate_app.model.dto;
+
+import java.util.List;
+
+/**
+ * DTO результата проверки схемы базы данных
+ *
+ * Сравнивает базу данных с миграциями, поставляемыми с приложением: какие версии
+ * ещё не применены, какие скрипты изменились после применения и каких таблиц
+ * и индексов, нужных запросам DAO, в базе нет.
+ */
+public class SchemaStatusDto {
+
+    /**
+     * Режим работы с миграциями при старте (migrate, verify, off)
+     */
+    private String mode;
+
+    /**
+     * Последняя применённая версия (null - миграции не применялись)
+     */
+    private Integer currentVersion;
+
+    /**
+     * Последняя версия, поставляемая с приложением
+     */
+    private int latestVersion;
+
+    /**
+     * Неприменённые миграции (например, V2__access_path_indexes)
+     */
+    private List<String> pendingMigrations;
+
+    /**
+     * Миграции, скрипт которых изменился после применения
+     */
+    private List<String> checksumMismatches;
+
+    /**
+     * Отсутствующие таблицы
+     */
+    private List<String> missingTables;
+
+    /**
+     * Отсутствующие индексы в виде "имя ON таблица USING метод (колонки)"
+     * Индекс считается присутствующим и под другим именем, если в таблице есть индекс
+     * того же метода, ключ которого начинается с нужных колонок
+     */
+    private List<String> missingIndexes;
+
+    public SchemaStatusDto() {}
+
+    /**
+     * Схема соответствует поставляемым миграциям
+     */
+    public boolean isUpToDate() {
+        return pendingMigrations.isEmpty() && checksumMismatches.isEmpty()
+            && missingTables.isEmpty() && missingIndexes.isEmpty();
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public Integer getCurrentVersion() {
+        return currentVersion;
+    }
+
+    public void setCurrentVersion(Integer currentVersion) {
+        this.currentVersion = currentVersion;
+    }
+
+    public int getLatestVersion() {
+        return latestVersion;
+    }
+
+    public void setLatestVersion(int latestVersion) {
+        this.latestVersion = latestVersion;
+    }
+
+    public List<String> getPendingMigrations() {
+        return pendingMigrations;
+    }
+
+    public void setPendingMigrations(List<String> pendingMigrations) {
+        this.pendingMigrations = pendingMigrations;
+    }
+
+    public List<String> getChecksumMismatches() {
+        return checksumMismatches;
+    }
+
+    public void setChecksumMismatches(List<String> checksumMismatches) {
+        this.checksumMismatches = checksumMismatches;
+    }
+
+    public List<String> getMissingTables() {
+        return missingTables;
+    }
+
+    public void setMissingTables(List<String> missingTables) {
+        this.missingTables = missingTables;
+    }
+
+    public List<String> getMissingIndexes() {
+        return missingIndexes;
+    }
+
+    public void setMissingIndexes(List<String> missingIndexes) {
+        this.missingIndexes = missingIndexes;
+    }
+}
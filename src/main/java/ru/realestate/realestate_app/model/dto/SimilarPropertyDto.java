@@ -0,0 +1,45 @@
+package ru.realestate.realestate_app.model.dto;
+
+import ru.realestate.realestate_app.model.Property;
+
+/**
+ * DTO похожего объекта недвижимости
+ *
+ * Содержит объект и его расстояние до исходного по нормированным признакам
+ * (площадь, стоимость, стоимость м², тип недвижимости, район).
+ */
+public class SimilarPropertyDto {
+
+    /**
+     * Похожий объект недвижимости
+     */
+    private Property property;
+
+    /**
+     * Расстояние до исходного объекта (меньше - похожее, 0 - совпадают по всем признакам)
+     */
+    private double distance;
+
+    public SimilarPropertyDto() {}
+
+    public SimilarPropertyDto(Property property, double distance) {
+        this.property = property;
+        this.distance = distance;
+    }
+
+    public Property getProperty() {
+        return property;
+    }
+
+    public void setProperty(Property property) {
+        this.property = property;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    public void setDistance(double distance) {
+        this.distance = distance;
+    }
+}
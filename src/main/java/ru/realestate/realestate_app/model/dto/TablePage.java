@@ -0,0 +1,91 @@
+package ru.realestate.realestate_app.model.dto;
+
+import java.util.List;
+
+/**
+ * Страница табличных данных с общим количеством строк
+ *
+ * Общее количество может быть точным, оценкой по статистике таблицы (без фильтров)
+ * или нижней границей (при широком фильтре точный подсчёт ограничивается).
+ */
+public class TablePage<T> {
+
+    /**
+     * Вид общего количества строк
+     */
+    public enum TotalType {
+        /** Точное количество */
+        EXACT,
+        /** Оценка по статистике планировщика (pg_class.reltuples) */
+        ESTIMATE,
+        /** Строк не меньше указанного количества */
+        AT_LEAST
+    }
+
+    private final List<T> rows;
+    private final TableQuery query;
+    private final long totalRows;
+    private final TotalType totalType;
+
+    public TablePage(List<T> rows, TableQuery query, long totalRows, TotalType totalType) {
+        this.rows = rows;
+        this.query = query;
+        this.totalRows = totalRows;
+        this.totalType = totalType;
+    }
+
+    public List<T> getRows() {
+        return rows;
+    }
+
+    public TableQuery getQuery() {
+        return query;
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public TotalType getTotalType() {
+        return totalType;
+    }
+
+    public boolean isTotalExact() {
+        return totalType == TotalType.EXACT;
+    }
+
+    /**
+     * Количество страниц (для неточного количества - по известной его части)
+     */
+    public long getTotalPages() {
+        return Math.max(1, (totalRows + query.getSize() - 1) / query.getSize());
+    }
+
+    /**
+     * Номер первой строки страницы (с 1), 0 для пустой страницы
+     */
+    public long getFirstRowNumber() {
+        return rows.isEmpty() ? 0 : query.getOffset() + 1;
+    }
+
+    /**
+     * Номер последней строки страницы
+     */
+    public long getLastRowNumber() {
+        return query.getOffset() + rows.size();
+    }
+
+    public boolean hasPrevious() {
+        return query.getPage() > 1;
+    }
+
+    /**
+     * Есть ли следующая страница (полная страница при неточном количестве тоже считается незавершённой)
+     */
+    public boolean hasNext() {
+        if (rows.size() < query.getSize()) {
+            return false;
+        }
+        return !isTotalExact() || getLastRowNumber() < totalRows;
+    }
+}
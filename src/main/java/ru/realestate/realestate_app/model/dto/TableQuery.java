@@ -0,0 +1,89 @@
+package ru.realestate.realestate_app.model.dto;
+
+import java.util.Set;
+
+/**
+ * Параметры страницы таблицы: номер страницы, размер и сортировка
+ *
+ * Значения из запроса нормализуются: номер страницы не меньше 1,
+ * размер ограничен диапазоном 1..MAX_SIZE, направление - asc или desc.
+ * Ключ сортировки проверяется DAO по списку разрешённых столбцов.
+ */
+public class TableQuery {
+
+    /**
+     * Размер страницы по умолчанию
+     */
+    public static final int DEFAULT_SIZE = 50;
+
+    /**
+     * Максимальный размер страницы
+     */
+    public static final int MAX_SIZE = 200;
+
+    private final int page;
+    private final int size;
+    private final String sort;
+    private final boolean descending;
+
+    private TableQuery(int page, int size, String sort, boolean descending) {
+        this.page = page;
+        this.size = size;
+        this.sort = sort;
+        this.descending = descending;
+    }
+
+    /**
+     * Создать параметры страницы из параметров запроса
+     * @param page номер страницы (с 1, может быть null)
+     * @param size размер страницы (может быть null)
+     * @param sort ключ сортировки (может быть null)
+     * @param direction направление сортировки asc/desc (может быть null)
+     * @return нормализованные параметры страницы
+     */
+    public static TableQuery of(Integer page, Integer size, String sort, String direction) {
+        int normalizedPage = page == null || page < 1 ? 1 : page;
+        int normalizedSize = size == null || size < 1 ? DEFAULT_SIZE : Math.min(size, MAX_SIZE);
+        return new TableQuery(normalizedPage, normalizedSize, sort, "desc".equalsIgnoreCase(direction));
+    }
+
+    /**
+     * Получить параметры с проверенным ключом сортировки
+     * @param allowedSorts разрешённые ключи сортировки
+     * @param defaultSort ключ сортировки по умолчанию
+     * @return параметры страницы, в которых ключ сортировки входит в allowedSorts
+     */
+    public TableQuery withAllowedSort(Set<String> allowedSorts, String defaultSort) {
+        if (sort != null && allowedSorts.contains(sort)) {
+            return this;
+        }
+        return new TableQuery(page, size, defaultSort, sort != null && descending);
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public String getDirection() {
+        return descending ? "desc" : "asc";
+    }
+
+    /**
+     * Смещение первой строки страницы
+     */
+    public long getOffset() {
+        return (long) (page - 1) * size;
+    }
+}
@@ -0,0 +1,273 @@
+package ru.realestate.realestate_app.service;
+
+import org.springframework.stereotype.Service;
+
+import ru.realestate.realestate_app.cache.DealTimeseriesCache;
+import ru.realestate.realestate_app.cache.PriceQuantileIndex;
+import ru.realestate.realestate_app.cache.PriceQuantileIndex.GroupKey;
+import ru.realestate.realestate_app.cache.PriceQuantileIndex.GroupSketches;
+import ru.realestate.realestate_app.cache.QuantileSketch;
+import ru.realestate.realestate_app.dao.DealAnalyticsDao;
+import ru.realestate.realestate_app.exception.DatabaseException;
+import ru.realestate.realestate_app.exception.RealEstateException;
+import ru.realestate.realestate_app.exception.ValidationException;
+import ru.realestate.realestate_app.exception.handler.ExceptionHandler;
+import ru.realestate.realestate_app.model.DealType;
+import ru.realestate.realestate_app.model.PropertyType;
+import ru.realestate.realestate_app.model.dto.DealTimeseriesPoint;
+import ru.realestate.realestate_app.model.dto.DealTimeseriesPoint.Bucket;
+import ru.realestate.realestate_app.model.dto.DealTimeseriesPoint.GroupBy;
+import ru.realestate.realestate_app.model.dto.PriceQuantilesDto;
+import ru.realestate.realestate_app.model.geography.City;
+import ru.realestate.realestate_app.model.geography.District;
+import ru.realestate.realestate_app.service.reference.DealTypeService;
+import ru.realestate.realestate_app.service.reference.GeographyService;
+import ru.realestate.realestate_app.service.reference.PropertyTypeService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Сервис аналитики по сделкам
+ *
+ * Временной ряд собирается из двух частей: завершённые интервалы берутся из
+ * {@link DealTimeseriesCache}, текущий (открытый) интервал и будущие даты
+ * считаются запросом к базе данных при каждом обращении.
+ * Квантили цен объектов считаются по скетчам из {@link PriceQuantileIndex}.
+ */
+@Service
+public class AnalyticsService {
+
+    private final DealAnalyticsDao dealAnalyticsDao;
+    private final DealTimeseriesCache dealTimeseriesCache;
+    private final DealTypeService dealTypeService;
+    private final GeographyService geographyService;
+    private final PriceQuantileIndex priceQuantileIndex;
+    private final PropertyTypeService propertyTypeService;
+
+    /**
+     * Максимальное количество квантилей в одном запросе
+     */
+    public static final int MAX_QUANTILES = 20;
+
+    // Порядок групп в ответе: по городу, району и типу, группы без значения - первыми
+    private static final Comparator<GroupKey> GROUP_ORDER = Comparator
+        .comparing(GroupKey::cityId, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(GroupKey::districtId, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(GroupKey::propertyTypeId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    /**
+     * Конструктор сервиса с инжекцией зависимостей
+     * @param dealAnalyticsDao DAO аналитических запросов по сделкам
+     * @param dealTimeseriesCache кэш завершённых интервалов
+     * @param dealTypeService сервис типов сделок (названия групп)
+     * @param geographyService сервис географии (названия городов и районов)
+     * @param priceQuantileIndex скетчи квантилей цен объектов
+     * @param propertyTypeService сервис типов недвижимости (названия групп)
+     */
+    public AnalyticsService(DealAnalyticsDao dealAnalyticsDao, DealTimeseriesCache dealTimeseriesCache,
+                            DealTypeService dealTypeService, GeographyService geographyService,
+                            PriceQuantileIndex priceQuantileIndex, PropertyTypeService propertyTypeService) {
+        this.dealAnalyticsDao = dealAnalyticsDao;
+        this.dealTimeseriesCache = dealTimeseriesCache;
+        this.dealTypeService = dealTypeService;
+        this.geographyService = geographyService;
+        this.priceQuantileIndex = priceQuantileIndex;
+        this.propertyTypeService = propertyTypeService;
+    }
+
+    /**
+     * Получить временной ряд количества и выручки сделок
+     *
+     * Интервалы, пересекающиеся с периодом, возвращаются целиком.
+     *
+     * @param bucket размер интервала: day, week или month
+     * @param groupBy группировка: none, dealType или city
+     * @param from начало периода (включительно, может быть null)
+     * @param to конец периода (включительно, может быть null)
+     * @return точки ряда, упорядоченные по интервалу и месту группы по выручке
+     * @throws ValidationException если параметры некорректны
+     * @throws DatabaseException если произошла ошибка при работе с базой данных
+     */
+    public List<DealTimeseriesPoint> getDealTimeseries(String bucket, String groupBy, LocalDate from, LocalDate to) {
+        Bucket parsedBucket;
+        GroupBy parsedGroupBy;
+        try {
+            parsedBucket = Bucket.fromParameter(bucket);
+            parsedGroupBy = GroupBy.fromParameter(groupBy);
+        } catch (IllegalArgumentException e) {
+            throw ExceptionHandler.handleValidationException(e, "DealAnalytics");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ValidationException("from", "Начало периода не может быть позже его конца");
+        }
+
+        try {
+            LocalDate openStart = parsedBucket.truncate(LocalDate.now());
+            LocalDate fromBucket = from != null ? parsedBucket.truncate(from) : null;
+            LocalDate toExclusive = to != null ? parsedBucket.next(parsedBucket.truncate(to)) : null;
+
+            List<DealTimeseriesPoint> result = new ArrayList<>();
+            if (fromBucket == null || fromBucket.isBefore(openStart)) {
+                for (DealTimeseriesPoint point : dealTimeseriesCache.getClosed(
+                        parsedBucket, parsedGroupBy, openStart, fromBucket, toExclusive)) {
+                    result.add(copy(point));
+                }
+            }
+            if (toExclusive == null || toExclusive.isAfter(openStart)) {
+                LocalDate openFrom = fromBucket != null && fromBucket.isAfter(openStart) ? fromBucket : openStart;
+                result.addAll(dealAnalyticsDao.findTimeseries(parsedBucket, parsedGroupBy, openFrom, toExclusive));
+            }
+
+            fillGroupNames(result, parsedGroupBy);
+            return result;
+        } catch (Exception e) {
+            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
+            ExceptionHandler.logException(re, "Ошибка при построении временного ряда сделок");
+            throw re;
+        }
+    }
+
+    /**
+     * Получить квантили цены и цены за м² объектов недвижимости
+     *
+     * Квантили приближённые: ошибка ранга около 1.7 / k скетча (менее 1% при k = 200).
+     *
+     * @param cityId фильтр по городу (может быть null)
+     * @param districtId фильтр по району (может быть null)
+     * @param propertyTypeId фильтр по типу недвижимости (может быть null)
+     * @param groupBy группировка: districtAndType, district, propertyType, city или none
+     * @param quantiles доли от 0 до 1
+     * @return квантили по группам
+     * @throws ValidationException если параметры некорректны
+     * @throws DatabaseException если скетчи не удалось построить
+     */
+    public List<PriceQuantilesDto> getPriceQuantiles(Long cityId, Long districtId, Long propertyTypeId,
+                                                     String groupBy, List<Double> quantiles) {
+        Function<GroupKey, GroupKey> projection = switch (groupBy == null ? "" : groupBy) {
+            case "districtAndType" -> key -> key;
+            case "district" -> key -> new GroupKey(key.cityId(), key.districtId(), null);
+            case "propertyType" -> key -> new GroupKey(null, null, key.propertyTypeId());
+            case "city" -> key -> new GroupKey(key.cityId(), null, null);
+            case "none" -> _ -> new GroupKey(null, null, null);
+            default -> throw new ValidationException("groupBy",
+                "Допустимые значения: districtAndType, district, propertyType, city, none");
+        };
+        if (quantiles == null || quantiles.isEmpty() || quantiles.size() > MAX_QUANTILES) {
+            throw new ValidationException("quantiles", "Укажите от 1 до " + MAX_QUANTILES + " квантилей");
+        }
+        for (Double q : quantiles) {
+            if (q == null || q < 0 || q > 1) {
+                throw new ValidationException("quantiles", "Квантиль должен быть в диапазоне от 0 до 1");
+            }
+        }
+
+        // Если при старте база была недоступна, пробуем построить скетчи при первом обращении
+        if (!priceQuantileIndex.isLoaded() && !priceQuantileIndex.reload()) {
+            throw new DatabaseException("SELECT", "Квантили цен недоступны: не удалось прочитать объекты недвижимости");
+        }
+
+        Map<GroupKey, GroupSketches> merged = priceQuantileIndex.query(
+            key -> (cityId == null || cityId.equals(key.cityId()))
+                && (districtId == null || districtId.equals(key.districtId()))
+                && (propertyTypeId == null || propertyTypeId.equals(key.propertyTypeId())),
+            projection
+        );
+
+        try {
+            Map<Long, String> cityNames = toNames(geographyService.findAllCities(), City::getIdCity, City::getCityName);
+            Map<Long, String> districtNames = toNames(geographyService.findAllDistricts(),
+                                                      District::getIdDistrict, District::getDistrictName);
+            Map<Long, String> typeNames = toNames(propertyTypeService.findAll(),
+                                                  PropertyType::getIdPropertyType, PropertyType::getPropertyTypeName);
+
+            List<PriceQuantilesDto> result = new ArrayList<>(merged.size());
+            merged.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(GROUP_ORDER))
+                .forEach(entry -> {
+                    GroupKey key = entry.getKey();
+                    GroupSketches sketches = entry.getValue();
+                    PriceQuantilesDto dto = new PriceQuantilesDto();
+                    dto.setCityId(key.cityId());
+                    dto.setCityName(key.cityId() != null ? cityNames.get(key.cityId()) : null);
+                    dto.setDistrictId(key.districtId());
+                    dto.setDistrictName(key.districtId() != null ? districtNames.get(key.districtId()) : null);
+                    dto.setPropertyTypeId(key.propertyTypeId());
+                    dto.setPropertyTypeName(key.propertyTypeId() != null ? typeNames.get(key.propertyTypeId()) : null);
+                    dto.setCount(sketches.getPrice().getCount());
+                    dto.setPrice(quantileValues(sketches.getPrice(), quantiles));
+                    dto.setPricePerSqm(quantileValues(sketches.getPricePerSqm(), quantiles));
+                    result.add(dto);
+                });
+            return result;
+        } catch (Exception e) {
+            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Property", null);
+            ExceptionHandler.logException(re, "Ошибка при получении квантилей цен объектов недвижимости");
+            throw re;
+        }
+    }
+
+    /**
+     * Значения квантилей с ключами p10, p50, p99.9 и т.п., округлённые до копеек
+     */
+    private Map<String, BigDecimal> quantileValues(QuantileSketch sketch, List<Double> quantiles) {
+        Map<String, BigDecimal> values = new LinkedHashMap<>();
+        for (double q : quantiles) {
+            String name = "p" + BigDecimal.valueOf(q * 100).stripTrailingZeros().toPlainString();
+            double value = sketch.quantile(q);
+            values.put(name, Double.isNaN(value) ? null : BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP));
+        }
+        return values;
+    }
+
+    private <T> Map<Long, String> toNames(List<T> items, Function<T, Long> id, Function<T, String> name) {
+        Map<Long, String> names = new HashMap<>();
+        for (T item : items) {
+            names.put(id.apply(item), name.apply(item));
+        }
+        return names;
+    }
+
+    /**
+     * Заполнить названия групп по текущим справочникам (в кэше хранятся только идентификаторы)
+     */
+    private void fillGroupNames(List<DealTimeseriesPoint> points, GroupBy groupBy) {
+        Map<Long, String> names = switch (groupBy) {
+            case NONE -> Map.of();
+            case DEAL_TYPE -> dealTypeService.findAll().stream()
+                .collect(Collectors.toMap(DealType::getIdDealType, DealType::getDealTypeName));
+            case CITY -> geographyService.findAllCities().stream()
+                .collect(Collectors.toMap(City::getIdCity, City::getCityName, (first, _) -> first));
+        };
+        for (DealTimeseriesPoint point : points) {
+            if (point.getGroupId() != null) {
+                point.setGroupName(names.get(point.getGroupId()));
+            }
+        }
+    }
+
+    /**
+     * Копия точки из кэша, чтобы заполнение названий не меняло общие объекты
+     */
+    private DealTimeseriesPoint copy(DealTimeseriesPoint source) {
+        DealTimeseriesPoint point = new DealTimeseriesPoint();
+        point.setBucketStart(source.getBucketStart());
+        point.setClosed(source.isClosed());
+        point.setGroupId(source.getGroupId());
+        point.setDealCount(source.getDealCount());
+        point.setRevenue(source.getRevenue());
+        point.setAverageCost(source.getAverageCost());
+        point.setRevenueShare(source.getRevenueShare());
+        point.setRevenueRank(source.getRevenueRank());
+        return point;
+    }
+}
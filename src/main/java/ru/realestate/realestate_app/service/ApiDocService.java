@@ -8,19 +8,52 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 /**
  * Сервис для работы с документацией API
+ *
+ * Документация входит в сборку и не меняется во время работы, поэтому HTML строится
+ * один раз при создании сервиса, а его хэш служит версией для ETag страницы /api-docs.
  */
 @Service
 public class ApiDocService {
 
+    private final String apiEndpointsHtml;
+    private final String version;
+
+    /**
+     * Конструктор сервиса: чтение и преобразование документации
+     */
+    public ApiDocService() {
+        this.apiEndpointsHtml = renderApiEndpointsHtml();
+        this.version = hash(apiEndpointsHtml.getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
-     * Читает файл API_ENDPOINTS.md, конвертирует его из Markdown в HTML и возвращает результат
+     * Документация API из файла API_ENDPOINTS.md в формате HTML
      *
      * @return HTML-строка с документацией API
      */
     public String getApiEndpointsHtml() {
+        return apiEndpointsHtml;
+    }
+
+    /**
+     * Версия документации (хэш HTML)
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Читает файл API_ENDPOINTS.md и конвертирует его из Markdown в HTML
+     *
+     * @return HTML-строка с документацией API
+     */
+    private String renderApiEndpointsHtml() {
         try {
             ClassPathResource resource = new ClassPathResource("API_ENDPOINTS.md");
             InputStream inputStream = resource.getInputStream();
@@ -70,4 +103,13 @@ public class ApiDocService {
         
         return html;
     }
+
+    private static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Алгоритм SHA-256 недоступен", e);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,123 @@
+package ru.realestate.realestate_app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.realestate.realestate_app.dao.ArchiveDao;
+import ru.realestate.realestate_app.dao.ArchiveDao.ArchiveBatch;
+import ru.realestate.realestate_app.dao.ArchiveDao.ArchivedDeal;
+
+import java.time.LocalDate;
+import java.time.Period;
+
+/**
+ * Сервис переноса старых сделок в архив
+ *
+ * Сделки старше app.archive.horizon, по которым нет платежей позже горизонта, переносятся
+ * вместе с платежами в deals_archive и payments_archive пакетами по app.archive.batch-size
+ * (каждый пакет - отдельная транзакция). Аналитика, рейтинг риелторов, колоночная копия сделок
+ * и отчёты читают архив вместе с основными таблицами, поэтому после переноса не пересчитываются.
+ * Граница архива сдвигается до переноса, поэтому поиск с includeArchived не теряет сделки,
+ * пока они переходят из одной таблицы в другую.
+ * Настройки архива должны совпадать на всех экземплярах приложения: каждый сдвигает свою
+ * границу по горизонту, а пакеты разных экземпляров не пересекаются (SKIP LOCKED).
+ */
+@Service
+public class ArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveService.class);
+
+    private final ArchiveDao archiveDao;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Period horizon;
+    private final int batchSize;
+
+    /**
+     * Конструктор сервиса с инжекцией зависимостей
+     * @param archiveDao DAO архива сделок
+     * @param transactionManager менеджер транзакций для пакетов переноса
+     * @param enabled включён ли перенос в архив
+     * @param horizon возраст сделок, после которого они переносятся в архив
+     * @param batchSize количество сделок в одной транзакции переноса
+     */
+    public ArchiveService(ArchiveDao archiveDao, PlatformTransactionManager transactionManager,
+                          @Value("${app.archive.enabled:true}") boolean enabled,
+                          @Value("${app.archive.horizon:P3Y}") Period horizon,
+                          @Value("${app.archive.batch-size:1000}") int batchSize) {
+        if (horizon.isNegative() || horizon.isZero()) {
+            throw new IllegalStateException("app.archive.horizon должен быть положительным: " + horizon);
+        }
+        if (batchSize < 1) {
+            throw new IllegalStateException("app.archive.batch-size должно быть не меньше 1: " + batchSize);
+        }
+        this.archiveDao = archiveDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.horizon = horizon;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Определение границы архива при старте, сразу после миграций схемы
+     * Сделки переносятся только по расписанию, чтобы не задерживать старт
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void onStartup() {
+        try {
+            archiveDao.extendArchivedBefore(archiveDao.findArchivedBefore());
+        } catch (DataAccessException e) {
+            logger.warn("Не удалось определить границу архива сделок: {}", e.getMessage());
+        }
+        if (enabled) {
+            archiveDao.extendArchivedBefore(cutoff());
+        }
+        logger.info("Граница архива сделок: {}", archiveDao.getArchivedBefore());
+    }
+
+    /**
+     * Перенос сделок старше горизонта по расписанию
+     * Недоступность базы данных не прерывает работу: оставшиеся сделки перенесёт следующий запуск
+     */
+    @Scheduled(cron = "${app.archive.cron:0 30 2 * * *}")
+    public void archiveOldDeals() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate before = cutoff();
+        archiveDao.extendArchivedBefore(before);
+        long deals = 0;
+        long payments = 0;
+        try {
+            ArchivedDeal after = null;
+            ArchiveBatch batch;
+            do {
+                ArchivedDeal batchAfter = after;
+                batch = transactionTemplate.execute(_ -> archiveDao.archiveBatch(before, batchAfter, batchSize));
+                deals += batch.deals().size();
+                payments += batch.payments();
+                after = batch.deals().isEmpty() ? after : batch.deals().getLast();
+            } while (batch.deals().size() == batchSize);
+        } catch (DataAccessException e) {
+            logger.warn("Перенос сделок в архив прерван: {}", e.getMessage());
+        }
+        if (deals > 0) {
+            logger.info("В архив перенесено {} сделок до {} и {} платежей", deals, before, payments);
+        }
+    }
+
+    private LocalDate cutoff() {
+        return LocalDate.now().minus(horizon);
+    }
+}
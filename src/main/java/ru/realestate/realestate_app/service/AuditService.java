@@ -0,0 +1,104 @@
+package ru.realestate.realestate_app.service;
+
+import org.springframework.stereotype.Service;
+
+import ru.realestate.realestate_app.audit.AuditJournal;
+import ru.realestate.realestate_app.audit.AuditJournalReader;
+import ru.realestate.realestate_app.audit.AuditRecord;
+import ru.realestate.realestate_app.exception.ValidationException;
+import ru.realestate.realestate_app.exception.handler.ExceptionHandler;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сервис для чтения журнала аудита изменений
+ */
+@Service
+public class AuditService {
+
+    public static final int MAX_RECORDS_LIMIT = 1000;
+
+    private static final List<String> ENTITIES = List.of("Deal", "Payment", "Property", "Client", "Realtor");
+
+    private final AuditJournal auditJournal;
+
+    /**
+     * Конструктор сервиса
+     * @param auditJournal журнал аудита
+     */
+    public AuditService(AuditJournal auditJournal) {
+        this.auditJournal = auditJournal;
+    }
+
+    /**
+     * Найти записи журнала аудита
+     *
+     * Без fromSequence возвращаются последние подходящие записи от новых к старым,
+     * с fromSequence - записи начиная с указанного номера по возрастанию (для постраничного чтения)
+     *
+     * @param entity тип сущности (может быть null)
+     * @param entityId идентификатор сущности (может быть null)
+     * @param fromSequence номер записи, с которой начинать (может быть null)
+     * @param limit максимальное количество записей (от 1 до MAX_RECORDS_LIMIT)
+     * @return записи журнала
+     * @throws ValidationException если параметры некорректны
+     */
+    public List<AuditRecord> findRecords(String entity, Long entityId, Long fromSequence, int limit) {
+        if (limit < 1 || limit > MAX_RECORDS_LIMIT) {
+            throw new ValidationException("limit", "Количество записей должно быть от 1 до " + MAX_RECORDS_LIMIT);
+        }
+        if (entity != null && !ENTITIES.contains(entity)) {
+            throw new ValidationException("entity", "Допустимые типы сущностей: " + String.join(", ", ENTITIES));
+        }
+        if (entityId != null && entity == null) {
+            throw new ValidationException("entity", "Для поиска по entityId укажите тип сущности");
+        }
+
+        try {
+            if (fromSequence != null) {
+                List<AuditRecord> records = new ArrayList<>();
+                AuditJournalReader.read(auditJournal.getDirectory(), fromSequence, record -> {
+                    if (matches(record, entity, entityId)) {
+                        records.add(record);
+                    }
+                    return records.size() < limit;
+                });
+                return records;
+            }
+
+            Deque<AuditRecord> latest = new ArrayDeque<>(limit);
+            AuditJournalReader.read(auditJournal.getDirectory(), 0, record -> {
+                if (matches(record, entity, entityId)) {
+                    if (latest.size() == limit) {
+                        latest.pollFirst();
+                    }
+                    latest.addLast(record);
+                }
+                return true;
+            });
+            List<AuditRecord> records = new ArrayList<>(latest);
+            return records.reversed();
+        } catch (UncheckedIOException e) {
+            ExceptionHandler.logException(e, "Ошибка чтения журнала аудита");
+            throw e;
+        }
+    }
+
+    /**
+     * Получить состояние журнала аудита
+     * @return каталог, текущий сегмент, последний номер, количество записанных и отброшенных записей
+     */
+    public Map<String, Object> getStats() {
+        return auditJournal.getStats();
+    }
+
+    private static boolean matches(AuditRecord record, String entity, Long entityId) {
+        return (entity == null || entity.equals(record.entity()))
+            && (entityId == null || entityId == record.entityId());
+    }
+}
@@ -0,0 +1,273 @@
+package ru.realestate.realestate_app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.realestate.realestate_app.dao.ClientDao;
+import ru.realestate.realestate_app.dao.DealDao;
+import ru.realestate.realestate_app.dao.PaymentDao;
+import ru.realestate.realestate_app.dao.PropertyDao;
+import ru.realestate.realestate_app.dao.RealtorDao;
+import ru.realestate.realestate_app.dao.reference.DealTypeDao;
+import ru.realestate.realestate_app.dao.reference.PropertyTypeDao;
+import ru.realestate.realestate_app.exception.BusinessRuleException;
+import ru.realestate.realestate_app.exception.DatabaseException;
+import ru.realestate.realestate_app.exception.EntityNotFoundException;
+import ru.realestate.realestate_app.exception.RealEstateException;
+import ru.realestate.realestate_app.exception.ValidationException;
+import ru.realestate.realestate_app.exception.handler.ExceptionHandler;
+import ru.realestate.realestate_app.model.Client;
+import ru.realestate.realestate_app.model.Deal;
+import ru.realestate.realestate_app.model.Payment;
+import ru.realestate.realestate_app.model.Property;
+import ru.realestate.realestate_app.model.Realtor;
+import ru.realestate.realestate_app.model.dto.BatchRequest;
+import ru.realestate.realestate_app.model.dto.BatchResponse;
+import ru.realestate.realestate_app.model.dto.BatchResponse.OperationResult;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Сервис выполнения пакетных запросов
+ *
+ * Все операции пакета выполняются на одном соединении из пула: соединение привязывается
+ * к потоку на время пакета через TransactionTemplate, и все вызовы JdbcTemplate внутри
+ * DAO получают именно его. В нетранзакционном режиме (PROPAGATION_SUPPORTS) каждая
+ * операция фиксируется сразу, и ошибка одной операции не прерывает остальные.
+ * В транзакционном режиме пакет выполняется в одной транзакции до первой ошибки,
+ * после которой все изменения откатываются.
+ *
+ * Создание и обновление выполняются через сервисы сущностей, поэтому для них действуют
+ * те же проверки и бизнес-правила, что и для отдельных REST эндпоинтов.
+ */
+@Service
+public class BatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchService.class);
+
+    private final TransactionTemplate transactionalTemplate;
+    private final TransactionTemplate sharedConnectionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int maxOperations;
+
+    private final ClientService clientService;
+    private final RealtorService realtorService;
+    private final PropertyService propertyService;
+    private final DealService dealService;
+    private final PaymentService paymentService;
+
+    // Получение списков по id: сущность пакета -> (тип сущности для ExceptionHandler, запрос к DAO)
+    private final Map<String, Map.Entry<String, Function<List<Long>, List<?>>>> finders;
+
+    /**
+     * Конструктор сервиса с инжекцией зависимостей
+     * @param transactionManager менеджер транзакций источника данных
+     * @param objectMapper преобразование тела операции в модель сущности
+     * @param validator валидатор моделей (те же ограничения, что и для @Valid в контроллерах)
+     * @param maxOperations максимальное количество операций в одном пакете
+     */
+    public BatchService(PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                        Validator validator,
+                        @Value("${app.batch.max-operations:200}") int maxOperations,
+                        ClientService clientService, RealtorService realtorService,
+                        PropertyService propertyService, DealService dealService,
+                        PaymentService paymentService,
+                        ClientDao clientDao, RealtorDao realtorDao, PropertyDao propertyDao,
+                        DealDao dealDao, PaymentDao paymentDao,
+                        DealTypeDao dealTypeDao, PropertyTypeDao propertyTypeDao) {
+        this.transactionalTemplate = new TransactionTemplate(transactionManager);
+        this.sharedConnectionTemplate = new TransactionTemplate(transactionManager);
+        this.sharedConnectionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_SUPPORTS);
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.maxOperations = maxOperations;
+        this.clientService = clientService;
+        this.realtorService = realtorService;
+        this.propertyService = propertyService;
+        this.dealService = dealService;
+        this.paymentService = paymentService;
+
+        Map<String, Map.Entry<String, Function<List<Long>, List<?>>>> map = new LinkedHashMap<>();
+        map.put("clients", Map.entry("Client", clientDao::findByIds));
+        map.put("realtors", Map.entry("Realtor", realtorDao::findByIds));
+        map.put("properties", Map.entry("Property", propertyDao::findByIds));
+        map.put("deals", Map.entry("Deal", dealDao::findByIds));
+        map.put("payments", Map.entry("Payment", paymentDao::findByIds));
+        map.put("deal-types", Map.entry("DealType", dealTypeDao::findByIds));
+        map.put("property-types", Map.entry("PropertyType", propertyTypeDao::findByIds));
+        this.finders = Map.copyOf(map);
+    }
+
+    /**
+     * Выполнить пакет операций
+     * @param request пакетный запрос
+     * @return результаты операций в порядке выполнения
+     * @throws ValidationException если пакет пуст или превышает допустимый размер
+     */
+    public BatchResponse execute(BatchRequest request) {
+        List<BatchRequest.Operation> operations = request.getOperations();
+        if (operations == null || operations.isEmpty()) {
+            throw new ValidationException("operations", "Пакет не содержит операций");
+        }
+        if (operations.size() > maxOperations) {
+            throw new ValidationException("operations",
+                "Количество операций в пакете не может превышать " + maxOperations);
+        }
+
+        BatchResponse response = new BatchResponse(request.isTransactional());
+        long start = System.nanoTime();
+
+        if (request.isTransactional()) {
+            transactionalTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < operations.size(); i++) {
+                    OperationResult result = executeOperation(i, operations.get(i));
+                    response.getResults().add(result);
+                    if (result.getError() != null) {
+                        status.setRollbackOnly();
+                        response.setCommitted(false);
+                        return;
+                    }
+                }
+            });
+        } else {
+            sharedConnectionTemplate.executeWithoutResult(_ -> {
+                for (int i = 0; i < operations.size(); i++) {
+                    response.getResults().add(executeOperation(i, operations.get(i)));
+                }
+            });
+        }
+
+        logger.debug("Пакет из {} операций выполнен за {} мс (транзакция: {}, зафиксирован: {})",
+                    operations.size(), (System.nanoTime() - start) / 1_000_000,
+                    request.isTransactional(), response.isCommitted());
+        return response;
+    }
+
+    /**
+     * Выполнить одну операцию и преобразовать исключение в результат с HTTP статусом
+     */
+    private OperationResult executeOperation(int index, BatchRequest.Operation operation) {
+        try {
+            String action = operation.getAction() != null ? operation.getAction() : "";
+            return switch (action) {
+                case "get" -> new OperationResult(index, HttpStatus.OK.value(), get(operation), null);
+                case "create" -> new OperationResult(index, HttpStatus.CREATED.value(), create(operation), null);
+                case "update" -> new OperationResult(index, HttpStatus.OK.value(), update(operation), null);
+                default -> throw new ValidationException("action",
+                    "Неизвестное действие '" + operation.getAction() + "', допустимы: get, create, update");
+            };
+        } catch (Exception e) {
+            logger.debug("Ошибка операции {} пакета: {}", index, e.getMessage());
+            return new OperationResult(index, determineHttpStatus(e).value(), null, e.getMessage());
+        }
+    }
+
+    private List<?> get(BatchRequest.Operation operation) {
+        Map.Entry<String, Function<List<Long>, List<?>>> finder = finders.get(operation.getEntity());
+        if (finder == null) {
+            throw new ValidationException("entity", "Неизвестная сущность '" + operation.getEntity() + "'");
+        }
+        try {
+            return finder.getValue().apply(operation.getIds());
+        } catch (Exception e) {
+            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", finder.getKey(), null);
+            ExceptionHandler.logException(re, "Ошибка при получении списка по id в пакетном запросе");
+            throw re;
+        }
+    }
+
+    private Object create(BatchRequest.Operation operation) {
+        return switch (entity(operation)) {
+            case "clients" -> Map.of("id", clientService.save(toModel(operation, Client.class),
+                                                              operation.isAllowDuplicates()));
+            case "realtors" -> Map.of("id", realtorService.save(toModel(operation, Realtor.class)));
+            case "properties" -> Map.of("id", propertyService.save(toModel(operation, Property.class)));
+            case "deals" -> Map.of("id", dealService.save(toModel(operation, Deal.class)));
+            case "payments" -> paymentService.save(toModel(operation, Payment.class));
+            default -> throw unsupported(operation);
+        };
+    }
+
+    private Object update(BatchRequest.Operation operation) {
+        Long id = operation.getId();
+        if (id == null) {
+            throw new ValidationException("id", "Для обновления необходимо указать id");
+        }
+        Map<String, Object> body = operation.getBody() != null ? operation.getBody() : Map.of();
+        return switch (entity(operation)) {
+            case "clients" -> Map.of("updated", clientService.update(id, body));
+            case "realtors" -> Map.of("updated", realtorService.update(id, body));
+            case "properties" -> Map.of("updated", propertyService.update(id, body));
+            case "deals" -> Map.of("updated", dealService.update(id, body));
+            case "payments" -> paymentService.update(id, toModel(operation, Payment.class));
+            default -> throw unsupported(operation);
+        };
+    }
+
+    private String entity(BatchRequest.Operation operation) {
+        return operation.getEntity() != null ? operation.getEntity() : "";
+    }
+
+    private ValidationException unsupported(BatchRequest.Operation operation) {
+        return new ValidationException("entity",
+            "Действие '" + operation.getAction() + "' не поддерживается для сущности '" + operation.getEntity() + "'");
+    }
+
+    /**
+     * Преобразовать тело операции в модель и проверить ограничения валидации
+     */
+    private <T> T toModel(BatchRequest.Operation operation, Class<T> type) {
+        if (operation.getBody() == null) {
+            throw new ValidationException("body", "Тело операции не может быть пустым");
+        }
+        T model = objectMapper.convertValue(operation.getBody(), type);
+        Set<ConstraintViolation<T>> violations = validator.validate(model);
+        if (!violations.isEmpty()) {
+            Map<String, String> fieldErrors = new LinkedHashMap<>();
+            for (ConstraintViolation<T> violation : violations) {
+                fieldErrors.putIfAbsent(violation.getPropertyPath().toString(), violation.getMessage());
+            }
+            throw new ValidationException(fieldErrors);
+        }
+        return model;
+    }
+
+    /**
+     * Определить HTTP статус операции по исключению (по тем же правилам, что и GlobalExceptionHandler)
+     */
+    private HttpStatus determineHttpStatus(Exception e) {
+        if (e instanceof EntityNotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (e instanceof ValidationException || e instanceof IllegalArgumentException) {
+            return HttpStatus.BAD_REQUEST;
+        }
+        if (e instanceof BusinessRuleException) {
+            return HttpStatus.UNPROCESSABLE_ENTITY;
+        }
+        if (e instanceof DatabaseException de) {
+            if ("INSERT".equals(de.getOperationType()) && de.getMessage().contains("уникальности")) {
+                return HttpStatus.BAD_REQUEST;
+            }
+            if (("UPDATE".equals(de.getOperationType()) || "DELETE".equals(de.getOperationType()))
+                    && de.getMessage().contains("не найден")) {
+                return HttpStatus.NOT_FOUND;
+            }
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+}
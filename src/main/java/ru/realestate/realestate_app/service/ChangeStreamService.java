@@ -0,0 +1,121 @@
+package ru.realestate.realestate_app.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import ru.realestate.realestate_app.event.ChangeEvent;
+import ru.realestate.realestate_app.event.ChangeEventBus;
+import ru.realestate.realestate_app.event.ChangeEventBus.Subscription;
+import ru.realestate.realestate_app.exception.ValidationException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Сервис потока изменений сделок и платежей (Server-Sent Events)
+ *
+ * Каждый подключённый клиент обслуживается своим виртуальным потоком, который забирает события
+ * из буфера подписки и отправляет их клиенту. Если буфер переполнился, клиенту отправляется
+ * событие resync, и он перечитывает таблицу целиком. При отсутствии событий отправляется
+ * комментарий-пульс, чтобы прокси не закрывали соединение и отключение клиента обнаруживалось.
+ */
+@Service
+public class ChangeStreamService {
+
+    public static final String RESYNC_EVENT = "resync";
+
+    private final ChangeEventBus changeEventBus;
+    private final long timeoutMillis;
+    private final Duration heartbeat;
+
+    /**
+     * Конструктор сервиса
+     * @param changeEventBus шина изменений
+     * @param timeout максимальная длительность одного соединения (клиент переподключится сам)
+     * @param heartbeat интервал пульса при отсутствии событий
+     */
+    public ChangeStreamService(ChangeEventBus changeEventBus,
+                               @Value("${app.stream.timeout:PT30M}") Duration timeout,
+                               @Value("${app.stream.heartbeat:PT15S}") Duration heartbeat) {
+        this.changeEventBus = changeEventBus;
+        this.timeoutMillis = timeout.toMillis();
+        this.heartbeat = heartbeat;
+    }
+
+    /**
+     * Открыть поток изменений
+     * @param entities типы сущностей через запятую (deal, payment)
+     * @param lastEventId номер последнего полученного события при переподключении (может быть null)
+     * @return SSE соединение
+     * @throws ValidationException если указан неизвестный тип сущности
+     */
+    public SseEmitter openStream(String entities, Long lastEventId) {
+        Set<String> requested = parseEntities(entities);
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscription subscription = changeEventBus.subscribe(requested, lastEventId);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(_ -> subscription.close());
+        Thread.ofVirtual().name("change-stream").start(() -> stream(emitter, subscription));
+        return emitter;
+    }
+
+    /**
+     * Количество подписчиков и ожидающих раздачи изменений
+     */
+    public Map<String, Object> getStats() {
+        return changeEventBus.getStats();
+    }
+
+    private void stream(SseEmitter emitter, Subscription subscription) {
+        try {
+            emitter.send(SseEmitter.event().comment("connected"));
+            while (!subscription.isClosed()) {
+                if (subscription.takeResync()) {
+                    emitter.send(SseEmitter.event().name(RESYNC_EVENT).data("{}"));
+                    continue;
+                }
+                ChangeEvent event = subscription.poll(heartbeat);
+                if (event == null) {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                } else {
+                    emitter.send(SseEmitter.event()
+                        .id(Long.toString(event.sequence()))
+                        .name(event.entity())
+                        .data(event, MediaType.APPLICATION_JSON));
+                }
+            }
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // Клиент отключился или соединение уже завершено по таймауту
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            changeEventBus.unsubscribe(subscription);
+        }
+    }
+
+    private static Set<String> parseEntities(String entities) {
+        Set<String> requested = new LinkedHashSet<>();
+        for (String entity : entities.split(",")) {
+            String name = entity.trim().toLowerCase();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!ChangeEventBus.ENTITIES.contains(name)) {
+                throw new ValidationException("entities", "Допустимые типы сущностей: "
+                    + ChangeEventBus.DEAL + ", " + ChangeEventBus.PAYMENT);
+            }
+            requested.add(name);
+        }
+        if (requested.isEmpty()) {
+            throw new ValidationException("entities", "Укажите хотя бы один тип сущности");
+        }
+        return requested;
+    }
+}
@@ -1,8 +1,13 @@
 package ru.realestate.realestate_app.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
 
+import ru.realestate.realestate_app.cache.ClientDuplicateIndex;
+import ru.realestate.realestate_app.cache.ClientDuplicateIndex.Candidate;
 import ru.realestate.realestate_app.dao.ClientDao;
 import ru.realestate.realestate_app.dao.DealDao;
 import ru.realestate.realestate_app.exception.BusinessRuleException;
@@ -12,9 +17,16 @@ import ru.realestate.realestate_app.exception.RealEstateException;
 import ru.realestate.realestate_app.exception.ValidationException;
 import ru.realestate.realestate_app.exception.handler.ExceptionHandler;
 import ru.realestate.realestate_app.model.Client;
+import ru.realestate.realestate_app.model.dto.ClientDuplicateCandidate;
+import ru.realestate.realestate_app.model.dto.TablePage;
+import ru.realestate.realestate_app.model.dto.TableQuery;
+import ru.realestate.realestate_app.transaction.AfterCommit;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Сервис для работы с клиентами
@@ -24,17 +36,39 @@ import java.util.Map;
 @Service
 public class ClientService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ClientService.class);
+
+    /**
+     * Максимальное количество кандидатов в дубликаты за один запрос
+     */
+    public static final int MAX_DUPLICATES_LIMIT = 50;
+
+    // Поля, изменение которых меняет ключи и оценки индекса дубликатов
+    private static final List<String> DUPLICATE_INDEX_FIELDS =
+        List.of("firstName", "lastName", "middleName", "phone", "email");
+
     private final ClientDao clientDao;
     private final DealDao dealDao; // Добавляем зависимость для проверок
+    private final ClientDuplicateIndex clientDuplicateIndex;
+    private final double duplicateMinScore;
+    private final double duplicateRejectScore;
 
     /**
      * Конструктор сервиса с инжекцией зависимостей
      * @param clientDao DAO для работы с данными клиентов
      * @param dealDao DAO для работы с данными сделок
+     * @param clientDuplicateIndex индекс вероятных дубликатов, обновляемый при изменении клиентов
+     * @param duplicateMinScore минимальная оценка, с которой клиент считается кандидатом в дубликаты
+     * @param duplicateRejectScore оценка, начиная с которой создание клиента отклоняется
      */
-    public ClientService(ClientDao clientDao, DealDao dealDao) {
+    public ClientService(ClientDao clientDao, DealDao dealDao, ClientDuplicateIndex clientDuplicateIndex,
+                         @Value("${app.client-duplicates.min-score:0.5}") double duplicateMinScore,
+                         @Value("${app.client-duplicates.reject-score:0.8}") double duplicateRejectScore) {
         this.clientDao = clientDao;
         this.dealDao = dealDao;
+        this.clientDuplicateIndex = clientDuplicateIndex;
+        this.duplicateMinScore = duplicateMinScore;
+        this.duplicateRejectScore = duplicateRejectScore;
     }
 
     /**
@@ -71,20 +105,42 @@ public class ClientService {
 
     /**
      * Сохранить нового клиента в базе данных
+     * Клиент, слишком похожий на существующего, не создаётся (в том числе при пакетном импорте)
      * @param client объект клиента для сохранения
      * @return идентификатор созданного клиента или null в случае ошибки
      * @throws ValidationException если данные клиента не прошли валидацию
+     * @throws BusinessRuleException если найден вероятный дубликат
      * @throws DatabaseException если произошла ошибка при работе с базой данных
      */
     public Long save(Client client) {
+        return save(client, false);
+    }
+
+    /**
+     * Сохранить нового клиента в базе данных
+     * @param client объект клиента для сохранения
+     * @param allowDuplicates создать клиента, даже если найден вероятный дубликат
+     * @return идентификатор созданного клиента или null в случае ошибки
+     * @throws ValidationException если данные клиента не прошли валидацию
+     * @throws BusinessRuleException если найден вероятный дубликат, а allowDuplicates = false
+     * @throws DatabaseException если произошла ошибка при работе с базой данных
+     */
+    public Long save(Client client, boolean allowDuplicates) {
         // Валидация входных данных
         validateClient(client);
         
         // Проверка уникальности email и телефона
         validateUniqueness(client);
         
+        // Нечёткая проверка: другое написание имени, формат телефона, адрес с тем же логином
+        if (!allowDuplicates) {
+            validateNotDuplicate(client);
+        }
+        
         try {
-            return clientDao.save(client);
+            Long id = clientDao.save(client);
+            AfterCommit.run(() -> clientDuplicateIndex.put(id, client));
+            return id;
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "INSERT", "Client", null);
             ExceptionHandler.logException(re, "Ошибка при сохранении клиента");
@@ -112,7 +168,12 @@ public class ClientService {
         validateUniquenessOnUpdate(id, updates);
         
         try {
-            return clientDao.update(id, updates);
+            boolean updated = clientDao.update(id, updates);
+            if (updated && DUPLICATE_INDEX_FIELDS.stream().anyMatch(updates::containsKey)) {
+                Client current = clientDao.findById(id);
+                AfterCommit.run(() -> clientDuplicateIndex.put(id, current));
+            }
+            return updated;
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "UPDATE", "Client", id);
             ExceptionHandler.logException(re, "Ошибка при обновлении клиента с id: " + id);
@@ -138,7 +199,11 @@ public class ClientService {
         }
         
         try {
-            return clientDao.deleteById(id);
+            boolean deleted = clientDao.deleteById(id);
+            if (deleted) {
+                AfterCommit.run(() -> clientDuplicateIndex.remove(id));
+            }
+            return deleted;
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "DELETE", "Client", id);
             ExceptionHandler.logException(re, "Ошибка при удалении клиента с id: " + id);
@@ -214,6 +279,65 @@ public class ClientService {
         }
     }
 
+    /**
+     * Найти вероятные дубликаты клиента
+     * Кандидаты ищутся по индексу в памяти; из базы данных читаются только найденные клиенты
+     * @param clientId существующий клиент, для которого ищутся дубликаты (если задан, остальные данные берутся из него)
+     * @param lastName фамилия
+     * @param firstName имя
+     * @param middleName отчество
+     * @param phone телефон в любом формате
+     * @param email адрес электронной почты
+     * @param limit максимальное количество кандидатов (от 1 до MAX_DUPLICATES_LIMIT)
+     * @return кандидаты по убыванию оценки сходства
+     * @throws ValidationException если не задан ни клиент, ни данные для сравнения
+     * @throws EntityNotFoundException если клиент clientId не найден
+     * @throws DatabaseException если индекс не удалось построить
+     */
+    public List<ClientDuplicateCandidate> findDuplicateCandidates(Long clientId, String lastName, String firstName,
+                                                                  String middleName, String phone, String email,
+                                                                  int limit) {
+        if (limit < 1 || limit > MAX_DUPLICATES_LIMIT) {
+            throw new ValidationException("limit", "Количество кандидатов должно быть от 1 до " + MAX_DUPLICATES_LIMIT);
+        }
+        if (clientId != null) {
+            Client client = findById(clientId);
+            lastName = client.getLastName();
+            firstName = client.getFirstName();
+            middleName = client.getMiddleName();
+            phone = client.getPhone();
+            email = client.getEmail();
+        } else if (isBlank(lastName) && isBlank(phone) && isBlank(email)) {
+            throw new ValidationException("lastName", "Укажите clientId, фамилию, телефон или email");
+        }
+
+        // Если при старте база была недоступна, пробуем построить индекс при первом обращении
+        if (!clientDuplicateIndex.isLoaded() && !clientDuplicateIndex.reload()) {
+            throw new DatabaseException("SELECT", "Поиск дубликатов недоступен: не удалось загрузить клиентов");
+        }
+        List<Candidate> candidates = clientDuplicateIndex.findCandidates(
+            lastName, firstName, middleName, phone, email, clientId, duplicateMinScore, limit);
+
+        try {
+            Map<Long, Client> clients = clientDao.findByIds(candidates.stream().map(Candidate::clientId).toList())
+                .stream()
+                .collect(Collectors.toMap(Client::getIdClient, Function.identity()));
+
+            List<ClientDuplicateCandidate> result = new ArrayList<>(candidates.size());
+            for (Candidate candidate : candidates) {
+                Client client = clients.get(candidate.clientId());
+                if (client != null) {
+                    result.add(new ClientDuplicateCandidate(client, candidate.score(), candidate.matchedOn()));
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Client", null);
+            ExceptionHandler.logException(re, "Ошибка при поиске дубликатов клиента");
+            throw re;
+        }
+    }
+
     /**
      * Проверить, есть ли связанные сделки для клиента
      * @param clientId идентификатор клиента
@@ -222,7 +346,8 @@ public class ClientService {
      */
     public boolean hasRelatedDeals(Long clientId) {
         try {
-            return !dealDao.findByClientId(clientId).isEmpty();
+            // Архивные сделки тоже ссылаются на запись внешним ключом
+            return !dealDao.findByClientId(clientId, true).isEmpty();
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", clientId);
             ExceptionHandler.logException(re, "Ошибка при проверке связанных сделок для клиента с id: " + clientId);
@@ -269,6 +394,66 @@ public class ClientService {
         }
     }
 
+    /**
+     * Найти клиентов, слишком похожих на нового клиента, чтобы создать его без подтверждения
+     * Если индекс дубликатов недоступен, проверка пропускается: точные совпадения проверяются при сохранении
+     * @param client данные нового клиента
+     * @return существующие клиенты с оценкой сходства не ниже порога отклонения, по убыванию оценки
+     * @throws DatabaseException если не удалось прочитать найденных клиентов
+     */
+    public List<ClientDuplicateCandidate> findPossibleDuplicates(Client client) {
+        if (!clientDuplicateIndex.isLoaded() && !clientDuplicateIndex.reload()) {
+            logger.warn("Индекс дубликатов клиентов недоступен, нечёткая проверка пропущена");
+            return List.of();
+        }
+        List<Candidate> candidates = clientDuplicateIndex.findCandidates(
+            client.getLastName(), client.getFirstName(), client.getMiddleName(),
+            client.getPhone(), client.getEmail(), null, duplicateRejectScore, 5);
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        try {
+            Map<Long, Client> clients = clientDao.findByIds(candidates.stream().map(Candidate::clientId).toList())
+                .stream()
+                .collect(Collectors.toMap(Client::getIdClient, Function.identity()));
+            List<ClientDuplicateCandidate> result = new ArrayList<>(candidates.size());
+            for (Candidate candidate : candidates) {
+                Client existing = clients.get(candidate.clientId());
+                if (existing != null) {
+                    result.add(new ClientDuplicateCandidate(existing, candidate.score(), candidate.matchedOn()));
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Client", null);
+            ExceptionHandler.logException(re, "Ошибка при поиске дубликатов нового клиента");
+            throw re;
+        }
+    }
+
+    /**
+     * Проверка, что клиент не является вероятным дубликатом существующего
+     * @param client объект клиента для проверки
+     * @throws BusinessRuleException если найден клиент с оценкой сходства не ниже порога отклонения
+     */
+    private void validateNotDuplicate(Client client) {
+        List<ClientDuplicateCandidate> duplicates = findPossibleDuplicates(client);
+        if (!duplicates.isEmpty()) {
+            String ids = duplicates.stream()
+                .map(candidate -> candidate.getClient().getIdClient() + " (" + candidate.getScore() + ")")
+                .collect(Collectors.joining(", "));
+            throw new BusinessRuleException(
+                "CLIENT_POSSIBLE_DUPLICATE",
+                "Похожие клиенты уже существуют: " + ids
+                    + ". Проверьте /api/clients/duplicates или повторите запрос с allowDuplicates=true"
+            );
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
     /**
      * Валидация уникальности email и телефона при обновлении
      * @param clientId идентификатор обновляемого клиента
@@ -330,4 +515,23 @@ public List<Client> searchClients(String lastName, String email, String phone) {
         throw re;
     }
 }
+
+/**
+ * Получить страницу клиентов для таблицы
+ *
+ * @param lastName Фамилия для поиска (частичное совпадение).
+ * @param email Email для поиска (точное совпадение).
+ * @param phone Телефон для поиска (точное совпадение).
+ * @param query Параметры страницы и сортировки.
+ * @return Страница клиентов с общим количеством.
+ */
+public TablePage<Client> searchClientsPage(String lastName, String email, String phone, TableQuery query) {
+    try {
+        return clientDao.searchPage(lastName, email, phone, query);
+    } catch (Exception e) {
+        RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Client", null);
+        ExceptionHandler.logException(re, "Ошибка при получении страницы клиентов");
+        throw re;
+    }
+}
 }
@@ -10,13 +10,17 @@ import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.List;
 import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 
 /**
  * Сервис для экспорта данных в формат CSV
@@ -60,6 +64,53 @@ public class CsvExportService {
         return outputStream.toByteArray();
     }
     
+    /**
+     * Записывает строки источника в CSV по мере их получения, не собирая файл в памяти
+     *
+     * @param output поток, в который пишется CSV-файл (закрывается по завершении)
+     * @param clazz класс строк
+     * @param source источник строк: передаёт каждую строку обработчику и возвращает их количество
+     * @param <T> тип строк
+     * @return количество записанных строк
+     * @throws IOException если возникает ошибка при записи в поток
+     */
+    public <T> long writeCsv(OutputStream output, Class<T> clazz, ToLongFunction<Consumer<T>> source)
+            throws IOException {
+
+        // Добавляем BOM для правильного отображения кириллицы в Excel
+        output.write(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
+
+        try (OutputStreamWriter writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+             CSVWriter csvWriter = new CSVWriter(writer,
+                     ';', // Используем точку с запятой как разделитель для Excel
+                     ICSVWriter.DEFAULT_QUOTE_CHARACTER, // Используем кавычки для полей
+                    ICSVWriter.DEFAULT_ESCAPE_CHARACTER,
+                    ICSVWriter.DEFAULT_LINE_END)) {
+
+            StatefulBeanToCsv<T> beanToCsv = new StatefulBeanToCsvBuilder<T>(csvWriter)
+                    .withQuotechar(ICSVWriter.DEFAULT_QUOTE_CHARACTER)
+                    .build();
+
+            long rows = source.applyAsLong(bean -> {
+                // Прерываем чтение отчёта, если запись уже не удалась (например, клиент отключился)
+                if (csvWriter.getException() != null) {
+                    throw new UncheckedIOException(csvWriter.getException());
+                }
+                try {
+                    beanToCsv.write(bean);
+                } catch (CsvDataTypeMismatchException | CsvRequiredFieldEmptyException e) {
+                    throw new IllegalStateException("Ошибка преобразования строки отчёта в CSV", e);
+                }
+            });
+
+            // CSVWriter не выбрасывает ошибки записи, а запоминает их
+            if (csvWriter.checkError()) {
+                throw new IOException("Ошибка записи CSV", csvWriter.getException());
+            }
+            return rows;
+        }
+    }
+
     /**
      * Форматирует BigDecimal в строку с запятой в качестве десятичного разделителя
      * 
@@ -2,9 +2,17 @@ package ru.realestate.realestate_app.service;
 
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import ru.realestate.realestate_app.cache.DealColumnStore;
+import ru.realestate.realestate_app.cache.RealtorLeaderboard;
+import ru.realestate.realestate_app.cache.SearchResultCache;
+import ru.realestate.realestate_app.dao.ArchiveDao;
 import ru.realestate.realestate_app.dao.DealDao;
+import ru.realestate.realestate_app.dao.PartitionDao;
 import ru.realestate.realestate_app.dao.PropertyDao;
+import ru.realestate.realestate_app.event.ChangeEventBus;
 import ru.realestate.realestate_app.exception.BusinessRuleException;
 import ru.realestate.realestate_app.exception.DatabaseException;
 import ru.realestate.realestate_app.exception.EntityNotFoundException;
@@ -16,11 +24,21 @@ import ru.realestate.realestate_app.model.Property;
 import ru.realestate.realestate_app.model.dto.DealWithDetailsDto;
 import ru.realestate.realestate_app.model.dto.DealTableDto;
 import ru.realestate.realestate_app.model.dto.DealReportDto;
+import ru.realestate.realestate_app.model.dto.DealSummaryDto;
+import ru.realestate.realestate_app.model.dto.TablePage;
+import ru.realestate.realestate_app.model.dto.TablePage.TotalType;
+import ru.realestate.realestate_app.model.dto.TableQuery;
+import ru.realestate.realestate_app.transaction.AfterCommit;
 
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Сервис для работы со сделками
@@ -32,25 +50,58 @@ public class DealService {
     
     private final DealDao dealDao;
     private final PropertyDao propertyDao; // Добавляем зависимость для проверок
+    private final SearchResultCache searchResultCache;
+    private final RealtorLeaderboard realtorLeaderboard;
+    private final ChangeEventBus changeEventBus;
+    private final DealColumnStore dealColumnStore;
+    private final ArchiveDao archiveDao;
+    private final PartitionMaintenanceService partitionMaintenanceService;
+    private final TransactionTemplate transactionTemplate;
+
+    // Поля сделки, от которых зависит рейтинг риелторов
+    private static final List<String> LEADERBOARD_FIELDS = List.of("dealDate", "deal_cost", "idRealtor");
+
+    // Максимальное количество самых дорогих сделок в итогах поиска
+    private static final int MAX_SUMMARY_TOP = 100;
 
     /**
      * Конструктор сервиса с инжекцией зависимостей
      * @param dealDao DAO для работы с данными сделок
      * @param propertyDao DAO для работы с данными объектов недвижимости
+     * @param searchResultCache кэш результатов поиска
+     * @param realtorLeaderboard рейтинг риелторов, обновляемый при изменении сделок
+     * @param changeEventBus шина изменений для потока обновлений таблицы сделок
+     * @param dealColumnStore колоночная копия сделок для фильтров и агрегатов в памяти
+     * @param archiveDao архив завершённых сделок
+     * @param partitionMaintenanceService создание секций прошедших месяцев для сделок задним числом
+     * @param transactionManager менеджер транзакций: изменение сделки и номер его транзакции
+     *                           для рейтинга риелторов получаются в одной транзакции
      */
-    public DealService(DealDao dealDao, PropertyDao propertyDao) {
+    public DealService(DealDao dealDao, PropertyDao propertyDao, SearchResultCache searchResultCache,
+                       RealtorLeaderboard realtorLeaderboard, ChangeEventBus changeEventBus,
+                       DealColumnStore dealColumnStore, ArchiveDao archiveDao,
+                       PartitionMaintenanceService partitionMaintenanceService,
+                       PlatformTransactionManager transactionManager) {
         this.dealDao = dealDao;
         this.propertyDao = propertyDao;
+        this.searchResultCache = searchResultCache;
+        this.realtorLeaderboard = realtorLeaderboard;
+        this.changeEventBus = changeEventBus;
+        this.dealColumnStore = dealColumnStore;
+        this.archiveDao = archiveDao;
+        this.partitionMaintenanceService = partitionMaintenanceService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
      * Получить все сделки, отсортированные по дате в убывающем порядке
+     * @param includeArchived включать ли архивные сделки
      * @return список всех сделок
      * @throws DatabaseException если произошла ошибка при работе с базой данных
      */
-    public List<Deal> findAll() {
+    public List<Deal> findAll(boolean includeArchived) {
         try {
-            return dealDao.findAll();
+            return dealDao.findAll(includeArchived);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при получении списка всех сделок");
@@ -91,8 +142,15 @@ public class DealService {
         // Бизнес-проверки
         validateBusinessRules(deal);
         
+        partitionMaintenanceService.ensurePartition(PartitionDao.DEALS, deal.getDealDate());
         try {
-            return dealDao.save(deal);
+            return transactionTemplate.execute(_ -> {
+                Long id = dealDao.save(deal);
+                long xid = dealDao.currentTransactionId();
+                AfterCommit.run(() -> realtorLeaderboard.recordDeal(deal, xid));
+                changeEventBus.publish(ChangeEventBus.DEAL, ChangeEventBus.Operation.CREATED, id);
+                return id;
+            });
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "INSERT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при сохранении сделки");
@@ -120,8 +178,24 @@ public class DealService {
         // Бизнес-проверки для обновлений
         validateUpdateBusinessRules(id, updates);
         
+        if (updates.get("dealDate") instanceof LocalDate dealDate) {
+            partitionMaintenanceService.ensurePartition(PartitionDao.DEALS, dealDate);
+        }
         try {
-            return dealDao.update(id, updates);
+            return transactionTemplate.execute(_ -> {
+                // Состояние до изменения читается под блокировкой строки в этой же транзакции:
+                // при одновременных обновлениях сделки каждое вычитает из рейтинга то, что заменило
+                Optional<Deal> previous = dealDao.update(id, updates);
+                if (previous.isPresent() && LEADERBOARD_FIELDS.stream().anyMatch(updates::containsKey)) {
+                    Deal current = dealDao.findById(id);
+                    long xid = dealDao.currentTransactionId();
+                    AfterCommit.run(() -> realtorLeaderboard.replaceDeal(previous.get(), current, xid));
+                }
+                if (previous.isPresent()) {
+                    changeEventBus.publish(ChangeEventBus.DEAL, ChangeEventBus.Operation.UPDATED, id);
+                }
+                return previous.isPresent();
+            });
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "UPDATE", "Deal", id);
             ExceptionHandler.logException(re, "Ошибка при обновлении сделки с id: " + id);
@@ -137,7 +211,19 @@ public class DealService {
      */
     public boolean deleteById(Long id) {
         try {
-            return dealDao.deleteById(id);
+            return transactionTemplate.execute(_ -> {
+                // Состояние до удаления нужно, чтобы вычесть сделку из рейтинга риелторов
+                List<Deal> previous = dealDao.findByIds(List.of(id));
+                boolean deleted = dealDao.deleteById(id);
+                if (deleted && !previous.isEmpty()) {
+                    long xid = dealDao.currentTransactionId();
+                    AfterCommit.run(() -> realtorLeaderboard.removeDeal(previous.get(0), xid));
+                }
+                if (deleted) {
+                    changeEventBus.publish(ChangeEventBus.DEAL, ChangeEventBus.Operation.DELETED, id);
+                }
+                return deleted;
+            });
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "DELETE", "Deal", id);
             ExceptionHandler.logException(re, "Ошибка при удалении сделки с id: " + id);
@@ -148,12 +234,13 @@ public class DealService {
     /**
      * Найти сделки по конкретной дате
      * @param date дата совершения сделки
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок, совершенных в указанную дату, отсортированный по убыванию стоимости
      * @throws DatabaseException если произошла ошибка при работе с базой данных
      */
-    public List<Deal> findByDate(LocalDate date) {
+    public List<Deal> findByDate(LocalDate date, boolean includeArchived) {
         try {
-            return dealDao.findByDate(date);
+            return dealDao.findByDate(date, includeArchived);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при поиске сделок по дате: " + date);
@@ -165,13 +252,14 @@ public class DealService {
      * Найти сделки в указанном диапазоне дат
      * @param startDate начальная дата диапазона
      * @param endDate конечная дата диапазона
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок в указанном диапазоне дат, отсортированный по убыванию даты
      * @throws ValidationException если диапазон дат указан некорректно
      * @throws DatabaseException если произошла ошибка при работе с базой данных
      */
-    public List<Deal> findByDateRange(LocalDate startDate, LocalDate endDate) {
+    public List<Deal> findByDateRange(LocalDate startDate, LocalDate endDate, boolean includeArchived) {
         try {
-            return dealDao.findByDateRange(startDate, endDate);
+            return dealDao.findByDateRange(startDate, endDate, includeArchived);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при поиске сделок по диапазону дат: " + startDate + " - " + endDate);
@@ -182,12 +270,13 @@ public class DealService {
     /**
      * Найти сделки конкретного риелтора
      * @param realtorId идентификатор риелтора
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок указанного риелтора, отсортированный по убыванию даты
      * @throws DatabaseException если произошла ошибка при работе с базой данных
      */
-    public List<Deal> findByRealtorId(Long realtorId) {
+    public List<Deal> findByRealtorId(Long realtorId, boolean includeArchived) {
         try {
-            return dealDao.findByRealtorId(realtorId);
+            return dealDao.findByRealtorId(realtorId, includeArchived);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при поиске сделок по риелтору с id: " + realtorId);
@@ -198,12 +287,13 @@ public class DealService {
     /**
      * Найти сделки конкретного клиента
      * @param clientId идентификатор клиента
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок указанного клиента, отсортированный по убыванию даты
      * @throws DatabaseException если произошла ошибка при работе с базой данных
      */
-    public List<Deal> findByClientId(Long clientId) {
+    public List<Deal> findByClientId(Long clientId, boolean includeArchived) {
         try {
-            return dealDao.findByClientId(clientId);
+            return dealDao.findByClientId(clientId, includeArchived);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при поиске сделок по клиенту с id: " + clientId);
@@ -214,12 +304,13 @@ public class DealService {
     /**
      * Найти сделки по конкретному объекту недвижимости
      * @param propertyId идентификатор объекта недвижимости
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок по указанному объекту недвижимости, отсортированный по убыванию даты
      * @throws DatabaseException если произошла ошибка при работе с базой данных
      */
-    public List<Deal> findByPropertyId(Long propertyId) {
+    public List<Deal> findByPropertyId(Long propertyId, boolean includeArchived) {
         try {
-            return dealDao.findByPropertyId(propertyId);
+            return dealDao.findByPropertyId(propertyId, includeArchived);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при поиске сделок по объекту недвижимости с id: " + propertyId);
@@ -230,12 +321,13 @@ public class DealService {
     /**
      * Найти сделки по типу сделки
      * @param dealTypeId идентификатор типа сделки
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок указанного типа, отсортированный по убыванию даты
      * @throws DatabaseException если произошла ошибка при работе с базой данных
      */
-    public List<Deal> findByDealTypeId(Long dealTypeId) {
+    public List<Deal> findByDealTypeId(Long dealTypeId, boolean includeArchived) {
         try {
-            return dealDao.findByDealTypeId(dealTypeId);
+            return dealDao.findByDealTypeId(dealTypeId, includeArchived);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при поиске сделок по типу с id: " + dealTypeId);
@@ -247,13 +339,14 @@ public class DealService {
      * Найти сделки в указанном ценовом диапазоне
      * @param minCost минимальная стоимость сделки
      * @param maxCost максимальная стоимость сделки
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок в ценовом диапазоне, отсортированный по убыванию стоимости
      * @throws ValidationException если ценовой диапазон указан некорректно
      * @throws DatabaseException если произошла ошибка при работе с базой данных
      */
-    public List<Deal> findByCostRange(BigDecimal minCost, BigDecimal maxCost) {
+    public List<Deal> findByCostRange(BigDecimal minCost, BigDecimal maxCost, boolean includeArchived) {
         try {
-            return dealDao.findByCostRange(minCost, maxCost);
+            return dealDao.findByCostRange(minCost, maxCost, includeArchived);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при поиске сделок по ценовому диапазону: " + minCost + " - " + maxCost);
@@ -268,7 +361,9 @@ public class DealService {
      */
     public BigDecimal getTotalDealsAmount() {
         try {
-            return dealDao.getTotalDealsAmount();
+            DealColumnStore.Summary summary = dealColumnStore.summarize(
+                new DealColumnStore.Filter(null, null, null, null, null), 0);
+            return summary != null ? summary.totalAmount() : dealDao.getTotalDealsAmount();
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при получении общей суммы сделок");
@@ -283,7 +378,9 @@ public class DealService {
      */
     public int getCount() {
         try {
-            return dealDao.getCount();
+            DealColumnStore.Summary summary = dealColumnStore.summarize(
+                new DealColumnStore.Filter(null, null, null, null, null), 0);
+            return summary != null ? (int) summary.count() : dealDao.getCount();
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при подсчете количества сделок");
@@ -403,12 +500,13 @@ public class DealService {
     /**
      * Получить все сделки с детальной информацией (включая данные клиента, риелтора и недвижимости)
      * Использует JOIN запросы для оптимизации производительности
+     * @param includeArchived включать ли архивные сделки
      * @return список всех сделок с полной информацией, отсортированный по дате в убывающем порядке
      * @throws DatabaseException если произошла ошибка при работе с базой данных
      */
-    public List<DealWithDetailsDto> findAllWithDetails() {
+    public List<DealWithDetailsDto> findAllWithDetails(boolean includeArchived) {
         try {
-            return dealDao.findAllWithDetails();
+            return dealDao.findAllWithDetails(includeArchived);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при получении списка всех сделок с детальной информацией");
@@ -437,12 +535,13 @@ public class DealService {
     /**
      * Получить все сделки в табличном формате для отображения в списках
      * Компактное представление с основной информацией
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок в табличном формате, отсортированный по дате в убывающем порядке
      * @throws DatabaseException если произошла ошибка при работе с базой данных
      */
-    public List<DealTableDto> findAllForTable() {
+    public List<DealTableDto> findAllForTable(boolean includeArchived) {
         try {
-            return dealDao.findAllForTable();
+            return dealDao.findAllForTable(includeArchived);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при получении списка всех сделок в табличном формате");
@@ -453,12 +552,13 @@ public class DealService {
     /**
      * Найти сделки по дате с детальной информацией
      * @param date дата совершения сделки
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок с полной информацией, отсортированный по убыванию стоимости
      * @throws DatabaseException если произошла ошибка при работе с базой данных
      */
-    public List<DealWithDetailsDto> findByDateWithDetails(LocalDate date) {
+    public List<DealWithDetailsDto> findByDateWithDetails(LocalDate date, boolean includeArchived) {
         try {
-            return dealDao.findByDateWithDetails(date);
+            return dealDao.findByDateWithDetails(date, includeArchived);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при поиске сделок с детальной информацией по дате: " + date);
@@ -470,13 +570,15 @@ public class DealService {
      * Найти сделки в диапазоне дат с детальной информацией
      * @param startDate начальная дата диапазона
      * @param endDate конечная дата диапазона
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок с полной информацией в указанном диапазоне дат, отсортированный по убыванию даты
      * @throws ValidationException если диапазон дат указан некорректно
      * @throws DatabaseException если произошла ошибка при работе с базой данных
      */
-    public List<DealWithDetailsDto> findByDateRangeWithDetails(LocalDate startDate, LocalDate endDate) {
+    public List<DealWithDetailsDto> findByDateRangeWithDetails(LocalDate startDate, LocalDate endDate,
+                                                               boolean includeArchived) {
         try {
-            return dealDao.findByDateRangeWithDetails(startDate, endDate);
+            return dealDao.findByDateRangeWithDetails(startDate, endDate, includeArchived);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при поиске сделок с детальной информацией по диапазону дат: " + startDate + " - " + endDate);
@@ -487,12 +589,13 @@ public class DealService {
     /**
      * Найти сделки конкретного риелтора с детальной информацией
      * @param realtorId идентификатор риелтора
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок с полной информацией указанного риелтора, отсортированный по убыванию даты
      * @throws DatabaseException если произошла ошибка при работе с базой данных
      */
-    public List<DealWithDetailsDto> findByRealtorIdWithDetails(Long realtorId) {
+    public List<DealWithDetailsDto> findByRealtorIdWithDetails(Long realtorId, boolean includeArchived) {
         try {
-            return dealDao.findByRealtorIdWithDetails(realtorId);
+            return dealDao.findByRealtorIdWithDetails(realtorId, includeArchived);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при поиске сделок с детальной информацией по риелтору с id: " + realtorId);
@@ -503,12 +606,13 @@ public class DealService {
     /**
      * Найти сделки конкретного клиента с детальной информацией
      * @param clientId идентификатор клиента
+     * @param includeArchived включать ли архивные сделки
      * @return список сделок с полной информацией указанного клиента, отсортированный по убыванию даты
      * @throws DatabaseException если произошла ошибка при работе с базой данных
      */
-    public List<DealWithDetailsDto> findByClientIdWithDetails(Long clientId) {
+    public List<DealWithDetailsDto> findByClientIdWithDetails(Long clientId, boolean includeArchived) {
         try {
-            return dealDao.findByClientIdWithDetails(clientId);
+            return dealDao.findByClientIdWithDetails(clientId, includeArchived);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при поиске сделок с детальной информацией по клиенту с id: " + clientId);
@@ -535,6 +639,8 @@ public class DealService {
     
     /**
      * Осуществляет поиск сделок по заданным критериям
+     * Повторные запросы с тем же набором фильтров обслуживаются из кэша, отбор выполняется
+     * по колоночной копии сделок, если она загружена
      * @param startDate  Начальная дата для поиска (может быть null)
      * @param endDate    Конечная дата для поиска (может быть null)
      * @param realtorId ID риелтора для фильтрации (может быть null)
@@ -545,7 +651,14 @@ public class DealService {
      */
     public List<DealTableDto> searchDeals(LocalDate startDate, LocalDate endDate, Long realtorId, Long clientId, Long dealTypeId) {
         try {
-            return dealDao.searchDeals(startDate, endDate, realtorId, clientId, dealTypeId);
+            return searchResultCache.get(SearchResultCache.Region.DEALS,
+                () -> {
+                    List<Long> ids = dealColumnStore.search(
+                        new DealColumnStore.Filter(startDate, endDate, realtorId, clientId, dealTypeId));
+                    return ids != null ? findForTableInOrder(ids)
+                        : dealDao.searchDeals(startDate, endDate, realtorId, clientId, dealTypeId);
+                },
+                startDate, endDate, realtorId, clientId, dealTypeId);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
             ExceptionHandler.logException(re, "Ошибка при поиске сделок по критериям");
@@ -553,18 +666,119 @@ public class DealService {
         }
     }
 
+    /**
+     * Получить страницу сделок для таблицы
+     * Если колоночная копия загружена, отбор, сортировка и подсчёт выполняются в памяти,
+     * а из базы данных читаются только строки страницы. Копия содержит и архивные сделки,
+     * поэтому страница без архива за период, захватывающий архив, строится запросом к базе данных
+     * @param startDate  начальная дата для поиска (может быть null)
+     * @param endDate    конечная дата для поиска (может быть null)
+     * @param realtorId  ID риелтора для фильтрации (может быть null)
+     * @param clientId   ID клиента для фильтрации (может быть null)
+     * @param dealTypeId ID типа сделки для фильтрации (может быть null)
+     * @param includeArchived включать ли архивные сделки
+     * @param query      параметры страницы и сортировки
+     * @return страница сделок с общим количеством
+     * @throws DatabaseException если произошла ошибка при работе с базой данных
+     */
+    public TablePage<DealTableDto> searchDealsPage(LocalDate startDate, LocalDate endDate, Long realtorId,
+                                                   Long clientId, Long dealTypeId, boolean includeArchived,
+                                                   TableQuery query) {
+        try {
+            if (!includeArchived && archiveDao.reachesArchive(startDate)) {
+                return dealDao.searchDealsPage(startDate, endDate, realtorId, clientId, dealTypeId, false, query);
+            }
+            TableQuery pageQuery = query.withAllowedSort(DealColumnStore.SORT_KEYS, "id");
+            DealColumnStore.Page page = dealColumnStore.page(
+                new DealColumnStore.Filter(startDate, endDate, realtorId, clientId, dealTypeId),
+                pageQuery.getSort(), pageQuery.isDescending(), pageQuery.getOffset(), pageQuery.getSize());
+            if (page != null) {
+                return new TablePage<>(findForTableInOrder(page.dealIds()), pageQuery, page.total(), TotalType.EXACT);
+            }
+            return dealDao.searchDealsPage(startDate, endDate, realtorId, clientId, dealTypeId, includeArchived, query);
+        } catch (Exception e) {
+            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
+            ExceptionHandler.logException(re, "Ошибка при получении страницы сделок");
+            throw re;
+        }
+    }
+
+    /**
+     * Получить количество и сумму сделок по критериям и самые дорогие из них
+     * Считается по колоночной копии сделок; из базы данных читаются только строки самых дорогих сделок
+     * @param startDate  начальная дата (может быть null)
+     * @param endDate    конечная дата (может быть null)
+     * @param realtorId  ID риелтора для фильтрации (может быть null)
+     * @param clientId   ID клиента для фильтрации (может быть null)
+     * @param dealTypeId ID типа сделки для фильтрации (может быть null)
+     * @param top        количество самых дорогих сделок (от 0 до 100)
+     * @return итоги по подходящим сделкам
+     * @throws ValidationException если параметры некорректны
+     * @throws DatabaseException если копию сделок не удалось загрузить или прочитать строки сделок
+     */
+    public DealSummaryDto summarizeDeals(LocalDate startDate, LocalDate endDate, Long realtorId, Long clientId,
+                                         Long dealTypeId, int top) {
+        if (top < 0 || top > MAX_SUMMARY_TOP) {
+            throw new ValidationException("top", "Количество сделок должно быть от 0 до " + MAX_SUMMARY_TOP);
+        }
+        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+            throw new ValidationException("startDate", "Начальная дата не может быть позже конечной");
+        }
+
+        // Если при старте база была недоступна, пробуем загрузить копию при первом обращении
+        DealColumnStore.Filter filter = new DealColumnStore.Filter(startDate, endDate, realtorId, clientId, dealTypeId);
+        DealColumnStore.Summary summary = dealColumnStore.summarize(filter, top);
+        if (summary == null && dealColumnStore.reload()) {
+            summary = dealColumnStore.summarize(filter, top);
+        }
+        if (summary == null) {
+            throw new DatabaseException("SELECT", "Итоги сделок недоступны: колоночная копия сделок не загружена");
+        }
+
+        try {
+            return new DealSummaryDto(summary.count(), summary.totalAmount(), findForTableInOrder(summary.topDealIds()));
+        } catch (Exception e) {
+            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
+            ExceptionHandler.logException(re, "Ошибка при получении итогов сделок");
+            throw re;
+        }
+    }
+
+    /**
+     * Прочитать строки таблицы для сделок, отобранных в колоночной копии, сохранив их порядок
+     * Сделки, удалённые после отбора, пропускаются
+     */
+    private List<DealTableDto> findForTableInOrder(List<Long> ids) {
+        Map<Long, DealTableDto> rows = new HashMap<>();
+        for (DealTableDto row : dealDao.findForTableByIds(ids)) {
+            rows.put(row.getDealId(), row);
+        }
+        List<DealTableDto> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            DealTableDto row = rows.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+
    /**
-    * Получить все сделки для отчета
-    * @return список всех сделок с полной информацией для отчета
+    * Передать все строки отчета обработчику в порядке отчета
+    * @param consumer обработчик строки отчета
+    * @return количество строк
     * @throws DatabaseException если произошла ошибка при работе с базой данных
     */
-   public List<DealReportDto> findAllForReport() {
+   public long forEachForReport(Consumer<DealReportDto> consumer) {
        try {
-           return dealDao.findAllForReport();
+           return dealDao.forEachForReport(consumer);
+       } catch (UncheckedIOException e) {
+           // Ошибка записи ответа, а не базы данных
+           throw e;
        } catch (Exception e) {
            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", null);
            ExceptionHandler.logException(re, "Ошибка при получении списка всех сделок для отчета");
            throw re;
        }
    }
-}
+}
\ No newline at end of file
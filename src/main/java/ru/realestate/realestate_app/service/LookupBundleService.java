@@ -0,0 +1,126 @@
+package ru.realestate.realestate_app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import ru.realestate.realestate_app.cache.GeographyIndex;
+import ru.realestate.realestate_app.exception.RealEstateException;
+import ru.realestate.realestate_app.service.reference.DealTypeService;
+import ru.realestate.realestate_app.service.reference.GeographyService;
+import ru.realestate.realestate_app.service.reference.PropertyTypeService;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Сервис справочного пакета для форм редактирования
+ *
+ * Собирает типы сделок, типы недвижимости и всё дерево географии в один компактный JSON:
+ * каждая запись - массив [id, название] или [id, название, id родителя].
+ * Версия пакета - хэш его содержимого, поэтому она меняется только при фактическом
+ * изменении справочников и используется как ETag для условных запросов браузера.
+ * Сериализованный пакет хранится в памяти и пересобирается после перезагрузки индекса географии.
+ */
+@Service
+public class LookupBundleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LookupBundleService.class);
+
+    private final DealTypeService dealTypeService;
+    private final PropertyTypeService propertyTypeService;
+    private final GeographyService geographyService;
+    private final GeographyIndex geographyIndex;
+    private final ObjectMapper objectMapper;
+
+    private volatile Bundle bundle;
+
+    /**
+     * Сериализованный пакет и его версия
+     * @param body тело ответа в формате JSON
+     * @param version хэш содержимого
+     * @param geographyVersion номер снимка индекса географии, из которого собран пакет
+     */
+    public record Bundle(byte[] body, String version, long geographyVersion) {}
+
+    /**
+     * Конструктор сервиса с инжекцией зависимостей
+     * @param dealTypeService сервис типов сделок
+     * @param propertyTypeService сервис типов недвижимости
+     * @param geographyService сервис географических справочников
+     * @param geographyIndex индекс географии (по его версии определяется устаревание пакета)
+     * @param objectMapper сериализация пакета в JSON
+     */
+    public LookupBundleService(DealTypeService dealTypeService, PropertyTypeService propertyTypeService,
+                               GeographyService geographyService, GeographyIndex geographyIndex,
+                               ObjectMapper objectMapper) {
+        this.dealTypeService = dealTypeService;
+        this.propertyTypeService = propertyTypeService;
+        this.geographyService = geographyService;
+        this.geographyIndex = geographyIndex;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Получить актуальный справочный пакет
+     * Пока индекс географии не загружен, пакет собирается заново при каждом обращении
+     * @return сериализованный пакет с версией
+     */
+    public Bundle getBundle() {
+        Bundle current = bundle;
+        long geographyVersion = geographyIndex.getVersion();
+        if (current != null && geographyVersion != 0 && current.geographyVersion() == geographyVersion) {
+            return current;
+        }
+        Bundle rebuilt = build(geographyVersion);
+        if (current == null || !current.version().equals(rebuilt.version())) {
+            logger.info("Справочный пакет собран: версия {}, {} байт", rebuilt.version(), rebuilt.body().length);
+        }
+        bundle = rebuilt;
+        return rebuilt;
+    }
+
+    private Bundle build(long geographyVersion) {
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("dealTypes", dealTypeService.findAll().stream()
+            .map(t -> Arrays.asList(t.getIdDealType(), t.getDealTypeName())).toList());
+        content.put("propertyTypes", propertyTypeService.findAll().stream()
+            .map(t -> Arrays.asList(t.getIdPropertyType(), t.getPropertyTypeName())).toList());
+        content.put("countries", geographyService.findAllCountries().stream()
+            .map(c -> Arrays.asList(c.getIdCountry(), c.getCountryName())).toList());
+        content.put("regions", geographyService.findAllRegions().stream()
+            .map(r -> Arrays.asList(r.getIdRegion(), r.getName(), r.getIdCountry())).toList());
+        content.put("cities", geographyService.findAllCities().stream()
+            .map(c -> Arrays.asList(c.getIdCity(), c.getCityName(), c.getIdRegion())).toList());
+        content.put("districts", geographyService.findAllDistricts().stream()
+            .map(d -> Arrays.asList(d.getIdDistrict(), d.getDistrictName(), d.getIdCity())).toList());
+        content.put("streets", geographyService.findAllStreets().stream()
+            .map(s -> Arrays.asList(s.getIdStreet(), s.getStreetName(), s.getIdCity())).toList());
+
+        try {
+            // Версия считается по справочникам без самого поля version
+            String version = hash(objectMapper.writeValueAsBytes(content));
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("version", version);
+            body.putAll(content);
+            return new Bundle(objectMapper.writeValueAsBytes(body), version, geographyVersion);
+        } catch (JsonProcessingException e) {
+            throw new RealEstateException("Ошибка при сериализации справочного пакета", e);
+        }
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Алгоритм SHA-256 недоступен", e);
+        }
+    }
+}
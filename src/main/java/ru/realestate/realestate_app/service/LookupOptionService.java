@@ -0,0 +1,122 @@
+package ru.realestate.realestate_app.service;
+
+import org.springframework.stereotype.Service;
+
+import ru.realestate.realestate_app.dao.ClientDao;
+import ru.realestate.realestate_app.dao.DealDao;
+import ru.realestate.realestate_app.dao.PropertyDao;
+import ru.realestate.realestate_app.dao.RealtorDao;
+import ru.realestate.realestate_app.exception.DatabaseException;
+import ru.realestate.realestate_app.exception.RealEstateException;
+import ru.realestate.realestate_app.exception.ValidationException;
+import ru.realestate.realestate_app.exception.handler.ExceptionHandler;
+import ru.realestate.realestate_app.model.dto.LookupOption;
+
+import java.util.List;
+
+/**
+ * Сервис вариантов для выпадающих списков с поиском
+ *
+ * Клиенты, риелторы, объекты недвижимости и сделки не входят в справочный пакет:
+ * их слишком много, чтобы передавать полностью при каждой отрисовке формы.
+ * Страница выводит только выбранное значение, а варианты запрашиваются по мере ввода
+ * и ограничены по количеству, поэтому время отрисовки не зависит от размера таблиц.
+ */
+@Service
+public class LookupOptionService {
+
+    public static final String CLIENTS = "clients";
+    public static final String REALTORS = "realtors";
+    public static final String PROPERTIES = "properties";
+    public static final String DEALS = "deals";
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 50;
+
+    private final ClientDao clientDao;
+    private final RealtorDao realtorDao;
+    private final PropertyDao propertyDao;
+    private final DealDao dealDao;
+
+    /**
+     * Конструктор сервиса с инжекцией зависимостей
+     * @param clientDao DAO клиентов
+     * @param realtorDao DAO риелторов
+     * @param propertyDao DAO объектов недвижимости
+     * @param dealDao DAO сделок
+     */
+    public LookupOptionService(ClientDao clientDao, RealtorDao realtorDao, PropertyDao propertyDao, DealDao dealDao) {
+        this.clientDao = clientDao;
+        this.realtorDao = realtorDao;
+        this.propertyDao = propertyDao;
+        this.dealDao = dealDao;
+    }
+
+    /**
+     * Найти варианты для выпадающего списка
+     * @param entity список (clients, realtors, properties, deals)
+     * @param query строка поиска (null или пустая - первые варианты списка)
+     * @param limit максимальное количество вариантов (по умолчанию 20, не более 50)
+     * @param includeArchived включать ли архивные сделки (только для списка deals)
+     * @return варианты с подписями
+     * @throws ValidationException если список неизвестен или limit некорректен
+     * @throws DatabaseException если произошла ошибка при работе с базой данных
+     */
+    public List<LookupOption> search(String entity, String query, Integer limit, boolean includeArchived) {
+        int effectiveLimit = limit != null ? limit : DEFAULT_LIMIT;
+        if (effectiveLimit < 1 || effectiveLimit > MAX_LIMIT) {
+            throw new ValidationException("limit", "Количество вариантов должно быть от 1 до " + MAX_LIMIT);
+        }
+        String normalized = query != null ? query.trim() : "";
+        try {
+            return switch (entity) {
+                case CLIENTS -> clientDao.findForLookup(normalized, effectiveLimit).stream()
+                    .map(c -> new LookupOption(c.getIdClient(), c.getFullName())).toList();
+                case REALTORS -> realtorDao.findForLookup(normalized, effectiveLimit).stream()
+                    .map(r -> new LookupOption(r.getIdRealtor(), r.getFullName())).toList();
+                case PROPERTIES -> propertyDao.findForLookup(normalized, effectiveLimit).stream()
+                    .map(p -> new LookupOption(p.getPropertyId(),
+                        p.getAddressWithCity() + " - " + p.getPropertySummary())).toList();
+                case DEALS -> dealDao.findForLookup(normalized, effectiveLimit, includeArchived).stream()
+                    .map(d -> new LookupOption(d.getDealId(),
+                        "ID: " + d.getDealId() + " - " + d.getDealDateFormatted() + " - " + d.getClientNameShort()))
+                    .toList();
+                default -> throw new ValidationException("entity",
+                    "Неизвестный список '" + entity + "', допустимы: clients, realtors, properties, deals");
+            };
+        } catch (ValidationException e) {
+            throw e;
+        } catch (Exception e) {
+            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", entity, null);
+            ExceptionHandler.logException(re, "Ошибка при поиске вариантов выпадающего списка " + entity);
+            throw re;
+        }
+    }
+
+    /**
+     * Найти выбранный вариант для предзаполнения списка при отрисовке страницы
+     * @param entity список (clients или realtors)
+     * @param id идентификатор выбранной записи (может быть null)
+     * @return вариант или null, если ничего не выбрано или запись не найдена
+     */
+    public LookupOption findSelected(String entity, Long id) {
+        if (id == null) {
+            return null;
+        }
+        try {
+            return switch (entity) {
+                case CLIENTS -> clientDao.findByIds(List.of(id)).stream()
+                    .map(c -> new LookupOption(c.getIdClient(), c.getFullName())).findFirst().orElse(null);
+                case REALTORS -> realtorDao.findByIds(List.of(id)).stream()
+                    .map(r -> new LookupOption(r.getIdRealtor(), r.getFullName())).findFirst().orElse(null);
+                default -> throw new ValidationException("entity", "Неизвестный список '" + entity + "'");
+            };
+        } catch (ValidationException e) {
+            throw e;
+        } catch (Exception e) {
+            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", entity, id);
+            ExceptionHandler.logException(re, "Ошибка при получении выбранного варианта списка " + entity);
+            throw re;
+        }
+    }
+}
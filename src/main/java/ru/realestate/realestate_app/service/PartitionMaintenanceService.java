@@ -0,0 +1,165 @@
+package ru.realestate.realestate_app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.realestate.realestate_app.dao.PartitionDao;
+import ru.realestate.realestate_app.dao.PartitionDao.PartitionedTable;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сервис создания помесячных секций сделок и платежей
+ *
+ * Секции создаются заранее на app.partitions.months-ahead месяцев вперёд: при старте
+ * (после миграций схемы) и по расписанию. Пока секции месяца нет, его строки пишутся
+ * в секцию DEFAULT, которую приходится читать любому запросу за период, поэтому
+ * непустая секция DEFAULT отмечается в журнале.
+ *
+ * Секции прошедших месяцев, которых ещё нет (сделка или платёж внесены задним числом раньше
+ * самой старой секции), создаются по требованию перед записью строки, а строки, которые всё же
+ * попали в DEFAULT, переносятся в свои секции при плановом запуске.
+ *
+ * Секция по требованию создаётся в собственной транзакции на отдельном соединении: ошибка DDL
+ * не прерывает транзакцию вызывающего (например, пакетного запроса), а блокировки создания секции
+ * снимаются сразу, а не при фиксации пакета. Ожидание блокировок ограничено app.partitions.lock-timeout:
+ * если секцию DEFAULT держит незафиксированная транзакция (в том числе транзакция самого вызывающего),
+ * секция не создаётся и строка попадает в DEFAULT.
+ */
+@Service
+public class PartitionMaintenanceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+
+    private static final List<PartitionedTable> TABLES = List.of(PartitionDao.DEALS, PartitionDao.PAYMENTS);
+
+    private final PartitionDao partitionDao;
+    private final TransactionTemplate ownTransaction;
+    private final int monthsAhead;
+    private final Duration lockTimeout;
+
+    // Месяцы существующих секций по имени таблицы; читаются из каталога при первой проверке
+    private final Map<String, Set<LocalDate>> partitionMonths = new ConcurrentHashMap<>();
+
+    /**
+     * Конструктор сервиса с инжекцией зависимостей
+     * @param partitionDao DAO секций
+     * @param transactionManager менеджер транзакций (отдельная транзакция создания секции по требованию)
+     * @param monthsAhead на сколько месяцев вперёд от текущего создаются секции
+     * @param lockTimeout наибольшее ожидание блокировок при создании секции по требованию
+     */
+    public PartitionMaintenanceService(PartitionDao partitionDao, PlatformTransactionManager transactionManager,
+                                       @Value("${app.partitions.months-ahead:12}") int monthsAhead,
+                                       @Value("${app.partitions.lock-timeout:PT5S}") Duration lockTimeout) {
+        if (monthsAhead < 1) {
+            throw new IllegalStateException("app.partitions.months-ahead должно быть не меньше 1: " + monthsAhead);
+        }
+        this.partitionDao = partitionDao;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.monthsAhead = monthsAhead;
+        this.lockTimeout = lockTimeout;
+    }
+
+    /**
+     * Создание секций при старте, сразу после миграций схемы
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void onStartup() {
+        createFuturePartitions();
+    }
+
+    /**
+     * Создание секций по расписанию
+     * Недоступность базы данных не прерывает работу: секции будут созданы при следующем запуске
+     */
+    @Scheduled(cron = "${app.partitions.maintenance-cron:0 0 3 * * *}")
+    public void createFuturePartitions() {
+        LocalDate today = LocalDate.now();
+        LocalDate until = today.withDayOfMonth(1).plusMonths(monthsAhead + 1L);
+        partitionMonths.clear();
+        for (PartitionedTable table : TABLES) {
+            try {
+                int created = partitionDao.createMonthlyPartitions(table, today, until);
+                if (created > 0) {
+                    logger.info("Создано {} помесячных секций таблицы {} (до {})", created, table.name(), until);
+                }
+                for (LocalDate month : partitionDao.findDefaultMonthsBefore(table, today.withDayOfMonth(1))) {
+                    partitionDao.createMonthlyPartitions(table, month, month.plusMonths(1));
+                    logger.info("Создана секция таблицы {} за прошедший месяц {}", table.name(), month);
+                }
+                long defaultRows = partitionDao.countDefaultRows(table);
+                if (defaultRows > 0) {
+                    logger.info("В секции DEFAULT таблицы {} {} строк за месяцы без своей секции",
+                               table.name(), defaultRows);
+                }
+            } catch (DataAccessException e) {
+                logger.warn("Не удалось создать секции таблицы {}: {}", table.name(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Создать секцию прошедшего месяца перед записью строки с этой датой, если секции ещё нет
+     * Текущий и будущие месяцы создаются заранее по расписанию и здесь не проверяются.
+     * Секция создаётся и фиксируется в отдельной транзакции, открытая транзакция вызывающего приостанавливается.
+     * Ошибка только записывается в журнал: строка попадёт в DEFAULT и будет перенесена плановым запуском
+     * @param table секционированная таблица
+     * @param date дата строки (null - ничего не делать)
+     */
+    public void ensurePartition(PartitionedTable table, LocalDate date) {
+        if (date == null || !date.isBefore(LocalDate.now().withDayOfMonth(1))) {
+            return;
+        }
+        LocalDate month = date.withDayOfMonth(1);
+        try {
+            Integer created = ownTransaction.execute(_ -> {
+                Set<LocalDate> months = knownMonths(table);
+                if (months.contains(month)) {
+                    return 0;
+                }
+                partitionDao.setLocalLockTimeout(lockTimeout);
+                return partitionDao.createMonthlyPartitions(table, month, month.plusMonths(1));
+            });
+            if (created != null && created > 0) {
+                logger.info("Создана секция таблицы {} за прошедший месяц {}", table.name(), month);
+            }
+            // Транзакция создания уже зафиксирована: секция существует. Если месяцы сброшены
+            // плановым запуском, они будут перечитаны из каталога при следующей проверке
+            Set<LocalDate> months = partitionMonths.get(table.name());
+            if (months != null) {
+                months.add(month);
+            }
+        } catch (DataAccessException | TransactionException e) {
+            logger.warn("Не удалось создать секцию таблицы {} за {}: {}", table.name(), month, e.getMessage());
+        }
+    }
+
+    private Set<LocalDate> knownMonths(PartitionedTable table) {
+        Set<LocalDate> months = partitionMonths.get(table.name());
+        if (months == null) {
+            months = ConcurrentHashMap.newKeySet();
+            months.addAll(partitionDao.findPartitionMonths(table));
+            partitionMonths.put(table.name(), months);
+        }
+        return months;
+    }
+}
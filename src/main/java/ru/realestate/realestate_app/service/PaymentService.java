@@ -1,16 +1,33 @@
 package ru.realestate.realestate_app.service;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.realestate.realestate_app.cache.SearchResultCache;
+import ru.realestate.realestate_app.dao.DealDao;
+import ru.realestate.realestate_app.dao.PartitionDao;
 import ru.realestate.realestate_app.dao.PaymentDao;
+import ru.realestate.realestate_app.event.ChangeEventBus;
+import ru.realestate.realestate_app.exception.BusinessRuleException;
 import ru.realestate.realestate_app.exception.EntityNotFoundException;
 import ru.realestate.realestate_app.exception.RealEstateException;
+import ru.realestate.realestate_app.exception.ValidationException;
 import ru.realestate.realestate_app.exception.handler.ExceptionHandler;
 import ru.realestate.realestate_app.model.Payment;
 import ru.realestate.realestate_app.model.dto.PaymentTableDto;
 import ru.realestate.realestate_app.model.dto.PaymentReportDto;
+import ru.realestate.realestate_app.model.dto.PaymentScheduleDto;
+import ru.realestate.realestate_app.model.dto.PaymentScheduleRequest;
+import ru.realestate.realestate_app.model.dto.TablePage;
+import ru.realestate.realestate_app.model.dto.TableQuery;
 
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Сервис для управления платежами.
@@ -18,10 +35,28 @@ import java.util.List;
  */
 @Service
 public class PaymentService {
+
+    /**
+     * Максимальное количество платежей в графике
+     */
+    public static final int MAX_SCHEDULE_PAYMENTS = 600;
+
     private final PaymentDao paymentDao;
+    private final DealDao dealDao;
+    private final SearchResultCache searchResultCache;
+    private final ChangeEventBus changeEventBus;
+    private final PartitionMaintenanceService partitionMaintenanceService;
+    private final TransactionTemplate transactionTemplate;
 
-    public PaymentService(PaymentDao paymentDao) {
+    public PaymentService(PaymentDao paymentDao, DealDao dealDao, SearchResultCache searchResultCache,
+                          ChangeEventBus changeEventBus, PartitionMaintenanceService partitionMaintenanceService,
+                          PlatformTransactionManager transactionManager) {
         this.paymentDao = paymentDao;
+        this.dealDao = dealDao;
+        this.searchResultCache = searchResultCache;
+        this.changeEventBus = changeEventBus;
+        this.partitionMaintenanceService = partitionMaintenanceService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public List<Payment> findAll() {
@@ -39,7 +74,10 @@ public class PaymentService {
 
     public Payment save(Payment payment) {
         // Здесь могут быть бизнес-правила, например, проверка, что сумма платежей не превышает сумму сделки
-        return paymentDao.save(payment);
+        partitionMaintenanceService.ensurePartition(PartitionDao.PAYMENTS, payment.getPaymentDate());
+        Payment saved = paymentDao.save(payment);
+        changeEventBus.publish(ChangeEventBus.PAYMENT, ChangeEventBus.Operation.CREATED, saved.getIdPayment());
+        return saved;
     }
 
     public Payment update(Long id, Payment paymentDetails) {
@@ -47,15 +85,93 @@ public class PaymentService {
         payment.setPaymentDate(paymentDetails.getPaymentDate());
         payment.setAmount(paymentDetails.getAmount());
         payment.setIdDeal(paymentDetails.getIdDeal());
-        return paymentDao.update(payment);
+        partitionMaintenanceService.ensurePartition(PartitionDao.PAYMENTS, payment.getPaymentDate());
+        Payment updated = paymentDao.update(payment);
+        changeEventBus.publish(ChangeEventBus.PAYMENT, ChangeEventBus.Operation.UPDATED, id);
+        return updated;
     }
 
     public void deleteById(Long id) {
         // Проверяем, существует ли платеж перед удалением
         findById(id);
         paymentDao.delete(id);
+        changeEventBus.publish(ChangeEventBus.PAYMENT, ChangeEventBus.Operation.DELETED, id);
     }
     
+    /**
+     * Создать график платежей по сделке
+     * Сделка блокируется до конца транзакции, стоимость делится на платежи с точностью до копейки
+     * (первые платежи больше на копейку, если стоимость не делится нацело), все платежи
+     * вставляются одной командой. Сумма платежей равна стоимости сделки
+     * @param dealId ID сделки
+     * @param request количество, периодичность и дата первого платежа
+     * @return созданные платежи и их идентификаторы
+     * @throws ValidationException если параметры графика некорректны
+     * @throws EntityNotFoundException если сделка не найдена
+     * @throws BusinessRuleException если по сделке уже есть платежи
+     * @throws DatabaseException если произошла ошибка при работе с базой данных
+     */
+    public PaymentScheduleDto createSchedule(Long dealId, PaymentScheduleRequest request) {
+        Integer count = request.getCount();
+        if (count == null || count < 1 || count > MAX_SCHEDULE_PAYMENTS) {
+            throw new ValidationException("count",
+                "Количество платежей должно быть от 1 до " + MAX_SCHEDULE_PAYMENTS);
+        }
+        if (request.getFirstDate() == null) {
+            throw new ValidationException("firstDate", "Дата первого платежа обязательна для заполнения");
+        }
+        PaymentScheduleRequest.Frequency frequency = PaymentScheduleRequest.Frequency.fromParameter(
+            request.getFrequency() != null ? request.getFrequency() : "month");
+
+        try {
+            return transactionTemplate.execute(_ -> {
+                BigDecimal total = dealDao.lockCost(dealId)
+                    .orElseThrow(() -> new EntityNotFoundException("Deal", dealId));
+                if (!paymentDao.findByDealId(dealId).isEmpty()) {
+                    throw new BusinessRuleException("payment-schedule", "Deal " + dealId,
+                        "По сделке уже есть платежи, график можно создать только для сделки без платежей");
+                }
+                List<BigDecimal> amounts = splitAmount(total, count);
+                List<Payment> payments = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    payments.add(new Payment(null, frequency.dateOf(request.getFirstDate(), i), amounts.get(i), dealId));
+                }
+                List<Long> ids = paymentDao.saveAll(payments);
+                ids.forEach(id -> changeEventBus.publish(ChangeEventBus.PAYMENT, ChangeEventBus.Operation.CREATED, id));
+                return new PaymentScheduleDto(dealId, total, ids, payments);
+            });
+        } catch (RealEstateException e) {
+            throw e;
+        } catch (Exception e) {
+            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "INSERT", "Payment", null);
+            ExceptionHandler.logException(re, "Ошибка при создании графика платежей по сделке " + dealId);
+            throw re;
+        }
+    }
+
+    /**
+     * Разделить сумму на count платежей с точностью до копейки
+     * Копейки, не делящиеся нацело, добавляются по одной к первым платежам; доли копейки
+     * (стоимость хранится с 4 знаками) - к последнему платежу
+     * @throws ValidationException если на каждый платёж не приходится хотя бы одна копейка
+     */
+    static List<BigDecimal> splitAmount(BigDecimal total, int count) {
+        BigDecimal kopecks = total.movePointRight(2).setScale(0, RoundingMode.DOWN);
+        BigDecimal fraction = total.subtract(kopecks.movePointLeft(2));
+        long units = kopecks.longValueExact();
+        if (units < count) {
+            throw new ValidationException("count", "Стоимость сделки слишком мала для " + count + " платежей");
+        }
+        long base = units / count;
+        long extra = units % count;
+        List<BigDecimal> amounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            amounts.add(BigDecimal.valueOf(base + (i < extra ? 1 : 0), 2));
+        }
+        amounts.set(count - 1, amounts.get(count - 1).add(fraction));
+        return amounts;
+    }
+
     /**
      * Получить все платежи с детальной информацией для табличного отображения
      * @return список всех платежей с дополнительной информацией
@@ -74,7 +190,9 @@ public class PaymentService {
      */
     public List<PaymentTableDto> searchPayments(Long dealId, LocalDate startDate, LocalDate endDate) {
         try {
-            return paymentDao.searchPayments(dealId, startDate, endDate);
+            return searchResultCache.get(SearchResultCache.Region.PAYMENTS,
+                () -> paymentDao.searchPayments(dealId, startDate, endDate),
+                dealId, startDate, endDate);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Payment", null);
             ExceptionHandler.logException(re, "Ошибка при поиске платежей");
@@ -82,14 +200,37 @@ public class PaymentService {
         }
    }
 
+    /**
+     * Получить страницу платежей для таблицы
+     * @param dealId    ID сделки для фильтрации (может быть null)
+     * @param startDate начальная дата для поиска (может быть null)
+     * @param endDate   конечная дата для поиска (может быть null)
+     * @param query     параметры страницы и сортировки
+     * @return страница платежей с общим количеством
+     */
+    public TablePage<PaymentTableDto> searchPaymentsPage(Long dealId, LocalDate startDate, LocalDate endDate,
+                                                         TableQuery query) {
+        try {
+            return paymentDao.searchPaymentsPage(dealId, startDate, endDate, query);
+        } catch (Exception e) {
+            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Payment", null);
+            ExceptionHandler.logException(re, "Ошибка при получении страницы платежей");
+            throw re;
+        }
+    }
+
    /**
-    * Получить все платежи для отчета
-    * @return список всех платежей с полной информацией для отчета
+    * Передать все строки отчета обработчику в порядке отчета
+    * @param consumer обработчик строки отчета
+    * @return количество строк
     * @throws DatabaseException если произошла ошибка при работе с базой данных
     */
-   public List<PaymentReportDto> findAllForReport() {
+   public long forEachForReport(Consumer<PaymentReportDto> consumer) {
        try {
-           return paymentDao.findAllForReport();
+           return paymentDao.forEachForReport(consumer);
+       } catch (UncheckedIOException e) {
+           // Ошибка записи ответа, а не базы данных
+           throw e;
        } catch (Exception e) {
            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Payment", null);
            ExceptionHandler.logException(re, "Ошибка при получении списка всех платежей для отчета");
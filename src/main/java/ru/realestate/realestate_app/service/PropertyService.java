@@ -2,6 +2,9 @@ package ru.realestate.realestate_app.service;
 
 import org.springframework.stereotype.Service;
 
+import ru.realestate.realestate_app.cache.SearchResultCache;
+import ru.realestate.realestate_app.cache.SimilarPropertyIndex;
+import ru.realestate.realestate_app.cache.SimilarPropertyIndex.Neighbour;
 import ru.realestate.realestate_app.dao.DealDao;
 import ru.realestate.realestate_app.dao.PropertyDao;
 import ru.realestate.realestate_app.exception.BusinessRuleException;
@@ -14,10 +17,18 @@ import ru.realestate.realestate_app.model.Property;
 import ru.realestate.realestate_app.model.dto.PropertyWithDetailsDto;
 import ru.realestate.realestate_app.model.dto.PropertyTableDto;
 import ru.realestate.realestate_app.model.dto.PropertyReportDto;
+import ru.realestate.realestate_app.model.dto.SimilarPropertyDto;
+import ru.realestate.realestate_app.model.dto.TablePage;
+import ru.realestate.realestate_app.model.dto.TableQuery;
 
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Сервис для работы с объектами недвижимости
@@ -26,18 +37,34 @@ import java.util.Map;
  */
 @Service
 public class PropertyService {
+
+    // Ссылки объекта недвижимости, которые не могут быть пустыми (NOT NULL в таблице properties)
+    private static final List<String> REQUIRED_REFERENCE_FIELDS =
+        List.of("idPropertyType", "idCountry", "idRegion", "idCity", "idStreet");
     
     private final PropertyDao propertyDao;
     private final DealDao dealDao; // Добавляем зависимость для проверок
+    private final SearchResultCache searchResultCache;
+    private final SimilarPropertyIndex similarPropertyIndex;
+
+    /**
+     * Максимальное количество похожих объектов за один запрос
+     */
+    public static final int MAX_SIMILAR_LIMIT = 50;
 
     /**
      * Конструктор сервиса с инжекцией зависимостей
      * @param propertyDao DAO для работы с данными объектов недвижимости
      * @param dealDao DAO для работы с данными сделок
+     * @param searchResultCache кэш результатов поиска
+     * @param similarPropertyIndex индекс ближайших соседей объектов
      */
-    public PropertyService(PropertyDao propertyDao, DealDao dealDao) {
+    public PropertyService(PropertyDao propertyDao, DealDao dealDao, SearchResultCache searchResultCache,
+                           SimilarPropertyIndex similarPropertyIndex) {
         this.propertyDao = propertyDao;
         this.dealDao = dealDao;
+        this.searchResultCache = searchResultCache;
+        this.similarPropertyIndex = similarPropertyIndex;
     }
 
     /**
@@ -72,6 +99,49 @@ public class PropertyService {
         }
     }
 
+    /**
+     * Найти объекты недвижимости, похожие на указанный
+     * Соседи ищутся по индексу в памяти среди объектов того же города;
+     * из базы данных читаются только исходный и найденные объекты
+     * @param id идентификатор исходного объекта
+     * @param k количество похожих объектов (от 1 до MAX_SIMILAR_LIMIT)
+     * @return похожие объекты по возрастанию расстояния
+     * @throws ValidationException если k вне допустимого диапазона
+     * @throws EntityNotFoundException если объект недвижимости не найден
+     * @throws DatabaseException если индекс не удалось построить
+     */
+    public List<SimilarPropertyDto> findSimilar(Long id, int k) {
+        if (k < 1 || k > MAX_SIMILAR_LIMIT) {
+            throw new ValidationException("k", "Количество похожих объектов должно быть от 1 до " + MAX_SIMILAR_LIMIT);
+        }
+        Property property = findById(id);
+
+        // Если при старте база была недоступна, пробуем построить индекс при первом обращении
+        if (!similarPropertyIndex.isLoaded() && !similarPropertyIndex.reload()) {
+            throw new DatabaseException("SELECT", "Поиск похожих объектов недоступен: не удалось загрузить объекты недвижимости");
+        }
+        List<Neighbour> neighbours = similarPropertyIndex.nearest(property, k);
+
+        try {
+            Map<Long, Property> properties = propertyDao.findByIds(neighbours.stream().map(Neighbour::propertyId).toList())
+                .stream()
+                .collect(Collectors.toMap(Property::getIdProperty, Function.identity()));
+
+            List<SimilarPropertyDto> result = new ArrayList<>(neighbours.size());
+            for (Neighbour neighbour : neighbours) {
+                Property similar = properties.get(neighbour.propertyId());
+                if (similar != null) {
+                    result.add(new SimilarPropertyDto(similar, neighbour.distance()));
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Property", id);
+            ExceptionHandler.logException(re, "Ошибка при поиске объектов, похожих на объект с id: " + id);
+            throw re;
+        }
+    }
+
     /**
      * Сохранить новый объект недвижимости в базе данных
      * @param property объект недвижимости для сохранения
@@ -216,7 +286,8 @@ public class PropertyService {
      */
     public boolean hasRelatedDeals(Long propertyId) {
         try {
-            return !dealDao.findByPropertyId(propertyId).isEmpty();
+            // Архивные сделки тоже ссылаются на запись внешним ключом
+            return !dealDao.findByPropertyId(propertyId, true).isEmpty();
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", propertyId);
             ExceptionHandler.logException(re, "Ошибка при проверке связанных сделок для объекта недвижимости с id: " + propertyId);
@@ -245,6 +316,12 @@ public class PropertyService {
         if (updates == null || updates.isEmpty()) {
             throw new ValidationException("updates", "Данные для обновления не могут быть пустыми");
         }
+        // Обязательные ссылки нельзя сбросить в null; район необязателен, null в нём означает его удаление
+        for (String field : REQUIRED_REFERENCE_FIELDS) {
+            if (updates.containsKey(field) && updates.get(field) == null) {
+                throw new ValidationException(field, "Поле " + field + " не может быть null");
+            }
+        }
         // Остальная валидация выполняется в DAO
     }
 
@@ -363,22 +440,52 @@ public class PropertyService {
      */
     public List<PropertyTableDto> searchProperties(BigDecimal minPrice, BigDecimal maxPrice, Long cityId, Long propertyTypeId, Long districtId, Long streetId) {
         try {
-            return propertyDao.search(minPrice, maxPrice, cityId, propertyTypeId, districtId, streetId);
+            return searchResultCache.get(SearchResultCache.Region.PROPERTIES,
+                () -> propertyDao.search(minPrice, maxPrice, cityId, propertyTypeId, districtId, streetId),
+                minPrice, maxPrice, cityId, propertyTypeId, districtId, streetId);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Property", null);
             ExceptionHandler.logException(re, "Ошибка при поиске объектов недвижимости по заданным критериям");
             throw re;
         }
     }
+
+    /**
+     * Получить страницу объектов недвижимости для таблицы
+     * @param minPrice минимальная цена
+     * @param maxPrice максимальная цена
+     * @param cityId идентификатор города
+     * @param propertyTypeId идентификатор типа недвижимости
+     * @param districtId идентификатор района
+     * @param streetId идентификатор улицы
+     * @param query параметры страницы и сортировки
+     * @return страница объектов недвижимости с общим количеством
+     * @throws DatabaseException если произошла ошибка при работе с базой данных
+     */
+    public TablePage<PropertyTableDto> searchPropertiesPage(BigDecimal minPrice, BigDecimal maxPrice, Long cityId,
+                                                            Long propertyTypeId, Long districtId, Long streetId,
+                                                            TableQuery query) {
+        try {
+            return propertyDao.searchPage(minPrice, maxPrice, cityId, propertyTypeId, districtId, streetId, query);
+        } catch (Exception e) {
+            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Property", null);
+            ExceptionHandler.logException(re, "Ошибка при получении страницы объектов недвижимости");
+            throw re;
+        }
+    }
     
     /**
-     * Получить все объекты недвижимости для отчета
-     * @return список всех объектов недвижимости с полной информацией для отчета
+     * Передать все строки отчета обработчику в порядке отчета
+     * @param consumer обработчик строки отчета
+     * @return количество строк
      * @throws DatabaseException если произошла ошибка при работе с базой данных
      */
-    public List<PropertyReportDto> findAllForReport() {
+    public long forEachForReport(Consumer<PropertyReportDto> consumer) {
         try {
-            return propertyDao.findAllForReport();
+            return propertyDao.forEachForReport(consumer);
+        } catch (UncheckedIOException e) {
+            // Ошибка записи ответа, а не базы данных
+            throw e;
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Property", null);
             ExceptionHandler.logException(re, "Ошибка при получении списка всех объектов недвижимости для отчета");
@@ -3,6 +3,9 @@ package ru.realestate.realestate_app.service;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
 
+import ru.realestate.realestate_app.cache.RealtorLeaderboard;
+import ru.realestate.realestate_app.cache.RealtorLeaderboard.Metric;
+import ru.realestate.realestate_app.cache.RealtorLeaderboard.Standing;
 import ru.realestate.realestate_app.dao.DealDao;
 import ru.realestate.realestate_app.dao.RealtorDao;
 import ru.realestate.realestate_app.exception.BusinessRuleException;
@@ -12,9 +15,17 @@ import ru.realestate.realestate_app.exception.RealEstateException;
 import ru.realestate.realestate_app.exception.ValidationException;
 import ru.realestate.realestate_app.exception.handler.ExceptionHandler;
 import ru.realestate.realestate_app.model.Realtor;
+import ru.realestate.realestate_app.model.dto.RealtorLeaderboardEntry;
+import ru.realestate.realestate_app.model.dto.TablePage;
+import ru.realestate.realestate_app.model.dto.TableQuery;
 
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Сервис для работы с риелторами
@@ -26,15 +37,23 @@ public class RealtorService {
 
     private final RealtorDao realtorDao;
     private final DealDao dealDao; // Добавляем зависимость для проверок
+    private final RealtorLeaderboard realtorLeaderboard;
+
+    /**
+     * Максимальное количество мест в рейтинге за один запрос
+     */
+    public static final int MAX_LEADERBOARD_LIMIT = 100;
 
     /**
      * Конструктор сервиса с инжекцией зависимостей
      * @param realtorDao DAO для работы с данными риелторов
      * @param dealDao DAO для работы с данными сделок
+     * @param realtorLeaderboard рейтинг риелторов в памяти
      */
-    public RealtorService(RealtorDao realtorDao, DealDao dealDao) {
+    public RealtorService(RealtorDao realtorDao, DealDao dealDao, RealtorLeaderboard realtorLeaderboard) {
         this.realtorDao = realtorDao;
         this.dealDao = dealDao;
+        this.realtorLeaderboard = realtorLeaderboard;
     }
 
     /**
@@ -239,7 +258,8 @@ public class RealtorService {
      */
     public boolean hasRelatedDeals(Long realtorId) {
         try {
-            return !dealDao.findByRealtorId(realtorId).isEmpty();
+            // Архивные сделки тоже ссылаются на запись внешним ключом
+            return !dealDao.findByRealtorId(realtorId, true).isEmpty();
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Deal", realtorId);
             ExceptionHandler.logException(re, "Ошибка при проверке связанных сделок для риелтора с id: " + realtorId);
@@ -278,6 +298,27 @@ public class RealtorService {
         }
     }
 
+    /**
+     * Получить страницу риелторов для таблицы
+     * @param lastName фамилия (частичное совпадение)
+     * @param email email (точное совпадение)
+     * @param phone телефон (точное совпадение)
+     * @param experience минимальный опыт работы
+     * @param query параметры страницы и сортировки
+     * @return страница риелторов с общим количеством
+     * @throws DatabaseException если произошла ошибка при работе с базой данных
+     */
+    public TablePage<Realtor> searchRealtorsPage(String lastName, String email, String phone, Integer experience,
+                                                 TableQuery query) {
+        try {
+            return realtorDao.searchPage(lastName, email, phone, experience, query);
+        } catch (Exception e) {
+            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Realtor", null);
+            ExceptionHandler.logException(re, "Ошибка при получении страницы риелторов");
+            throw re;
+        }
+    }
+
     /**
      * Валидация уникальности email и телефона
      * @param realtor объект риелтора для проверки
@@ -337,6 +378,82 @@ public class RealtorService {
         }
     }
 
+    /**
+     * Получить рейтинг риелторов по сделкам
+     * @param period период: all (за всё время), current (текущий месяц) или месяц в формате YYYY-MM
+     * @param sort показатель: count (количество сделок) или volume (сумма сделок)
+     * @param limit количество мест (от 1 до MAX_LEADERBOARD_LIMIT)
+     * @return строки рейтинга в порядке мест
+     * @throws ValidationException если параметры некорректны
+     * @throws DatabaseException если рейтинг не удалось загрузить из базы данных
+     */
+    public List<RealtorLeaderboardEntry> getLeaderboard(String period, String sort, int limit) {
+        YearMonth month = parseLeaderboardPeriod(period);
+        Metric metric = switch (sort == null ? "" : sort.toLowerCase()) {
+            case "count" -> Metric.COUNT;
+            case "volume" -> Metric.VOLUME;
+            default -> throw new ValidationException("sort", "Допустимые значения: count, volume");
+        };
+        if (limit < 1 || limit > MAX_LEADERBOARD_LIMIT) {
+            throw new ValidationException("limit", "Количество мест должно быть от 1 до " + MAX_LEADERBOARD_LIMIT);
+        }
+
+        // Если при старте база была недоступна, пробуем загрузить рейтинг при первом обращении
+        if (!realtorLeaderboard.isLoaded() && !realtorLeaderboard.reload()) {
+            throw new DatabaseException("SELECT", "Рейтинг риелторов недоступен: не удалось загрузить итоги сделок");
+        }
+        List<Standing> standings = realtorLeaderboard.top(month, metric, limit);
+
+        try {
+            // Имена нужны только для N риелторов из рейтинга - один запрос по списку id
+            Map<Long, Realtor> realtors = realtorDao.findByIds(standings.stream().map(Standing::realtorId).toList())
+                .stream()
+                .collect(Collectors.toMap(Realtor::getIdRealtor, Function.identity()));
+
+            List<RealtorLeaderboardEntry> result = new ArrayList<>(standings.size());
+            int rank = 1;
+            for (Standing standing : standings) {
+                Realtor realtor = realtors.get(standing.realtorId());
+                result.add(new RealtorLeaderboardEntry(rank++, standing.realtorId(), formatRealtorName(realtor),
+                                                       standing.dealCount(), standing.dealVolume()));
+            }
+            return result;
+        } catch (Exception e) {
+            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Realtor", null);
+            ExceptionHandler.logException(re, "Ошибка при получении рейтинга риелторов");
+            throw re;
+        }
+    }
+
+    /**
+     * Разбор периода рейтинга
+     * @return месяц или null для рейтинга за всё время
+     */
+    private YearMonth parseLeaderboardPeriod(String period) {
+        if (period == null || period.isBlank() || "all".equalsIgnoreCase(period)) {
+            return null;
+        }
+        if ("current".equalsIgnoreCase(period)) {
+            return YearMonth.now();
+        }
+        try {
+            return YearMonth.parse(period);
+        } catch (DateTimeParseException _) {
+            throw new ValidationException("period", "Допустимые значения: all, current или месяц в формате YYYY-MM");
+        }
+    }
+
+    private String formatRealtorName(Realtor realtor) {
+        if (realtor == null) {
+            return null;
+        }
+        StringBuilder name = new StringBuilder(realtor.getLastName()).append(' ').append(realtor.getFirstName());
+        if (realtor.getMiddleName() != null && !realtor.getMiddleName().isBlank()) {
+            name.append(' ').append(realtor.getMiddleName());
+        }
+        return name.toString();
+    }
+
     /**
      * Валидация обновлений риелтора
      * @param updates карта обновлений
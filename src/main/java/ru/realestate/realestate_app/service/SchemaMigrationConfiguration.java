@@ -0,0 +1,52 @@
+package ru.realestate.realestate_app.service;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import ru.realestate.realestate_app.dao.SchemaDao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Порядок создания бинов относительно миграций схемы
+ *
+ * Все DAO, кроме используемого самими миграциями SchemaDao, создаются после
+ * {@link SchemaMigrationService}, а значит после применения миграций. Кэши и сервисы
+ * получают DAO через конструктор, поэтому тоже не могут обратиться к базе данных раньше.
+ */
+@Configuration(proxyBeanMethods = false)
+public class SchemaMigrationConfiguration {
+
+    private static final String SCHEMA_MIGRATION_BEAN = "schemaMigrationService";
+
+    private static final String DAO_PACKAGE = SchemaDao.class.getPackageName() + ".";
+
+    /**
+     * Добавить зависимость от сервиса миграций в определения бинов DAO
+     * Метод статический, чтобы постпроцессор создавался до остальных бинов конфигурации
+     * @return постпроцессор определений бинов
+     */
+    @Bean
+    public static BeanFactoryPostProcessor schemaMigrationFirst() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                String className = definition.getBeanClassName();
+                if (className == null || !className.startsWith(DAO_PACKAGE)
+                        || className.equals(SchemaDao.class.getName())) {
+                    continue;
+                }
+                List<String> dependsOn = new ArrayList<>();
+                if (definition.getDependsOn() != null) {
+                    dependsOn.addAll(Arrays.asList(definition.getDependsOn()));
+                }
+                dependsOn.add(SCHEMA_MIGRATION_BEAN);
+                definition.setDependsOn(dependsOn.toArray(String[]::new));
+            }
+        };
+    }
+}
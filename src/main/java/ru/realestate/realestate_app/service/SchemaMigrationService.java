@@ -0,0 +1,390 @@
+package ru.realestate.realestate_app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.realestate.realestate_app.dao.SchemaDao;
+import ru.realestate.realestate_app.dao.SchemaDao.AppliedMigration;
+import ru.realestate.realestate_app.dao.SchemaDao.IndexInfo;
+import ru.realestate.realestate_app.exception.RealEstateException;
+import ru.realestate.realestate_app.exception.handler.ExceptionHandler;
+import ru.realestate.realestate_app.model.dto.SchemaStatusDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Сервис версионированных миграций схемы базы данных
+ *
+ * Скрипты лежат в classpath:db/migration и называются V{версия}__{описание}.sql.
+ * Применённые версии и контрольные суммы скриптов хранятся в таблице schema_version.
+ * Каждая миграция выполняется в отдельной транзакции под рекомендательной блокировкой,
+ * поэтому при одновременном старте нескольких экземпляров скрипт применяется один раз.
+ *
+ * Таблицы и индексы, которые должны существовать, берутся из самих скриптов
+ * (CREATE TABLE / CREATE INDEX IF NOT EXISTS), поэтому проверка существующей базы данных
+ * не требует отдельного списка и не расходится с миграциями.
+ *
+ * Миграции применяются при создании бина, до создания остальных DAO
+ * (см. {@link SchemaMigrationConfiguration}), поэтому кэши и запросы никогда не видят старую схему.
+ * Ошибка миграции, изменённый после применения скрипт или недоступная база данных
+ * прерывают старт приложения.
+ *
+ * Режим задаётся свойством app.schema.mode:
+ * migrate - применить неприменённые миграции при старте и проверить схему;
+ * verify - только проверить схему: изменённые скрипты прерывают старт,
+ * отсутствующие таблицы и индексы записываются в журнал;
+ * off - ничего не делать при старте.
+ *
+ * Миграции, перестраивающие большие таблицы под долгой блокировкой, отмечены в скрипте строкой
+ * "-- maintenance-window". Такая миграция применяется, только если окно обслуживания объявлено
+ * явно (app.schema.maintenance-window=true); иначе применение останавливается перед ней и старт прерывается.
+ */
+@Service
+public class SchemaMigrationService implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrationService.class);
+
+    private static final String MIGRATION_LOCATION = "classpath:db/migration/V*__*.sql";
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private static final Pattern MAINTENANCE_WINDOW =
+        Pattern.compile("^--\\s*maintenance-window\\s*$", Pattern.MULTILINE);
+
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+        "CREATE\\s+TABLE\\s+IF\\s+NOT\\s+EXISTS\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+        "CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+IF\\s+NOT\\s+EXISTS\\s+(\\w+)\\s+ON\\s+(\\w+)"
+            + "(?:\\s+USING\\s+(\\w+))?\\s*\\(([^)]*)\\)(?:\\s+INCLUDE\\s*\\(([^)]*)\\))?",
+        Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Режим работы с миграциями при старте
+     */
+    public enum Mode {
+        MIGRATE, VERIFY, OFF;
+
+        static Mode fromProperty(String value) {
+            try {
+                return Mode.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Некорректное значение app.schema.mode: " + value
+                    + " (допустимо migrate, verify, off)", e);
+            }
+        }
+    }
+
+    /**
+     * Скрипт миграции
+     * @param version номер версии
+     * @param description описание из имени файла
+     * @param script ресурс скрипта
+     * @param checksum CRC32 команд скрипта: строки комментариев, пустые строки и \r не учитываются,
+     *                 поэтому исправление комментариев применённого скрипта не считается его изменением
+     * @param tables таблицы, создаваемые скриптом
+     * @param indexes индексы, создаваемые скриптом
+     * @param maintenanceWindow миграция применяется только в объявленное окно обслуживания
+     */
+    record Migration(int version, String description, Resource script, long checksum,
+                     List<String> tables, List<IndexInfo> indexes, boolean maintenanceWindow) {
+
+        String name() {
+            return "V" + version + "__" + description;
+        }
+    }
+
+    private final SchemaDao schemaDao;
+    private final TransactionTemplate transactionTemplate;
+    private final Mode mode;
+    private final boolean maintenanceWindow;
+    private final List<Migration> migrations;
+
+    /**
+     * Конструктор сервиса с инжекцией зависимостей
+     * Скрипты миграций читаются сразу: ошибка в их именах или дубликат версии не дают приложению стартовать
+     * @param schemaDao DAO таблицы версий и системного каталога
+     * @param transactionManager менеджер транзакций (одна транзакция на миграцию)
+     * @param mode режим работы при старте: migrate, verify или off
+     * @param maintenanceWindow разрешено применять миграции, требующие окна обслуживания
+     */
+    public SchemaMigrationService(SchemaDao schemaDao, PlatformTransactionManager transactionManager,
+                                  @Value("${app.schema.mode:migrate}") String mode,
+                                  @Value("${app.schema.maintenance-window:false}") boolean maintenanceWindow) {
+        this.schemaDao = schemaDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mode = Mode.fromProperty(mode);
+        this.maintenanceWindow = maintenanceWindow;
+        this.migrations = loadMigrations();
+    }
+
+    /**
+     * Применение или проверка схемы при создании бина, до создания DAO
+     * @throws IllegalStateException если миграцию не удалось применить, скрипт применённой
+     *                               миграции изменён или схему не удалось проверить
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        SchemaStatusDto status;
+        try {
+            if (mode == Mode.MIGRATE) {
+                migrate();
+            }
+            status = getStatus();
+        } catch (Exception e) {
+            throw new IllegalStateException("Не удалось " + (mode == Mode.MIGRATE ? "обновить" : "проверить")
+                + " схему базы данных: " + e.getMessage(), e);
+        }
+        logStatus(status);
+        if (!status.getChecksumMismatches().isEmpty()) {
+            throw new IllegalStateException("Скрипты миграций изменены после применения: "
+                + status.getChecksumMismatches() + "; изменения схемы оформляются новой версией");
+        }
+    }
+
+    /**
+     * Применить все неприменённые миграции по возрастанию версии
+     * @return количество применённых миграций
+     * @throws IllegalStateException если скрипт уже применённой миграции был изменён или следующая
+     *                               миграция требует окна обслуживания, которое не объявлено
+     */
+    public int migrate() {
+        schemaDao.createVersionTableIfAbsent();
+        checkAppliedChecksums(schemaDao.findAppliedMigrations());
+
+        int applied = 0;
+        for (Migration migration : migrations) {
+            Boolean executed = transactionTemplate.execute(_ -> {
+                schemaDao.lockForMigration();
+                if (schemaDao.isApplied(migration.version())) {
+                    return false;
+                }
+                if (migration.maintenanceWindow() && !maintenanceWindow) {
+                    throw new IllegalStateException("Миграция " + migration.name() + " перестраивает таблицы"
+                        + " под блокировкой и применяется только в окно обслуживания: запустите приложение"
+                        + " с app.schema.maintenance-window=true");
+                }
+                long start = System.nanoTime();
+                schemaDao.executeScript(new EncodedResource(migration.script(), StandardCharsets.UTF_8));
+                long executionMs = (System.nanoTime() - start) / 1_000_000;
+                schemaDao.recordMigration(migration.version(), migration.description(),
+                                          migration.checksum(), executionMs);
+                logger.info("Применена миграция схемы {} за {} мс", migration.name(), executionMs);
+                return true;
+            });
+            if (Boolean.TRUE.equals(executed)) {
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Проверить схему базы данных по поставляемым миграциям, ничего не изменяя
+     * @return состояние схемы: неприменённые и изменённые миграции, отсутствующие таблицы и индексы
+     * @throws RealEstateException если не удалось прочитать системный каталог
+     */
+    public SchemaStatusDto getStatus() {
+        try {
+            List<AppliedMigration> applied = schemaDao.versionTableExists()
+                ? schemaDao.findAppliedMigrations()
+                : List.of();
+            Map<Integer, AppliedMigration> appliedByVersion = new HashMap<>();
+            applied.forEach(migration -> appliedByVersion.put(migration.version(), migration));
+
+            List<String> pending = new ArrayList<>();
+            List<String> mismatches = new ArrayList<>();
+            Set<String> tables = new LinkedHashSet<>();
+            List<IndexInfo> expectedIndexes = new ArrayList<>();
+            for (Migration migration : migrations) {
+                AppliedMigration done = appliedByVersion.get(migration.version());
+                if (done == null) {
+                    pending.add(migration.name());
+                } else if (done.checksum() != migration.checksum()) {
+                    mismatches.add(migration.name());
+                }
+                tables.addAll(migration.tables());
+                expectedIndexes.addAll(migration.indexes());
+            }
+            expectedIndexes.forEach(index -> tables.add(index.tableName()));
+
+            Set<String> existingTables = schemaDao.findExistingTables(tables);
+            Map<String, List<IndexInfo>> existingIndexes = schemaDao.findIndexes(tables);
+
+            SchemaStatusDto status = new SchemaStatusDto();
+            status.setMode(mode.name().toLowerCase());
+            status.setCurrentVersion(applied.isEmpty() ? null : applied.getLast().version());
+            status.setLatestVersion(migrations.isEmpty() ? 0 : migrations.getLast().version());
+            status.setPendingMigrations(pending);
+            status.setChecksumMismatches(mismatches);
+            status.setMissingTables(tables.stream().filter(table -> !existingTables.contains(table)).toList());
+            status.setMissingIndexes(expectedIndexes.stream()
+                .filter(expected -> existingIndexes.getOrDefault(expected.tableName(), List.of()).stream()
+                    .noneMatch(existing -> satisfies(existing, expected)))
+                .map(SchemaMigrationService::describe)
+                .toList());
+            return status;
+        } catch (Exception e) {
+            RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Schema", null);
+            ExceptionHandler.logException(re, "Ошибка при проверке схемы базы данных");
+            throw re;
+        }
+    }
+
+    /**
+     * Получить режим работы с миграциями
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    private void checkAppliedChecksums(List<AppliedMigration> applied) {
+        for (AppliedMigration done : applied) {
+            migrations.stream()
+                .filter(migration -> migration.version() == done.version())
+                .filter(migration -> migration.checksum() != done.checksum())
+                .findFirst()
+                .ifPresent(migration -> {
+                    throw new IllegalStateException("Скрипт миграции " + migration.name()
+                        + " изменён после применения: изменения схемы оформляются новой версией");
+                });
+        }
+    }
+
+    private void logStatus(SchemaStatusDto status) {
+        if (status.isUpToDate()) {
+            logger.info("Схема базы данных актуальна, версия {}", status.getCurrentVersion());
+            return;
+        }
+        if (!status.getPendingMigrations().isEmpty()) {
+            logger.warn("Неприменённые миграции схемы: {}", status.getPendingMigrations());
+        }
+        if (!status.getChecksumMismatches().isEmpty()) {
+            logger.warn("Миграции, изменённые после применения: {}", status.getChecksumMismatches());
+        }
+        if (!status.getMissingTables().isEmpty()) {
+            logger.warn("Отсутствуют таблицы: {}", status.getMissingTables());
+        }
+        status.getMissingIndexes().forEach(index -> logger.warn("Отсутствует индекс: {}", index));
+    }
+
+    /**
+     * Существующий индекс подходит, если совпадает имя или он того же метода,
+     * его ключ начинается с нужных колонок в том же порядке и он содержит нужные колонки INCLUDE
+     */
+    private static boolean satisfies(IndexInfo existing, IndexInfo expected) {
+        if (existing.indexName().equals(expected.indexName())) {
+            return true;
+        }
+        if (!existing.method().equals(expected.method())
+                || existing.keyColumns().size() < expected.keyColumns().size()
+                || !existing.keyColumns().subList(0, expected.keyColumns().size()).equals(expected.keyColumns())) {
+            return false;
+        }
+        List<String> allColumns = new ArrayList<>(existing.keyColumns());
+        allColumns.addAll(existing.includeColumns());
+        return allColumns.containsAll(expected.includeColumns());
+    }
+
+    private static String describe(IndexInfo index) {
+        String description = index.indexName() + " ON " + index.tableName()
+            + " USING " + index.method() + " (" + String.join(", ", index.keyColumns()) + ")";
+        if (!index.includeColumns().isEmpty()) {
+            description += " INCLUDE (" + String.join(", ", index.includeColumns()) + ")";
+        }
+        return description;
+    }
+
+    private static List<Migration> loadMigrations() {
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver().getResources(MIGRATION_LOCATION);
+            List<Migration> loaded = new ArrayList<>();
+            for (Resource resource : resources) {
+                Matcher name = FILE_NAME.matcher(resource.getFilename());
+                if (!name.matches()) {
+                    throw new IllegalStateException("Некорректное имя скрипта миграции: " + resource.getFilename());
+                }
+                String sql = resource.getContentAsString(StandardCharsets.UTF_8).replace("\r", "");
+                CRC32 crc = new CRC32();
+                crc.update(sql.lines()
+                    .filter(line -> !line.isBlank() && !line.strip().startsWith("--"))
+                    .collect(Collectors.joining("\n"))
+                    .getBytes(StandardCharsets.UTF_8));
+                String statements = sql.replaceAll("--[^\n]*", "");
+                loaded.add(new Migration(Integer.parseInt(name.group(1)), name.group(2), resource,
+                                         crc.getValue(), parseTables(statements), parseIndexes(statements),
+                                         MAINTENANCE_WINDOW.matcher(sql).find()));
+            }
+            loaded.sort(Comparator.comparingInt(Migration::version));
+            for (int i = 1; i < loaded.size(); i++) {
+                if (loaded.get(i).version() == loaded.get(i - 1).version()) {
+                    throw new IllegalStateException("Две миграции с версией " + loaded.get(i).version());
+                }
+            }
+            return List.copyOf(loaded);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать скрипты миграций", e);
+        }
+    }
+
+    private static List<String> parseTables(String sql) {
+        List<String> tables = new ArrayList<>();
+        Matcher matcher = CREATE_TABLE.matcher(sql);
+        while (matcher.find()) {
+            tables.add(matcher.group(1).toLowerCase());
+        }
+        return tables;
+    }
+
+    private static List<IndexInfo> parseIndexes(String sql) {
+        List<IndexInfo> indexes = new ArrayList<>();
+        Matcher matcher = CREATE_INDEX.matcher(sql);
+        while (matcher.find()) {
+            indexes.add(new IndexInfo(
+                matcher.group(2).toLowerCase(),
+                matcher.group(1).toLowerCase(),
+                matcher.group(3) == null ? "btree" : matcher.group(3).toLowerCase(),
+                columnNames(matcher.group(4)),
+                columnNames(matcher.group(5))
+            ));
+        }
+        return indexes;
+    }
+
+    /**
+     * Имена колонок из списка "a DESC, b" без направлений сортировки
+     */
+    private static List<String> columnNames(String list) {
+        if (list == null || list.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(list.split(","))
+            .map(column -> column.trim().split("\\s+")[0].toLowerCase())
+            .toList();
+    }
+}
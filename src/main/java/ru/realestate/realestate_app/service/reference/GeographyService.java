@@ -2,6 +2,7 @@ package ru.realestate.realestate_app.service.reference;
 
 import org.springframework.stereotype.Service;
 
+import ru.realestate.realestate_app.cache.GeographyIndex;
 import ru.realestate.realestate_app.dao.reference.GeographyDao;
 import ru.realestate.realestate_app.exception.DatabaseException;
 import ru.realestate.realestate_app.exception.EntityNotFoundException;
@@ -20,18 +21,22 @@ import java.util.List;
  * Сервис для работы с географическими справочниками
  * Содержит бизнес-логику для операций со странами, регионами, городами, районами и улицами
  * Делегирует выполнение операций с базой данных в GeographyDao
+ * Списки и навигация по иерархии обслуживаются из GeographyIndex, если он загружен
  */
 @Service
 public class GeographyService {
     
     private final GeographyDao geographyDao;
+    private final GeographyIndex geographyIndex;
 
     /**
      * Конструктор сервиса с инжекцией зависимостей
      * @param geographyDao DAO для работы с географическими данными
+     * @param geographyIndex индекс географической иерархии в памяти
      */
-    public GeographyService(GeographyDao geographyDao) {
+    public GeographyService(GeographyDao geographyDao, GeographyIndex geographyIndex) {
         this.geographyDao = geographyDao;
+        this.geographyIndex = geographyIndex;
     }
 
     // ========== СТРАНЫ ==========
@@ -43,6 +48,9 @@ public class GeographyService {
      */
     public List<Country> findAllCountries() {
         try {
+            if (geographyIndex.isLoaded()) {
+                return geographyIndex.getAllCountries();
+            }
             return geographyDao.findAllCountries();
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Country", null);
@@ -60,6 +68,10 @@ public class GeographyService {
      */
     public Country findCountryById(Long id) {
         try {
+            if (geographyIndex.isLoaded()) {
+                // При промахе обращаемся к базе: запись могла появиться после загрузки индекса
+                return geographyIndex.findCountry(id).orElseGet(() -> geographyDao.findCountryById(id));
+            }
             return geographyDao.findCountryById(id);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Country", id);
@@ -95,6 +107,9 @@ public class GeographyService {
      */
     public List<Region> findAllRegions() {
         try {
+            if (geographyIndex.isLoaded()) {
+                return geographyIndex.getAllRegions();
+            }
             return geographyDao.findAllRegions();
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Region", null);
@@ -112,6 +127,9 @@ public class GeographyService {
      */
     public Region findRegionById(Long id) {
         try {
+            if (geographyIndex.isLoaded()) {
+                return geographyIndex.findRegion(id).orElseGet(() -> geographyDao.findRegionById(id));
+            }
             return geographyDao.findRegionById(id);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Region", id);
@@ -145,6 +163,9 @@ public class GeographyService {
      */
     public List<Region> findRegionsByCountry(Long countryId) {
         try {
+            if (geographyIndex.isLoaded()) {
+                return geographyIndex.getRegionsByCountry(countryId);
+            }
             return geographyDao.findRegionsByCountry(countryId);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Region", null);
@@ -181,6 +202,9 @@ public class GeographyService {
      */
     public List<City> findAllCities() {
         try {
+            if (geographyIndex.isLoaded()) {
+                return geographyIndex.getAllCities();
+            }
             return geographyDao.findAllCities();
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "City", null);
@@ -198,6 +222,9 @@ public class GeographyService {
      */
     public City findCityById(Long id) {
         try {
+            if (geographyIndex.isLoaded()) {
+                return geographyIndex.findCity(id).orElseGet(() -> geographyDao.findCityById(id));
+            }
             return geographyDao.findCityById(id);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "City", id);
@@ -214,6 +241,9 @@ public class GeographyService {
      */
     public List<City> findCitiesByRegion(Long regionId) {
         try {
+            if (geographyIndex.isLoaded()) {
+                return geographyIndex.getCitiesByRegion(regionId);
+            }
             return geographyDao.findCitiesByRegion(regionId);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "City", null);
@@ -230,6 +260,9 @@ public class GeographyService {
      */
     public List<City> findCitiesByCountry(Long countryId) {
         try {
+            if (geographyIndex.isLoaded()) {
+                return geographyIndex.getCitiesByCountry(countryId);
+            }
             return geographyDao.findCitiesByCountry(countryId);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "City", null);
@@ -283,6 +316,9 @@ public class GeographyService {
      */
     public List<District> findAllDistricts() {
         try {
+            if (geographyIndex.isLoaded()) {
+                return geographyIndex.getAllDistricts();
+            }
             return geographyDao.findAllDistricts();
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "District", null);
@@ -300,6 +336,9 @@ public class GeographyService {
      */
     public District findDistrictById(Long id) {
         try {
+            if (geographyIndex.isLoaded()) {
+                return geographyIndex.findDistrict(id).orElseGet(() -> geographyDao.findDistrictById(id));
+            }
             return geographyDao.findDistrictById(id);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "District", id);
@@ -316,6 +355,9 @@ public class GeographyService {
      */
     public List<District> findDistrictsByCity(Long cityId) {
         try {
+            if (geographyIndex.isLoaded()) {
+                return geographyIndex.getDistrictsByCity(cityId);
+            }
             return geographyDao.findDistrictsByCity(cityId);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "District", null);
@@ -332,6 +374,9 @@ public class GeographyService {
      */
     public List<District> findDistrictsByRegion(Long regionId) {
         try {
+            if (geographyIndex.isLoaded()) {
+                return geographyIndex.getDistrictsByRegion(regionId);
+            }
             return geographyDao.findDistrictsByRegion(regionId);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "District", null);
@@ -348,6 +393,9 @@ public class GeographyService {
      */
     public List<District> findDistrictsByCountry(Long countryId) {
         try {
+            if (geographyIndex.isLoaded()) {
+                return geographyIndex.getDistrictsByCountry(countryId);
+            }
             return geographyDao.findDistrictsByCountry(countryId);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "District", null);
@@ -384,6 +432,9 @@ public class GeographyService {
      */
     public List<Street> findAllStreets() {
         try {
+            if (geographyIndex.isLoaded()) {
+                return geographyIndex.getAllStreets();
+            }
             return geographyDao.findAllStreets();
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Street", null);
@@ -401,6 +452,9 @@ public class GeographyService {
      */
     public Street findStreetById(Long id) {
         try {
+            if (geographyIndex.isLoaded()) {
+                return geographyIndex.findStreet(id).orElseGet(() -> geographyDao.findStreetById(id));
+            }
             return geographyDao.findStreetById(id);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Street", id);
@@ -417,6 +471,9 @@ public class GeographyService {
      */
     public List<Street> findStreetsByCity(Long cityId) {
         try {
+            if (geographyIndex.isLoaded()) {
+                return geographyIndex.getStreetsByCity(cityId);
+            }
             return geographyDao.findStreetsByCity(cityId);
         } catch (Exception e) {
             RealEstateException re = ExceptionHandler.handleDatabaseException(e, "SELECT", "Street", null);
@@ -0,0 +1,43 @@
+package ru.realestate.realestate_app.transaction;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Отложенное выполнение побочных действий записи до фиксации транзакции
+ *
+ * Кэши и индексы в памяти, журнал аудита и события изменений должны отражать только
+ * зафиксированные данные: внутри транзакции действие регистрируется и выполняется после
+ * фиксации, а при откате отбрасывается. Без транзакции (в том числе в режиме
+ * PROPAGATION_SUPPORTS, где каждый запрос фиксируется сразу) действие выполняется немедленно.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Выполнить действие после фиксации текущей транзакции или сразу, если транзакции нет
+     * @param action действие над состоянием в памяти
+     */
+    public static void run(Runnable action) {
+        if (isDeferred()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Будет ли действие отложено до фиксации (поток выполняет транзакцию)
+     */
+    public static boolean isDeferred() {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+            && TransactionSynchronizationManager.isActualTransactionActive();
+    }
+}
@@ -0,0 +1,397 @@
+package ru.realestate.realestate_app.warmup;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import ru.realestate.realestate_app.cache.DealColumnStore;
+import ru.realestate.realestate_app.model.dto.DealReportDto;
+import ru.realestate.realestate_app.model.dto.DealTableDto;
+import ru.realestate.realestate_app.model.dto.PaymentReportDto;
+import ru.realestate.realestate_app.model.dto.PropertyReportDto;
+import ru.realestate.realestate_app.model.dto.TablePage;
+import ru.realestate.realestate_app.model.dto.TableQuery;
+import ru.realestate.realestate_app.service.ClientService;
+import ru.realestate.realestate_app.service.CsvExportService;
+import ru.realestate.realestate_app.service.DealService;
+import ru.realestate.realestate_app.service.LookupBundleService;
+import ru.realestate.realestate_app.service.PaymentService;
+import ru.realestate.realestate_app.service.PropertyService;
+import ru.realestate.realestate_app.service.RealtorService;
+import ru.realestate.realestate_app.service.reference.DealTypeService;
+import ru.realestate.realestate_app.service.reference.GeographyService;
+import ru.realestate.realestate_app.service.reference.PropertyTypeService;
+
+import javax.sql.DataSource;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Прогрев приложения после старта
+ *
+ * Первые запросы после рестарта платят за заполнение пула соединений, холодные планы PostgreSQL,
+ * разбор шаблонов Thymeleaf и JIT-компиляцию мапперов. Прогрев выполняет эту работу заранее:
+ * заполняет пул Hikari до максимального размера, загружает справочники, один раз выполняет
+ * основные формы запросов DAO с типичными параметрами, открывает главные страницы
+ * и JSON эндпоинты через собственный HTTP сервер и записывает CSV отчёты.
+ *
+ * Прогрев выполняется синхронно в обработчике ApplicationReadyEvent. Spring Boot переводит
+ * состояние готовности (ReadinessState) в ACCEPTING_TRAFFIC только после всех обработчиков
+ * этого события, поэтому /actuator/health/readiness отвечает успехом, когда прогрев завершён.
+ * Ошибка шага не мешает старту. Общее время прогрева ограничено: каждый шаг выполняется в отдельном
+ * виртуальном потоке и ожидается не дольше оставшегося времени, зависший шаг прерывается,
+ * а оставшиеся шаги пропускаются. Итоги сделок (/api/deals/summary и summarizeDeals) строятся
+ * по колоночной копии и при выключенной копии не прогреваются.
+ */
+@Component
+public class StartupWarmUp {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmUp.class);
+
+    /**
+     * Страницы, открываемые через HTTP: шаблоны Thymeleaf и формы запросов, из которых они строятся
+     */
+    private static final List<String> PAGES = List.of(
+        "/", "/deals", "/properties", "/payments", "/clients", "/realtors"
+    );
+
+    /**
+     * Эндпоинт итогов сделок: отвечает только при включённой колоночной копии сделок
+     */
+    private static final String DEAL_SUMMARY_ENDPOINT = "/api/deals/summary?top=5";
+
+    /**
+     * JSON эндпоинты, открываемые через HTTP
+     */
+    private static final List<String> JSON_ENDPOINTS = List.of(
+        "/api/lookup-bundle", DEAL_SUMMARY_ENDPOINT, "/api/deal-types"
+    );
+
+    /**
+     * Результат шага прогрева
+     */
+    public enum Status { OK, FAILED, SKIPPED }
+
+    /**
+     * Шаг прогрева в отчёте
+     * @param name название шага
+     * @param durationMs длительность в миллисекундах
+     * @param status результат
+     * @param message сообщение об ошибке или причина пропуска
+     */
+    public record StepResult(String name, long durationMs, Status status, String message) {}
+
+    /**
+     * Действие шага прогрева
+     */
+    @FunctionalInterface
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    private final DataSource dataSource;
+    private final DealTypeService dealTypeService;
+    private final PropertyTypeService propertyTypeService;
+    private final GeographyService geographyService;
+    private final LookupBundleService lookupBundleService;
+    private final DealService dealService;
+    private final PropertyService propertyService;
+    private final PaymentService paymentService;
+    private final ClientService clientService;
+    private final RealtorService realtorService;
+    private final CsvExportService csvExportService;
+    private final DealColumnStore dealColumnStore;
+    private final boolean enabled;
+    private final Duration timeout;
+
+    /**
+     * Конструктор с инжекцией зависимостей
+     * @param dataSource источник соединений (пул Hikari)
+     * @param dealTypeService сервис типов сделок
+     * @param propertyTypeService сервис типов недвижимости
+     * @param geographyService сервис географических справочников
+     * @param lookupBundleService сервис справочного пакета
+     * @param dealService сервис сделок
+     * @param propertyService сервис объектов недвижимости
+     * @param paymentService сервис платежей
+     * @param clientService сервис клиентов
+     * @param realtorService сервис риелторов
+     * @param csvExportService сервис экспорта CSV
+     * @param dealColumnStore колоночная копия сделок, по которой строятся итоги
+     * @param enabled выполнять ли прогрев
+     * @param timeout ограничение общего времени прогрева
+     */
+    public StartupWarmUp(DataSource dataSource,
+                         DealTypeService dealTypeService,
+                         PropertyTypeService propertyTypeService,
+                         GeographyService geographyService,
+                         LookupBundleService lookupBundleService,
+                         DealService dealService,
+                         PropertyService propertyService,
+                         PaymentService paymentService,
+                         ClientService clientService,
+                         RealtorService realtorService,
+                         CsvExportService csvExportService,
+                         DealColumnStore dealColumnStore,
+                         @Value("${app.warm-up.enabled:true}") boolean enabled,
+                         @Value("${app.warm-up.timeout:PT1M}") Duration timeout) {
+        this.dataSource = dataSource;
+        this.dealTypeService = dealTypeService;
+        this.propertyTypeService = propertyTypeService;
+        this.geographyService = geographyService;
+        this.lookupBundleService = lookupBundleService;
+        this.dealService = dealService;
+        this.propertyService = propertyService;
+        this.paymentService = paymentService;
+        this.clientService = clientService;
+        this.realtorService = realtorService;
+        this.csvExportService = csvExportService;
+        this.dealColumnStore = dealColumnStore;
+        this.enabled = enabled;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Прогрев после старта
+     * @param event событие готовности приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup(ApplicationReadyEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Integer port = event.getApplicationContext() instanceof WebServerApplicationContext web
+                && web.getWebServer() != null && web.getWebServer().getPort() > 0
+            ? web.getWebServer().getPort() : null;
+        run(port);
+    }
+
+    private void run(Integer port) {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        List<StepResult> report = new ArrayList<>();
+        // Потоки шагов не ожидаются при завершении: зависший шаг не должен задерживать старт
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("warm-up-", 0).factory());
+        try {
+            runSteps(port, deadline, report, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+        logReport(report, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void runSteps(Integer port, long deadline, List<StepResult> report, ExecutorService executor) {
+
+        // Без соединения с базой данных остальные шаги с запросами бессмысленны
+        boolean database = step(executor, report, deadline, "пул соединений", this::fillConnectionPool);
+
+        Map<String, Action> databaseSteps = new LinkedHashMap<>();
+        databaseSteps.put("справочники", this::loadReferences);
+        databaseSteps.put("запросы сделок", this::queryDeals);
+        databaseSteps.put("запросы объектов недвижимости", this::queryProperties);
+        databaseSteps.put("запросы платежей", this::queryPayments);
+        databaseSteps.put("запросы клиентов и риелторов", this::queryPeople);
+        databaseSteps.forEach((name, action) -> {
+            if (database) {
+                step(executor, report, deadline, name, action);
+            } else {
+                report.add(new StepResult(name, 0, Status.SKIPPED, "база данных недоступна"));
+            }
+        });
+
+        step(executor, report, deadline, "CSV отчёты", this::writeCsvReports);
+
+        if (port == null) {
+            report.add(new StepResult("HTTP", 0, Status.SKIPPED, "веб-сервер не запущен"));
+        } else if (!database) {
+            report.add(new StepResult("HTTP", 0, Status.SKIPPED, "база данных недоступна"));
+        } else {
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            for (String path : PAGES) {
+                step(executor, report, deadline, "страница " + path, () -> get(client, port, path, deadline));
+            }
+            for (String path : JSON_ENDPOINTS) {
+                if (path.equals(DEAL_SUMMARY_ENDPOINT) && !dealColumnStore.isEnabled()) {
+                    report.add(new StepResult("JSON " + path, 0, Status.SKIPPED, "колоночная копия сделок выключена"));
+                    continue;
+                }
+                step(executor, report, deadline, "JSON " + path, () -> get(client, port, path, deadline));
+            }
+        }
+    }
+
+    /**
+     * Выполнить шаг прогрева и добавить результат в отчёт
+     * Шаг ожидается не дольше оставшегося времени прогрева, по истечении он прерывается
+     * @return true если шаг выполнен успешно
+     */
+    private boolean step(ExecutorService executor, List<StepResult> report, long deadline, String name,
+                         Action action) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            report.add(new StepResult(name, 0, Status.SKIPPED, "превышено время прогрева " + timeout));
+            return false;
+        }
+        long start = System.nanoTime();
+        Future<?> future = executor.submit(() -> {
+            action.run();
+            return null;
+        });
+        try {
+            future.get(remaining, TimeUnit.NANOSECONDS);
+            report.add(new StepResult(name, (System.nanoTime() - start) / 1_000_000, Status.OK, null));
+            return true;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            report.add(new StepResult(name, (System.nanoTime() - start) / 1_000_000, Status.FAILED,
+                                      "прерван: превышено время прогрева " + timeout));
+            return false;
+        } catch (ExecutionException e) {
+            report.add(new StepResult(name, (System.nanoTime() - start) / 1_000_000, Status.FAILED,
+                                      e.getCause().getMessage()));
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            report.add(new StepResult(name, (System.nanoTime() - start) / 1_000_000, Status.FAILED, "прогрев прерван"));
+            return false;
+        }
+    }
+
+    /**
+     * Заполнить пул до максимального размера: соединения открываются одновременно и возвращаются в пул,
+     * где остаются до истечения idle-timeout
+     */
+    private void fillConnectionPool() throws Exception {
+        int size = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 1;
+        List<Connection> connections = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                Connection connection = dataSource.getConnection();
+                connections.add(connection);
+                connection.isValid(1);
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    private void loadReferences() {
+        dealTypeService.findAll();
+        propertyTypeService.findAll();
+        geographyService.findAllCountries();
+        geographyService.findAllRegions();
+        geographyService.findAllCities();
+        lookupBundleService.getBundle();
+    }
+
+    private void queryDeals() {
+        LocalDate today = LocalDate.now();
+        TablePage<DealTableDto> page = dealService.searchDealsPage(null, null, null, null, null, false,
+                TableQuery.of(null, null, null, null));
+        dealService.searchDealsPage(today.minusYears(1), today, null, null, null, false,
+                TableQuery.of(0, 50, "cost", "desc"));
+        if (dealColumnStore.isEnabled()) {
+            dealService.summarizeDeals(today.minusYears(1), today, null, null, null, 10);
+        }
+        page.getRows().stream().findFirst().ifPresent(deal -> {
+            dealService.findById(deal.getDealId());
+            dealService.findByIdWithDetails(deal.getDealId());
+            dealService.getDealForTable(deal.getDealId());
+        });
+    }
+
+    private void queryProperties() {
+        propertyService.searchPropertiesPage(null, null, null, null, null, null,
+                TableQuery.of(null, null, null, null));
+        propertyService.searchPropertiesPage(null, null, null, null, null, null,
+                TableQuery.of(0, 50, "cost", "desc")).getRows().stream().findFirst()
+            .ifPresent(property -> propertyService.findById(property.getPropertyId()));
+        propertyService.findAllForTable();
+    }
+
+    private void queryPayments() {
+        LocalDate today = LocalDate.now();
+        paymentService.searchPaymentsPage(null, null, null, TableQuery.of(null, null, null, null));
+        paymentService.searchPaymentsPage(null, today.minusYears(1), today, TableQuery.of(0, 50, "date", "desc"));
+    }
+
+    private void queryPeople() {
+        clientService.findAll();
+        realtorService.findAll();
+        clientService.searchClientsPage(null, null, null, TableQuery.of(null, null, null, null));
+        realtorService.searchRealtorsPage(null, null, null, null, TableQuery.of(null, null, null, null));
+    }
+
+    /**
+     * Записать по одной пустой строке каждого отчёта: инициализирует привязку колонок opencsv
+     */
+    private void writeCsvReports() throws Exception {
+        csvExportService.writeCsv(OutputStream.nullOutputStream(), DealReportDto.class, consumer -> {
+            consumer.accept(new DealReportDto());
+            return 1;
+        });
+        csvExportService.writeCsv(OutputStream.nullOutputStream(), PropertyReportDto.class, consumer -> {
+            consumer.accept(new PropertyReportDto());
+            return 1;
+        });
+        csvExportService.writeCsv(OutputStream.nullOutputStream(), PaymentReportDto.class, consumer -> {
+            consumer.accept(new PaymentReportDto());
+            return 1;
+        });
+    }
+
+    private void get(HttpClient client, int port, String path, long deadline) throws Exception {
+        long remaining = Math.max(1, (deadline - System.nanoTime()) / 1_000_000);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .timeout(Duration.ofMillis(remaining))
+            .GET()
+            .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("HTTP " + response.statusCode());
+        }
+    }
+
+    private void logReport(List<StepResult> report, long totalMs) {
+        long failed = report.stream().filter(step -> step.status() == Status.FAILED).count();
+        long skipped = report.stream().filter(step -> step.status() == Status.SKIPPED).count();
+        StringBuilder text = new StringBuilder();
+        for (StepResult step : report) {
+            text.append(System.lineSeparator())
+                .append(String.format("  %-40s %6d мс  %s", step.name(), step.durationMs(), step.status()));
+            if (step.message() != null) {
+                text.append(" (").append(step.message()).append(')');
+            }
+        }
+        if (failed == 0 && skipped == 0) {
+            logger.info("Прогрев завершён за {} мс, шагов: {}{}", totalMs, report.size(), text);
+        } else {
+            logger.warn("Прогрев завершён за {} мс, шагов: {}, с ошибками: {}, пропущено: {}{}",
+                       totalMs, report.size(), failed, skipped, text);
+        }
+    }
+}
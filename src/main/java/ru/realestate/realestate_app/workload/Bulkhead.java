@@ -0,0 +1,179 @@
+package ru.realestate.realestate_app.workload;
+
+import ru.realestate.realestate_app.exception.ServiceOverloadedException;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограничитель параллельности одного класса нагрузки
+ *
+ * Одновременно выполняется не больше maxConcurrent запросов, ещё не больше maxQueue ждут
+ * в очереди. Запрос, которому не хватило места в очереди, отклоняется сразу (429),
+ * запрос, не дождавшийся своей очереди за maxWait, - по истечении ожидания (503).
+ * Очередь справедливая: новые запросы не обгоняют уже ожидающие.
+ */
+public final class Bulkhead {
+
+    private final WorkloadClass workloadClass;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final Duration maxWait;
+    private final Duration statementTimeout;
+    private final Semaphore permits;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger peakQueued = new AtomicInteger();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong waited = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong rejectedQueueFull = new AtomicLong();
+    private final AtomicLong rejectedWaitTimeout = new AtomicLong();
+    private final AtomicLong statementTimeouts = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    /**
+     * Конструктор ограничителя
+     * @param workloadClass класс нагрузки
+     * @param maxConcurrent максимальное количество одновременно выполняемых запросов
+     * @param maxQueue максимальное количество ожидающих запросов (0 - без очереди)
+     * @param maxWait максимальное время ожидания в очереди
+     * @param statementTimeout тайм-аут одного SQL запроса (0 - без ограничения)
+     */
+    public Bulkhead(WorkloadClass workloadClass, int maxConcurrent, int maxQueue,
+                    Duration maxWait, Duration statementTimeout) {
+        if (maxConcurrent < 1 || maxQueue < 0) {
+            throw new IllegalArgumentException("Некорректные ограничения класса нагрузки " + workloadClass.getPropertyName());
+        }
+        this.workloadClass = workloadClass;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+        this.statementTimeout = statementTimeout;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * Занять место для выполнения запроса, при необходимости подождав в очереди
+     * @return контекст запроса, место освобождается через {@link WorkloadContext#release()}
+     * @throws ServiceOverloadedException если очередь заполнена или ожидание истекло
+     */
+    public WorkloadContext acquire() {
+        // tryAcquire с нулевым ожиданием соблюдает справедливость, в отличие от tryAcquire()
+        if (tryAcquire(0)) {
+            admitted.incrementAndGet();
+            return new WorkloadContext(this);
+        }
+
+        int depth = queued.incrementAndGet();
+        if (depth > maxQueue) {
+            queued.decrementAndGet();
+            rejectedQueueFull.incrementAndGet();
+            throw new ServiceOverloadedException(workloadClass.getPropertyName(), true, retryAfterSeconds());
+        }
+        peakQueued.accumulateAndGet(depth, Math::max);
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = tryAcquire(maxWait.toNanos());
+        } finally {
+            queued.decrementAndGet();
+            waitNanos.addAndGet(System.nanoTime() - start);
+            waited.incrementAndGet();
+        }
+        if (!acquired) {
+            rejectedWaitTimeout.incrementAndGet();
+            throw new ServiceOverloadedException(workloadClass.getPropertyName(), false, retryAfterSeconds());
+        }
+        admitted.incrementAndGet();
+        return new WorkloadContext(this);
+    }
+
+    /**
+     * Освободить места (вызывается контекстом запроса)
+     * @param count количество мест
+     */
+    void release(int count) {
+        permits.release(count);
+    }
+
+    /**
+     * Занять дополнительные места без ожидания
+     * Места занимаются, только если их никто не ждёт в очереди: дополнительные соединения
+     * одного запроса не должны задерживать другие запросы класса
+     * @param max сколько мест нужно
+     * @return сколько мест занято (от 0 до max)
+     */
+    int tryAcquireExtra(int max) {
+        int acquired = 0;
+        while (acquired < max && tryAcquire(0)) {
+            acquired++;
+        }
+        return acquired;
+    }
+
+    /**
+     * Учесть SQL запрос, прерванный по тайм-ауту
+     */
+    void recordStatementTimeout() {
+        statementTimeouts.incrementAndGet();
+    }
+
+    /**
+     * Учесть запрос, отменённый из-за отключения клиента
+     */
+    void recordCancelled() {
+        cancelled.incrementAndGet();
+    }
+
+    public WorkloadClass getWorkloadClass() {
+        return workloadClass;
+    }
+
+    public Duration getStatementTimeout() {
+        return statementTimeout;
+    }
+
+    /**
+     * Получить состояние ограничителя
+     * @return занятые места, глубина очереди и счётчики отказов
+     */
+    public Map<String, Object> getStats() {
+        long waitedCount = waited.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("active", maxConcurrent - permits.availablePermits());
+        stats.put("maxQueue", maxQueue);
+        stats.put("queued", queued.get());
+        stats.put("peakQueued", peakQueued.get());
+        stats.put("maxWaitMillis", maxWait.toMillis());
+        stats.put("statementTimeoutSeconds", statementTimeout.toSeconds());
+        stats.put("admitted", admitted.get());
+        stats.put("waited", waitedCount);
+        stats.put("averageWaitMillis", waitedCount == 0 ? 0.0 : waitNanos.get() / 1_000_000.0 / waitedCount);
+        stats.put("rejectedQueueFull", rejectedQueueFull.get());
+        stats.put("rejectedWaitTimeout", rejectedWaitTimeout.get());
+        stats.put("statementTimeouts", statementTimeouts.get());
+        stats.put("cancelled", cancelled.get());
+        return stats;
+    }
+
+    private boolean tryAcquire(long nanos) {
+        try {
+            return permits.tryAcquire(nanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private long retryAfterSeconds() {
+        return Math.max(1, (maxWait.toMillis() + 999) / 1000);
+    }
+}
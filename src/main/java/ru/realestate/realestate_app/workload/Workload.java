@@ -0,0 +1,23 @@
+package ru.realestate.realestate_app.workload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Класс нагрузки обработчика запроса
+ * Аннотация на методе контроллера имеет приоритет над аннотацией на классе;
+ * обработчики без аннотации относятся к классу INTERACTIVE
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Workload {
+
+    /**
+     * Класс нагрузки
+     */
+    WorkloadClass value();
+}
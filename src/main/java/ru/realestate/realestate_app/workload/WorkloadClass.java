@@ -0,0 +1,74 @@
+package ru.realestate.realestate_app.workload;
+
+import java.time.Duration;
+
+/**
+ * Класс нагрузки запроса
+ *
+ * У каждого класса свой ограничитель параллельности (bulkhead) с очередью и свой тайм-аут
+ * SQL запросов, поэтому тяжёлые отчёты и поиск не могут занять все соединения пула
+ * и заставить ждать сохранение записи. Значения по умолчанию рассчитаны на пул из 10 соединений:
+ * поиск, отчёты и выгрузки вместе занимают не больше 7, остальные остаются интерактивным запросам.
+ * Место соответствует соединению: запрос, читающий несколькими соединениями, занимает несколько мест.
+ * Настройки переопределяются свойствами app.bulkhead.<имя класса>.*
+ */
+public enum WorkloadClass {
+
+    /**
+     * Чтение и изменение отдельных записей, справочники, пакетные запросы
+     */
+    INTERACTIVE("interactive", 32, 64, Duration.ofSeconds(5), Duration.ofSeconds(10)),
+
+    /**
+     * Поиск и выборки со связанными данными для таблиц
+     */
+    SEARCH("search", 3, 16, Duration.ofSeconds(2), Duration.ofSeconds(15)),
+
+    /**
+     * Аналитика и агрегаты по всей базе
+     */
+    REPORT("report", 2, 4, Duration.ofSeconds(1), Duration.ofSeconds(30)),
+
+    /**
+     * Выгрузка таблиц целиком в файлы; выгрузка частями занимает место на каждое соединение
+     */
+    EXPORT("export", 2, 2, Duration.ofSeconds(1), Duration.ofMinutes(2));
+
+    private final String propertyName;
+    private final int defaultMaxConcurrent;
+    private final int defaultMaxQueue;
+    private final Duration defaultMaxWait;
+    private final Duration defaultStatementTimeout;
+
+    WorkloadClass(String propertyName, int defaultMaxConcurrent, int defaultMaxQueue,
+                  Duration defaultMaxWait, Duration defaultStatementTimeout) {
+        this.propertyName = propertyName;
+        this.defaultMaxConcurrent = defaultMaxConcurrent;
+        this.defaultMaxQueue = defaultMaxQueue;
+        this.defaultMaxWait = defaultMaxWait;
+        this.defaultStatementTimeout = defaultStatementTimeout;
+    }
+
+    /**
+     * Имя класса в настройках и статистике
+     */
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    public int getDefaultMaxConcurrent() {
+        return defaultMaxConcurrent;
+    }
+
+    public int getDefaultMaxQueue() {
+        return defaultMaxQueue;
+    }
+
+    public Duration getDefaultMaxWait() {
+        return defaultMaxWait;
+    }
+
+    public Duration getDefaultStatementTimeout() {
+        return defaultStatementTimeout;
+    }
+}
@@ -0,0 +1,55 @@
+package ru.realestate.realestate_app.workload;
+
+import org.springframework.boot.autoconfigure.jdbc.JdbcProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Подключение ограничителей нагрузки: перехватчик запросов к контроллерам
+ * и JdbcTemplate с тайм-аутами классов нагрузки вместо автоматически настраиваемого
+ */
+@Configuration(proxyBeanMethods = false)
+public class WorkloadConfiguration implements WebMvcConfigurer {
+
+    private final WorkloadInterceptor workloadInterceptor;
+
+    /**
+     * Конструктор с инжекцией зависимостей
+     * @param workloadInterceptor перехватчик ограничителей нагрузки
+     */
+    public WorkloadConfiguration(WorkloadInterceptor workloadInterceptor) {
+        this.workloadInterceptor = workloadInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(workloadInterceptor);
+    }
+
+    /**
+     * JdbcTemplate с теми же настройками spring.jdbc.template.*, что и у автоматически настраиваемого
+     * @param dataSource источник соединений
+     * @param properties настройки JDBC
+     * @return шаблон с тайм-аутами классов нагрузки
+     */
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource, JdbcProperties properties) {
+        JdbcProperties.Template template = properties.getTemplate();
+        WorkloadJdbcTemplate jdbcTemplate = new WorkloadJdbcTemplate(dataSource);
+        jdbcTemplate.setIgnoreWarnings(template.isIgnoreWarnings());
+        jdbcTemplate.setFetchSize(template.getFetchSize());
+        jdbcTemplate.setMaxRows(template.getMaxRows());
+        if (template.getQueryTimeout() != null) {
+            jdbcTemplate.setQueryTimeout((int) template.getQueryTimeout().getSeconds());
+        }
+        jdbcTemplate.setSkipResultsProcessing(template.isSkipResultsProcessing());
+        jdbcTemplate.setSkipUndeclaredResults(template.isSkipUndeclaredResults());
+        jdbcTemplate.setResultsMapCaseInsensitive(template.isResultsMapCaseInsensitive());
+        return jdbcTemplate;
+    }
+}
@@ -0,0 +1,227 @@
+package ru.realestate.realestate_app.workload;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Контекст выполняемого запроса: класс нагрузки, занятое место в ограничителе
+ * и SQL запросы, которые нужно прервать, если клиент отключился
+ *
+ * Контекст привязывается к потоку обработки запроса; JdbcTemplate берёт из него тайм-аут
+ * SQL запросов и регистрирует созданные команды. Servlet API не сообщает об отключении
+ * клиента, пока в ответ ничего не пишется, поэтому запрос, занятый одним долгим SQL запросом,
+ * ограничивается тайм-аутом класса, а код, пишущий ответ по частям, оборачивает поток вывода
+ * через {@link #cancelOnFailure(OutputStream)}: первая неудачная запись прерывает выполняемые
+ * SQL запросы, а следующие запросы этого контекста сразу завершаются ошибкой.
+ *
+ * Место в ограничителе соответствует одному соединению. Запрос, которому нужно несколько
+ * соединений сразу (выгрузка отчёта частями), занимает дополнительные места своего класса
+ * через {@link #tryAcquireExtraPermits(int)}, поэтому бюджет соединений класса соблюдается.
+ */
+public final class WorkloadContext {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkloadContext.class);
+
+    // SQLSTATE query_canceled: так же PostgreSQL сообщает об отмене и тайм-ауте запроса
+    static final String QUERY_CANCELED = "57014";
+
+    private static final ThreadLocal<WorkloadContext> CURRENT = new ThreadLocal<>();
+
+    private final Bulkhead bulkhead;
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger extraPermits = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile boolean released;
+
+    WorkloadContext(Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    /**
+     * Получить контекст запроса, обрабатываемого текущим потоком
+     * @return контекст или null вне обработки HTTP запроса
+     */
+    public static WorkloadContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Привязать контекст к текущему потоку
+     */
+    void bind() {
+        CURRENT.set(this);
+    }
+
+    /**
+     * Отвязать контекст от текущего потока
+     */
+    void unbind() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    public WorkloadClass getWorkloadClass() {
+        return bulkhead.getWorkloadClass();
+    }
+
+    /**
+     * Тайм-аут SQL запроса в секундах (0 - без ограничения), округлённый вверх
+     */
+    public int getStatementTimeoutSeconds() {
+        long millis = bulkhead.getStatementTimeout().toMillis();
+        return millis <= 0 ? 0 : (int) Math.min(Integer.MAX_VALUE, (millis + 999) / 1000);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Зарегистрировать созданную SQL команду, чтобы её можно было прервать
+     * @param statement команда
+     * @throws SQLException если запрос уже отменён
+     */
+    void register(Statement statement) throws SQLException {
+        if (cancelled) {
+            throw new SQLTimeoutException("Запрос отменён: клиент отключился", QUERY_CANCELED);
+        }
+        statements.add(statement);
+    }
+
+    /**
+     * Учесть SQL запрос, прерванный сервером: отменой или по тайм-ауту
+     */
+    void recordInterrupted() {
+        if (!cancelled) {
+            bulkhead.recordStatementTimeout();
+        }
+    }
+
+    /**
+     * Отменить запрос: прервать выполняемые SQL команды и запретить новые
+     * Может вызываться из любого потока
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        bulkhead.recordCancelled();
+        for (Statement statement : statements) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                // Команда уже закрыта
+                logger.debug("Не удалось прервать SQL запрос: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Занять дополнительные места класса нагрузки без ожидания, например для соединений
+     * частей отчёта, выполняемых параллельно
+     * @param max сколько мест нужно
+     * @return сколько мест занято (от 0 до max); их нужно вернуть через {@link #releaseExtraPermits(int)}
+     */
+    public int tryAcquireExtraPermits(int max) {
+        if (released || max <= 0) {
+            return 0;
+        }
+        int acquired = bulkhead.tryAcquireExtra(max);
+        extraPermits.addAndGet(acquired);
+        return acquired;
+    }
+
+    /**
+     * Вернуть дополнительные места, занятые {@link #tryAcquireExtraPermits(int)}
+     * @param count количество мест
+     */
+    public void releaseExtraPermits(int count) {
+        int returned = Math.min(count, extraPermits.getAndUpdate(current -> current - Math.min(count, current)));
+        if (returned > 0) {
+            bulkhead.release(returned);
+        }
+    }
+
+    /**
+     * Обернуть задачу для выполнения в другом потоке в рамках этого контекста:
+     * её SQL запросы получают тайм-аут класса и прерываются вместе с запросом
+     * @param task задача
+     * @return задача, привязывающая контекст к выполняющему её потоку
+     */
+    public <T> Callable<T> wrap(Callable<T> task) {
+        return () -> {
+            bind();
+            try {
+                return task.call();
+            } finally {
+                unbind();
+            }
+        };
+    }
+
+    /**
+     * Обернуть поток вывода ответа: ошибка записи означает, что клиент отключился,
+     * и отменяет запрос
+     * @param output поток вывода ответа
+     * @return поток, отменяющий запрос при ошибке записи
+     */
+    public OutputStream cancelOnFailure(OutputStream output) {
+        return new FilterOutputStream(output) {
+            @Override
+            public void write(int b) throws IOException {
+                try {
+                    out.write(b);
+                } catch (IOException e) {
+                    cancel();
+                    throw e;
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                try {
+                    out.write(b, off, len);
+                } catch (IOException e) {
+                    cancel();
+                    throw e;
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    cancel();
+                    throw e;
+                }
+            }
+        };
+    }
+
+    /**
+     * Освободить место в ограничителе вместе с невозвращёнными дополнительными местами
+     * (повторный вызов ничего не делает)
+     */
+    void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        statements.clear();
+        bulkhead.release(1 + extraPermits.getAndSet(0));
+    }
+}
@@ -0,0 +1,79 @@
+package ru.realestate.realestate_app.workload;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Перехватчик, пропускающий запросы к контроллерам через ограничитель их класса нагрузки
+ *
+ * Класс определяется аннотацией {@link Workload} на методе или классе контроллера.
+ * Место занимается до вызова контроллера и освобождается после формирования ответа;
+ * для асинхронных ответов (SSE) - сразу после запуска асинхронной обработки, потому что
+ * соединение с базой данных во время потока событий запросом не удерживается.
+ * Отказ ограничителя превращается в ответ 429 или 503 обработчиком исключений.
+ */
+@Component
+public class WorkloadInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String CONTEXT_ATTRIBUTE = WorkloadInterceptor.class.getName() + ".CONTEXT";
+
+    private final WorkloadLimiter workloadLimiter;
+    private final Map<Method, WorkloadClass> classes = new ConcurrentHashMap<>();
+
+    /**
+     * Конструктор с инжекцией зависимостей
+     * @param workloadLimiter ограничители классов нагрузки
+     */
+    public WorkloadInterceptor(WorkloadLimiter workloadLimiter) {
+        this.workloadLimiter = workloadLimiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Повторные диспетчеризации (асинхронная, ошибки) уже прошли ограничитель
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        WorkloadContext context = workloadLimiter.acquire(resolve(handlerMethod));
+        request.setAttribute(CONTEXT_ATTRIBUTE, context);
+        context.bind();
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        finish(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        finish(request);
+    }
+
+    private void finish(HttpServletRequest request) {
+        if (request.getAttribute(CONTEXT_ATTRIBUTE) instanceof WorkloadContext context) {
+            request.removeAttribute(CONTEXT_ATTRIBUTE);
+            context.unbind();
+            context.release();
+        }
+    }
+
+    private WorkloadClass resolve(HandlerMethod handlerMethod) {
+        return classes.computeIfAbsent(handlerMethod.getMethod(), _ -> {
+            Workload workload = handlerMethod.getMethodAnnotation(Workload.class);
+            if (workload == null) {
+                workload = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), Workload.class);
+            }
+            return workload != null ? workload.value() : WorkloadClass.INTERACTIVE;
+        });
+    }
+}
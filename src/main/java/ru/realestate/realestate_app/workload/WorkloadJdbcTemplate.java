@@ -0,0 +1,54 @@
+package ru.realestate.realestate_app.workload;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * JdbcTemplate, применяющий к SQL запросам ограничения класса нагрузки текущего HTTP запроса
+ *
+ * Тайм-аут класса устанавливается, только если он короче уже назначенного (тайм-аута транзакции
+ * или общего spring.jdbc.template.query-timeout). По истечении тайм-аута драйвер PostgreSQL
+ * сам отменяет запрос на сервере. Вне HTTP запросов (загрузка кэшей, задания по расписанию)
+ * ведёт себя как обычный JdbcTemplate.
+ */
+public class WorkloadJdbcTemplate extends JdbcTemplate {
+
+    /**
+     * Конструктор шаблона
+     * @param dataSource источник соединений
+     */
+    public WorkloadJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    protected void applyStatementSettings(Statement stmt) throws SQLException {
+        super.applyStatementSettings(stmt);
+        WorkloadContext context = WorkloadContext.current();
+        if (context == null) {
+            return;
+        }
+        int timeout = context.getStatementTimeoutSeconds();
+        int current = stmt.getQueryTimeout();
+        if (timeout > 0 && (current == 0 || current > timeout)) {
+            stmt.setQueryTimeout(timeout);
+        }
+        context.register(stmt);
+    }
+
+    @Override
+    protected DataAccessException translateException(String task, String sql, SQLException ex) {
+        DataAccessException translated = super.translateException(task, sql, ex);
+        WorkloadContext context = WorkloadContext.current();
+        if (context != null && (translated instanceof QueryTimeoutException
+                || WorkloadContext.QUERY_CANCELED.equals(ex.getSQLState()))) {
+            context.recordInterrupted();
+        }
+        return translated;
+    }
+}
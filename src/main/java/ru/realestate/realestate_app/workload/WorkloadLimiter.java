@@ -0,0 +1,58 @@
+package ru.realestate.realestate_app.workload;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ограничители параллельности всех классов нагрузки
+ *
+ * Настройки класса читаются из свойств app.bulkhead.<имя класса>.max-concurrent,
+ * .max-queue, .max-wait и .statement-timeout; не заданные свойства берутся из {@link WorkloadClass}
+ */
+@Component
+public class WorkloadLimiter {
+
+    private final Map<WorkloadClass, Bulkhead> bulkheads = new EnumMap<>(WorkloadClass.class);
+
+    /**
+     * Конструктор с инжекцией зависимостей
+     * @param environment свойства приложения
+     */
+    public WorkloadLimiter(Environment environment) {
+        for (WorkloadClass workloadClass : WorkloadClass.values()) {
+            String prefix = "app.bulkhead." + workloadClass.getPropertyName() + ".";
+            bulkheads.put(workloadClass, new Bulkhead(
+                workloadClass,
+                environment.getProperty(prefix + "max-concurrent", Integer.class, workloadClass.getDefaultMaxConcurrent()),
+                environment.getProperty(prefix + "max-queue", Integer.class, workloadClass.getDefaultMaxQueue()),
+                environment.getProperty(prefix + "max-wait", Duration.class, workloadClass.getDefaultMaxWait()),
+                environment.getProperty(prefix + "statement-timeout", Duration.class, workloadClass.getDefaultStatementTimeout())
+            ));
+        }
+    }
+
+    /**
+     * Занять место для запроса класса нагрузки
+     * @param workloadClass класс нагрузки
+     * @return контекст запроса
+     * @throws ru.realestate.realestate_app.exception.ServiceOverloadedException если место не получено
+     */
+    public WorkloadContext acquire(WorkloadClass workloadClass) {
+        return bulkheads.get(workloadClass).acquire();
+    }
+
+    /**
+     * Получить состояние ограничителей по классам нагрузки
+     * @return статистика по имени класса
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        bulkheads.forEach((workloadClass, bulkhead) -> stats.put(workloadClass.getPropertyName(), bulkhead.getStats()));
+        return stats;
+    }
+}
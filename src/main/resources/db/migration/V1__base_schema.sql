@@ -0,0 +1,96 @@
+-- Базовая схема: справочники, участники сделок, объекты недвижимости, сделки и платежи
+-- Для уже существующей базы данных скрипт ничего не меняет (CREATE TABLE IF NOT EXISTS)
+
+CREATE TABLE IF NOT EXISTS countries (
+    id_country   BIGSERIAL PRIMARY KEY,
+    country_name VARCHAR(100) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS regions (
+    id_region  BIGSERIAL PRIMARY KEY,
+    name       VARCHAR(150) NOT NULL,
+    code       VARCHAR(20),
+    id_country BIGINT NOT NULL REFERENCES countries (id_country)
+);
+
+CREATE TABLE IF NOT EXISTS cities (
+    id_city   BIGSERIAL PRIMARY KEY,
+    city_name VARCHAR(150) NOT NULL,
+    id_region BIGINT NOT NULL REFERENCES regions (id_region)
+);
+
+CREATE TABLE IF NOT EXISTS districts (
+    id_district   BIGSERIAL PRIMARY KEY,
+    district_name VARCHAR(150) NOT NULL,
+    id_city       BIGINT NOT NULL REFERENCES cities (id_city)
+);
+
+CREATE TABLE IF NOT EXISTS streets (
+    id_street   BIGSERIAL PRIMARY KEY,
+    street_name VARCHAR(200) NOT NULL,
+    id_city     BIGINT NOT NULL REFERENCES cities (id_city)
+);
+
+CREATE TABLE IF NOT EXISTS property_types (
+    id_property_type   BIGSERIAL PRIMARY KEY,
+    property_type_name VARCHAR(100) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS deal_types (
+    id_deal_type   BIGSERIAL PRIMARY KEY,
+    deal_type_name VARCHAR(100) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS clients (
+    id_client   BIGSERIAL PRIMARY KEY,
+    first_name  VARCHAR(100) NOT NULL,
+    last_name   VARCHAR(100) NOT NULL,
+    middle_name VARCHAR(100),
+    phone       VARCHAR(20),
+    email       VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS realtors (
+    id_realtor       BIGSERIAL PRIMARY KEY,
+    first_name       VARCHAR(100) NOT NULL,
+    last_name        VARCHAR(100) NOT NULL,
+    middle_name      VARCHAR(100),
+    phone            VARCHAR(20),
+    email            VARCHAR(255),
+    experience_years INTEGER CHECK (experience_years BETWEEN 0 AND 50)
+);
+
+CREATE TABLE IF NOT EXISTS properties (
+    id_property      BIGSERIAL PRIMARY KEY,
+    area             NUMERIC(7, 2) NOT NULL,
+    cost             NUMERIC(13, 4) NOT NULL,
+    description      VARCHAR(1000),
+    postal_code      VARCHAR(20),
+    house_number     VARCHAR(10) NOT NULL,
+    house_letter     VARCHAR(5),
+    building_number  VARCHAR(10),
+    apartment_number VARCHAR(10),
+    id_property_type BIGINT NOT NULL REFERENCES property_types (id_property_type),
+    id_country       BIGINT NOT NULL REFERENCES countries (id_country),
+    id_region        BIGINT NOT NULL REFERENCES regions (id_region),
+    id_city          BIGINT NOT NULL REFERENCES cities (id_city),
+    id_district      BIGINT REFERENCES districts (id_district),
+    id_street        BIGINT NOT NULL REFERENCES streets (id_street)
+);
+
+CREATE TABLE IF NOT EXISTS deals (
+    id_deal      BIGSERIAL PRIMARY KEY,
+    deal_date    DATE NOT NULL,
+    deal_cost    NUMERIC(13, 4) NOT NULL,
+    id_property  BIGINT NOT NULL REFERENCES properties (id_property),
+    id_realtor   BIGINT NOT NULL REFERENCES realtors (id_realtor),
+    id_client    BIGINT NOT NULL REFERENCES clients (id_client),
+    id_deal_type BIGINT NOT NULL REFERENCES deal_types (id_deal_type)
+);
+
+CREATE TABLE IF NOT EXISTS payments (
+    id_payment   BIGSERIAL PRIMARY KEY,
+    payment_date DATE NOT NULL,
+    amount       NUMERIC(13, 4) NOT NULL,
+    id_deal      BIGINT NOT NULL REFERENCES deals (id_deal)
+);
@@ -0,0 +1,47 @@
+-- Индексы под пути доступа DAO
+-- PostgreSQL не создаёт индексы на внешних ключах автоматически: без них каждый findBy* по связи
+-- и каждая проверка ссылок при удалении родительской записи читают таблицу целиком.
+-- Составные индексы начинаются с колонки фильтра и продолжаются колонкой сортировки запроса,
+-- поэтому заодно служат индексом внешнего ключа.
+
+-- Сделки: findByRealtor/Client/Property/DealType фильтруют по связи и сортируют по deal_date DESC.
+-- Индекс по риелтору покрывающий: рейтинг риелторов и аналитика читают только его (index-only scan).
+CREATE INDEX IF NOT EXISTS idx_deals_realtor_date ON deals (id_realtor, deal_date DESC) INCLUDE (deal_cost);
+CREATE INDEX IF NOT EXISTS idx_deals_client_date ON deals (id_client, deal_date DESC);
+CREATE INDEX IF NOT EXISTS idx_deals_property_date ON deals (id_property, deal_date DESC);
+CREATE INDEX IF NOT EXISTS idx_deals_deal_type_date ON deals (id_deal_type, deal_date DESC);
+
+-- findByDate сортирует по стоимости, findByDateRange и поиск сделок - диапазон дат
+CREATE INDEX IF NOT EXISTS idx_deals_date_cost ON deals (deal_date, deal_cost DESC);
+CREATE INDEX IF NOT EXISTS idx_deals_cost ON deals (deal_cost);
+
+-- Сделки добавляются примерно в порядке дат, поэтому для длинных диапазонов аналитики
+-- (временные ряды по месяцам и годам) достаточно компактного BRIN вместо обхода B-дерева
+CREATE INDEX IF NOT EXISTS brin_deals_date ON deals USING brin (deal_date) WITH (pages_per_range = 32);
+
+-- Платежи: findByDeal и поиск по сделке с периодом; сумма платежей по сделке - index-only scan
+CREATE INDEX IF NOT EXISTS idx_payments_deal_date ON payments (id_deal, payment_date DESC) INCLUDE (amount);
+CREATE INDEX IF NOT EXISTS idx_payments_date ON payments (payment_date);
+
+-- Объекты недвижимости: findByCity/PropertyType сортируют по стоимости, поиск - фильтр по цене
+CREATE INDEX IF NOT EXISTS idx_properties_city_cost ON properties (id_city, cost);
+CREATE INDEX IF NOT EXISTS idx_properties_type_cost ON properties (id_property_type, cost);
+CREATE INDEX IF NOT EXISTS idx_properties_cost ON properties (cost);
+CREATE INDEX IF NOT EXISTS idx_properties_district ON properties (id_district);
+CREATE INDEX IF NOT EXISTS idx_properties_street ON properties (id_street);
+CREATE INDEX IF NOT EXISTS idx_properties_region ON properties (id_region);
+CREATE INDEX IF NOT EXISTS idx_properties_country ON properties (id_country);
+
+-- Клиенты и риелторы: поиск по телефону и email (проверка уникальности), сортировка списков по ФИО
+CREATE INDEX IF NOT EXISTS idx_clients_phone ON clients (phone);
+CREATE INDEX IF NOT EXISTS idx_clients_email ON clients (email);
+CREATE INDEX IF NOT EXISTS idx_clients_name ON clients (last_name, first_name);
+CREATE INDEX IF NOT EXISTS idx_realtors_phone ON realtors (phone);
+CREATE INDEX IF NOT EXISTS idx_realtors_email ON realtors (email);
+CREATE INDEX IF NOT EXISTS idx_realtors_name ON realtors (last_name, first_name);
+
+-- География: выборка дочерних записей по родителю и поиск по имени внутри родителя
+CREATE INDEX IF NOT EXISTS idx_regions_country_name ON regions (id_country, name);
+CREATE INDEX IF NOT EXISTS idx_cities_region_name ON cities (id_region, city_name);
+CREATE INDEX IF NOT EXISTS idx_districts_city_name ON districts (id_city, district_name);
+CREATE INDEX IF NOT EXISTS idx_streets_city_name ON streets (id_city, street_name);
@@ -0,0 +1,55 @@
+-- Межузловая инвалидация кэшей
+-- Каждое изменение, после которого другие экземпляры приложения должны сбросить кэш, записывается
+-- в таблицу версий и одновременно рассылается через NOTIFY cache_invalidation. NOTIFY доставляется
+-- только после фиксации транзакции. По таблице экземпляр догоняет изменения, пропущенные, пока
+-- соединение слушателя было разорвано. Старые строки удаляются по расписанию.
+-- Формат уведомления: "версия:сущность:id:узел"; пустой id - сбросить все данные сущности,
+-- пустой узел - изменение сделано не приложением (например, правка справочника в базе данных).
+CREATE TABLE IF NOT EXISTS cache_invalidations (
+    version    BIGSERIAL PRIMARY KEY,
+    entity     VARCHAR(32) NOT NULL,
+    entity_id  BIGINT,
+    origin     VARCHAR(36),
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- Удаление строк старше срока хранения
+CREATE INDEX IF NOT EXISTS idx_cache_invalidations_created ON cache_invalidations (created_at);
+
+-- Справочники меняются только в базе данных, поэтому об их изменении сообщают триггеры.
+CREATE OR REPLACE FUNCTION notify_reference_change() RETURNS trigger LANGUAGE plpgsql AS '
+DECLARE
+    new_version BIGINT;
+BEGIN
+    INSERT INTO cache_invalidations (entity) VALUES (TG_ARGV[0]) RETURNING version INTO new_version;
+    PERFORM pg_notify(''cache_invalidation'', new_version || '':'' || TG_ARGV[0] || ''::'');
+    RETURN NULL;
+END';
+
+DROP TRIGGER IF EXISTS countries_cache_invalidation ON countries;
+CREATE TRIGGER countries_cache_invalidation AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON countries
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_reference_change('Geography');
+
+DROP TRIGGER IF EXISTS regions_cache_invalidation ON regions;
+CREATE TRIGGER regions_cache_invalidation AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON regions
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_reference_change('Geography');
+
+DROP TRIGGER IF EXISTS cities_cache_invalidation ON cities;
+CREATE TRIGGER cities_cache_invalidation AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON cities
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_reference_change('Geography');
+
+DROP TRIGGER IF EXISTS districts_cache_invalidation ON districts;
+CREATE TRIGGER districts_cache_invalidation AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON districts
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_reference_change('Geography');
+
+DROP TRIGGER IF EXISTS streets_cache_invalidation ON streets;
+CREATE TRIGGER streets_cache_invalidation AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON streets
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_reference_change('Geography');
+
+DROP TRIGGER IF EXISTS property_types_cache_invalidation ON property_types;
+CREATE TRIGGER property_types_cache_invalidation AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON property_types
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_reference_change('PropertyType');
+
+DROP TRIGGER IF EXISTS deal_types_cache_invalidation ON deal_types;
+CREATE TRIGGER deal_types_cache_invalidation AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON deal_types
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_reference_change('DealType');
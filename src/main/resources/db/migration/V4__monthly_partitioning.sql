@@ -0,0 +1,144 @@
+-- Помесячное секционирование сделок и платежей
+-- Таблицы deals и payments растут без ограничений, а поиск по ним почти всегда идёт по диапазону дат.
+-- Обе таблицы секционируются по диапазону дат (deal_date, payment_date) с секцией на каждый месяц,
+-- поэтому запрос за период читает только секции своих месяцев. Секции вперёд создаёт приложение
+-- по расписанию (PartitionMaintenanceService), строки за месяцы без секции попадают в секцию DEFAULT
+-- (например, дальние платежи графика) и переносятся из неё при создании секции.
+--
+-- Ограничения секционированной таблицы:
+-- первичный ключ обязан включать ключ секционирования, поэтому он становится (id, дата);
+-- идентификаторы по-прежнему выдаются одной последовательностью и остаются уникальными;
+-- на deals нельзя сослаться внешним ключом по одному id_deal, поэтому ссылку payments.id_deal
+-- проверяют триггеры с той же семантикой, что у внешнего ключа без ON DELETE.
+-- Соединение платежа со сделкой по id_deal проверяет индекс ключа в каждой секции сделок;
+-- запросы платежей ограничены страницей, а отчёты соединяют таблицы хешированием.
+--
+-- Скрипт нужно применять в окно обслуживания. Он выполняется одной транзакцией: переименование
+-- таблиц берёт блокировку ACCESS EXCLUSIVE, и до фиксации копирования всех строк в секции
+-- сделки и платежи нельзя ни читать, ни изменять. Копирование частями не сократило бы
+-- блокировку, потому что все команды миграции выполняются в одной транзакции.
+-- Поэтому при старте скрипт применяется, только если окно объявлено (app.schema.maintenance-window=true):
+-- maintenance-window
+
+-- Создать недостающие помесячные секции таблицы за месяцы с from_date до until_date (не включая месяц until_date)
+-- Строки этих месяцев переносятся из секции DEFAULT. Возвращает количество созданных секций.
+-- Рекомендательная блокировка не даёт нескольким экземплярам приложения создавать одну секцию одновременно.
+CREATE OR REPLACE FUNCTION create_monthly_partitions(parent TEXT, key_column TEXT, from_date DATE, until_date DATE)
+    RETURNS INTEGER LANGUAGE plpgsql AS '
+DECLARE
+    month_start DATE := date_trunc(''month'', from_date)::date;
+    month_end   DATE;
+    partition   TEXT;
+    created     INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext(''create_monthly_partitions''));
+    WHILE month_start < date_trunc(''month'', until_date) LOOP
+        month_end := (month_start + interval ''1 month'')::date;
+        partition := parent || ''_'' || to_char(month_start, ''"y"YYYY"m"MM'');
+        IF to_regclass(partition) IS NULL THEN
+            EXECUTE format(''CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)'', partition, parent);
+            EXECUTE format(''WITH moved AS (DELETE FROM %I WHERE %I >= %L AND %I < %L RETURNING *) ''
+                           ''INSERT INTO %I SELECT * FROM moved'',
+                           parent || ''_default'', key_column, month_start, key_column, month_end, partition);
+            EXECUTE format(''ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)'',
+                           parent, partition, month_start, month_end);
+            created := created + 1;
+        END IF;
+        month_start := month_end;
+    END LOOP;
+    RETURN created;
+END';
+
+-- Прежние таблицы переименовываются, их последовательности переходят к новым таблицам
+ALTER TABLE payments RENAME TO payments_unpartitioned;
+ALTER TABLE deals RENAME TO deals_unpartitioned;
+ALTER SEQUENCE deals_id_deal_seq OWNED BY NONE;
+ALTER SEQUENCE payments_id_payment_seq OWNED BY NONE;
+
+CREATE TABLE deals (
+    id_deal      BIGINT NOT NULL DEFAULT nextval('deals_id_deal_seq'),
+    deal_date    DATE NOT NULL,
+    deal_cost    NUMERIC(13, 4) NOT NULL,
+    id_property  BIGINT NOT NULL REFERENCES properties (id_property),
+    id_realtor   BIGINT NOT NULL REFERENCES realtors (id_realtor),
+    id_client    BIGINT NOT NULL REFERENCES clients (id_client),
+    id_deal_type BIGINT NOT NULL REFERENCES deal_types (id_deal_type),
+    PRIMARY KEY (id_deal, deal_date)
+) PARTITION BY RANGE (deal_date);
+
+CREATE TABLE payments (
+    id_payment   BIGINT NOT NULL DEFAULT nextval('payments_id_payment_seq'),
+    payment_date DATE NOT NULL,
+    amount       NUMERIC(13, 4) NOT NULL,
+    id_deal      BIGINT NOT NULL,
+    PRIMARY KEY (id_payment, payment_date)
+) PARTITION BY RANGE (payment_date);
+
+ALTER SEQUENCE deals_id_deal_seq OWNED BY deals.id_deal;
+ALTER SEQUENCE payments_id_payment_seq OWNED BY payments.id_payment;
+
+CREATE TABLE deals_default PARTITION OF deals DEFAULT;
+CREATE TABLE payments_default PARTITION OF payments DEFAULT;
+
+-- Секции с месяца самой ранней строки до года вперёд; более поздние строки остаются в DEFAULT
+-- до создания их секций по расписанию
+SELECT create_monthly_partitions('deals', 'deal_date',
+                                 LEAST((SELECT min(deal_date) FROM deals_unpartitioned), current_date),
+                                 (current_date + interval '13 months')::date);
+SELECT create_monthly_partitions('payments', 'payment_date',
+                                 LEAST((SELECT min(payment_date) FROM payments_unpartitioned), current_date),
+                                 (current_date + interval '13 months')::date);
+
+INSERT INTO deals (id_deal, deal_date, deal_cost, id_property, id_realtor, id_client, id_deal_type)
+SELECT id_deal, deal_date, deal_cost, id_property, id_realtor, id_client, id_deal_type FROM deals_unpartitioned;
+
+INSERT INTO payments (id_payment, payment_date, amount, id_deal)
+SELECT id_payment, payment_date, amount, id_deal FROM payments_unpartitioned;
+
+DROP TABLE payments_unpartitioned;
+DROP TABLE deals_unpartitioned;
+
+-- Индексы V2 на секционированных таблицах: создаются на каждой секции, в том числе будущих
+CREATE INDEX IF NOT EXISTS idx_deals_realtor_date ON deals (id_realtor, deal_date DESC) INCLUDE (deal_cost);
+CREATE INDEX IF NOT EXISTS idx_deals_client_date ON deals (id_client, deal_date DESC);
+CREATE INDEX IF NOT EXISTS idx_deals_property_date ON deals (id_property, deal_date DESC);
+CREATE INDEX IF NOT EXISTS idx_deals_deal_type_date ON deals (id_deal_type, deal_date DESC);
+CREATE INDEX IF NOT EXISTS idx_deals_date_cost ON deals (deal_date, deal_cost DESC);
+CREATE INDEX IF NOT EXISTS idx_deals_cost ON deals (deal_cost);
+CREATE INDEX IF NOT EXISTS brin_deals_date ON deals USING brin (deal_date) WITH (pages_per_range = 32);
+CREATE INDEX IF NOT EXISTS idx_payments_deal_date ON payments (id_deal, payment_date DESC) INCLUDE (amount);
+CREATE INDEX IF NOT EXISTS idx_payments_date ON payments (payment_date);
+
+-- Замена внешнего ключа payments.id_deal: платёж ссылается на существующую сделку.
+-- Строка сделки блокируется FOR KEY SHARE, как при проверке внешнего ключа, поэтому
+-- параллельное удаление сделки дождётся фиксации платежа
+CREATE OR REPLACE FUNCTION check_payment_deal() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    PERFORM 1 FROM deals WHERE id_deal = NEW.id_deal FOR KEY SHARE;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION ''Платёж ссылается на несуществующую сделку %'', NEW.id_deal
+            USING ERRCODE = ''foreign_key_violation'';
+    END IF;
+    RETURN NULL;
+END';
+
+CREATE TRIGGER payments_deal_reference AFTER INSERT OR UPDATE OF id_deal ON payments
+    FOR EACH ROW EXECUTE FUNCTION check_payment_deal();
+
+-- Сделку с платежами нельзя удалить. Изменение даты сделки, переносящее строку в другую секцию,
+-- выполняется как удаление и вставка; к моменту AFTER-триггера строка уже есть в новой секции
+CREATE OR REPLACE FUNCTION restrict_deal_with_payments() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    IF EXISTS (SELECT 1 FROM payments WHERE id_deal = OLD.id_deal)
+            AND NOT EXISTS (SELECT 1 FROM deals WHERE id_deal = OLD.id_deal) THEN
+        RAISE EXCEPTION ''На сделку % ссылаются платежи'', OLD.id_deal
+            USING ERRCODE = ''foreign_key_violation'';
+    END IF;
+    RETURN NULL;
+END';
+
+CREATE TRIGGER deals_payments_restrict AFTER DELETE OR UPDATE OF id_deal ON deals
+    FOR EACH ROW EXECUTE FUNCTION restrict_deal_with_payments();
+
+ANALYZE deals;
+ANALYZE payments;
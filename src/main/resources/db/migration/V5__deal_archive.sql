@@ -0,0 +1,35 @@
+-- Архив завершённых сделок
+-- Сделки старше горизонта архивации (app.archive.horizon), у которых нет платежей позже горизонта,
+-- вместе с платежами переносятся из deals и payments в deals_archive и payments_archive
+-- (ArchiveService, пакетами). Основные таблицы и их индексы остаются небольшими, а запросы
+-- с includeArchived читают архив, только если период начинается раньше горизонта.
+-- Архивные таблицы не секционируются: они читаются редко и не изменяются приложением.
+CREATE TABLE IF NOT EXISTS deals_archive (
+    id_deal      BIGINT PRIMARY KEY,
+    deal_date    DATE NOT NULL,
+    deal_cost    NUMERIC(13, 4) NOT NULL,
+    id_property  BIGINT NOT NULL REFERENCES properties (id_property),
+    id_realtor   BIGINT NOT NULL REFERENCES realtors (id_realtor),
+    id_client    BIGINT NOT NULL REFERENCES clients (id_client),
+    id_deal_type BIGINT NOT NULL REFERENCES deal_types (id_deal_type),
+    archived_at  TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE TABLE IF NOT EXISTS payments_archive (
+    id_payment   BIGINT PRIMARY KEY,
+    payment_date DATE NOT NULL,
+    amount       NUMERIC(13, 4) NOT NULL,
+    id_deal      BIGINT NOT NULL REFERENCES deals_archive (id_deal),
+    archived_at  TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- Поиск по периоду и фильтрам таблицы сделок
+CREATE INDEX IF NOT EXISTS idx_deals_archive_date ON deals_archive (deal_date);
+CREATE INDEX IF NOT EXISTS idx_deals_archive_realtor_date ON deals_archive (id_realtor, deal_date DESC);
+CREATE INDEX IF NOT EXISTS idx_deals_archive_client_date ON deals_archive (id_client, deal_date DESC);
+
+-- Проверка внешнего ключа при удалении объекта недвижимости
+CREATE INDEX IF NOT EXISTS idx_deals_archive_property ON deals_archive (id_property);
+
+-- Платежи архивной сделки
+CREATE INDEX IF NOT EXISTS idx_payments_archive_deal_date ON payments_archive (id_deal, payment_date DESC);
@@ -0,0 +1,118 @@
+-- Межузловая инвалидация кэшей сделок и платежей триггерами
+-- Запись в cache_invalidations и NOTIFY выполняются триггером в той же команде, что и изменение
+-- строк, поэтому уведомление фиксируется и отменяется вместе с данными и не теряется при сбое
+-- приложения между записью и рассылкой. Изменения сделок и платежей, сделанные не приложением,
+-- тоже сбрасывают кэши узлов.
+-- Узел-источник берётся из параметра сеанса app.cache_origin: приложение задаёт его при открытии
+-- соединения пула и по нему пропускает собственные уведомления. Без параметра источник пустой.
+-- Триггеры уровня команды на секционированных таблицах видят изменённые строки через таблицы
+-- переходов; таблицы переходов допускаются только у триггера на одно событие.
+
+-- Записать изменения и разослать уведомления в формате "версия:сущность:id:узел"
+CREATE OR REPLACE FUNCTION publish_cache_invalidations(entities TEXT[], ids BIGINT[]) RETURNS void
+LANGUAGE plpgsql AS $$
+DECLARE
+    inserted RECORD;
+BEGIN
+    FOR inserted IN
+        INSERT INTO cache_invalidations (entity, entity_id, origin)
+        SELECT k.entity, k.entity_id, nullif(current_setting('app.cache_origin', true), '')
+        FROM unnest(entities, ids) AS k(entity, entity_id)
+        RETURNING version, entity, entity_id, origin
+    LOOP
+        PERFORM pg_notify('cache_invalidation', inserted.version || ':' || inserted.entity || ':'
+                          || coalesce(inserted.entity_id::text, '') || ':' || coalesce(inserted.origin, ''));
+    END LOOP;
+END
+$$;
+
+-- Сделки: сама сделка, дата сделки (номер дня от 1970-01-01) для временных рядов
+-- и риелтор для рейтинга. При изменении дата и риелтор рассылаются в старом и новом значении
+-- и только если изменились поля, от которых зависят временные ряды и рейтинг.
+CREATE OR REPLACE FUNCTION notify_deal_change() RETURNS trigger LANGUAGE plpgsql AS $$
+DECLARE
+    entities TEXT[];
+    ids BIGINT[];
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        SELECT array_agg(k.entity), array_agg(k.entity_id) INTO entities, ids
+        FROM (SELECT 'Deal' AS entity, id_deal AS entity_id FROM new_rows
+              UNION SELECT 'DealDate', deal_date - DATE '1970-01-01' FROM new_rows
+              UNION SELECT 'RealtorDeals', id_realtor FROM new_rows) k;
+    ELSIF TG_OP = 'DELETE' THEN
+        SELECT array_agg(k.entity), array_agg(k.entity_id) INTO entities, ids
+        FROM (SELECT 'Deal' AS entity, id_deal AS entity_id FROM old_rows
+              UNION SELECT 'DealDate', deal_date - DATE '1970-01-01' FROM old_rows
+              UNION SELECT 'RealtorDeals', id_realtor FROM old_rows) k;
+    ELSE
+        SELECT array_agg(k.entity), array_agg(k.entity_id) INTO entities, ids
+        FROM (SELECT 'Deal' AS entity, n.id_deal AS entity_id FROM new_rows n
+              UNION
+              SELECT 'DealDate', day
+              FROM new_rows n
+              JOIN old_rows o USING (id_deal)
+              CROSS JOIN LATERAL (VALUES (o.deal_date - DATE '1970-01-01'),
+                                         (n.deal_date - DATE '1970-01-01')) AS d(day)
+              WHERE (o.deal_date, o.deal_cost, o.id_deal_type, o.id_property)
+                    IS DISTINCT FROM (n.deal_date, n.deal_cost, n.id_deal_type, n.id_property)
+              UNION
+              SELECT 'RealtorDeals', realtor
+              FROM new_rows n
+              JOIN old_rows o USING (id_deal)
+              CROSS JOIN LATERAL (VALUES (o.id_realtor), (n.id_realtor)) AS r(realtor)
+              WHERE (o.deal_date, o.deal_cost, o.id_realtor)
+                    IS DISTINCT FROM (n.deal_date, n.deal_cost, n.id_realtor)) k;
+    END IF;
+    IF entities IS NOT NULL THEN
+        PERFORM publish_cache_invalidations(entities, ids);
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+-- Платежи: изменённые платежи
+CREATE OR REPLACE FUNCTION notify_payment_change() RETURNS trigger LANGUAGE plpgsql AS $$
+DECLARE
+    ids BIGINT[];
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        SELECT array_agg(DISTINCT id_payment) INTO ids FROM old_rows;
+    ELSE
+        SELECT array_agg(DISTINCT id_payment) INTO ids FROM new_rows;
+    END IF;
+    IF ids IS NOT NULL THEN
+        PERFORM publish_cache_invalidations(array_fill('Payment'::TEXT, ARRAY[cardinality(ids)]), ids);
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS deals_cache_invalidation_insert ON deals;
+CREATE TRIGGER deals_cache_invalidation_insert AFTER INSERT ON deals
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_deal_change();
+
+DROP TRIGGER IF EXISTS deals_cache_invalidation_update ON deals;
+CREATE TRIGGER deals_cache_invalidation_update AFTER UPDATE ON deals
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_deal_change();
+
+DROP TRIGGER IF EXISTS deals_cache_invalidation_delete ON deals;
+CREATE TRIGGER deals_cache_invalidation_delete AFTER DELETE ON deals
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_deal_change();
+
+DROP TRIGGER IF EXISTS payments_cache_invalidation_insert ON payments;
+CREATE TRIGGER payments_cache_invalidation_insert AFTER INSERT ON payments
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_payment_change();
+
+DROP TRIGGER IF EXISTS payments_cache_invalidation_update ON payments;
+CREATE TRIGGER payments_cache_invalidation_update AFTER UPDATE ON payments
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_payment_change();
+
+DROP TRIGGER IF EXISTS payments_cache_invalidation_delete ON payments;
+CREATE TRIGGER payments_cache_invalidation_delete AFTER DELETE ON payments
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_payment_change();
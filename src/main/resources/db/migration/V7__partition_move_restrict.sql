@@ -0,0 +1,53 @@
+-- Перенос строк из секции DEFAULT без проверки платежей сделки
+-- create_monthly_partitions переносит строки месяца из DEFAULT в новую секцию удалением и вставкой,
+-- а новая секция присоединяется к deals только после переноса. Строковый триггер
+-- restrict_deal_with_payments на удаление из DEFAULT не находил сделку в deals и отклонял перенос
+-- каждой сделки с платежами, поэтому внесённые задним числом сделки не могли покинуть DEFAULT.
+-- На время переноса функция задаёт параметр транзакции app.partition_move, и триггер пропускает
+-- проверку: строки не удаляются, а меняют секцию в той же команде.
+
+CREATE OR REPLACE FUNCTION create_monthly_partitions(parent TEXT, key_column TEXT, from_date DATE, until_date DATE)
+    RETURNS INTEGER LANGUAGE plpgsql AS $$
+DECLARE
+    month_start DATE := date_trunc('month', from_date)::date;
+    month_end   DATE;
+    partition   TEXT;
+    created     INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('create_monthly_partitions'));
+    WHILE month_start < date_trunc('month', until_date) LOOP
+        month_end := (month_start + interval '1 month')::date;
+        partition := parent || '_' || to_char(month_start, '"y"YYYY"m"MM');
+        IF to_regclass(partition) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition, parent);
+            PERFORM set_config('app.partition_move', 'on', true);
+            EXECUTE format('WITH moved AS (DELETE FROM %I WHERE %I >= %L AND %I < %L RETURNING *) '
+                           'INSERT INTO %I SELECT * FROM moved',
+                           parent || '_default', key_column, month_start, key_column, month_end, partition);
+            PERFORM set_config('app.partition_move', 'off', true);
+            EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                           parent, partition, month_start, month_end);
+            created := created + 1;
+        END IF;
+        month_start := month_end;
+    END LOOP;
+    RETURN created;
+END
+$$;
+
+-- Сделку с платежами нельзя удалить. Изменение даты сделки, переносящее строку в другую секцию,
+-- выполняется как удаление и вставка; к моменту AFTER-триггера строка уже есть в новой секции.
+-- Перенос строк функцией create_monthly_partitions не проверяется
+CREATE OR REPLACE FUNCTION restrict_deal_with_payments() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    IF current_setting('app.partition_move', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+    IF EXISTS (SELECT 1 FROM payments WHERE id_deal = OLD.id_deal)
+            AND NOT EXISTS (SELECT 1 FROM deals WHERE id_deal = OLD.id_deal) THEN
+        RAISE EXCEPTION 'На сделку % ссылаются платежи', OLD.id_deal
+            USING ERRCODE = 'foreign_key_violation';
+    END IF;
+    RETURN NULL;
+END
+$$;
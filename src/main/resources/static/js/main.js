@@ -13,11 +13,13 @@ import { initPropertyForms } from './modules/forms/property-forms.js';
 
 import { initDropdownMenu } from './modules/components/dropdown-menu.js';
 import { initDeleteHandler } from './modules/components/delete-handler.js';
+import { initLookupSelects } from './modules/components/lookup-select.js';
 
 // Инициализация после загрузки документа
 document.addEventListener('DOMContentLoaded', () => {
   initDropdownMenu();
   initDeleteHandler();
+  initLookupSelects();
 
   initPropertyForms();
 
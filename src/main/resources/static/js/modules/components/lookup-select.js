@@ -0,0 +1,66 @@
+// =========================
+// Выпадающие списки с поиском по серверу
+// =========================
+
+import { DEBUG, qsa, createOption } from '../utils.js';
+import { fetchJson } from '../api.js';
+
+const LOOKUP_URL = '/api/lookup';
+const LIMIT = 20;
+const DEBOUNCE_MS = 250;
+
+/**
+ * Инициализация списков <select data-lookup="clients|realtors|properties|deals">
+ * Страница содержит только пустой вариант и выбранное значение; остальные варианты
+ * запрашиваются при первом открытии списка и при вводе в поле поиска над ним.
+ * Атрибут data-lookup-params добавляется к запросу как есть (например, includeArchived=false).
+ */
+export function initLookupSelects() {
+  qsa(document, 'select[data-lookup]').forEach(attachLookup);
+}
+
+function attachLookup(select) {
+  const search = document.createElement('input');
+  search.type = 'search';
+  search.placeholder = 'Поиск...';
+  search.className = 'lookup-search';
+  select.before(search);
+
+  const emptyOption = select.options[0];
+  let requestSeq = 0;
+  let loaded = false;
+  let timer = null;
+
+  const load = async (query) => {
+    const seq = ++requestSeq;
+    loaded = true;
+    try {
+      const options = await fetchJson(
+        `${LOOKUP_URL}/${select.dataset.lookup}?q=${encodeURIComponent(query)}&limit=${LIMIT}`
+          + (select.dataset.lookupParams ? `&${select.dataset.lookupParams}` : ''));
+      // Ответ на устаревший запрос (пользователь продолжил ввод) не применяется
+      if (seq !== requestSeq) return;
+
+      // Выбранное значение сохраняется, даже если не попало в результаты поиска
+      const selected = select.selectedIndex > 0 ? select.options[select.selectedIndex] : null;
+      select.replaceChildren(emptyOption);
+      if (selected && !options.some(option => String(option.id) === selected.value)) {
+        select.appendChild(selected);
+      }
+      options.forEach(option => {
+        select.appendChild(createOption(option.id, option.label, selected?.value === String(option.id)));
+      });
+    } catch (err) {
+      loaded = false;
+      if (DEBUG) console.error('[lookup]', err);
+    }
+  };
+
+  select.addEventListener('focus', () => {
+    if (!loaded) load(search.value.trim());
+  });
+  search.addEventListener('input', () => {
+    clearTimeout(timer);
+    timer = setTimeout(() => load(search.value.trim()), DEBOUNCE_MS);
+  });
+}
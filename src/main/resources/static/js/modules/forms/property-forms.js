@@ -3,7 +3,7 @@
 // =========================
 
 import { resetAndDisable, createOption } from '../utils.js';
-import { fetchJson } from '../api.js';
+import { getLookupBundle, getRegions, getCities, getDistricts, getStreets } from '../lookups.js';
 
 /**
  * Инициализация форм недвижимости
@@ -34,10 +34,10 @@ function initPropertyAddForm() {
       resetAndDisable(streetSelect, 'Выберите улицу');
       return;
     }
-    const regions = await fetchJson(`/api/geography/countries/${countryId}/regions`);
+    const regions = getRegions(await getLookupBundle(), countryId);
     regionSelect.innerHTML = '';
     regionSelect.appendChild(createOption('', 'Выберите регион'));
-    regions.forEach(r => regionSelect.appendChild(createOption(r.idRegion, r.name)));
+    regions.forEach(r => regionSelect.appendChild(createOption(r.id, r.name)));
     regionSelect.disabled = false;
   }
 
@@ -48,10 +48,10 @@ function initPropertyAddForm() {
       resetAndDisable(streetSelect, 'Выберите улицу');
       return;
     }
-    const cities = await fetchJson(`/api/geography/regions/${regionId}/cities`);
+    const cities = getCities(await getLookupBundle(), regionId);
     citySelect.innerHTML = '';
     citySelect.appendChild(createOption('', 'Выберите город'));
-    cities.forEach(c => citySelect.appendChild(createOption(c.idCity, c.cityName)));
+    cities.forEach(c => citySelect.appendChild(createOption(c.id, c.name)));
     citySelect.disabled = false;
   }
 
@@ -61,16 +61,17 @@ function initPropertyAddForm() {
       resetAndDisable(streetSelect, 'Выберите улицу');
       return;
     }
-    const districts = await fetchJson(`/api/geography/cities/${cityId}/districts`);
+    const bundle = await getLookupBundle();
+    const districts = getDistricts(bundle, cityId);
     districtSelect.innerHTML = '';
     districtSelect.appendChild(createOption('', 'Выберите район'));
-    districts.forEach(d => districtSelect.appendChild(createOption(d.idDistrict, d.districtName)));
+    districts.forEach(d => districtSelect.appendChild(createOption(d.id, d.name)));
     districtSelect.disabled = false;
 
-    const streets = await fetchJson(`/api/geography/cities/${cityId}/streets`);
+    const streets = getStreets(bundle, cityId);
     streetSelect.innerHTML = '';
     streetSelect.appendChild(createOption('', 'Выберите улицу'));
-    streets.forEach(s => streetSelect.appendChild(createOption(s.idStreet, s.streetName)));
+    streets.forEach(s => streetSelect.appendChild(createOption(s.id, s.name)));
     streetSelect.disabled = false;
   }
 
@@ -113,19 +114,20 @@ function initPropertySearchForm() {
     resetAndDisable(streetSelect, 'Все улицы');
     if (!cityId) return;
 
-    const districts = await fetchJson(`/api/geography/cities/${cityId}/districts`);
+    const bundle = await getLookupBundle();
+    const districts = getDistricts(bundle, cityId);
     districtSelect.innerHTML = '';
     districtSelect.appendChild(createOption('', 'Все районы'));
     districts.forEach(d =>
-      districtSelect.appendChild(createOption(d.idDistrict, d.districtName, selectedDistrictId && String(d.idDistrict) === String(selectedDistrictId)))
+      districtSelect.appendChild(createOption(d.id, d.name, selectedDistrictId && String(d.id) === String(selectedDistrictId)))
     );
     districtSelect.disabled = false;
 
-    const streets = await fetchJson(`/api/geography/cities/${cityId}/streets`);
+    const streets = getStreets(bundle, cityId);
     streetSelect.innerHTML = '';
     streetSelect.appendChild(createOption('', 'Все улицы'));
     streets.forEach(s =>
-      streetSelect.appendChild(createOption(s.idStreet, s.streetName, selectedStreetId && String(s.idStreet) === String(selectedStreetId)))
+      streetSelect.appendChild(createOption(s.id, s.name, selectedStreetId && String(s.id) === String(selectedStreetId)))
     );
     streetSelect.disabled = false;
   }
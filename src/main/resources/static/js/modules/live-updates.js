@@ -0,0 +1,113 @@
+// =========================
+// Поток изменений таблиц (Server-Sent Events)
+// =========================
+
+import { DEBUG } from './utils.js';
+
+// Задержка перечитывания таблицы, чтобы серия изменений приводила к одному запросу
+const RESYNC_DELAY_MS = 300;
+
+/**
+ * Подписка на изменения сущности
+ * EventSource сам переподключается и передаёт Last-Event-ID, сервер досылает пропущенное
+ * или присылает resync, если досылать уже нечего
+ *
+ * @param {string} entity тип сущности: deal или payment
+ * @param {{onChange: Function, onResync: Function}} handlers обработчики изменения строки и пересинхронизации
+ */
+export function subscribeToChanges(entity, { onChange, onResync }) {
+  if (!window.EventSource) return null;
+
+  const source = new EventSource(`/api/stream/changes?entities=${encodeURIComponent(entity)}`);
+  source.addEventListener(entity, (e) => {
+    try {
+      onChange(JSON.parse(e.data));
+    } catch (error) {
+      if (DEBUG) console.error('[live-updates]', error);
+      onResync();
+    }
+  });
+  source.addEventListener('resync', () => onResync());
+  window.addEventListener('pagehide', () => source.close());
+  return source;
+}
+
+/**
+ * Создать отложенное перечитывание текущей страницы таблицы
+ * Загружает HTML текущего адреса и заменяет только тело таблицы и блок навигации,
+ * строки в режиме редактирования сохраняются
+ *
+ * @param {HTMLTableSectionElement} tbody тело таблицы
+ * @returns {Function} функция, запускающая перечитывание
+ */
+export function createTableResync(tbody) {
+  let timer = null;
+
+  const resync = async () => {
+    timer = null;
+    try {
+      const response = await fetch(window.location.href, { headers: { 'Accept': 'text/html' } });
+      if (!response.ok) return;
+      const doc = new DOMParser().parseFromString(await response.text(), 'text/html');
+      const freshBody = doc.querySelector('main table tbody');
+      if (!freshBody) return;
+
+      const editing = new Map();
+      tbody.querySelectorAll('tr.editing').forEach(row => editing.set(rowId(row), row));
+      freshBody.querySelectorAll('tr').forEach(row => {
+        const edited = editing.get(rowId(row));
+        if (edited) row.replaceWith(edited);
+      });
+      tbody.replaceChildren(...freshBody.children);
+
+      const pagination = document.querySelector('main .table-pagination');
+      const freshPagination = doc.querySelector('main .table-pagination');
+      if (pagination && freshPagination) pagination.replaceWith(freshPagination);
+    } catch (error) {
+      if (DEBUG) console.error('[live-updates] resync', error);
+    }
+  };
+
+  return () => {
+    if (timer) clearTimeout(timer);
+    timer = setTimeout(resync, RESYNC_DELAY_MS);
+  };
+}
+
+/**
+ * Найти строку таблицы по идентификатору в первой ячейке
+ */
+export function findRowById(tbody, id) {
+  const key = String(id);
+  return Array.from(tbody.rows).find(row => rowId(row) === key) || null;
+}
+
+/**
+ * Применить изменение к строке таблицы
+ * UPDATED заполняет ячейки (строку в режиме редактирования не трогает), DELETED удаляет строку,
+ * CREATED перечитывает страницу: место новой строки зависит от сортировки, фильтров и страницы
+ *
+ * @param {HTMLTableSectionElement} tbody тело таблицы
+ * @param {{operation: string, id: number, row: Object}} change изменение
+ * @param {Function} toCells функция, возвращающая тексты ячеек по строке из события
+ * @param {Function} resync отложенное перечитывание страницы
+ */
+export function applyRowChange(tbody, change, toCells, resync) {
+  const row = findRowById(tbody, change.id);
+  if (change.operation === 'DELETED') {
+    if (row) row.remove();
+    return;
+  }
+  if (change.operation === 'CREATED') {
+    if (!row) resync();
+    return;
+  }
+  if (!row || row.classList.contains('editing')) return;
+  toCells(change.row).forEach((text, i) => {
+    if (row.cells[i]) row.cells[i].textContent = text ?? '';
+  });
+}
+
+function rowId(row) {
+  return row.cells[0] ? row.cells[0].textContent.trim() : '';
+}
@@ -0,0 +1,121 @@
+// =========================
+// Справочный пакет для выпадающих списков
+// =========================
+
+import { DEBUG } from './utils.js';
+
+const BUNDLE_URL = '/api/lookup-bundle';
+const DB_NAME = 'realestate-lookups';
+const STORE_NAME = 'bundle';
+const BUNDLE_KEY = 'current';
+
+// Пакет в памяти страницы (уже с построенными индексами) и признак проверки версии на сервере
+let bundlePromise = null;
+let revalidated = false;
+
+// Открытие IndexedDB; при недоступности (приватный режим и т.п.) возвращает null
+const openDb = () => new Promise(resolve => {
+  if (!window.indexedDB) {
+    resolve(null);
+    return;
+  }
+  const request = indexedDB.open(DB_NAME, 1);
+  request.onupgradeneeded = () => request.result.createObjectStore(STORE_NAME);
+  request.onsuccess = () => resolve(request.result);
+  request.onerror = () => resolve(null);
+});
+
+const readStored = async () => {
+  const db = await openDb();
+  if (!db) return null;
+  return new Promise(resolve => {
+    const request = db.transaction(STORE_NAME, 'readonly').objectStore(STORE_NAME).get(BUNDLE_KEY);
+    request.onsuccess = () => resolve(request.result || null);
+    request.onerror = () => resolve(null);
+  });
+};
+
+const writeStored = async (raw) => {
+  const db = await openDb();
+  if (!db) return;
+  db.transaction(STORE_NAME, 'readwrite').objectStore(STORE_NAME).put(raw, BUNDLE_KEY);
+};
+
+// Загрузка пакета с сервера; при совпадении версии сервер отвечает 304 и возвращается null
+const fetchBundle = async (version) => {
+  const headers = version ? { 'If-None-Match': `"${version}"` } : {};
+  const response = await fetch(BUNDLE_URL, { headers, cache: 'no-cache' });
+  if (response.status === 304) return null;
+  if (!response.ok) throw new Error(`Ошибка загрузки справочников: ${response.status}`);
+  const raw = await response.json();
+  writeStored(raw);
+  return raw;
+};
+
+// Группировка записей [id, название, idРодителя] по родителю
+const groupByParent = (rows) => {
+  const groups = new Map();
+  rows.forEach(([id, name, parentId]) => {
+    if (!groups.has(parentId)) groups.set(parentId, []);
+    groups.get(parentId).push({ id, name });
+  });
+  return groups;
+};
+
+// Преобразование компактного пакета в удобные для форм структуры
+const expand = (raw) => {
+  const toItems = rows => rows.map(([id, name]) => ({ id, name }));
+  return {
+    version: raw.version,
+    dealTypes: toItems(raw.dealTypes),
+    propertyTypes: toItems(raw.propertyTypes),
+    countries: toItems(raw.countries),
+    regionsByCountry: groupByParent(raw.regions),
+    citiesByRegion: groupByParent(raw.cities),
+    districtsByCity: groupByParent(raw.districts),
+    streetsByCity: groupByParent(raw.streets)
+  };
+};
+
+// Проверка версии в фоне: сохранённый пакет отдаётся сразу, новый подменяет его после загрузки
+const revalidate = (version) => {
+  revalidated = true;
+  fetchBundle(version)
+    .then(raw => {
+      if (raw) bundlePromise = Promise.resolve(expand(raw));
+    })
+    .catch(err => {
+      if (DEBUG) console.error('[lookups]', err);
+    });
+};
+
+/**
+ * Получить справочный пакет
+ * Порядок: память страницы → IndexedDB (с фоновой проверкой версии) → сервер
+ */
+export const getLookupBundle = () => {
+  if (bundlePromise) return bundlePromise;
+
+  bundlePromise = readStored()
+    .then(stored => {
+      if (stored) {
+        if (!revalidated) revalidate(stored.version);
+        return expand(stored);
+      }
+      revalidated = true;
+      return fetchBundle(null).then(expand);
+    })
+    .catch(err => {
+      bundlePromise = null;
+      throw err;
+    });
+  return bundlePromise;
+};
+
+// Дочерние элементы по id родителя (id из select приходят строками)
+const children = (groups, parentId) => groups.get(Number(parentId)) || [];
+
+export const getRegions = (bundle, countryId) => children(bundle.regionsByCountry, countryId);
+export const getCities = (bundle, regionId) => children(bundle.citiesByRegion, regionId);
+export const getDistricts = (bundle, cityId) => children(bundle.districtsByCity, cityId);
+export const getStreets = (bundle, cityId) => children(bundle.streetsByCity, cityId);
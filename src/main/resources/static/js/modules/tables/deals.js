@@ -3,6 +3,8 @@
 // =========================
 
 import { addActionButtonsUtil, removeActionsHeaderIfNeededUtil, showError, parseCurrency, formatCurrency, formatDateToDDMMYYYYUtil } from '../utils.js';
+import { getLookupBundle } from '../lookups.js';
+import { subscribeToChanges, createTableResync, applyRowChange } from '../live-updates.js';
 
 /**
  * Инициализация таблицы сделок
@@ -20,10 +22,32 @@ export function initDealsTable() {
           editDealRow(row);
         }
       });
+
+      // Изменения, сделанные другими пользователями, приходят из потока и применяются к строкам
+      const resync = createTableResync(dealsTable);
+      subscribeToChanges('deal', {
+        onChange: change => applyRowChange(dealsTable, change, dealCells, resync),
+        onResync: resync
+      });
     }
   }
 }
 
+/**
+ * Тексты ячеек строки сделки в порядке столбцов таблицы
+ */
+function dealCells(row) {
+  return [
+    row.dealId,
+    row.dealDateFormatted,
+    row.propertyAddress,
+    row.clientNameShort,
+    row.realtorNameShort,
+    row.dealCostFormatted,
+    row.dealTypeName
+  ];
+}
+
 /**
  * Редактирование сделки
  */
@@ -62,7 +86,7 @@ function editDealRow(row) {
     fetch('/api/properties/for-table').then(res => res.json()),
     fetch('/api/clients').then(res => res.json()),
     fetch('/api/realtors').then(res => res.json()),
-    fetch('/api/deal-types').then(res => res.json())
+    getLookupBundle().then(bundle => bundle.dealTypes)
   ];
 
   Promise.all(promises)
@@ -70,7 +94,7 @@ function editDealRow(row) {
       fillSelect(propertyAddressCell, properties, 'propertyId', 'tableAddress', propertyAddressCell.textContent);
       fillSelect(clientCell, clients, 'idClient', null, clientCell.textContent, i => `${i.lastName} ${i.firstName} ${i.middleName || ''}`.trim());
       fillSelect(realtorCell, realtors, 'idRealtor', null, realtorCell.textContent, i => `${i.lastName} ${i.firstName} ${i.middleName || ''}`.trim());
-      fillSelect(dealTypeCell, dealTypes, 'idDealType', 'dealTypeName', dealTypeCell.textContent);
+      fillSelect(dealTypeCell, dealTypes, 'id', 'name', dealTypeCell.textContent);
     })
     .catch(err => {
       console.error('Ошибка при загрузке данных сделки:', err);
@@ -4,6 +4,7 @@
 
 import { setRowEditing, addActionButtonsUtil, removeActionsHeaderIfNeededUtil, showError, parseCurrency, formatCurrency, formatDateToDDMMYYYYUtil, formatClientNameShortUtil } from '../utils.js';
 import { fetchJson } from '../api.js';
+import { subscribeToChanges, createTableResync, applyRowChange } from '../live-updates.js';
 
 /**
  * Инициализация таблицы платежей
@@ -21,10 +22,32 @@ export function initPaymentsTable() {
           editPaymentRow(row);
         }
       });
+
+      // Изменения, сделанные другими пользователями, приходят из потока и применяются к строкам
+      const resync = createTableResync(paymentsTable);
+      subscribeToChanges('payment', {
+        onChange: change => applyRowChange(paymentsTable, change, paymentCells, resync),
+        onResync: resync
+      });
     }
   }
 }
 
+/**
+ * Тексты ячеек строки платежа в порядке столбцов таблицы
+ */
+function paymentCells(row) {
+  return [
+    row.idPayment,
+    row.paymentDateFormatted,
+    row.amountFormatted,
+    row.idDeal,
+    row.dealDateFormatted,
+    row.clientFioShort,
+    row.propertyAddress
+  ];
+}
+
 /**
  * Редактирование строки платежа
  */
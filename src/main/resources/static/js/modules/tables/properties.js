@@ -3,6 +3,7 @@
 // =========================
 
 import { addActionButtonsUtil, removeActionsHeaderIfNeededUtil, showError } from '../utils.js';
+import { getLookupBundle } from '../lookups.js';
 
 /**
  * Инициализация таблицы недвижимости
@@ -52,16 +53,15 @@ function editPropertyRow(row) {
   // Тип
   const typeCell = cells[6];
   typeCell.innerHTML = '<select class="edit-input"><option>Загрузка...</option></select>';
-  fetch('/api/property-types')
-    .then(r => r.json())
-    .then(propertyTypes => {
+  getLookupBundle()
+    .then(({ propertyTypes }) => {
       const select = typeCell.querySelector('select');
       select.innerHTML = '<option value="">Выберите тип недвижимости</option>';
       propertyTypes.forEach(t => {
         const opt = document.createElement('option');
-        opt.value = t.idPropertyType;
-        opt.textContent = t.propertyTypeName;
-        if (t.propertyTypeName === cells[6].textContent) {
+        opt.value = t.id;
+        opt.textContent = t.name;
+        if (t.name === cells[6].textContent) {
           opt.selected = true;
         }
         select.appendChild(opt);
@@ -0,0 +1,147 @@
+package ru.realestate.realestate_app.audit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import ru.realestate.realestate_app.audit.AuditJournal.RowChange;
+import ru.realestate.realestate_app.audit.AuditJournalReader.ReadSummary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private AuditJournal journal;
+
+    @AfterEach
+    void stopJournal() {
+        if (journal != null) {
+            journal.stop();
+        }
+    }
+
+    @Test
+    void recordsAreReadBackWithValidChecksums() {
+        writeRecords(3);
+
+        List<AuditRecord> records = new ArrayList<>();
+        ReadSummary summary = AuditJournalReader.read(directory, 1, records::add);
+
+        assertThat(summary).isEqualTo(new ReadSummary(1, 3, 0, 0));
+        assertThat(records).extracting(AuditRecord::sequence).containsExactly(1L, 2L, 3L);
+        assertThat(records.get(1).operation()).isEqualTo("UPDATE");
+        assertThat(records.get(1).before().path("cost").asInt()).isEqualTo(100);
+        assertThat(records.get(1).after().path("cost").asInt()).isEqualTo(200);
+    }
+
+    @Test
+    void corruptedRecordStopsReadingSegment() throws IOException {
+        writeRecords(3);
+        Path segment = AuditJournalReader.listSegments(directory).get(0);
+        int third = recordOffset(segment, 2);
+        // Байт данных третьей записи изменён: CRC не совпадает
+        overwrite(segment, third + AuditJournalReader.RECORD_HEADER_SIZE + 2, (byte) 'X');
+
+        List<AuditRecord> records = new ArrayList<>();
+        ReadSummary summary = AuditJournalReader.read(directory, 1, records::add);
+
+        assertThat(summary).isEqualTo(new ReadSummary(1, 2, 1, 0));
+        assertThat(records).extracting(AuditRecord::sequence).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void tornRecordIsDiscardedAndWritingContinuesAfterLastWholeRecord() throws IOException {
+        writeRecords(3);
+        Path segment = AuditJournalReader.listSegments(directory).get(0);
+        int third = recordOffset(segment, 2);
+        // Оборванная запись: длина записана, а данные остались нулями
+        int length = readInt(segment, third);
+        for (int i = 0; i < length; i++) {
+            overwrite(segment, third + AuditJournalReader.RECORD_HEADER_SIZE + i, (byte) 0);
+        }
+
+        journal = startJournal();
+        journal.recordDelete("Deal", new RowChange(7, "{\"id\":7}", null));
+        journal.stop();
+
+        List<AuditRecord> records = new ArrayList<>();
+        ReadSummary summary = AuditJournalReader.read(directory, 1, records::add);
+
+        assertThat(summary.tornSegments()).isZero();
+        assertThat(records).extracting(AuditRecord::sequence).containsExactly(1L, 2L, 3L);
+        assertThat(records.get(2).operation()).isEqualTo("DELETE");
+        assertThat(records.get(2).entityId()).isEqualTo(7);
+    }
+
+    @Test
+    void readingFromSequenceSkipsEarlierRecords() {
+        writeRecords(3);
+
+        List<AuditRecord> records = new ArrayList<>();
+        AuditJournalReader.read(directory, 3, records::add);
+
+        assertThat(records).extracting(AuditRecord::sequence).containsExactly(3L);
+    }
+
+    /**
+     * Записать INSERT, UPDATE и DELETE по кругу; при остановке писатель дописывает всю очередь
+     */
+    private void writeRecords(int count) {
+        journal = startJournal();
+        for (int i = 0; i < count; i++) {
+            switch (i % 3) {
+                case 0 -> journal.recordInsert("Deal", new RowChange(i, null, "{\"cost\":100}"));
+                case 1 -> journal.recordUpdate("Deal", new RowChange(i, "{\"cost\":100}", "{\"cost\":200}"));
+                default -> journal.recordDelete("Deal", new RowChange(i, "{\"cost\":200}", null));
+            }
+        }
+        journal.stop();
+        assertThat(journal.getStats().get("written")).isEqualTo((long) count);
+    }
+
+    private AuditJournal startJournal() {
+        AuditJournal started = new AuditJournal(true, directory.toString(), DataSize.ofKilobytes(64), 0,
+                                                Duration.ofMillis(50), 1000);
+        started.start();
+        return started;
+    }
+
+    /**
+     * Смещение записи с порядковым индексом index в сегменте
+     */
+    private static int recordOffset(Path segment, int index) throws IOException {
+        int position = AuditJournalReader.SEGMENT_HEADER_SIZE;
+        for (int i = 0; i < index; i++) {
+            position += AuditJournalReader.RECORD_HEADER_SIZE + readInt(segment, position);
+        }
+        return position;
+    }
+
+    private static int readInt(Path segment, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN);
+            channel.read(buffer, position);
+            return buffer.flip().getInt();
+        }
+    }
+
+    private static void overwrite(Path segment, int position, byte value) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {value}), position);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ru.realestate.realestate_app.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ru.realestate.realestate_app.cache.ClientDuplicateIndex.Candidate;
+import ru.realestate.realestate_app.dao.ClientDao;
+import ru.realestate.realestate_app.model.Client;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ClientDuplicateIndexTest {
+
+    private final ClientDao clientDao = mock(ClientDao.class);
+    private final ClientDuplicateIndex index = new ClientDuplicateIndex(clientDao);
+
+    @BeforeEach
+    void loadClients() {
+        doAnswer(invocation -> {
+            Consumer<Client> consumer = invocation.getArgument(0);
+            consumer.accept(new Client(1L, "Мария", "Иванова", "Петровна", "+7 (912) 345-67-89", "m.ivanova@mail.ru"));
+            consumer.accept(new Client(2L, "Олег", "Смирнов", "Игоревич", "8 903 111 22 33", "smirnov@yandex.ru"));
+            consumer.accept(new Client(3L, "Мартин", "Иванов", null, null, null));
+            return null;
+        }).when(clientDao).forEachClient(any());
+        assertThat(index.reload()).isTrue();
+    }
+
+    @Test
+    void exactDuplicateScoresOne() {
+        List<Candidate> candidates = index.findCandidates("Иванова", "Мария", "Петровна",
+            "89123456789", "M.Ivanova@mail.ru", null, 0.5, 10);
+
+        assertThat(candidates).hasSize(1);
+        assertThat(candidates.get(0).clientId()).isEqualTo(1L);
+        assertThat(candidates.get(0).score()).isEqualTo(1.0);
+        assertThat(candidates.get(0).matchedOn())
+            .containsExactly("phone", "email", "lastName", "firstName", "middleName");
+    }
+
+    @Test
+    void transliteratedMasculineSurnameMatchesPhonetically() {
+        List<Candidate> candidates = index.findCandidates("Ivanov", "Maria", null, null, null, null, 0, 10);
+
+        // Латиница со строками на кириллице не сравнивается, фамилия совпадает только фонетически
+        Candidate ivanova = candidates.stream().filter(c -> c.clientId() == 1L).findFirst().orElseThrow();
+        assertThat(ivanova.matchedOn()).contains("lastName");
+        assertThat(ivanova.score()).isCloseTo(0.30 * 0.95, within(0.001));
+    }
+
+    @Test
+    void emailLocalPartAndPhoneWithoutCountryCodeAreMatched() {
+        List<Candidate> candidates = index.findCandidates("Смирнова", "Ольга", null,
+            "(903) 111-22-33", "smirnov+shop@gmail.com", null, 0.5, 10);
+
+        assertThat(candidates).extracting(Candidate::clientId).containsExactly(2L);
+        assertThat(candidates.get(0).matchedOn()).contains("phone", "emailLocalPart", "lastName")
+            .doesNotContain("email", "firstName");
+    }
+
+    @Test
+    void candidatesAreOrderedByScoreAndExcludeSelf() {
+        // Иванова Мария и Иванов Мартин попадают в один блок: фамилия и первая буква имени
+        List<Candidate> candidates = index.findCandidates("Иванова", "Мария", null, null, null, null, 0, 10);
+
+        assertThat(candidates).extracting(Candidate::clientId).containsExactly(1L, 3L);
+        assertThat(candidates.get(0).score()).isGreaterThan(candidates.get(1).score());
+        assertThat(index.findCandidates("Иванова", "Мария", null, null, null, 1L, 0, 10))
+            .extracting(Candidate::clientId).containsExactly(3L);
+    }
+}
@@ -0,0 +1,42 @@
+package ru.realestate.realestate_app.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class FuzzyMatchTest {
+
+    @Test
+    void phoneticKeyIgnoresGenderTransliterationAndUnstressedVowels() {
+        String key = FuzzyMatch.phoneticKey("Иванов");
+
+        assertThat(FuzzyMatch.phoneticKey("Иванова")).isEqualTo(key);
+        assertThat(FuzzyMatch.phoneticKey("Ivanova")).isEqualTo(key);
+        assertThat(FuzzyMatch.phoneticKey("ИВАНОФФ")).isEqualTo(key);
+        assertThat(FuzzyMatch.phoneticKey("Вишневская")).isEqualTo(FuzzyMatch.phoneticKey("Вишневский"));
+        assertThat(FuzzyMatch.phoneticKey("Ёлкин")).isEqualTo(FuzzyMatch.phoneticKey("Елкин"));
+        assertThat(FuzzyMatch.phoneticKey("Петров")).isNotEqualTo(key);
+        assertThat(FuzzyMatch.phoneticKey(null)).isEmpty();
+    }
+
+    @Test
+    void jaroWinklerMatchesReferenceValues() {
+        // Классические примеры Винклера
+        assertThat(FuzzyMatch.jaroWinkler("martha", "marhta")).isCloseTo(0.961, within(0.001));
+        assertThat(FuzzyMatch.jaroWinkler("dwayne", "duane")).isCloseTo(0.840, within(0.001));
+        assertThat(FuzzyMatch.jaroWinkler("dixon", "dicksonx")).isCloseTo(0.813, within(0.001));
+        assertThat(FuzzyMatch.jaroWinkler("иванов", "иванов")).isEqualTo(1.0);
+        assertThat(FuzzyMatch.jaroWinkler("иванов", "")).isZero();
+        assertThat(FuzzyMatch.jaroWinkler("абв", "где")).isZero();
+    }
+
+    @Test
+    void contactKeysAreNormalized() {
+        assertThat(FuzzyMatch.phoneKey("+7 (912) 345-67-89")).isEqualTo("9123456789");
+        assertThat(FuzzyMatch.phoneKey("8-912-345-67-89")).isEqualTo("9123456789");
+        assertThat(FuzzyMatch.phoneKey("12-34")).isNull();
+        assertThat(FuzzyMatch.emailLocalKey(" M.Ivanova+work@Mail.ru ")).isEqualTo("mivanova");
+        assertThat(FuzzyMatch.emailLocalKey("ab@mail.ru")).isNull();
+    }
+}
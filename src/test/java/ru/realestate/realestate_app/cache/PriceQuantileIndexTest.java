@@ -0,0 +1,69 @@
+package ru.realestate.realestate_app.cache;
+
+import org.junit.jupiter.api.Test;
+
+import ru.realestate.realestate_app.cache.PriceQuantileIndex.GroupKey;
+import ru.realestate.realestate_app.cache.PriceQuantileIndex.GroupSketches;
+import ru.realestate.realestate_app.dao.PropertyAnalyticsDao;
+import ru.realestate.realestate_app.dao.PropertyAnalyticsDao.PriceSample;
+import ru.realestate.realestate_app.model.Property;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PriceQuantileIndexTest {
+
+    private static final GroupKey ALL = new GroupKey(null, null, null);
+
+    private final PropertyAnalyticsDao propertyAnalyticsDao = mock(PropertyAnalyticsDao.class);
+    private final PriceQuantileIndex index = new PriceQuantileIndex(propertyAnalyticsDao, 200);
+
+    @Test
+    void propertyAddedDuringReloadIsKeptAfterSwap() {
+        when(propertyAnalyticsDao.forEachPriceSample(any())).thenAnswer(invocation -> {
+            Consumer<PriceSample> consumer = invocation.getArgument(0);
+            // Объект сохранён, пока идёт чтение таблицы, и в выборку не попал
+            index.add(property(300));
+            consumer.accept(new PriceSample(1L, 1L, null, 1L, new BigDecimal("100"), new BigDecimal("10")));
+            return 1L;
+        });
+
+        assertThat(index.reload()).isTrue();
+
+        assertThat(total().getPrice().getCount()).isEqualTo(2);
+        assertThat(index.getStaleChanges()).isEqualTo(1);
+    }
+
+    @Test
+    void failedReloadKeepsPreviousSketches() {
+        when(propertyAnalyticsDao.forEachPriceSample(any())).thenReturn(0L);
+        index.reload();
+        index.add(property(100));
+        when(propertyAnalyticsDao.forEachPriceSample(any())).thenThrow(new IllegalStateException("нет соединения"));
+
+        assertThat(index.reload()).isFalse();
+
+        assertThat(total().getPrice().getCount()).isEqualTo(1);
+    }
+
+    private GroupSketches total() {
+        Map<GroupKey, GroupSketches> result = index.query(_ -> true, (Function<GroupKey, GroupKey>) _ -> ALL);
+        return result.get(ALL);
+    }
+
+    private static Property property(long cost) {
+        Property property = new Property();
+        property.setIdCity(1L);
+        property.setIdPropertyType(1L);
+        property.setCost(BigDecimal.valueOf(cost));
+        property.setArea(new BigDecimal("10"));
+        return property;
+    }
+}
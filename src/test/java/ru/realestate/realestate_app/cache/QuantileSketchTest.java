@@ -0,0 +1,84 @@
+package ru.realestate.realestate_app.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class QuantileSketchTest {
+
+    private static final int K = 200;
+    private static final double[] QUANTILES = {0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99};
+
+    // Заявленная ошибка ранга около 1.7 / k; проверяется с запасом на случайность сжатия
+    private static final double RANK_ERROR = 2 * 1.7 / K;
+
+    @Test
+    void rankErrorIsWithinBoundOnSkewedStream() {
+        Random random = new Random(42);
+        double[] values = new double[200_000];
+        QuantileSketch sketch = new QuantileSketch(K);
+        for (int i = 0; i < values.length; i++) {
+            // Логнормальное распределение, как у цен объектов
+            values[i] = Math.exp(13 + random.nextGaussian());
+            sketch.update(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertThat(sketch.getCount()).isEqualTo(values.length);
+        assertThat(sketch.getRetained()).isLessThanOrEqualTo(3 * K);
+        for (double q : QUANTILES) {
+            assertThat(rank(values, sketch.quantile(q))).as("квантиль %s", q).isCloseTo(q, within(RANK_ERROR));
+        }
+    }
+
+    @Test
+    void mergedSketchesKeepRankError() {
+        Random random = new Random(7);
+        double[] values = new double[100_000];
+        QuantileSketch[] parts = {new QuantileSketch(K), new QuantileSketch(K), new QuantileSketch(K)};
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble() * 1_000_000;
+            parts[i % parts.length].update(values[i]);
+        }
+        Arrays.sort(values);
+
+        QuantileSketch merged = parts[0].copy();
+        merged.merge(parts[1]);
+        merged.merge(parts[2]);
+
+        assertThat(merged.getCount()).isEqualTo(values.length);
+        for (double q : QUANTILES) {
+            assertThat(rank(values, merged.quantile(q))).as("квантиль %s", q).isCloseTo(q, within(RANK_ERROR));
+        }
+        // Исходный скетч объединением не изменяется
+        assertThat(parts[0].getCount()).isEqualTo(values.length / 3 + 1);
+    }
+
+    @Test
+    void smallStreamIsExactAndExtremesAreKept() {
+        QuantileSketch sketch = new QuantileSketch(K);
+        for (int i = 1; i <= 100; i++) {
+            sketch.update(i);
+        }
+        sketch.update(Double.NaN);
+
+        assertThat(sketch.getCount()).isEqualTo(100);
+        assertThat(sketch.quantile(0)).isEqualTo(1);
+        assertThat(sketch.quantile(0.5)).isEqualTo(50);
+        assertThat(sketch.quantile(1)).isEqualTo(100);
+        assertThat(new QuantileSketch(K).quantile(0.5)).isNaN();
+    }
+
+    /**
+     * Доля значений не больше value в отсортированном массиве
+     */
+    private static double rank(double[] sorted, double value) {
+        int index = Arrays.binarySearch(sorted, value);
+        int position = index >= 0 ? index + 1 : -index - 1;
+        return (double) position / sorted.length;
+    }
+}
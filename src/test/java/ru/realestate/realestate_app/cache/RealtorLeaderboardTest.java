@@ -0,0 +1,87 @@
+package ru.realestate.realestate_app.cache;
+
+import org.junit.jupiter.api.Test;
+
+import ru.realestate.realestate_app.cache.RealtorLeaderboard.Metric;
+import ru.realestate.realestate_app.cache.RealtorLeaderboard.Standing;
+import ru.realestate.realestate_app.dao.DealAnalyticsDao;
+import ru.realestate.realestate_app.dao.DealAnalyticsDao.RealtorMonthTotal;
+import ru.realestate.realestate_app.dao.DealAnalyticsDao.RealtorTotals;
+import ru.realestate.realestate_app.dao.TransactionSnapshot;
+import ru.realestate.realestate_app.model.Deal;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RealtorLeaderboardTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2025, 3);
+
+    private final DealAnalyticsDao dealAnalyticsDao = mock(DealAnalyticsDao.class);
+    private final RealtorLeaderboard leaderboard = new RealtorLeaderboard(dealAnalyticsDao);
+
+    @Test
+    void changeCommittedBeforeSnapshotIsNotCountedTwice() {
+        // Транзакция 100 зафиксирована до снимка, её сделка уже в итогах запроса
+        when(dealAnalyticsDao.findRealtorMonthlyTotals()).thenAnswer(_ -> {
+            leaderboard.recordDeal(deal(1L, "1000"), 100);
+            return totals(snapshot("150:200:150"), new RealtorMonthTotal(1L, MONTH, 1, new BigDecimal("1000")));
+        });
+
+        assertThat(leaderboard.reload()).isTrue();
+
+        assertThat(leaderboard.top(null, Metric.COUNT, 10))
+            .containsExactly(new Standing(1L, 1, new BigDecimal("1000")));
+    }
+
+    @Test
+    void changeInvisibleToSnapshotIsReplayed() {
+        // Транзакция 150 выполнялась в момент снимка - её сделки в итогах нет
+        when(dealAnalyticsDao.findRealtorMonthlyTotals()).thenAnswer(_ -> {
+            leaderboard.recordDeal(deal(1L, "500"), 150);
+            return totals(snapshot("150:200:150"), new RealtorMonthTotal(1L, MONTH, 1, new BigDecimal("1000")));
+        });
+
+        leaderboard.reload();
+
+        assertThat(leaderboard.top(MONTH, Metric.VOLUME, 10))
+            .containsExactly(new Standing(1L, 2, new BigDecimal("1500")));
+    }
+
+    @Test
+    void changeAfterReloadIsCheckedAgainstRealtorTotals() {
+        when(dealAnalyticsDao.findRealtorMonthlyTotals())
+            .thenReturn(totals(snapshot("100:100:"), new RealtorMonthTotal(1L, MONTH, 1, new BigDecimal("1000"))));
+        leaderboard.reload();
+
+        // Итоги риелтора перечитаны после транзакции 120: её изменение уже учтено
+        leaderboard.replaceRealtor(1L, totals(snapshot("130:130:"),
+                                              new RealtorMonthTotal(1L, MONTH, 2, new BigDecimal("1700"))));
+        leaderboard.recordDeal(deal(1L, "700"), 120);
+        leaderboard.recordDeal(deal(1L, "300"), 140);
+
+        assertThat(leaderboard.top(null, Metric.COUNT, 10))
+            .containsExactly(new Standing(1L, 3, new BigDecimal("2000")));
+    }
+
+    private static RealtorTotals totals(TransactionSnapshot snapshot, RealtorMonthTotal... totals) {
+        return new RealtorTotals(List.of(totals), snapshot);
+    }
+
+    private static TransactionSnapshot snapshot(String text) {
+        return TransactionSnapshot.parse(text);
+    }
+
+    private static Deal deal(long realtorId, String cost) {
+        Deal deal = new Deal();
+        deal.setIdRealtor(realtorId);
+        deal.setDealDate(MONTH.atDay(10));
+        deal.setDealCost(new BigDecimal(cost));
+        return deal;
+    }
+}
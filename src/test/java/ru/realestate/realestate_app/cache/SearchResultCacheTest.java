@@ -0,0 +1,57 @@
+package ru.realestate.realestate_app.cache;
+
+import org.junit.jupiter.api.Test;
+
+import ru.realestate.realestate_app.cache.SearchResultCache.Region;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchResultCacheTest {
+
+    private final SearchResultCache cache = new SearchResultCache(1000, Duration.ofMinutes(5));
+
+    @Test
+    void repeatedSearchIsServedFromCache() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(Region.DEALS, () -> List.of(loads.incrementAndGet()), "a");
+        List<Integer> second = cache.get(Region.DEALS, () -> List.of(loads.incrementAndGet()), "a");
+
+        assertThat(second).containsExactly(1);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void invalidationDropsDependentRegions() {
+        cache.get(Region.PAYMENTS, () -> List.of("old"), 1L);
+
+        cache.invalidate("Deal");
+
+        assertThat(cache.get(Region.PAYMENTS, () -> List.of("new"), 1L)).containsExactly("new");
+    }
+
+    @Test
+    void resultLoadedAcrossInvalidationIsNotServed() {
+        // Изменение данных приходит, пока выполняется запрос: его результат устарел
+        List<String> stale = cache.get(Region.DEALS, () -> {
+            cache.invalidate("Deal");
+            return List.of("stale");
+        }, "a");
+
+        assertThat(stale).containsExactly("stale");
+        assertThat(cache.get(Region.DEALS, () -> List.of("fresh"), "a")).containsExactly("fresh");
+    }
+
+    @Test
+    void equivalentFiltersShareEntry() {
+        cache.get(Region.PROPERTIES, () -> List.of("x"), new BigDecimal("100.00"), " ");
+
+        assertThat(cache.get(Region.PROPERTIES, () -> List.of("y"), new BigDecimal("100"), null))
+            .containsExactly("x");
+    }
+}
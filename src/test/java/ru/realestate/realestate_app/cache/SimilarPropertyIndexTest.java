@@ -0,0 +1,55 @@
+package ru.realestate.realestate_app.cache;
+
+import org.junit.jupiter.api.Test;
+
+import ru.realestate.realestate_app.cache.SimilarPropertyIndex.Neighbour;
+import ru.realestate.realestate_app.dao.PropertyAnalyticsDao;
+import ru.realestate.realestate_app.dao.PropertyAnalyticsDao.PriceSample;
+import ru.realestate.realestate_app.model.Property;
+
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SimilarPropertyIndexTest {
+
+    private final PropertyAnalyticsDao propertyAnalyticsDao = mock(PropertyAnalyticsDao.class);
+    private final SimilarPropertyIndex index = new SimilarPropertyIndex(propertyAnalyticsDao);
+
+    @Test
+    void changesDuringReloadAreReplayedOnNewIndex() {
+        when(propertyAnalyticsDao.forEachPriceSample(any())).thenAnswer(invocation -> {
+            Consumer<PriceSample> consumer = invocation.getArgument(0);
+            consumer.accept(sample(1L, 100));
+            consumer.accept(sample(2L, 200));
+            // Объект 2 удалён, а объект 3 добавлен, пока идёт чтение уже прочитанной части таблицы
+            index.remove(2L);
+            index.put(3L, property(3L, 300));
+            return 2L;
+        });
+
+        assertThat(index.reload()).isTrue();
+
+        assertThat(index.nearest(property(null, 100), 10))
+            .extracting(Neighbour::propertyId)
+            .containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    private static PriceSample sample(long id, long cost) {
+        return new PriceSample(id, 1L, null, 1L, BigDecimal.valueOf(cost), new BigDecimal("10"));
+    }
+
+    private static Property property(Long id, long cost) {
+        Property property = new Property();
+        property.setIdProperty(id);
+        property.setIdCity(1L);
+        property.setIdPropertyType(1L);
+        property.setCost(BigDecimal.valueOf(cost));
+        property.setArea(new BigDecimal("10"));
+        return property;
+    }
+}
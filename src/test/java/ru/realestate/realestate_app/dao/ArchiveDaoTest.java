@@ -0,0 +1,95 @@
+package ru.realestate.realestate_app.dao;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import ru.realestate.realestate_app.cache.DealColumnStore;
+import ru.realestate.realestate_app.dao.ArchiveDao.ArchiveBatch;
+import ru.realestate.realestate_app.dao.DealAnalyticsDao.RealtorMonthTotal;
+import ru.realestate.realestate_app.model.Deal;
+import ru.realestate.realestate_app.model.Payment;
+import ru.realestate.realestate_app.model.dto.DealTimeseriesPoint;
+import ru.realestate.realestate_app.model.dto.DealTimeseriesPoint.Bucket;
+import ru.realestate.realestate_app.model.dto.DealTimeseriesPoint.GroupBy;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assumptions.assumeThat;
+
+// Перенос выполняется в транзакции теста и откатывается после него
+@SpringBootTest
+@Transactional
+class ArchiveDaoTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ArchiveDao archiveDao;
+
+    @Autowired
+    private DealDao dealDao;
+
+    @Autowired
+    private PaymentDao paymentDao;
+
+    @Autowired
+    private DealAnalyticsDao dealAnalyticsDao;
+
+    @Autowired
+    private DealColumnStore dealColumnStore;
+
+    /**
+     * Итоги, которые приложение показывает по сделкам и платежам
+     */
+    private record Totals(long timeseriesCount, BigDecimal timeseriesRevenue, long realtorCount,
+                          BigDecimal realtorVolume, long count, BigDecimal amount, long columnStoreCount,
+                          BigDecimal columnStoreAmount, long dealReportRows, long paymentReportRows) {}
+
+    @Test
+    void archiveRunDoesNotChangeTotals() {
+        LocalDate before = jdbcTemplate.queryForObject("SELECT max(deal_date) + 1 FROM deals", LocalDate.class);
+        assumeThat(before).as("в основной таблице нет сделок").isNotNull();
+        Totals totalsBefore = totals();
+
+        ArchiveBatch batch = archiveDao.archiveBatch(before, null, 200);
+        assumeThat(batch.deals()).as("нет сделок для переноса").isNotEmpty();
+        long archivedId = batch.deals().get(0).dealId();
+        Integer hot = jdbcTemplate.queryForObject("SELECT count(*) FROM deals WHERE id_deal = ?", Integer.class, archivedId);
+        assertThat(hot).isZero();
+
+        assertThat(totals()).isEqualTo(totalsBefore);
+        Deal archived = dealDao.findById(archivedId);
+        assertThat(archived.getIdDeal()).isEqualTo(archivedId);
+        List<Payment> payments = paymentDao.findByDealId(archivedId);
+        assertThat(payments).allMatch(payment -> payment.getIdDeal() == archivedId);
+        assertThat(dealDao.findByIds(List.of(archivedId))).hasSize(1);
+    }
+
+    private Totals totals() {
+        List<DealTimeseriesPoint> points = dealAnalyticsDao.findTimeseries(Bucket.MONTH, GroupBy.NONE, null, null);
+        List<RealtorMonthTotal> realtors = dealAnalyticsDao.findRealtorMonthlyTotals().totals();
+        // Копия перечитывается в транзакции теста, чтобы увидеть ещё не зафиксированный перенос
+        DealColumnStore.Summary summary = dealColumnStore.reload()
+            ? dealColumnStore.summarize(new DealColumnStore.Filter(null, null, null, null, null), 0)
+            : new DealColumnStore.Summary(0, BigDecimal.ZERO, List.of());
+        return new Totals(
+            points.stream().mapToLong(DealTimeseriesPoint::getDealCount).sum(),
+            points.stream().map(DealTimeseriesPoint::getRevenue).reduce(BigDecimal.ZERO, BigDecimal::add),
+            realtors.stream().mapToLong(RealtorMonthTotal::dealCount).sum(),
+            realtors.stream().map(RealtorMonthTotal::dealVolume).reduce(BigDecimal.ZERO, BigDecimal::add),
+            dealDao.getCount(),
+            dealDao.getTotalDealsAmount(),
+            summary.count(),
+            summary.totalAmount(),
+            dealDao.forEachForReport(_ -> { }),
+            paymentDao.forEachForReport(_ -> { })
+        );
+    }
+}
@@ -0,0 +1,53 @@
+package ru.realestate.realestate_app.dao;
+
+import org.junit.jupiter.api.Test;
+
+import ru.realestate.realestate_app.dao.ShardedReportExecutor.Range;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedReportExecutorTest {
+
+    @Test
+    void rangeIsSplitIntoContiguousEqualParts() {
+        assertThat(ShardedReportExecutor.split(1, 100, 4)).containsExactly(
+            new Range(1, 25), new Range(26, 50), new Range(51, 75), new Range(76, 100));
+    }
+
+    @Test
+    void lastPartIsShorterWhenRangeIsNotDivisible() {
+        List<Range> ranges = ShardedReportExecutor.split(0, 9, 4);
+
+        assertThat(ranges).containsExactly(new Range(0, 2), new Range(3, 5), new Range(6, 8), new Range(9, 9));
+    }
+
+    @Test
+    void partsNeverExceedKeysOrCount() {
+        assertThat(ShardedReportExecutor.split(5, 5, 16)).containsExactly(new Range(5, 5));
+        assertThat(ShardedReportExecutor.split(10, 12, 16))
+            .containsExactly(new Range(10, 10), new Range(11, 11), new Range(12, 12));
+        // Ширина округляется вверх, поэтому частей может быть меньше запрошенного
+        assertThat(ShardedReportExecutor.split(1, 9, 4)).hasSize(3);
+    }
+
+    @Test
+    void everyKeyIsCoveredExactlyOnce() {
+        for (int count = 1; count <= 20; count++) {
+            for (long max = -5; max <= 60; max++) {
+                List<Range> ranges = ShardedReportExecutor.split(-5, max, count);
+
+                assertThat(ranges).hasSizeLessThanOrEqualTo(count);
+                assertThat(ranges.get(0).from()).isEqualTo(-5);
+                assertThat(ranges.get(ranges.size() - 1).to()).isEqualTo(max);
+                for (int i = 0; i < ranges.size(); i++) {
+                    assertThat(ranges.get(i).from()).isLessThanOrEqualTo(ranges.get(i).to());
+                    if (i > 0) {
+                        assertThat(ranges.get(i).from()).isEqualTo(ranges.get(i - 1).to() + 1);
+                    }
+                }
+            }
+        }
+    }
+}
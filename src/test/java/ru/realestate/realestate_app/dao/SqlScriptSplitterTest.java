@@ -0,0 +1,45 @@
+package ru.realestate.realestate_app.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SqlScriptSplitterTest {
+
+    @Test
+    void splitsOnSemicolonsOutsideQuotesAndComments() {
+        List<String> statements = SqlScriptSplitter.split("""
+            -- комментарий; не команда
+            INSERT INTO t VALUES ('a;b', 'it''s');
+            SELECT "col;name" /* блок; /* вложенный; */ */ FROM t;
+            """);
+
+        assertThat(statements).containsExactly(
+            "INSERT INTO t VALUES ('a;b', 'it''s')",
+            "SELECT \"col;name\"   FROM t");
+    }
+
+    @Test
+    void keepsDollarQuotedBodiesWhole() {
+        String function = """
+            CREATE FUNCTION f() RETURNS trigger LANGUAGE plpgsql AS $body$
+            BEGIN
+                PERFORM pg_notify('channel', $$a;b$$);
+                RETURN NULL;
+            END
+            $body$""";
+
+        List<String> statements = SqlScriptSplitter.split(function + ";\nSELECT $1;");
+
+        assertThat(statements).containsExactly(function, "SELECT $1");
+    }
+
+    @Test
+    void unterminatedDollarQuoteIsRejected() {
+        assertThatThrownBy(() -> SqlScriptSplitter.split("DO $$ BEGIN NULL; END;"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,171 @@
+package ru.realestate.realestate_app.mapper.dto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowMapper;
+
+import ru.realestate.realestate_app.model.dto.DealWithDetailsDto;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение сгенерированного RowMapper с написанным вручную на самом широком результате (32 колонки)
+ *
+ * Строки запроса сделок с деталями читаются один раз в прокручиваемый ResultSet драйвера PostgreSQL
+ * и затем многократно проходятся обоими мапперами, поэтому измеряется только преобразование строк:
+ * чтение колонок драйвером и заполнение DTO, без сети и выполнения запроса. Ручной маппер - прежняя
+ * реализация: чтение колонок по имени и дата через java.sql.Date.
+ *
+ * Имя класса не подходит под шаблоны surefire, поэтому в обычную сборку тест не входит. Запуск
+ * на базе данных с данными сделок:
+ *   mvn test -Dtest=DealWithDetailsRowMapperBenchmark [-Dbenchmark.rows=50000] [-Dbenchmark.url=jdbc:...]
+ */
+class DealWithDetailsRowMapperBenchmark {
+
+    private static final String URL = System.getProperty("benchmark.url", "jdbc:postgresql://localhost:5432/realestate");
+    private static final String USER = System.getProperty("benchmark.user", "postgres");
+    private static final String PASSWORD = System.getProperty("benchmark.password", "password");
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 50_000);
+    private static final int WARMUP_RUNS = 15;
+    private static final int RUNS = 15;
+
+    @Test
+    void generatedMapperAgainstHandWritten() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, USER, PASSWORD);
+             Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE,
+                                                              ResultSet.CONCUR_READ_ONLY);
+             ResultSet rs = statement.executeQuery(detailsQuery(ROWS))) {
+            rs.last();
+            int rows = rs.getRow();
+            assertThat(rows).as("в базе данных нет сделок").isPositive();
+
+            RowMapper<DealWithDetailsDto> generated = new DealWithDetailsRowMapperImpl();
+            RowMapper<DealWithDetailsDto> handWritten = new HandWrittenDealWithDetailsRowMapper();
+            // Оба маппера должны давать одинаковые DTO
+            rs.first();
+            assertThat(generated.mapRow(rs, 0)).usingRecursiveComparison().isEqualTo(handWritten.mapRow(rs, 0));
+
+            // Прогрев по очереди, чтобы оба маппера были скомпилированы JIT до замеров
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                mapAll(rs, generated);
+                mapAll(rs, handWritten);
+            }
+            long[] generatedTimes = new long[RUNS];
+            long[] handWrittenTimes = new long[RUNS];
+            for (int i = 0; i < RUNS; i++) {
+                generatedTimes[i] = mapAll(rs, generated);
+                handWrittenTimes[i] = mapAll(rs, handWritten);
+            }
+
+            double generatedNs = median(generatedTimes) / (double) rows;
+            double handWrittenNs = median(handWrittenTimes) / (double) rows;
+            System.out.printf("Строк: %d, медиана из %d проходов%n", rows, RUNS);
+            System.out.printf("  сгенерированный: %8.1f нс/строка%n", generatedNs);
+            System.out.printf("  ручной:          %8.1f нс/строка%n", handWrittenNs);
+            System.out.printf("  ускорение:       %8.2fx%n", handWrittenNs / generatedNs);
+        }
+    }
+
+    /**
+     * Пройти все строки маппером
+     * @return время прохода в наносекундах
+     */
+    private static long mapAll(ResultSet rs, RowMapper<DealWithDetailsDto> mapper) throws SQLException {
+        rs.beforeFirst();
+        long checksum = 0;
+        long start = System.nanoTime();
+        int rowNum = 0;
+        while (rs.next()) {
+            checksum += mapper.mapRow(rs, rowNum++).getDealId();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(checksum).isNotZero();
+        return elapsed;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static String detailsQuery(int limit) {
+        return """
+            SELECT d.id_deal AS deal_id, d.deal_date, d.deal_cost,
+                   c.id_client AS client_id, c.first_name AS client_first_name, c.last_name AS client_last_name,
+                   c.middle_name AS client_middle_name, c.phone AS client_phone, c.email AS client_email,
+                   r.id_realtor AS realtor_id, r.first_name AS realtor_first_name, r.last_name AS realtor_last_name,
+                   r.middle_name AS realtor_middle_name, r.phone AS realtor_phone, r.email AS realtor_email,
+                   r.experience_years AS realtor_experience,
+                   p.id_property AS property_id, p.area AS property_area, p.cost AS property_cost,
+                   p.description AS property_description, p.postal_code AS property_postal_code,
+                   p.house_number AS property_house_number, p.house_letter AS property_house_letter,
+                   p.building_number AS property_building_number, p.apartment_number AS property_apartment_number,
+                   country.country_name, region.name AS region_name, city.city_name, district.district_name,
+                   street.street_name, pt.property_type_name, dt.deal_type_name
+            FROM deals d
+            JOIN clients c ON d.id_client = c.id_client
+            JOIN realtors r ON d.id_realtor = r.id_realtor
+            JOIN properties p ON d.id_property = p.id_property
+            JOIN countries country ON p.id_country = country.id_country
+            JOIN regions region ON p.id_region = region.id_region
+            JOIN cities city ON p.id_city = city.id_city
+            JOIN districts district ON p.id_district = district.id_district
+            JOIN streets street ON p.id_street = street.id_street
+            JOIN property_types pt ON p.id_property_type = pt.id_property_type
+            JOIN deal_types dt ON d.id_deal_type = dt.id_deal_type
+            ORDER BY d.id_deal
+            LIMIT %d
+            """.formatted(limit);
+    }
+
+    /**
+     * Маппер в виде, написанном вручную до генерации: чтение колонок по имени
+     */
+    private static final class HandWrittenDealWithDetailsRowMapper implements RowMapper<DealWithDetailsDto> {
+
+        @Override
+        public DealWithDetailsDto mapRow(ResultSet rs, int rowNum) throws SQLException {
+            DealWithDetailsDto dto = new DealWithDetailsDto();
+            dto.setDealId(rs.getLong("deal_id"));
+            dto.setDealDate(rs.getDate("deal_date").toLocalDate());
+            dto.setDealCost(rs.getBigDecimal("deal_cost"));
+            dto.setClientId(rs.getLong("client_id"));
+            dto.setClientFirstName(rs.getString("client_first_name"));
+            dto.setClientLastName(rs.getString("client_last_name"));
+            dto.setClientMiddleName(rs.getString("client_middle_name"));
+            dto.setClientPhone(rs.getString("client_phone"));
+            dto.setClientEmail(rs.getString("client_email"));
+            dto.setRealtorId(rs.getLong("realtor_id"));
+            dto.setRealtorFirstName(rs.getString("realtor_first_name"));
+            dto.setRealtorLastName(rs.getString("realtor_last_name"));
+            dto.setRealtorMiddleName(rs.getString("realtor_middle_name"));
+            dto.setRealtorPhone(rs.getString("realtor_phone"));
+            dto.setRealtorEmail(rs.getString("realtor_email"));
+            dto.setRealtorExperience(rs.getInt("realtor_experience"));
+            dto.setPropertyId(rs.getLong("property_id"));
+            dto.setPropertyArea(rs.getBigDecimal("property_area"));
+            dto.setPropertyCost(rs.getBigDecimal("property_cost"));
+            dto.setPropertyDescription(rs.getString("property_description"));
+            dto.setPropertyPostalCode(rs.getString("property_postal_code"));
+            dto.setPropertyHouseNumber(rs.getString("property_house_number"));
+            dto.setPropertyHouseLetter(rs.getString("property_house_letter"));
+            dto.setPropertyBuildingNumber(rs.getString("property_building_number"));
+            dto.setPropertyApartmentNumber(rs.getString("property_apartment_number"));
+            dto.setCountryName(rs.getString("country_name"));
+            dto.setRegionName(rs.getString("region_name"));
+            dto.setCityName(rs.getString("city_name"));
+            dto.setDistrictName(rs.getString("district_name"));
+            dto.setStreetName(rs.getString("street_name"));
+            dto.setPropertyTypeName(rs.getString("property_type_name"));
+            dto.setDealTypeName(rs.getString("deal_type_name"));
+            return dto;
+        }
+    }
+}
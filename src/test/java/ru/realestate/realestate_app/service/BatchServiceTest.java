@@ -0,0 +1,132 @@
+package ru.realestate.realestate_app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import ru.realestate.realestate_app.cache.ClientDuplicateIndex;
+import ru.realestate.realestate_app.cache.ClientDuplicateIndex.Candidate;
+import ru.realestate.realestate_app.dao.ClientDao;
+import ru.realestate.realestate_app.dao.DealDao;
+import ru.realestate.realestate_app.dao.PaymentDao;
+import ru.realestate.realestate_app.dao.PropertyDao;
+import ru.realestate.realestate_app.dao.RealtorDao;
+import ru.realestate.realestate_app.dao.reference.DealTypeDao;
+import ru.realestate.realestate_app.dao.reference.PropertyTypeDao;
+import ru.realestate.realestate_app.model.Client;
+import ru.realestate.realestate_app.model.dto.BatchRequest;
+import ru.realestate.realestate_app.model.dto.BatchResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchServiceTest {
+
+    private final ClientDao clientDao = mock(ClientDao.class);
+    private final ClientDuplicateIndex clientDuplicateIndex = mock(ClientDuplicateIndex.class);
+    private final BatchService batchService = new BatchService(
+        new StubTransactionManager(), new ObjectMapper(),
+        Validation.buildDefaultValidatorFactory().getValidator(), 200,
+        new ClientService(clientDao, mock(DealDao.class), clientDuplicateIndex, 0.5, 0.8),
+        null, null, null, null,
+        clientDao, mock(RealtorDao.class), mock(PropertyDao.class), mock(DealDao.class), mock(PaymentDao.class),
+        mock(DealTypeDao.class), mock(PropertyTypeDao.class));
+
+    @Test
+    void committedBatchUpdatesIndex() {
+        when(clientDao.save(any())).thenReturn(42L);
+
+        BatchResponse response = batchService.execute(batch(createClient()));
+
+        assertThat(response.isCommitted()).isTrue();
+        verify(clientDuplicateIndex).put(eq(42L), any(Client.class));
+    }
+
+    @Test
+    void rolledBackBatchLeavesIndexUntouched() {
+        when(clientDao.save(any())).thenReturn(42L);
+        BatchRequest.Operation invalid = new BatchRequest.Operation();
+        invalid.setAction("update");
+        invalid.setEntity("clients");
+
+        BatchResponse response = batchService.execute(batch(createClient(), invalid));
+
+        assertThat(response.isCommitted()).isFalse();
+        verify(clientDao).save(any());
+        verify(clientDuplicateIndex, never()).put(any(), any());
+    }
+
+    @Test
+    void possibleDuplicateIsCreatedOnlyWithAllowDuplicates() {
+        Client existing = new Client();
+        existing.setIdClient(7L);
+        when(clientDuplicateIndex.isLoaded()).thenReturn(true);
+        when(clientDuplicateIndex.findCandidates(any(), any(), any(), any(), any(), any(), anyDouble(), anyInt()))
+            .thenReturn(List.of(new Candidate(7L, 0.95, List.of("phone", "lastName"))));
+        when(clientDao.findByIds(List.of(7L))).thenReturn(List.of(existing));
+        when(clientDao.save(any())).thenReturn(42L);
+        BatchRequest.Operation allowed = createClient();
+        allowed.setAllowDuplicates(true);
+
+        BatchRequest request = batch(createClient(), allowed);
+        request.setTransactional(false);
+        BatchResponse response = batchService.execute(request);
+
+        assertThat(response.getResults())
+            .extracting(BatchResponse.OperationResult::getStatus)
+            .containsExactly(422, 201);
+    }
+
+    private static BatchRequest.Operation createClient() {
+        BatchRequest.Operation operation = new BatchRequest.Operation();
+        operation.setAction("create");
+        operation.setEntity("clients");
+        operation.setBody(Map.of("firstName", "Иван", "lastName", "Петров",
+            "phone", "+79001234567", "email", "ivan@example.com"));
+        return operation;
+    }
+
+    private static BatchRequest batch(BatchRequest.Operation... operations) {
+        BatchRequest request = new BatchRequest();
+        request.setTransactional(true);
+        request.setOperations(new ArrayList<>(List.of(operations)));
+        return request;
+    }
+
+    /**
+     * Менеджер транзакций без источника данных: только жизненный цикл и синхронизации
+     */
+    private static class StubTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
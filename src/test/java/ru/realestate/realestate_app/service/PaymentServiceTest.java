@@ -0,0 +1,56 @@
+package ru.realestate.realestate_app.service;
+
+import org.junit.jupiter.api.Test;
+
+import ru.realestate.realestate_app.exception.ValidationException;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentServiceTest {
+
+    @Test
+    void remainderKopecksGoToFirstPayments() {
+        List<BigDecimal> amounts = PaymentService.splitAmount(new BigDecimal("100.00"), 3);
+
+        assertThat(amounts).containsExactly(new BigDecimal("33.34"), new BigDecimal("33.33"),
+                                            new BigDecimal("33.33"));
+        assertThat(sum(amounts)).isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    void singleInstallmentIsWholeAmount() {
+        List<BigDecimal> amounts = PaymentService.splitAmount(new BigDecimal("1234567.8912"), 1);
+
+        assertThat(amounts).hasSize(1);
+        assertThat(amounts.get(0)).isEqualByComparingTo("1234567.8912");
+    }
+
+    @Test
+    void nonDivisibleAmountKeepsTotalToTheLastFractionOfKopeck() {
+        BigDecimal total = new BigDecimal("1000000.0175");
+
+        List<BigDecimal> amounts = PaymentService.splitAmount(total, 7);
+
+        // 100000001 копейка на 7 платежей: 14285714 с остатком 3
+        assertThat(amounts).hasSize(7);
+        assertThat(amounts.subList(0, 3)).allMatch(amount -> amount.compareTo(new BigDecimal("142857.15")) == 0);
+        assertThat(amounts.subList(3, 6)).allMatch(amount -> amount.compareTo(new BigDecimal("142857.14")) == 0);
+        // Доли копейки остаются в последнем платеже
+        assertThat(amounts.get(6)).isEqualByComparingTo("142857.1475");
+        assertThat(sum(amounts)).isEqualByComparingTo(total);
+    }
+
+    @Test
+    void lessThanOneKopeckPerPaymentIsRejected() {
+        assertThatThrownBy(() -> PaymentService.splitAmount(new BigDecimal("0.05"), 6))
+            .isInstanceOf(ValidationException.class);
+    }
+
+    private static BigDecimal sum(List<BigDecimal> amounts) {
+        return amounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,35 @@
+package ru.realestate.realestate_app.service;
+
+import org.junit.jupiter.api.Test;
+
+import ru.realestate.realestate_app.dao.PropertyDao;
+import ru.realestate.realestate_app.exception.ValidationException;
+import ru.realestate.realestate_app.model.Property;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PropertyServiceTest {
+
+    private final PropertyDao propertyDao = mock(PropertyDao.class);
+    private final PropertyService propertyService = new PropertyService(propertyDao, null, null, null);
+
+    @Test
+    void explicitNullAddressReferenceIsRejected() {
+        when(propertyDao.findById(1L)).thenReturn(new Property());
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("idCountry", null);
+
+        assertThatThrownBy(() -> propertyService.update(1L, updates))
+            .isInstanceOf(ValidationException.class)
+            .hasMessageContaining("idCountry");
+        verify(propertyDao, never()).update(any(), any());
+    }
+}
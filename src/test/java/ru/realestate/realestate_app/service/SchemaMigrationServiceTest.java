@@ -0,0 +1,69 @@
+package ru.realestate.realestate_app.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import ru.realestate.realestate_app.dao.SchemaDao;
+import ru.realestate.realestate_app.dao.SchemaDao.AppliedMigration;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SchemaMigrationServiceTest {
+
+    private final SchemaDao schemaDao = mock(SchemaDao.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    @Test
+    void changedAppliedScriptFailsStartup() {
+        when(schemaDao.findAppliedMigrations())
+            .thenReturn(List.of(new AppliedMigration(1, "base_schema", 0)));
+        SchemaMigrationService service = new SchemaMigrationService(schemaDao, transactionManager, "migrate", false);
+
+        assertThatThrownBy(service::afterPropertiesSet)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("V1__base_schema");
+        verify(schemaDao, never()).executeScript(any());
+    }
+
+    @Test
+    void unavailableDatabaseFailsStartup() {
+        when(schemaDao.versionTableExists()).thenThrow(new IllegalStateException("Connection refused"));
+        SchemaMigrationService service = new SchemaMigrationService(schemaDao, transactionManager, "verify", false);
+
+        assertThatThrownBy(service::afterPropertiesSet)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("проверить схему");
+    }
+
+    @Test
+    void maintenanceMigrationRequiresDeclaredWindow() {
+        // Применены V1-V3, следующая - перестройка таблиц V4
+        when(schemaDao.isApplied(anyInt())).thenAnswer(invocation -> (int) invocation.getArgument(0) < 4);
+        SchemaMigrationService service = new SchemaMigrationService(schemaDao, transactionManager, "migrate", false);
+
+        assertThatThrownBy(service::migrate)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("V4__monthly_partitioning")
+            .hasMessageContaining("app.schema.maintenance-window=true");
+        verify(schemaDao, never()).executeScript(any());
+    }
+
+    @Test
+    void maintenanceMigrationIsAppliedInDeclaredWindow() {
+        when(schemaDao.isApplied(anyInt())).thenAnswer(invocation -> (int) invocation.getArgument(0) != 4);
+        SchemaMigrationService service = new SchemaMigrationService(schemaDao, transactionManager, "migrate", true);
+
+        service.migrate();
+
+        verify(schemaDao, times(1)).executeScript(any());
+    }
+}